@@ -0,0 +1,71 @@
+package com.mayday.crawler.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 按主机自适应并发配置（AIMD：加性增、乘性减）
+ * <p>
+ * 单主机并发上限取 crawler.http-client.max-concurrency-per-host，请求间隔初值取任务的 requestInterval。
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "crawler.adaptive")
+public class AdaptiveConcurrencyConfig
+{
+    /**
+     * 是否启用自适应调节；关闭时按固定并发与固定间隔调度（仍遵守 Retry-After）
+     */
+    private boolean enabled = true;
+
+    /**
+     * 单主机初始并发数（不超过单主机并发上限）
+     */
+    private int initialLimit = 1;
+
+    /**
+     * 每个成功窗口（成功数达到当前并发数）增加的并发数
+     */
+    private int increaseStep = 1;
+
+    /**
+     * 拥塞时并发数与请求间隔的乘性调整系数（0-1，并发数乘以该值，间隔除以该值）
+     */
+    private double decreaseFactor = 0.5;
+
+    /**
+     * 每个成功窗口缩短的请求间隔（毫秒）
+     */
+    private long delayStepMillis = 100;
+
+    /**
+     * 请求间隔下限（毫秒）；任务遵守 robots.txt 时以 Crawl-delay 为准
+     */
+    private long minDelayMillis = 100;
+
+    /**
+     * 请求间隔上限（毫秒）
+     */
+    private long maxDelayMillis = 60000;
+
+    /**
+     * 响应延迟超过基线的倍数时视为拥塞
+     */
+    private double latencyThreshold = 3.0;
+
+    /**
+     * 响应延迟的指数滑动平均系数（0-1）
+     */
+    private double ewmaAlpha = 0.3;
+
+    /**
+     * 两次乘性减之间的最小间隔（毫秒），避免同一批在途请求的连续失败把并发压到底
+     */
+    private long decreaseCooldownMillis = 2000;
+
+    /**
+     * Retry-After 的最长遵守时长（秒）
+     */
+    private int maxRetryAfterSeconds = 300;
+}
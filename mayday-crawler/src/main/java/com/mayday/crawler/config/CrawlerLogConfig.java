@@ -0,0 +1,35 @@
+package com.mayday.crawler.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 爬虫任务日志写入配置
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "crawler.log")
+public class CrawlerLogConfig
+{
+    /**
+     * 日志环形缓冲区容量
+     */
+    private int bufferSize = 4096;
+    
+    /**
+     * 单批写入的最大条数
+     */
+    private int batchSize = 200;
+    
+    /**
+     * 后台写入间隔（毫秒），同一间隔内重复的日志会被合并
+     */
+    private long flushIntervalMs = 1000;
+    
+    /**
+     * 缓冲区满时的丢弃策略：
+     * DROP_OLDEST-丢弃最旧的日志（默认） DROP_NEWEST-丢弃新日志 KEEP_ERRORS-优先保留ERROR日志
+     */
+    private String dropPolicy = "DROP_OLDEST";
+}
@@ -0,0 +1,29 @@
+package com.mayday.crawler.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * URL去重配置
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "crawler.dedup")
+public class DedupConfig
+{
+    /**
+     * 去重模式：BLOOM-可扩展布隆过滤器（默认，内存占用小，极少量误判） EXACT-精确集合
+     */
+    private String mode = "BLOOM";
+    
+    /**
+     * 布隆过滤器目标误判率
+     */
+    private double falsePositiveRate = 0.001;
+    
+    /**
+     * 任务未配置最大URL数时的默认值
+     */
+    private int defaultMaxUrls = 10000;
+}
@@ -0,0 +1,50 @@
+package com.mayday.crawler.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 分布式爬取配置
+ * 开启后本节点会加入其它节点发起的分布式任务（任务需勾选"分布式执行"）
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "crawler.distributed")
+public class DistributedCrawlConfig
+{
+    /**
+     * 是否启用分布式执行（关闭时分布式任务退化为单机执行）
+     */
+    private boolean enabled = false;
+    
+    /**
+     * 节点标识，为空时使用 主机名:进程号
+     */
+    private String nodeId;
+    
+    /**
+     * Redis 键前缀
+     */
+    private String keyPrefix = "mayday:crawler:";
+    
+    /**
+     * 每次从 Redis 租用的URL条数
+     */
+    private int leaseSize = 50;
+    
+    /**
+     * 租约超时（秒），超时未回报的URL由其它节点重新租用（节点宕机时回收）
+     */
+    private int leaseTimeoutSeconds = 600;
+    
+    /**
+     * 新发现URL批量写入 Redis 的条数阈值
+     */
+    private int offerBatchSize = 100;
+    
+    /**
+     * 节点轮询间隔（毫秒）：发现新任务、读取停止/暂停信号、同步进度
+     */
+    private long pollIntervalMs = 1000;
+}
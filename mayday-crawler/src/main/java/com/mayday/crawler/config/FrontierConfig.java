@@ -0,0 +1,30 @@
+package com.mayday.crawler.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 爬取边界（URL队列）配置
+ * 控制 crawler_url_queue 的批量写入、租约大小与检查点刷新
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "crawler.frontier")
+public class FrontierConfig
+{
+    /**
+     * 新发现URL批量入库的条数阈值
+     */
+    private int insertBatchSize = 200;
+    
+    /**
+     * 每次从队列表租用的URL条数
+     */
+    private int leaseSize = 50;
+    
+    /**
+     * 状态检查点批量回写的条数阈值
+     */
+    private int checkpointBatchSize = 100;
+}
@@ -0,0 +1,32 @@
+package com.mayday.crawler.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 页面解析内存配置
+ * <p>
+ * 不超过 streamingThresholdBytes 的响应照常构建完整 DOM；更大的响应改为流式解析：边读边统计页面特征，
+ * 只保留链接、标题、图片及卡片/正文容器子树，其余子树处理完即丢弃，保留部分受 maxRetainedBytes 限制。
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "crawler.html-parse")
+public class HtmlParseConfig
+{
+    /**
+     * 单个页面响应体上限（字节），超出部分截断
+     */
+    private int maxBodyBytes = 10 * 1024 * 1024;
+
+    /**
+     * 响应体超过该大小时改为流式解析（字节）；0 表示始终构建完整 DOM
+     */
+    private int streamingThresholdBytes = 1024 * 1024;
+
+    /**
+     * 流式解析时保留的 DOM 估算大小上限（字节），正文子树与链接/图片等小元素各自计算，超出后不再保留新的内容
+     */
+    private int maxRetainedBytes = 2 * 1024 * 1024;
+}
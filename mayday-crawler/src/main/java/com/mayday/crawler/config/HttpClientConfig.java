@@ -28,6 +28,11 @@ public class HttpClientConfig
      */
     private int maxConcurrency = 30;
     
+    /**
+     * 单个主机的最大并发请求数
+     */
+    private int maxConcurrencyPerHost = 2;
+    
     /**
      * 图片下载最大并发数
      */
@@ -0,0 +1,31 @@
+package com.mayday.crawler.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 图片文件头探测配置
+ * <p>
+ * 下载时从响应流开头识别格式与宽高，尺寸过小的图片（图标、占位图、跟踪像素）读完首块即中止，不再整图下载。
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "crawler.image-probe")
+public class ImageProbeConfig
+{
+    /**
+     * 最小宽度（像素），宽度小于该值的图片不保存；0 表示不限制
+     */
+    private int minWidth = 50;
+    
+    /**
+     * 最小高度（像素），高度小于该值的图片不保存；0 表示不限制
+     */
+    private int minHeight = 50;
+    
+    /**
+     * 探测尺寸时最多读取的字节数（JPEG 的帧头可能位于较大的 EXIF/ICC 段之后），不超过 64KB
+     */
+    private int maxProbeBytes = 64 * 1024;
+}
@@ -0,0 +1,45 @@
+package com.mayday.crawler.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 图片缩略图（渲染副本）配置
+ * <p>
+ * 封面网格、门户列表等只需小图的页面改为引用固定宽度的缩略图，缩略图与原图存放在同一目录，
+ * 首次请求时生成（可选下载完成后立即生成），响应头见 {@link ImageServingConfig}。
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "crawler.image-rendition")
+public class ImageRenditionConfig
+{
+    /**
+     * 是否启用缩略图；关闭后各页面直接引用原图
+     */
+    private boolean enabled = true;
+
+    /**
+     * 缩略图宽度档位（像素），请求其他宽度时取不小于它的最小档位
+     */
+    private List<Integer> widths = new ArrayList<>(List.of(200, 400, 800));
+
+    /**
+     * 是否在图片下载完成后立即生成全部档位（否则首次请求时生成）
+     */
+    private boolean eager = false;
+
+    /**
+     * JPEG 缩略图质量（0-1）
+     */
+    private float jpegQuality = 0.82f;
+
+    /**
+     * 同时生成缩略图的最大数量（解码原图占用内存较大），0 表示取 CPU 核数
+     */
+    private int maxConcurrentRenders = 0;
+}
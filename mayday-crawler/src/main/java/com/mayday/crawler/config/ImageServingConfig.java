@@ -0,0 +1,32 @@
+package com.mayday.crawler.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 爬虫图片访问配置（/crawler-images/**）
+ * <p>
+ * 内容寻址存储中的原图及其缩略图文件名即内容 MD5，地址不变内容就不变，按不可变资源长期缓存；
+ * 旧版按任务目录存放的图片使用较短的缓存时间。
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "crawler.image-serving")
+public class ImageServingConfig
+{
+    /**
+     * 内容寻址图片（含缩略图）的缓存时间（秒），默认一年，响应附带 immutable
+     */
+    private long immutableMaxAgeSeconds = 365L * 24 * 3600;
+
+    /**
+     * 非内容寻址图片的缓存时间（秒）
+     */
+    private long mutableMaxAgeSeconds = 24L * 3600;
+
+    /**
+     * 不小于该大小（字节）的文件交给容器以 sendfile 零拷贝发送，更小的文件直接写出响应更省开销
+     */
+    private long sendfileThreshold = 48 * 1024;
+}
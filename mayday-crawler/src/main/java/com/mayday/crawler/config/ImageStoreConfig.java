@@ -0,0 +1,49 @@
+package com.mayday.crawler.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 图片存储后端配置
+ * <p>
+ * file：每张图片一个文件（blobs/ab/cd/&lt;md5&gt;.&lt;ext&gt;），默认；
+ * packed：图片追加写入大段文件（packs/seg-NNNNNN.dat），内存索引记录 key → 段号/偏移/长度，
+ * 读取走内存映射，定期压缩回收已删除图片占用的空间。适合数百万张以上小图片的部署，避免 inode 与目录遍历压力。
+ * 切换后端后，已存入另一后端的图片仍可正常读取与删除。
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "crawler.image-store")
+public class ImageStoreConfig
+{
+    /**
+     * 新图片写入的后端：file / packed
+     */
+    private String backend = "file";
+
+    /**
+     * 单个段文件大小上限（字节），写满后新开一段；内存映射要求不超过 2GB
+     */
+    private long segmentMaxBytes = 1024L * 1024 * 1024;
+
+    /**
+     * 段内已删除数据占比达到该值时压缩（把存活图片搬到当前段后删除旧段）
+     */
+    private double compactDeadRatio = 0.5;
+
+    /**
+     * 压缩检查间隔（分钟），0 表示不自动压缩
+     */
+    private long compactIntervalMinutes = 60;
+
+    /**
+     * 写入/删除累计达到该次数时保存一次索引快照（启动时从快照加载后只需重放之后的记录）
+     */
+    private int snapshotEveryOps = 10000;
+
+    /**
+     * 每次写入后是否立即刷盘；关闭时在保存索引快照前刷盘
+     */
+    private boolean fsync = false;
+}
@@ -0,0 +1,29 @@
+package com.mayday.crawler.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 爬取结果异步批量持久化配置
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "crawler.persist")
+public class PersistenceConfig
+{
+    /**
+     * 每类实体写入队列的容量，队列满时抓取线程阻塞等待（背压）
+     */
+    private int queueCapacity = 2000;
+    
+    /**
+     * 单批写入的最大条数
+     */
+    private int batchSize = 200;
+    
+    /**
+     * 攒批的最长等待时间（毫秒），到时即使未满也写入
+     */
+    private long flushIntervalMs = 200;
+}
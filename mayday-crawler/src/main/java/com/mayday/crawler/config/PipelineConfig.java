@@ -0,0 +1,42 @@
+package com.mayday.crawler.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 分阶段爬取流水线配置
+ * <p>
+ * 抓取（请求并解析响应）→ 提取（页面判定、链接/文章/图片提取）→ 持久化（crawler.persist）→ 图片下载，
+ * 各阶段独立并发、有界队列，下游满时上游阻塞，背压最终传回抓取阶段。
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "crawler.pipeline")
+public class PipelineConfig
+{
+    /**
+     * 提取阶段的并发数（任务级），0 表示取 CPU 核数
+     */
+    private int extractConcurrency = 0;
+    
+    /**
+     * 提取阶段的队列容量（任务级，已抓取待提取的页面数），0 表示取抓取并发数的 2 倍
+     */
+    private int extractQueueCapacity = 0;
+    
+    /**
+     * 图片下载阶段的并发数（全局）
+     */
+    private int downloadConcurrency = 50;
+    
+    /**
+     * 图片下载阶段的队列容量（全局），队列满时提取阶段阻塞
+     */
+    private int downloadQueueCapacity = 2000;
+    
+    /**
+     * 任务结束时等待本任务剩余图片下载完成的最长时间（秒）
+     */
+    private int downloadAwaitSeconds = 300;
+}
@@ -0,0 +1,39 @@
+package com.mayday.crawler.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 代理池配置
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "crawler.proxy-pool")
+public class ProxyPoolConfig
+{
+    /**
+     * 全局代理快照的最长有效期（秒），代理配置变更时立即失效
+     */
+    private int refreshSeconds = 60;
+    
+    /**
+     * 连续失败多少次后隔离
+     */
+    private int failureThreshold = 3;
+    
+    /**
+     * 首次隔离时长（秒），再次隔离时翻倍
+     */
+    private int quarantineSeconds = 30;
+    
+    /**
+     * 隔离时长上限（秒）
+     */
+    private int maxQuarantineSeconds = 600;
+    
+    /**
+     * 成功率与延迟的指数滑动平均系数（0-1，越大越看重最近的请求）
+     */
+    private double ewmaAlpha = 0.3;
+}
@@ -0,0 +1,44 @@
+package com.mayday.crawler.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * robots.txt 与 sitemap 配置
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "crawler.sitemap")
+public class SitemapConfig
+{
+    /**
+     * 匹配 robots.txt 分组时使用的 User-agent 标识（未匹配时使用 * 分组）
+     */
+    private String robotsAgent = "mayday-crawler";
+    
+    /**
+     * robots.txt 解析结果缓存时长（分钟）
+     */
+    private int robotsTtlMinutes = 60;
+    
+    /**
+     * sitemap 索引展开结果缓存时长（分钟）
+     */
+    private int sitemapTtlMinutes = 60;
+    
+    /**
+     * 每个站点最多读取的 sitemap 文件数（含索引展开后的子 sitemap）
+     */
+    private int maxSitemapsPerHost = 50;
+    
+    /**
+     * sitemap 索引最大嵌套层数
+     */
+    private int maxIndexDepth = 3;
+    
+    /**
+     * 拉取 robots.txt / sitemap 的超时（毫秒）
+     */
+    private int fetchTimeout = 15000;
+}
@@ -0,0 +1,32 @@
+package com.mayday.crawler.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * URL分类配置（列表页/详情页/文章链接判定）
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "crawler.classify")
+public class UrlClassifyConfig
+{
+    /**
+     * 每个任务缓存的URL分类结果数上限，超出后整体清空
+     */
+    private int cacheSize = 50000;
+    
+    /**
+     * 全局追加的排除字面量（URL包含即不视为文章链接），与任务级配置合并
+     */
+    private List<String> extraExcludePatterns = new ArrayList<>();
+    
+    /**
+     * 全局追加的文章链接字面量（URL包含即视为文章链接），与任务级配置合并
+     */
+    private List<String> extraArticlePatterns = new ArrayList<>();
+}
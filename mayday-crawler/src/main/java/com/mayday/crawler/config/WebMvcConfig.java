@@ -1,48 +1,32 @@
 package com.mayday.crawler.config;
 
-import org.springframework.beans.factory.annotation.Value;
+import com.mayday.crawler.executor.store.ImageServingHandler;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
+import org.springframework.core.Ordered;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.handler.SimpleUrlHandlerMapping;
 
-import java.nio.file.Paths;
+import java.util.Map;
 
 /**
  * Web MVC配置类
- * 用于配置静态资源访问
+ * 用于配置爬虫图片访问
  */
 @Configuration
 public class WebMvcConfig implements WebMvcConfigurer
 {
     /**
-     * 图片存储根目录（兼容两种配置键）
-     * - crawler.image.base-path
-     * - crawler.image-base-path
+     * 爬虫图片访问映射
+     * 注意：由于 context-path 是 /api，所以实际访问路径是 /api/crawler-images/**
+     * 原图与缩略图均由 {@link ImageServingHandler} 处理（ETag/304、Range、长期缓存、sendfile）
      */
-    @Value("${crawler.image.base-path:${crawler.image-base-path:./data/crawler-images}}")
-    private String imageBasePath;
-
-    @Override
-    public void addResourceHandlers(ResourceHandlerRegistry registry)
+    @Bean
+    public SimpleUrlHandlerMapping crawlerImageHandlerMapping(ImageServingHandler imageServingHandler)
     {
-        // 配置爬虫图片静态资源访问路径
-        // 注意：由于 context-path 是 /api，所以实际访问路径是 /api/crawler-images/**
-        // 但这里配置的是相对于 context-path 的路径，所以使用 /crawler-images/**
-        String absolutePath = Paths.get(imageBasePath).toAbsolutePath().normalize().toString();
-        // Windows路径需要转换为URL格式（将反斜杠转换为正斜杠）
-        String urlPath = absolutePath.replace("\\", "/");
-        // 确保路径以 / 结尾
-        if (!urlPath.endsWith("/"))
-        {
-            urlPath += "/";
-        }
-        
-        System.out.println("====== [WebMvcConfig] 配置静态资源映射 ======");
-        System.out.println("映射路径: /crawler-images/**");
-        System.out.println("物理路径: file:" + urlPath);
-        System.out.println("==========================================");
-        
-        registry.addResourceHandler("/crawler-images/**")
-                .addResourceLocations("file:" + urlPath);
+        SimpleUrlHandlerMapping mapping = new SimpleUrlHandlerMapping(Map.of("/crawler-images/**", imageServingHandler));
+        // 先于静态资源映射（LOWEST_PRECEDENCE - 1）匹配
+        mapping.setOrder(Ordered.LOWEST_PRECEDENCE - 2);
+        return mapping;
     }
 }
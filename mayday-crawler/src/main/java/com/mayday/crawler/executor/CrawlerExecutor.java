@@ -1,14 +1,53 @@
 package com.mayday.crawler.executor;
 
+import com.mayday.crawler.executor.frontier.CrawlFrontier;
+import com.mayday.crawler.executor.frontier.CrawlFrontierFactory;
+import com.mayday.crawler.executor.frontier.UrlInfo;
+import com.mayday.crawler.executor.frontier.UrlPriorityScorer;
+import com.mayday.crawler.executor.scheduler.HostPolitenessScheduler;
+import com.mayday.crawler.executor.dedup.UrlSeenFilter;
+import com.mayday.crawler.executor.dedup.UrlSeenFilterFactory;
+import com.mayday.crawler.executor.persist.CrawlerPersistencePipeline;
+import com.mayday.crawler.executor.pipeline.PipelineStage;
+import com.mayday.crawler.executor.pipeline.StageMetrics;
+import com.mayday.crawler.executor.download.AsyncImageDownloader;
+import com.mayday.crawler.executor.download.ImageHeaderProbe;
+import com.mayday.crawler.executor.download.ImageRejectedException;
+import com.mayday.crawler.executor.logsink.CrawlerLogSink;
+import com.mayday.crawler.executor.progress.TaskProgress;
+import com.mayday.crawler.executor.progress.TaskProgressAggregator;
+import com.mayday.crawler.executor.fetch.FetchResponse;
+import com.mayday.crawler.executor.fetch.HttpFetcher;
+import com.mayday.crawler.executor.store.ImageBlobStore;
+import com.mayday.crawler.executor.store.ImageRenditionService;
+import com.mayday.crawler.executor.classify.UrlClassifier;
+import com.mayday.crawler.executor.classify.UrlClassifierFactory;
+import com.mayday.crawler.executor.parse.HtmlPageParser;
+import com.mayday.crawler.executor.parse.HtmlParseMetrics;
+import com.mayday.crawler.executor.parse.PageFeatureExtractor;
+import com.mayday.crawler.executor.parse.PageFeatures;
+import com.mayday.crawler.executor.parse.ParseRuleSet;
+import com.mayday.crawler.executor.parse.ParseRuleSetFactory;
+import com.mayday.crawler.executor.proxy.ProxyEndpoint;
+import com.mayday.crawler.executor.proxy.ProxyPool;
+import com.mayday.crawler.executor.sitemap.RobotsRules;
+import com.mayday.crawler.executor.sitemap.SiteMetadataCache;
+import com.mayday.crawler.executor.sitemap.SitemapEntry;
+import com.mayday.crawler.executor.sitemap.SitemapSeeder;
+import com.mayday.crawler.executor.fetch.FetchProxy;
+import com.mayday.crawler.executor.distributed.DistributedCrawlCoordinator;
+import com.mayday.crawler.config.AdaptiveConcurrencyConfig;
+import com.mayday.crawler.config.DedupConfig;
+import com.mayday.crawler.config.HttpClientConfig;
+import com.mayday.crawler.config.PipelineConfig;
 import com.mayday.crawler.modl.entity.CrawlerArticleEntity;
 import com.mayday.crawler.modl.entity.CrawlerImageEntity;
-import com.mayday.crawler.modl.entity.CrawlerLogEntity;
 import com.mayday.crawler.modl.entity.CrawlerTaskEntity;
 import com.mayday.crawler.service.ICrawlerArticleService;
 import com.mayday.crawler.service.ICrawlerImageService;
-import com.mayday.crawler.service.ICrawlerLogService;
-import com.mayday.crawler.service.ICrawlerProxyService;
 import com.mayday.crawler.service.ICrawlerTaskService;
+import com.mayday.crawler.service.ICrawlerUrlQueueService;
+import cn.hutool.core.date.DateUtil;
 import cn.hutool.crypto.digest.DigestUtil;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
@@ -16,26 +55,21 @@ import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 import org.jsoup.select.Elements;
-import org.springframework.beans.factory.annotation.Value;
+import org.jsoup.select.Evaluator;
+import org.jsoup.select.QueryParser;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
-import java.net.Authenticator;
 import java.net.InetSocketAddress;
-import java.net.PasswordAuthentication;
 import java.net.Proxy;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardOpenOption;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
 import javax.net.ssl.*;
 import java.security.cert.X509Certificate;
 import org.slf4j.Logger;
@@ -52,9 +86,28 @@ public class CrawlerExecutor
     private final ICrawlerTaskService taskService;
     private final ICrawlerArticleService articleService;
     private final ICrawlerImageService imageService;
-    private final ICrawlerLogService logService;
-    private final ICrawlerProxyService proxyService;
+    private final ProxyPool proxyPool;
     private final SsePublisher ssePublisher;
+    private final ICrawlerUrlQueueService urlQueueService;
+    private final CrawlFrontierFactory frontierFactory;
+    private final HttpClientConfig httpClientConfig;
+    private final UrlSeenFilterFactory seenFilterFactory;
+    private final DedupConfig dedupConfig;
+    private final CrawlerPersistencePipeline persistence;
+    private final CrawlerLogSink logSink;
+    private final TaskProgressAggregator progressAggregator;
+    private final HttpFetcher httpFetcher;
+    private final ImageBlobStore imageBlobStore;
+    private final UrlClassifierFactory classifierFactory;
+    private final SiteMetadataCache siteMetadataCache;
+    private final SitemapSeeder sitemapSeeder;
+    private final DistributedCrawlCoordinator distributedCoordinator;
+    private final AdaptiveConcurrencyConfig adaptiveConfig;
+    private final PipelineConfig pipelineConfig;
+    private final AsyncImageDownloader imageDownloader;
+    private final ImageRenditionService renditionService;
+    private final ParseRuleSetFactory parseRuleSetFactory;
+    private final HtmlPageParser htmlPageParser;
     private final ObjectMapper objectMapper = new ObjectMapper();
     
     /**
@@ -63,34 +116,99 @@ public class CrawlerExecutor
     private static final String SSE_TOPIC_TASK_STATUS = "crawler-task-status";
 
     /**
-     * 图片存储根目录（兼容两种配置键）
-     * - crawler.image.base-path
-     * - crawler.image-base-path
+     * 单张图片大小上限（50MB）
      */
-    @Value("${crawler.image.base-path:${crawler.image-base-path:./data/crawler-images}}")
-    private String imageBasePath;
+    private static final int MAX_IMAGE_BYTES = 50 * 1024 * 1024;
+
+    /**
+     * 恢复执行时重建去重集合每页读取的URL数
+     */
+    private static final int RESUME_PAGE_SIZE = 1000;
+
+    /**
+     * 未关联文章时的文章ID（仅提取图片的任务）
+     */
+    private static final CompletableFuture<Long> NO_ARTICLE = CompletableFuture.completedFuture(null);
+
+    /**
+     * 未配置任何选择器时详情页的默认正文容器
+     */
+    private static final Evaluator DEFAULT_CONTENT_ROOT =
+            QueryParser.parse(PageFeatures.DEFAULT_CONTENT_ROOT);
+
     
     public CrawlerExecutor(@Lazy ICrawlerTaskService taskService,
                           ICrawlerArticleService articleService,
                           ICrawlerImageService imageService,
-                          ICrawlerLogService logService,
-                          ICrawlerProxyService proxyService,
-                          SsePublisher ssePublisher)
+                          ProxyPool proxyPool,
+                          SsePublisher ssePublisher,
+                          ICrawlerUrlQueueService urlQueueService,
+                          CrawlFrontierFactory frontierFactory,
+                          HttpClientConfig httpClientConfig,
+                          UrlSeenFilterFactory seenFilterFactory,
+                          DedupConfig dedupConfig,
+                          CrawlerPersistencePipeline persistence,
+                          CrawlerLogSink logSink,
+                          TaskProgressAggregator progressAggregator,
+                          HttpFetcher httpFetcher,
+                          ImageBlobStore imageBlobStore,
+                          UrlClassifierFactory classifierFactory,
+                          SiteMetadataCache siteMetadataCache,
+                          SitemapSeeder sitemapSeeder,
+                          DistributedCrawlCoordinator distributedCoordinator,
+                          AdaptiveConcurrencyConfig adaptiveConfig,
+                          PipelineConfig pipelineConfig,
+                          AsyncImageDownloader imageDownloader,
+                          ImageRenditionService renditionService,
+                          ParseRuleSetFactory parseRuleSetFactory,
+                          HtmlPageParser htmlPageParser)
     {
         this.taskService = taskService;
         this.articleService = articleService;
         this.imageService = imageService;
-        this.logService = logService;
-        this.proxyService = proxyService;
+        this.proxyPool = proxyPool;
         this.ssePublisher = ssePublisher;
+        this.urlQueueService = urlQueueService;
+        this.frontierFactory = frontierFactory;
+        this.httpClientConfig = httpClientConfig;
+        this.seenFilterFactory = seenFilterFactory;
+        this.dedupConfig = dedupConfig;
+        this.persistence = persistence;
+        this.logSink = logSink;
+        this.progressAggregator = progressAggregator;
+        this.httpFetcher = httpFetcher;
+        this.imageBlobStore = imageBlobStore;
+        this.classifierFactory = classifierFactory;
+        this.siteMetadataCache = siteMetadataCache;
+        this.sitemapSeeder = sitemapSeeder;
+        this.distributedCoordinator = distributedCoordinator;
+        this.adaptiveConfig = adaptiveConfig;
+        this.pipelineConfig = pipelineConfig;
+        this.imageDownloader = imageDownloader;
+        this.renditionService = renditionService;
+        this.parseRuleSetFactory = parseRuleSetFactory;
+        this.htmlPageParser = htmlPageParser;
     }
     
     // 任务执行状态管理
     private final Map<Long, Boolean> runningTasks = new ConcurrentHashMap<>();
     private final Map<Long, Boolean> proxyDecisionLoggedTasks = new ConcurrentHashMap<>();
     private final Map<Long, Integer> listPagesProcessed = new ConcurrentHashMap<>();
-    // 文章ID -> 图片存储目录名 缓存
-    private final Map<Long, String> articleImageFolderCache = new ConcurrentHashMap<>();
+    // 因暂停而停止的任务（结束时状态置为 PAUSED 而非 STOPPED）
+    private final Set<Long> pausedTasks = ConcurrentHashMap.newKeySet();
+    // 任务调度循环的完成/唤醒信号队列（工作线程完成、停止或暂停时投递）
+    private final Map<Long, BlockingQueue<Object>> dispatchSignals = new ConcurrentHashMap<>();
+    // 运行中任务的URL去重过滤器（用于内存统计）
+    private final Map<Long, UrlSeenFilter> taskSeenFilters = new ConcurrentHashMap<>();
+    // 运行中任务的URL分类器（规则按任务编译一次，分类结果按URL缓存）
+    private final Map<Long, UrlClassifier> taskClassifiers = new ConcurrentHashMap<>();
+    // 运行中任务的解析规则集（规则与任务选择器按任务编译一次，命中率按规则累计）
+    private final Map<Long, ParseRuleSet> taskRuleSets = new ConcurrentHashMap<>();
+    // 运行中任务的按主机调度器（工作线程回报请求结果，用于自适应并发与状态展示）
+    private final Map<Long, HostPolitenessScheduler> taskSchedulers = new ConcurrentHashMap<>();
+    // 运行中任务的流水线阶段（抓取指标与提取阶段）
+    private final Map<Long, TaskPipeline> taskPipelines = new ConcurrentHashMap<>();
+    private static final Object WAKE_UP = new Object();
     
     // User-Agent池（用于反爬虫）
     private static final String[] USER_AGENTS = {
@@ -106,16 +224,29 @@ public class CrawlerExecutor
     private final Random random = new Random();
     
     /**
-     * 异步执行爬虫任务
+     * 异步执行爬虫任务（全新执行）
      */
     @Async("crawlerTaskExecutor")
     public void executeTask(Long taskId)
+    {
+        executeTask(taskId, false);
+    }
+    
+    /**
+     * 异步执行爬虫任务
+     *
+     * @param taskId 任务ID
+     * @param resume 是否从 crawler_url_queue 中上次未完成的位置继续
+     */
+    @Async("crawlerTaskExecutor")
+    public void executeTask(Long taskId, boolean resume)
     {
         // 如果任务已在运行中，先清理旧状态（可能是异常退出导致的残留）
         if (runningTasks.containsKey(taskId))
         {
             log.warn("任务 {} 已在运行中，清理旧状态后重新启动", taskId);
             runningTasks.remove(taskId);
+            wakeUpDispatcher(taskId);
             // 等待一小段时间，确保旧任务完全停止
             try
             {
@@ -129,6 +260,33 @@ public class CrawlerExecutor
         }
         
         runningTasks.put(taskId, true);
+        runTask(taskId, resume, false);
+    }
+    
+    /**
+     * 加入其它节点发起的分布式任务（由 {@link com.mayday.crawler.executor.distributed.DistributedCrawlWorker} 调用）
+     * 与发起节点共用 Redis 中的URL队列与去重集合，不负责播种与任务状态更新
+     */
+    public void joinDistributedTask(Long taskId)
+    {
+        if (runningTasks.putIfAbsent(taskId, true) != null)
+        {
+            return;
+        }
+        runTask(taskId, true, true);
+    }
+    
+    /**
+     * 执行任务
+     *
+     * @param worker 是否以加入者身份执行分布式任务
+     */
+    private void runTask(Long taskId, boolean resume, boolean worker)
+    {
+        pausedTasks.remove(taskId);
+        CrawlFrontier urlQueue = null;
+        BlockingQueue<Object> completions = new LinkedBlockingQueue<>();
+        boolean distributed = worker;
         
         try
         {
@@ -138,41 +296,115 @@ public class CrawlerExecutor
                 log.error("任务 {} 不存在", taskId);
                 return;
             }
+            distributed = worker || distributedCoordinator.isDistributed(task);
+            if (worker && !distributedCoordinator.join(taskId))
+            {
+                return;
+            }
+            logSink.registerTask(task);
             
-            log.info("开始执行爬虫任务: {}", task.getTaskName());
-            addLog(taskId, "INFO", "任务开始执行", "任务开始执行");
+            if (worker)
+            {
+                log.info("节点 {} 加入分布式任务: {}", distributedCoordinator.nodeId(), task.getTaskName());
+                addLog(taskId, "INFO", "节点加入", String.format("节点 %s 加入分布式执行", distributedCoordinator.nodeId()));
+            }
+            else
+            {
+                log.info("开始执行爬虫任务: {}", task.getTaskName());
+                addLog(taskId, "INFO", "任务开始执行", "任务开始执行");
+            }
             
             // 解析起始URL
             List<String> startUrls = parseStartUrls(task.getStartUrls());
             if (startUrls.isEmpty())
             {
                 addLog(taskId, "ERROR", "起始URL为空", "起始URL为空，无法执行任务");
-                updateTaskStatus(taskId, "ERROR", "起始URL为空");
+                if (!worker)
+                {
+                    updateTaskStatus(taskId, "ERROR", "起始URL为空");
+                }
                 return;
             }
-            // 初始化统计
-            AtomicInteger totalUrls = new AtomicInteger(0);
-            AtomicInteger crawledUrls = new AtomicInteger(0);
-            AtomicInteger successCount = new AtomicInteger(0);
-            AtomicInteger errorCount = new AtomicInteger(0);
+            // 初始化统计（由进度汇总器定时落库并推送；加入者只在本地计数，由发起节点汇总落库）
+            TaskProgress progress = worker
+                    ? new TaskProgress(task.getId(), task.getTaskName(), task.getStartTime())
+                    : progressAggregator.register(task);
+            LongAdder totalUrls = progress.getTotalUrls();
+            LongAdder crawledUrls = progress.getCrawledUrls();
+            LongAdder successCount = progress.getSuccessCount();
+            LongAdder errorCount = progress.getErrorCount();
             
-            // URL队列和已访问集合（使用线程安全的集合）
-            Queue<UrlInfo> urlQueue = new ConcurrentLinkedQueue<>();
-            Set<String> visitedUrls = ConcurrentHashMap.newKeySet();
+            // 限制最大URL数量，防止无限循环（任务级配置）
+            int maxUrls = task.getMaxUrls() != null && task.getMaxUrls() > 0
+                    ? task.getMaxUrls() : dedupConfig.getDefaultMaxUrls();
             
-            // 添加起始URL到队列
-            for (String url : startUrls)
+            // URL队列和去重过滤器：单机任务持久化到 crawler_url_queue，分布式任务存放在 Redis
+            UrlSeenFilter visitedUrls;
+            boolean resumable;
+            if (distributed)
             {
-                urlQueue.offer(new UrlInfo(url, 0));
-                visitedUrls.add(normalizeUrl(url));
+                visitedUrls = distributedCoordinator.createSeenFilter(taskId, maxUrls);
+                resumable = worker || distributedCoordinator.start(taskId, resume);
+                urlQueue = distributedCoordinator.createFrontier(taskId);
+                distributedCoordinator.attach(taskId, progress, !worker);
             }
+            else
+            {
+                visitedUrls = seenFilterFactory.create(maxUrls);
+                resumable = resume && urlQueueService.hasUnfinished(taskId);
+                urlQueue = frontierFactory.create(taskId, resumable);
+            }
+            taskSeenFilters.put(taskId, visitedUrls);
+            taskClassifiers.put(taskId, classifierFactory.create(task));
+            taskRuleSets.put(taskId, parseRuleSetFactory.create(task));
             
-            totalUrls.set(urlQueue.size());
-            task.setTotalUrls(totalUrls.get());
-            taskService.updateById(task);
+            if (resumable && distributed)
+            {
+                // 分布式任务：队列、去重集合与汇总计数均保留在 Redis 中
+                if (!worker)
+                {
+                    addLog(taskId, "INFO", "任务恢复执行", "从 Redis 队列恢复分布式执行");
+                }
+            }
+            else if (resumable)
+            {
+                // 恢复执行：分页重建去重集合（不整表读入内存）并沿用上次的统计
+                urlQueueService.forEachUrl(taskId, RESUME_PAGE_SIZE, url -> visitedUrls.add(normalizeUrl(url)));
+                progress.restore(task.getTotalUrls() != null ? task.getTotalUrls() : (int) visitedUrls.size(),
+                        task.getCrawledUrls() != null ? task.getCrawledUrls() : 0,
+                        task.getSuccessCount() != null ? task.getSuccessCount() : 0,
+                        task.getErrorCount() != null ? task.getErrorCount() : 0);
+                addLog(taskId, "INFO", "任务恢复执行",
+                        String.format("从URL队列恢复执行，已入队: %d, 已爬取: %d", visitedUrls.size(), crawledUrls.intValue()));
+            }
+            else
+            {
+                // 添加起始URL到队列
+                for (String url : startUrls)
+                {
+                    urlQueue.offer(new UrlInfo(url, 0, null, null, UrlPriorityScorer.MAX));
+                    visitedUrls.add(normalizeUrl(url));
+                }
+                totalUrls.add(visitedUrls.size());
+                // 从 sitemap 播种（附带 lastmod）
+                if (task.getUseSitemap() != null && task.getUseSitemap() == 1)
+                {
+                    seedFromSitemap(task, extractBaseUrl(startUrls.getFirst()), urlQueue, visitedUrls, totalUrls, maxUrls);
+                }
+                urlQueue.flush();
+            }
             
-            // 立即推送任务开始状态（确保前端即时收到"运行中"状态）
-            publishTaskStatus(task, "RUNNING");
+            if (!worker)
+            {
+                if (!(distributed && resumable))
+                {
+                    task.setTotalUrls(totalUrls.intValue());
+                }
+                taskService.updateById(task);
+                
+                // 立即推送任务开始状态（确保前端即时收到"运行中"状态）
+                publishTaskStatus(task, "RUNNING");
+            }
             
             // 获取基础URL（用于判断是否在同一站点）
             String baseUrl = extractBaseUrl(startUrls.getFirst());
@@ -181,8 +413,6 @@ public class CrawlerExecutor
             int maxDepth = task.getMaxDepth() != null ? task.getMaxDepth() : 3;
             String scopeType = task.getScopeType() != null ? task.getScopeType() : "SITE";
             
-            // 限制最大URL数量，防止无限循环
-            int maxUrls = 10000; // 最大爬取URL数量
             AtomicInteger consecutiveFailures = new AtomicInteger(0); // 连续失败次数（线程安全）
             int maxConsecutiveFailures = 10; // 最大连续失败次数
             
@@ -190,21 +420,78 @@ public class CrawlerExecutor
             long taskStartTime = System.currentTimeMillis();
             
             // 使用虚拟线程池进行并发处理，提升爬取速度
-            int concurrency = 10; // 并发数
-            Semaphore semaphore = new Semaphore(concurrency);
+            int concurrency = Math.max(1, httpClientConfig.getMaxConcurrency()); // 全局并发数
+            int perHostConcurrency = Math.max(1, httpClientConfig.getMaxConcurrencyPerHost()); // 单主机并发数
             ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
-            List<Future<Boolean>> futures = new ArrayList<>();
+            dispatchSignals.put(taskId, completions);
+            
+            // 按主机礼貌调度：每个主机独立的请求间隔与并发上限，启用自适应时按请求结果动态调整
+            long requestInterval = task.getRequestInterval() != null ? task.getRequestInterval() : 1000;
+            long delayFloor = Math.min(requestInterval, adaptiveConfig.getMinDelayMillis());
+            boolean respectRobots = task.getRespectRobots() != null && task.getRespectRobots() == 1;
+            if (respectRobots)
+            {
+                // 站点声明的 Crawl-delay 大于任务配置的请求间隔时，以 Crawl-delay 为准，且自适应调整不低于该值
+                long crawlDelay = robotsFor(task, baseUrl).getCrawlDelayMs();
+                if (crawlDelay > requestInterval)
+                {
+                    addLog(taskId, "INFO", "遵守robots", String.format("robots.txt 声明 Crawl-delay: %dms，请求间隔由 %dms 调整为 %dms",
+                            crawlDelay, requestInterval, crawlDelay));
+                    requestInterval = crawlDelay;
+                }
+                delayFloor = Math.max(delayFloor, crawlDelay);
+            }
+            boolean randomInterval = task.getRandomInterval() != null && task.getRandomInterval() == 1;
+            HostPolitenessScheduler scheduler = new HostPolitenessScheduler(requestInterval, delayFloor, randomInterval,
+                    perHostConcurrency, adaptiveConfig.isEnabled() ? adaptiveConfig : null);
+            taskSchedulers.put(taskId, scheduler);
+            // 调度器内的缓冲上限，其余URL留在持久化队列中
+            int schedulerBufferSize = concurrency * 10;
             
-            log.info("任务 {} 开始执行，使用虚拟线程并发处理，并发数: {}", taskId, concurrency);
-            addLog(taskId, "INFO", "任务开始", String.format("开始执行爬虫任务，并发数: %d", concurrency));
+            log.info("任务 {} 开始执行，使用虚拟线程并发处理，并发数: {}，单主机并发数: {}", taskId, concurrency, perHostConcurrency);
+            addLog(taskId, "INFO", "任务开始", String.format("开始执行爬虫任务，并发数: %d，单主机并发数: %d，单主机请求间隔: %dms%s",
+                    concurrency, perHostConcurrency, requestInterval,
+                    adaptiveConfig.isEnabled() ? "（按主机响应自适应调整）" : ""));
             
-            // 并发处理URL队列
-            AtomicInteger activeTasks = new AtomicInteger(0);
+            // 分阶段流水线：抓取（调度循环派发的虚拟线程，按主机礼貌调度）→ 提取（任务级有界队列）
+            // → 持久化（批量写入队列）→ 图片下载（全局有界队列）；下游队列满时上游阻塞，背压传回抓取阶段
+            AtomicInteger activeTasks = new AtomicInteger(0); // 已派发、尚未处理完成的URL数（含提取阶段）
+            AtomicInteger fetching = new AtomicInteger(0); // 抓取阶段在途数
+            StageMetrics fetchMetrics = new StageMetrics("fetch", schedulerBufferSize, concurrency, scheduler::queuedCount);
+            CrawlFrontier pipelineFrontier = urlQueue;
+            int extractWorkers = pipelineConfig.getExtractConcurrency() > 0
+                    ? pipelineConfig.getExtractConcurrency() : Runtime.getRuntime().availableProcessors();
+            int extractCapacity = pipelineConfig.getExtractQueueCapacity() > 0
+                    ? pipelineConfig.getExtractQueueCapacity() : concurrency * 2;
+            PipelineStage<PageJob> extractStage = new PipelineStage<>("extract-" + taskId, extractCapacity, extractWorkers, job -> {
+                UrlInfo urlInfo = job.urlInfo();
+                try
+                {
+                    boolean success = processPage(task, urlInfo, job.page(), pipelineFrontier, visitedUrls, baseUrl, scopeType,
+                            maxDepth, totalUrls, successCount, maxUrls);
+                    crawledUrls.increment();
+                    pipelineFrontier.complete(urlInfo, success ? "SUCCESS" : "FAILED", null);
+                    return success;
+                }
+                catch (Exception e)
+                {
+                    recordCrawlFailure(taskId, pipelineFrontier, urlInfo, e, crawledUrls, errorCount);
+                    return false;
+                }
+                finally
+                {
+                    // 处理完成后再减在途数、投递信号：调度循环被唤醒时，该URL发现的新链接均已入队
+                    activeTasks.decrementAndGet();
+                    completions.offer(WAKE_UP);
+                }
+            });
+            taskPipelines.put(taskId, new TaskPipeline(fetchMetrics, extractStage, new HtmlParseMetrics()));
             
-            while ((!urlQueue.isEmpty() || activeTasks.get() > 0) && runningTasks.getOrDefault(taskId, false))
+            // 事件驱动调度：补充 -> 派发 -> 等待完成信号或最近主机就绪，无轮询
+            while (runningTasks.getOrDefault(taskId, false))
             {
                 // 检查是否超过最大URL数量
-                if (crawledUrls.get() >= maxUrls)
+                if (crawledUrls.intValue() >= maxUrls)
                 {
                     break;
                 }
@@ -215,105 +502,139 @@ public class CrawlerExecutor
                     break;
                 }
                 
-                // 提交新的任务到线程池（如果队列中有URL且未达到并发限制）
-                while (!urlQueue.isEmpty() && activeTasks.get() < concurrency && runningTasks.getOrDefault(taskId, false))
+                // 从爬取边界补充调度器
+                while (scheduler.queuedCount() < schedulerBufferSize && !urlQueue.isEmpty()
+                        && runningTasks.getOrDefault(taskId, false))
                 {
                     UrlInfo urlInfo = urlQueue.poll();
                     if (urlInfo == null) break;
                     
                     // 检查深度
-                    if (urlInfo.depth > maxDepth)
+                    if (urlInfo.getDepth() > maxDepth)
                     {
+                        urlQueue.complete(urlInfo, "SKIPPED", "超出最大深度");
                         continue;
                     }
                     
                     // 检查站点范围
                     if ("SITE".equals(scopeType))
                     {
-                        String currentBaseUrl = extractBaseUrl(urlInfo.url);
+                        String currentBaseUrl = extractBaseUrl(urlInfo.getUrl());
                         if (!baseUrl.equals(currentBaseUrl))
                         {
+                            urlQueue.complete(urlInfo, "SKIPPED", "超出站点范围");
                             continue;
                         }
                     }
                     
-                    // 提交到虚拟线程池
+                    // 检查 robots.txt（规则按站点缓存）
+                    if (respectRobots && !robotsFor(task, extractBaseUrl(urlInfo.getUrl())).isAllowed(urlInfo.getUrl()))
+                    {
+                        urlQueue.complete(urlInfo, "SKIPPED", "robots.txt 禁止抓取");
+                        continue;
+                    }
+                    
+                    scheduler.submit(urlInfo);
+                }
+                
+                // 按主机调度提交：只取请求间隔已到且未达主机并发上限的URL
+                while (fetching.get() < concurrency && runningTasks.getOrDefault(taskId, false))
+                {
+                    UrlInfo urlInfo = scheduler.poll();
+                    if (urlInfo == null) break;
+                    
+                    // 提交到虚拟线程池（抓取阶段）
+                    fetching.incrementAndGet();
                     activeTasks.incrementAndGet();
-                    Future<Boolean> future = executor.submit(() -> {
+                    executor.submit(() -> {
+                        boolean handedOff = false;
+                        boolean released = false;
+                        boolean fetched = false;
+                        fetchMetrics.onStart();
                         try
                         {
-                            // 请求间隔（在虚拟线程中等待，不阻塞主线程）
-                            if (crawledUrls.get() > 0)
+                            // 检查停止标志（未处理的URL保持租约，关闭边界时归还）
+                            if (!runningTasks.getOrDefault(taskId, false))
                             {
-                                long interval = task.getRequestInterval() != null ? task.getRequestInterval() : 1000;
-                                if (task.getRandomInterval() != null && task.getRandomInterval() == 1)
-                                {
-                                    interval = (long)(interval * (0.5 + Math.random()));
-                                }
-                                Thread.sleep(interval);
+                                pipelineFrontier.complete(urlInfo, "PENDING", null);
+                                return;
                             }
                             
-                            // 检查停止标志
-                            if (!runningTasks.getOrDefault(taskId, false))
+                            // 执行抓取
+                            FetchedPage page = fetchPage(task, urlInfo, errorCount);
+                            fetched = page != null && !page.retry();
+                            // 抓取结束即释放主机名额，提取不占用主机并发
+                            scheduler.release(urlInfo);
+                            released = true;
+                            if (page != null && page.retry())
                             {
-                                return false;
+                                // 限流或网络错误：交回调度器，到时间后重新派发，不占着抓取并发休眠（租约保持，停止时随调度器归还）
+                                scheduler.retryLater(urlInfo.nextAttempt(), System.currentTimeMillis() + page.retryDelayMillis());
+                                return;
                             }
-                            
-                            // 执行爬取
-                            boolean success = crawlUrl(task, urlInfo, urlQueue, visitedUrls, baseUrl, scopeType, maxDepth, 
-                                    totalUrls, crawledUrls, successCount, errorCount, maxUrls);
-                            
-                            crawledUrls.incrementAndGet();
-                            
-                            // 更新任务进度（前20个URL每个都推送，之后每5个推送一次）
-                            if (crawledUrls.get() <= 20 || crawledUrls.get() % 5 == 0)
+                            if (page == null)
                             {
-                                updateTaskProgress(taskId, totalUrls.get(), crawledUrls.get(), 
-                                        successCount.get(), errorCount.get());
+                                crawledUrls.increment();
+                                pipelineFrontier.complete(urlInfo, "FAILED", null);
+                                return;
                             }
                             
-                            return success;
+                            // 交给提取阶段，队列满时阻塞（占住抓取并发，调度循环随之停止派发）
+                            handedOff = extractStage.submit(new PageJob(urlInfo, page));
+                            if (!handedOff)
+                            {
+                                pipelineFrontier.complete(urlInfo, "PENDING", null);
+                            }
                         }
                         catch (Exception e)
                         {
-                            errorCount.incrementAndGet();
-                            crawledUrls.incrementAndGet();
-                            log.error("爬取URL失败: {}", urlInfo.url, e);
-                            addLog(taskId, "ERROR", "爬取失败", 
-                                    String.format("URL: %s, 错误: %s", urlInfo.url, 
-                                            e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName()));
-                            return false;
+                            recordCrawlFailure(taskId, pipelineFrontier, urlInfo, e, crawledUrls, errorCount);
                         }
                         finally
                         {
-                            activeTasks.decrementAndGet();
+                            if (!released)
+                            {
+                                scheduler.release(urlInfo);
+                            }
+                            fetchMetrics.onFinish(fetched);
+                            fetching.decrementAndGet();
+                            // 已交给提取阶段的URL由提取阶段减在途数
+                            if (!handedOff)
+                            {
+                                activeTasks.decrementAndGet();
+                            }
+                            completions.offer(WAKE_UP);
                         }
                     });
-                    
-                    futures.add(future);
                 }
                 
-                // 清理已完成的任务
-                futures.removeIf(f -> {
-                    if (f.isDone())
+                // 精确终止：无在途请求（含提取阶段）、调度器与爬取边界均为空
+                if (activeTasks.get() == 0 && scheduler.queuedCount() == 0 && urlQueue.isEmpty())
+                {
+                    break;
+                }
+                
+                // 等待下一个事件：有空闲并发且有主机即将就绪时按就绪时间限时等待，否则等待完成信号
+                try
+                {
+                    long readyIn = scheduler.millisUntilReady();
+                    if (fetching.get() < concurrency && readyIn >= 0)
                     {
-                        try
+                        if (readyIn > 0)
                         {
-                            f.get(); // 获取结果，如果有异常会抛出
+                            completions.poll(readyIn, TimeUnit.MILLISECONDS);
                         }
-                        catch (Exception e)
-                        {
-                            // 异常已在任务内部处理
-                        }
-                        return true;
                     }
-                    return false;
-                });
-                
-                // 短暂休眠，避免CPU占用过高
-                try
-                {
-                    Thread.sleep(50);
+                    else if (distributed && activeTasks.get() == 0)
+                    {
+                        // 本节点空闲但其它节点仍持有租约：定时重试租用，它们可能产生新URL
+                        completions.poll(distributedCoordinator.pollIntervalMillis(), TimeUnit.MILLISECONDS);
+                    }
+                    else
+                    {
+                        completions.take();
+                    }
+                    completions.clear();
                 }
                 catch (InterruptedException e)
                 {
@@ -322,25 +643,12 @@ public class CrawlerExecutor
                 }
             }
             
-            // 等待所有任务完成
+            // 等待所有在途请求完成并关闭线程池
             log.info("任务 {} 等待所有并发任务完成...", taskId);
-            for (Future<Boolean> future : futures)
-            {
-                try
-                {
-                    future.get(30, TimeUnit.SECONDS);
-                }
-                catch (Exception e)
-                {
-                    log.warn("任务 {} 等待任务完成时出错: {}", taskId, e.getMessage());
-                }
-            }
-            
-            // 关闭线程池
             executor.shutdown();
             try
             {
-                if (!executor.awaitTermination(60, TimeUnit.SECONDS))
+                if (!executor.awaitTermination(90, TimeUnit.SECONDS))
                 {
                     executor.shutdownNow();
                 }
@@ -351,6 +659,14 @@ public class CrawlerExecutor
                 Thread.currentThread().interrupt();
             }
             
+            // 抓取线程已全部退出，等待提取阶段处理完已抓取的页面，再等待本任务的图片下载收尾
+            extractStage.closeAndAwait(90, TimeUnit.SECONDS);
+            if (!imageDownloader.awaitTask(taskId, pipelineConfig.getDownloadAwaitSeconds(), TimeUnit.SECONDS))
+            {
+                addLog(taskId, "WARN", "图片下载未完成", String.format("任务结束时仍有 %d 张图片在下载队列中，将在后台继续下载",
+                        imageDownloader.pending(taskId)));
+            }
+            
             // 计算任务耗时
             long taskEndTime = System.currentTimeMillis();
             long taskDuration = taskEndTime - taskStartTime;
@@ -360,28 +676,74 @@ public class CrawlerExecutor
                     ? String.format("%d分%d秒", taskDurationMinutes, taskDurationSeconds % 60)
                     : String.format("%d秒", taskDurationSeconds);
             
+            // 写出尚在批量队列中的文章与图片
+            persistence.flush();
+            
+            // 调度器中尚未请求的URL归还爬取边界
+            for (UrlInfo remaining : scheduler.drain())
+            {
+                urlQueue.complete(remaining, "PENDING", null);
+            }
+            
+            // 写回剩余检查点并归还未处理的租约
+            urlQueue.close();
+            
+            log.info("任务 {} URL去重: 模式 {}, 已记录 {} 条, 占用约 {} KB", taskId, visitedUrls.mode(),
+                    visitedUrls.size(), visitedUrls.memoryBytes() / 1024);
+            
+            // 写入最终计数后再更新状态
+            if (distributed)
+            {
+                distributedCoordinator.detach(taskId);
+                distributedCoordinator.leave(taskId);
+            }
+            progressAggregator.flush(taskId);
+            
             // 更新最终状态
-            boolean wasRunning = runningTasks.get(taskId);
-            if (wasRunning)
+            boolean wasRunning = runningTasks.getOrDefault(taskId, false);
+            if (distributed && !worker)
+            {
+                distributedCoordinator.finish(taskId, !wasRunning && pausedTasks.contains(taskId));
+            }
+            if (worker)
+            {
+                String summary = String.format(
+                    "节点 %s 退出分布式执行，本节点已爬取: %d, 成功: %d, 失败: %d, 耗时: %s",
+                    distributedCoordinator.nodeId(), crawledUrls.intValue(), successCount.intValue(), errorCount.intValue(), durationStr
+                );
+                
+                log.info("任务 {} {}", taskId, summary);
+                addLog(taskId, "INFO", "节点退出", summary);
+            }
+            else if (wasRunning)
             {
                 updateTaskStatus(taskId, "COMPLETED", null);
-                updateTaskProgress(taskId, totalUrls.get(), crawledUrls.get(), 
-                        successCount.get(), errorCount.get());
                 
                 String summary = String.format(
                     "任务完成！总URL数: %d, 已爬取: %d, 成功: %d, 失败: %d, 耗时: %s",
-                    totalUrls.get(), crawledUrls.get(), successCount.get(), errorCount.get(), durationStr
+                    totalUrls.intValue(), crawledUrls.intValue(), successCount.intValue(), errorCount.intValue(), durationStr
                 );
                 
                 log.info("任务 {} {}", taskId, summary);
                 addLog(taskId, "INFO", "任务完成", summary);
             }
+            else if (pausedTasks.contains(taskId))
+            {
+                updateTaskStatus(taskId, "PAUSED", null);
+                String summary = String.format(
+                    "任务已暂停！总URL数: %d, 已爬取: %d, 成功: %d, 失败: %d, 耗时: %s",
+                    totalUrls.intValue(), crawledUrls.intValue(), successCount.intValue(), errorCount.intValue(), durationStr
+                );
+                
+                log.info("任务 {} {}", taskId, summary);
+                addLog(taskId, "INFO", "任务已暂停", summary);
+            }
             else
             {
                 updateTaskStatus(taskId, "STOPPED", null);
                 String summary = String.format(
                     "任务已停止！总URL数: %d, 已爬取: %d, 成功: %d, 失败: %d, 耗时: %s",
-                    totalUrls.get(), crawledUrls.get(), successCount.get(), errorCount.get(), durationStr
+                    totalUrls.intValue(), crawledUrls.intValue(), successCount.intValue(), errorCount.intValue(), durationStr
                 );
                 
                 log.info("任务 {} {}", taskId, summary);
@@ -391,53 +753,94 @@ public class CrawlerExecutor
         catch (Exception e)
         {
             log.error("执行爬虫任务失败: {}", taskId, e);
-            updateTaskStatus(taskId, "ERROR", e.getMessage());
+            if (!worker)
+            {
+                updateTaskStatus(taskId, "ERROR", e.getMessage());
+                if (distributed)
+                {
+                    try
+                    {
+                        distributedCoordinator.finish(taskId, false);
+                    }
+                    catch (Exception ex)
+                    {
+                        log.warn("任务 {} 清理分布式状态失败: {}", taskId, ex.getMessage());
+                    }
+                }
+            }
             addLog(taskId, "ERROR", "任务执行异常", e.getMessage());
         }
         finally
         {
+            if (urlQueue != null)
+            {
+                try
+                {
+                    urlQueue.close();
+                }
+                catch (Exception e)
+                {
+                    log.warn("任务 {} 关闭URL队列失败: {}", taskId, e.getMessage());
+                }
+            }
             runningTasks.remove(taskId);
+            pausedTasks.remove(taskId);
+            dispatchSignals.remove(taskId, completions);
+            taskSeenFilters.remove(taskId);
+            taskClassifiers.remove(taskId);
+            taskRuleSets.remove(taskId);
+            taskSchedulers.remove(taskId);
+            TaskPipeline pipeline = taskPipelines.remove(taskId);
+            if (pipeline != null)
+            {
+                pipeline.extract().close();
+            }
+            proxyPool.releaseTask(taskId);
+            logSink.unregisterTask(taskId);
+            progressAggregator.unregister(taskId);
             proxyDecisionLoggedTasks.remove(taskId);
             listPagesProcessed.remove(taskId);
+            if (distributed)
+            {
+                try
+                {
+                    distributedCoordinator.detach(taskId);
+                }
+                catch (Exception e)
+                {
+                    log.warn("任务 {} 注销分布式执行失败: {}", taskId, e.getMessage());
+                }
+            }
         }
     }
     
     /**
-     * 爬取单个URL
-     * @return true表示成功，false表示失败
+     * 抓取单个URL（流水线抓取阶段）：请求并解析响应，页面内容交给提取阶段处理
+     * <p>
+     * 每次调用只进行一次请求（从 {@link UrlInfo#getAttempt()} 计数），需要重试时返回 {@link FetchedPage#retryLater}，
+     * 由调用方交回调度器等待，而不是在抓取线程内休眠。
+     * @return 抓取结果；请求失败、重试用尽或任务已停止时返回 null
      */
-    private boolean crawlUrl(CrawlerTaskEntity task, UrlInfo urlInfo, Queue<UrlInfo> urlQueue,
-                          Set<String> visitedUrls, String baseUrl, String scopeType, int maxDepth,
-                          AtomicInteger totalUrls, AtomicInteger crawledUrls,
-                          AtomicInteger successCount, AtomicInteger errorCount, int maxUrls)
-    {
-        // 人工延时，增加任务可视化效果 (200-500ms)
-        // 这有助于防止任务在前端看起来像是瞬间完成没有进度
-        try {
-            long artificialDelay = 200 + java.util.concurrent.ThreadLocalRandom.current().nextInt(300);
-            Thread.sleep(artificialDelay);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            return false;
-        }
-
+    private FetchedPage fetchPage(CrawlerTaskEntity task, UrlInfo urlInfo, LongAdder errorCount)
+    {
         int maxRetries = task.getMaxRetries() != null ? task.getMaxRetries() : 3;
         // 对于连接超时错误，限制最多重试2次（包括第一次尝试，总共3次）
         int maxConnectRetries = 2;
         int timeout = task.getRequestTimeout() != null ? task.getRequestTimeout() : 30000; // 默认30秒超时
         
         // 解析代理列表（任务优先，其次全局）
-        EffectiveProxyList effectiveProxyList = parseProxyList(task);
+        ProxyPool.ProxyList effectiveProxyList = proxyPool.resolve(task);
         if (!proxyDecisionLoggedTasks.containsKey(task.getId()))
         {
             proxyDecisionLoggedTasks.put(task.getId(), true);
             if (task.getUseProxy() != null && task.getUseProxy() == 1)
             {
-                String sample = effectiveProxyList.proxies.isEmpty()
+                ProxyEndpoint first = effectiveProxyList.isEmpty() ? null : effectiveProxyList.proxies().get(0);
+                String sample = first == null
                         ? "NONE"
-                        : String.format("%s %s:%d", effectiveProxyList.proxies.get(0).type, effectiveProxyList.proxies.get(0).host, effectiveProxyList.proxies.get(0).port);
+                        : String.format("%s %s:%d", first.type(), first.host(), first.port());
                 log.info("任务 {} 代理开关=1，代理来源={}，可用数量={}，示例={}",
-                        task.getId(), effectiveProxyList.source, effectiveProxyList.proxies.size(), sample);
+                        task.getId(), effectiveProxyList.source(), effectiveProxyList.proxies().size(), sample);
             }
             else
             {
@@ -449,37 +852,41 @@ public class CrawlerExecutor
         // Clash mixed-port 同时支持 SOCKS/HTTP，遇到该问题时自动降级为 HTTP CONNECT 代理（同 host:port）。
         boolean forceHttpProxyForTls = false;
 
+        // 增量爬取：已抓取过的文章页带上条件请求头，未变化时服务端返回 304，跳过解析与写库
+        CrawlerArticleEntity knownArticle = isIncremental(task) ? findCrawledArticle(task, urlInfo.getUrl()) : null;
+
         // 重试机制
-        for (int retry = 0; retry <= maxRetries; retry++)
+        for (int retry = urlInfo.getAttempt(); retry <= maxRetries; retry++)
         {
             // 每次重试前检查停止标志
             if (!runningTasks.getOrDefault(task.getId(), false))
             {
-                log.info("任务 {} 已收到停止请求，停止当前URL的爬取: {}", task.getId(), urlInfo.url);
-                return false;
+                log.info("任务 {} 已收到停止请求，停止当前URL的爬取: {}", task.getId(), urlInfo.getUrl());
+                return null;
             }
             
-            ProxyInfo requestProxyInfo = null;
+            ProxyEndpoint requestProxyInfo = null;
             String requestProxyTypeForThisAttempt = null;
+            long requestStartedAt = 0;
             try
             {
                 // 构建请求连接，增强反爬虫能力
-                org.jsoup.Connection connection = Jsoup.connect(urlInfo.url)
+                org.jsoup.Connection connection = Jsoup.connect(urlInfo.getUrl())
                         .userAgent(getUserAgent(task, retry))
                         .timeout(timeout) // 连接和读取超时
                         .followRedirects(true) // 允许重定向
-                        .maxBodySize(10 * 1024 * 1024); // 限制响应体大小，防止内存溢出
+                        .maxBodySize(htmlPageParser.maxBodyBytes()); // 限制响应体大小，防止内存溢出
                         // 注意：ignoreContentType 和 ignoreHttpErrors 在最后设置
                 
                 // 设置代理（如果启用）
                 if (task.getUseProxy() != null && task.getUseProxy() == 1)
                 {
-                    if (effectiveProxyList.proxies.isEmpty())
+                    if (effectiveProxyList.isEmpty())
                     {
                         // 任务启用代理但未配置/无启用全局代理：明确提示
                         if (retry == 0)
                         {
-                            log.warn("任务 {} 已启用代理(useProxy=1)，但未找到可用代理（source={}）。本次请求将直连，可能导致 ConnectException。", task.getId(), effectiveProxyList.source);
+                            log.warn("任务 {} 已启用代理(useProxy=1)，但未找到可用代理（source={}）。本次请求将直连，可能导致 ConnectException。", task.getId(), effectiveProxyList.source());
                             addLog(task.getId(), "WARN", "代理未生效",
                                     "任务已启用代理(useProxy=1)，但未找到可用代理。请到「爬虫管理-代理配置」启用至少一条代理，" +
                                             "或在任务中填写 proxyList。注意：代理的 host/port 需要在『后端服务运行的机器』上可访问。");
@@ -487,35 +894,22 @@ public class CrawlerExecutor
                     }
                     else
                     {
-                        ProxyInfo proxyInfo = effectiveProxyList.proxies.get(ThreadLocalRandom.current().nextInt(effectiveProxyList.proxies.size()));
+                        // 按健康度加权选择（跳过隔离中的代理）；SOCKS 认证由代理池的路由认证器按地址应答
+                        ProxyEndpoint proxyInfo = proxyPool.select(effectiveProxyList);
                         requestProxyInfo = proxyInfo;
-                        requestProxyTypeForThisAttempt = forceHttpProxyForTls ? "HTTP" : proxyInfo.type;
+                        requestProxyTypeForThisAttempt = forceHttpProxyForTls ? "HTTP" : proxyInfo.type();
                         Proxy.Type proxyType = "SOCKS".equalsIgnoreCase(requestProxyTypeForThisAttempt) ? Proxy.Type.SOCKS : Proxy.Type.HTTP;
-                        Proxy proxy = new Proxy(proxyType, new InetSocketAddress(proxyInfo.host, proxyInfo.port));
+                        Proxy proxy = new Proxy(proxyType, new InetSocketAddress(proxyInfo.host(), proxyInfo.port()));
                         connection.proxy(proxy);
 
                         if (retry == 0)
                         {
                             log.info("任务 {} 本次请求使用{}代理({}) {}:{}",
                                     task.getId(),
-                                    effectiveProxyList.source,
+                                    effectiveProxyList.source(),
                                     requestProxyTypeForThisAttempt,
-                                    proxyInfo.host,
-                                    proxyInfo.port);
-                        }
-
-                        if (proxyInfo.username != null && !proxyInfo.username.isEmpty())
-                        {
-                            // 代理认证：通过全局 Authenticator 处理（对 HttpURLConnection/Jsoup 生效）
-                            String password = proxyInfo.password != null ? proxyInfo.password : "";
-                            Authenticator.setDefault(new Authenticator()
-                            {
-                                @Override
-                                protected PasswordAuthentication getPasswordAuthentication()
-                                {
-                                    return new PasswordAuthentication(proxyInfo.username, password.toCharArray());
-                                }
-                            });
+                                    proxyInfo.host(),
+                                    proxyInfo.port());
                         }
                     }
                 }
@@ -531,13 +925,26 @@ public class CrawlerExecutor
                 else
                 {
                     // 如果没有配置Referer，使用当前URL的基础URL（模拟从首页访问）
-                    String refererUrl = extractBaseUrl(urlInfo.url);
+                    String refererUrl = extractBaseUrl(urlInfo.getUrl());
                     connection.referrer(refererUrl);
                 }
                 
                 // 添加Cookie
                 addCookies(connection, task);
                 
+                // 条件请求头（增量爬取）
+                if (knownArticle != null)
+                {
+                    if (knownArticle.getEtag() != null && !knownArticle.getEtag().isEmpty())
+                    {
+                        connection.header("If-None-Match", knownArticle.getEtag());
+                    }
+                    if (knownArticle.getLastModified() != null && !knownArticle.getLastModified().isEmpty())
+                    {
+                        connection.header("If-Modified-Since", knownArticle.getLastModified());
+                    }
+                }
+                
                 // 忽略内容类型错误（某些网站返回的Content-Type可能不正确）
                 connection.ignoreContentType(true);
                 // 忽略HTTP错误（某些网站可能返回非200状态码但内容正常）
@@ -546,43 +953,221 @@ public class CrawlerExecutor
                 // 执行请求前再次检查停止标志（避免执行长时间的网络请求）
                 if (!runningTasks.getOrDefault(task.getId(), false))
                 {
-                    log.info("任务 {} 已收到停止请求，取消网络请求: {}", task.getId(), urlInfo.url);
-                    return false;
+                    log.info("任务 {} 已收到停止请求，取消网络请求: {}", task.getId(), urlInfo.getUrl());
+                    return null;
                 }
                 
-                // 执行请求并获取响应
-                org.jsoup.Connection.Response response = connection.execute();
+                // 执行请求并获取响应：直连与 HTTP 代理走共享 HttpClient（连接复用、HTTP/2），
+                // SOCKS 代理 HttpClient 不支持，仍使用 Jsoup 连接；两者共用同一套解析（大页面流式解析）
+                HtmlPageParser.ParsedHtml parsed;
+                int statusCode;
+                String etag;
+                String lastModified;
+                String retryAfter;
+                requestStartedAt = System.currentTimeMillis();
+                org.jsoup.Connection.Request prepared = connection.request();
+                try (FetchResponse response = requestProxyInfo != null && "SOCKS".equalsIgnoreCase(requestProxyTypeForThisAttempt)
+                        ? FetchResponse.of(connection.execute())
+                        : httpFetcher.get(urlInfo.getUrl(), prepared.headers(), prepared.cookies(),
+                                requestProxyInfo != null ? requestProxyInfo.toFetchProxy() : null, timeout))
+                {
+                    statusCode = response.statusCode();
+                    etag = response.header("ETag");
+                    lastModified = response.header("Last-Modified");
+                    retryAfter = response.header("Retry-After");
+                    parsed = statusCode >= 400 || statusCode == 304 ? null : htmlPageParser.parse(response, ruleSet(task));
+                }
+                if (parsed != null)
+                {
+                    TaskPipeline pipeline = taskPipelines.get(task.getId());
+                    if (pipeline != null)
+                    {
+                        pipeline.parse().record(parsed);
+                    }
+                    if (parsed.truncated())
+                    {
+                        log.debug("页面过大，流式解析保留内容已达上限（{} 字节）: {}", parsed.bodyBytes(), urlInfo.getUrl());
+                    }
+                }
                 // 成功后清理 TLS 降级标志
                 forceHttpProxyForTls = false;
+                recordProxyResult(requestProxyInfo, statusCode, requestStartedAt);
+                HostPolitenessScheduler hostScheduler = taskSchedulers.get(task.getId());
+                if (hostScheduler != null)
+                {
+                    hostScheduler.onResponse(urlInfo.getUrl(), statusCode, System.currentTimeMillis() - requestStartedAt, retryAfter);
+                }
+                
+                // 增量爬取：页面未变化，不解析、不写库
+                if (statusCode == 304)
+                {
+                    log.debug("页面未变化(304)，跳过: {}", urlInfo.getUrl());
+                    return new FetchedPage(null, null, etag, lastModified, knownArticle);
+                }
+                
+                // 限流（429/503）：主机已收缩并发并记录 Retry-After，等待后重试
+                if ((statusCode == 429 || statusCode == 503) && retry < maxRetries)
+                {
+                    long wait = retryDelay(task, urlInfo.getUrl(), retry);
+                    log.warn("请求URL被限流（状态码 {}），{}ms 后进行第 {} 次重试: {}", statusCode, wait, retry + 1, urlInfo.getUrl());
+                    return FetchedPage.retryLater(wait);
+                }
                 
                 // 检查HTTP状态码
-                int statusCode = response.statusCode();
                 if (statusCode >= 400)
                 {
-                    log.warn("请求URL返回错误状态码 {}: {}", statusCode, urlInfo.url);
+                    log.warn("请求URL返回错误状态码 {}: {}", statusCode, urlInfo.getUrl());
                     // 对于4xx和5xx错误，记录但不重试（可能是权限问题或服务器错误）
                     addLog(task.getId(), "WARN", "HTTP错误", 
-                            String.format("URL: %s, 状态码: %d", urlInfo.url, statusCode));
-                    return false;
+                            String.format("URL: %s, 状态码: %d", urlInfo.getUrl(), statusCode));
+                    return null;
                 }
                 
-                Document doc = response.parse();
-            
-            // 解析文档后检查停止标志
+                // 解析文档后检查停止标志
+                if (!runningTasks.getOrDefault(task.getId(), false))
+                {
+                    log.info("任务 {} 已收到停止请求，停止处理页面内容: {}", task.getId(), urlInfo.getUrl());
+                    return null;
+                }
+                
+                return new FetchedPage(parsed.document(), parsed.features(), etag, lastModified, knownArticle);
+            }
+            catch (java.net.SocketTimeoutException | java.net.ConnectException | 
+                   java.net.UnknownHostException | SSLException e)
+            {
+                proxyPool.recordFailure(requestProxyInfo);
+                if (requestProxyInfo == null && (e instanceof java.net.SocketTimeoutException || e instanceof java.net.ConnectException))
+                {
+                    // 直连超时/拒绝连接视为目标主机过载（经代理时可能是代理故障，由代理池处理）
+                    HostPolitenessScheduler hostScheduler = taskSchedulers.get(task.getId());
+                    if (hostScheduler != null)
+                    {
+                        hostScheduler.onTimeout(urlInfo.getUrl());
+                    }
+                }
+                // 若使用 SOCKS 代理发生 TLS 握手错误，尝试切换为 HTTP 代理重试
+                if (!forceHttpProxyForTls
+                        && requestProxyInfo != null
+                        && "SOCKS".equalsIgnoreCase(requestProxyTypeForThisAttempt)
+                        && (e instanceof SSLHandshakeException
+                        || (e.getMessage() != null && e.getMessage().toLowerCase().contains("handshake"))))
+                {
+                    forceHttpProxyForTls = true;
+                    log.warn("任务 {} 走 SOCKS 代理发生 TLS 握手失败，下一次尝试将降级为 HTTP 代理: {}:{}（错误: {}）",
+                            task.getId(),
+                            requestProxyInfo.host(),
+                            requestProxyInfo.port(),
+                            e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+                    continue;
+                }
+
+                // 网络超时、连接错误、DNS错误或SSL错误，快速失败（限制重试次数）
+                // retry=0是第一次尝试，retry=1是第1次重试，retry=2是第2次重试
+                // 对于连接超时，最多只重试2次（retry=1,2），总共尝试3次
+                if (retry < maxConnectRetries)
+                {
+                    // retry=0 表示第一次尝试失败，此处即将开始第 1 次重试
+                    log.warn("请求URL失败，将进行第 {} 次重试: {} (错误: {})",
+                            retry + 1, urlInfo.getUrl(), e.getClass().getSimpleName());
+                    // 按主机当前请求间隔指数退避（至少 1s）
+                    return FetchedPage.retryLater(retryDelay(task, urlInfo.getUrl(), retry));
+                }
+                else
+                {
+                    // 重试次数用完，快速跳过该URL
+                    // retry从0开始，所以实际重试次数是retry（retry=1是第1次重试，retry=2是第2次重试）
+                    int actualRetries = Math.min(retry, maxConnectRetries); // 实际重试次数
+                    String errorMsg = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+                    log.warn("请求URL失败（已重试{}次），跳过: {} (错误: {})", 
+                            actualRetries, urlInfo.getUrl(), errorMsg);
+                    // 记录到任务日志，但不记录完整堆栈（避免日志过多）
+                    addLog(task.getId(), "WARN", "URL访问失败", 
+                            String.format("URL: %s, 错误: %s (已重试%d次)", 
+                                    urlInfo.getUrl(), errorMsg, actualRetries));
+                    addLog(task.getId(), "WARN", "连通性提示",
+                            "若浏览器可打开但后端爬虫 ConnectException，通常是『后端运行环境』没有走到代理/网络路由不同。请确认：\n" +
+                                    "1) 任务 useProxy=1\n" +
+                                    "2) 全局代理已启用，且 host/port 在后端机器上可访问（例如 Clash 在本机则填 127.0.0.1:7897；若后端在服务器上则需要服务器能访问该代理）\n" +
+                                    "3) Clash mixed port 多数可用 SOCKS/HTTP，优先尝试 SOCKS。");
+                    return null; // 快速失败，不阻塞任务
+                }
+            }
+            catch (IOException e)
+            {
+                // 其他IO错误，根据错误类型决定是否重试
+                String errorMsg = e.getMessage() != null ? e.getMessage().toLowerCase() : "";
+                if (retry < Math.min(maxRetries, 1) && (errorMsg.contains("timeout") || errorMsg.contains("connection")))
+                {
+                    log.warn("请求URL IO错误，第 {} 次重试: {} (错误: {})", 
+                            retry + 1, urlInfo.getUrl(), e.getClass().getSimpleName());
+                    return FetchedPage.retryLater(retryDelay(task, urlInfo.getUrl(), retry));
+                }
+                else
+                {
+                    // 不增加errorCount，快速跳过
+                    log.warn("请求URL失败，跳过: {} (错误: {})", urlInfo.getUrl(), e.getClass().getSimpleName());
+                    addLog(task.getId(), "WARN", "URL访问失败", 
+                            String.format("URL: %s, 错误: %s", urlInfo.getUrl(), e.getClass().getSimpleName()));
+                    return null;
+                }
+            }
+            catch (Exception e)
+            {
+                // 其他错误，不重试，快速跳过
+                log.warn("处理URL失败，跳过: {} (错误: {})", urlInfo.getUrl(), e.getClass().getSimpleName());
+                addLog(task.getId(), "WARN", "URL处理失败", 
+                        String.format("URL: %s, 错误: %s", urlInfo.getUrl(), e.getClass().getSimpleName()));
+                return null;
+            }
+        }
+        
+        // 所有重试都失败
+        errorCount.increment();
+        return null;
+    }
+    
+    /**
+     * 处理已抓取的页面（流水线提取阶段）：判定页面类型，提取链接、文章与图片
+     * @return true表示成功，false表示失败
+     */
+    private boolean processPage(CrawlerTaskEntity task, UrlInfo urlInfo, FetchedPage page, CrawlFrontier urlQueue,
+                                UrlSeenFilter visitedUrls, String baseUrl, String scopeType, int maxDepth,
+                                LongAdder totalUrls, LongAdder successCount, int maxUrls)
+    {
+        // 增量爬取命中 304：页面未变化
+        if (page.doc() == null)
+        {
+            successCount.increment();
+            return true;
+        }
+        Document doc = page.doc();
+        String etag = page.etag();
+        String lastModified = page.lastModified();
+        CrawlerArticleEntity knownArticle = page.knownArticle();
+        try
+        {
+            // 提取前检查停止标志
             if (!runningTasks.getOrDefault(task.getId(), false))
             {
-                log.info("任务 {} 已收到停止请求，停止处理页面内容: {}", task.getId(), urlInfo.url);
+                log.info("任务 {} 已收到停止请求，停止处理页面内容: {}", task.getId(), urlInfo.getUrl());
                 return false;
             }
             
+            // 一次遍历DOM提取结构特征，供页面类型判定、链接提取和正文容器选择共用
+            ParseRuleSet rules = ruleSet(task);
+            PageFeatures features = page.features() != null
+                    ? page.features()
+                    : PageFeatureExtractor.extract(doc, rules.contentSelector(), rules.contentEval());
+            
             // 判断页面类型：列表页 or 详情页
-            PageType pageType = detectPageType(doc, urlInfo.url);
-            log.debug("URL {} 被判断为页面类型: {}", urlInfo.url, pageType.name());
+            PageType pageType = detectPageType(task, doc, urlInfo.getUrl(), features);
+            log.debug("URL {} 被判断为页面类型: {}", urlInfo.getUrl(), pageType.name());
             
             // 根据爬取类型和页面类型处理
             String crawlType = task.getCrawlType();
             boolean hasContent = false;
-            Long articleId = null;
+            CompletableFuture<Long> articleId = NO_ARTICLE;
+            ArticleResult articleResult = null;
             
             if ("LIST".equals(pageType.name()))
             {
@@ -590,10 +1175,10 @@ public class CrawlerExecutor
                 // 防止递归：如果URL深度>0且看起来像详情页（.html结尾），不应该再提取文章链接
                 // 这通常意味着这个页面是从列表页提取出来的"文章链接"，不应该再被当作列表页处理
                 boolean shouldExtractLinks = true;
-                if (urlInfo.depth > 0 && urlInfo.url.matches(".*\\.html$|.*/\\d+\\.html$"))
+                if (urlInfo.getDepth() > 0 && urlInfo.getUrl().endsWith(".html"))
                 {
                     // URL看起来像详情页，但被误判为列表页，强制当作详情页处理，不提取链接
-                    log.warn("URL {} 看起来像详情页但被判断为列表页，强制当作详情页处理", urlInfo.url);
+                    log.warn("URL {} 看起来像详情页但被判断为列表页，强制当作详情页处理", urlInfo.getUrl());
                     shouldExtractLinks = false;
                     // 强制当作详情页处理，继续执行详情页逻辑
                     pageType = PageType.DETAIL;
@@ -609,7 +1194,7 @@ public class CrawlerExecutor
                     }
                     
                     // 列表页：提取文章链接
-                    extractArticleLinks(task, urlInfo.url, doc, urlQueue, visitedUrls, 
+                    extractArticleLinks(task, urlInfo.getUrl(), features, urlQueue, visitedUrls, 
                             baseUrl, scopeType, maxDepth, totalUrls, maxUrls);
                     
                     // 提取链接后检查停止标志
@@ -630,183 +1215,92 @@ public class CrawlerExecutor
                 // 详情页或混合页：提取文章内容和图片
                 // 注意：MIXED 类型通常表示页面既有列表又有详情，但根据URL判断，如果是 /page/ 开头的，应该只提取链接
                 // 这里只处理详情页逻辑，列表页逻辑在上面已经处理了
-                if ("MIXED".equals(pageType.name()) && urlInfo.url.contains("/page/"))
+                if ("MIXED".equals(pageType.name()) && urlInfo.getUrl().contains("/page/"))
                 {
                     // MIXED 类型但URL包含 /page/，应该只当作列表页处理（已在上面处理）
-                    // 这里不做任何处理，避免重复提取
-                }
-                else
-                {
-                    // 详情页或MIXED类型（非列表页URL）：提取文章内容和图片
-                    if ("ARTICLE".equals(crawlType) || "BOTH".equals(crawlType))
-                    {
-                        try
-                        {
-                            articleId = extractArticle(task, urlInfo.url, doc, successCount);
-                            if (articleId != null)
-                            {
-                                hasContent = true;
-                            }
-                        }
-                        catch (Exception e)
-                        {
-                            log.error("提取文章失败: {}", urlInfo.url, e);
-                        }
-                    }
-                    
-                    // 在详情页提取图片并关联到文章
-                    if ("IMAGE".equals(crawlType) || "BOTH".equals(crawlType))
-                    {
-                        // 提取图片前检查停止标志
-                        if (!runningTasks.getOrDefault(task.getId(), false))
-                        {
-                            log.info("任务 {} 已收到停止请求，跳过提取图片", task.getId());
-                            return true; // 返回true表示已处理（虽然没提取图片）
-                        }
-                        
-                        try
-                        {
-                            log.info("开始从详情页 {} 提取图片（articleId: {}）", urlInfo.url, articleId);
-                            extractImagesFromDetailPage(task, articleId, urlInfo.url, doc, successCount);
-                            hasContent = true;
-                        }
-                        catch (Exception e)
-                        {
-                            log.error("从详情页提取图片失败: {}", urlInfo.url, e);
-                        }
-                    }
-                    else
-                    {
-                        log.debug("爬取类型为 {}，跳过详情页图片提取", crawlType);
-                    }
-                }
-            }
-            
-            // 如果不是列表页或详情页，尝试提取所有链接（兜底逻辑）
-            if (!hasContent && urlInfo.depth < maxDepth && totalUrls.get() < maxUrls)
-            {
-                extractAllLinks(doc, urlQueue, visitedUrls, baseUrl, scopeType, 
-                        urlInfo.depth, maxDepth, totalUrls, maxUrls);
-            }
-            
-                // 如果成功获取页面内容或提取到数据，认为成功
-                if (hasContent || doc != null)
-                {
-                    successCount.incrementAndGet();
-                    return true;
-                }
-                else
-                {
-                    return false;
-                }
-            }
-            catch (java.net.SocketTimeoutException | java.net.ConnectException | 
-                   java.net.UnknownHostException | SSLException e)
-            {
-                // 若使用 SOCKS 代理发生 TLS 握手错误，尝试切换为 HTTP 代理重试
-                if (!forceHttpProxyForTls
-                        && requestProxyInfo != null
-                        && "SOCKS".equalsIgnoreCase(requestProxyTypeForThisAttempt)
-                        && (e instanceof SSLHandshakeException
-                        || (e.getMessage() != null && e.getMessage().toLowerCase().contains("handshake"))))
-                {
-                    forceHttpProxyForTls = true;
-                    log.warn("任务 {} 走 SOCKS 代理发生 TLS 握手失败，下一次尝试将降级为 HTTP 代理: {}:{}（错误: {}）",
-                            task.getId(),
-                            requestProxyInfo.host,
-                            requestProxyInfo.port,
-                            e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
-                    continue;
-                }
-
-                // 网络超时、连接错误、DNS错误或SSL错误，快速失败（限制重试次数）
-                // retry=0是第一次尝试，retry=1是第1次重试，retry=2是第2次重试
-                // 对于连接超时，最多只重试2次（retry=1,2），总共尝试3次
-                if (retry < maxConnectRetries)
-                {
-                    // retry=0 表示第一次尝试失败，此处即将开始第 1 次重试
-                    log.warn("请求URL失败，将进行第 {} 次重试: {} (错误: {})",
-                            retry + 1, urlInfo.url, e.getClass().getSimpleName());
-                    try
-                    {
-                        // 超时错误快速跳过，不等待太久：2s, 4s
-                        Thread.sleep(2000L * (retry + 1));
-                    }
-                    catch (InterruptedException ie)
-                    {
-                        Thread.currentThread().interrupt();
-                        return false;
-                    }
-                    continue; // 继续重试
-                }
-                else
-                {
-                    // 重试次数用完，快速跳过该URL
-                    // retry从0开始，所以实际重试次数是retry（retry=1是第1次重试，retry=2是第2次重试）
-                    int actualRetries = Math.min(retry, maxConnectRetries); // 实际重试次数
-                    String errorMsg = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
-                    log.warn("请求URL失败（已重试{}次），跳过: {} (错误: {})", 
-                            actualRetries, urlInfo.url, errorMsg);
-                    // 记录到任务日志，但不记录完整堆栈（避免日志过多）
-                    addLog(task.getId(), "WARN", "URL访问失败", 
-                            String.format("URL: %s, 错误: %s (已重试%d次)", 
-                                    urlInfo.url, errorMsg, actualRetries));
-                    addLog(task.getId(), "WARN", "连通性提示",
-                            "若浏览器可打开但后端爬虫 ConnectException，通常是『后端运行环境』没有走到代理/网络路由不同。请确认：\n" +
-                                    "1) 任务 useProxy=1\n" +
-                                    "2) 全局代理已启用，且 host/port 在后端机器上可访问（例如 Clash 在本机则填 127.0.0.1:7897；若后端在服务器上则需要服务器能访问该代理）\n" +
-                                    "3) Clash mixed port 多数可用 SOCKS/HTTP，优先尝试 SOCKS。");
-                    return false; // 快速失败，不阻塞任务
+                    // 这里不做任何处理，避免重复提取
                 }
-            }
-            catch (IOException e)
-            {
-                // 其他IO错误，根据错误类型决定是否重试
-                String errorMsg = e.getMessage() != null ? e.getMessage().toLowerCase() : "";
-                if (retry < Math.min(maxRetries, 1) && (errorMsg.contains("timeout") || errorMsg.contains("connection")))
+                else
                 {
-                    log.warn("请求URL IO错误，第 {} 次重试: {} (错误: {})", 
-                            retry + 1, urlInfo.url, e.getClass().getSimpleName());
-                    try
+                    // 详情页或MIXED类型（非列表页URL）：提取文章内容和图片
+                    if ("ARTICLE".equals(crawlType) || "BOTH".equals(crawlType))
                     {
-                        Thread.sleep(2000);
+                        try
+                        {
+                            articleResult = extractArticle(task, urlInfo.getUrl(), doc, rules, successCount,
+                                    knownArticle, etag, lastModified);
+                            if (articleResult != null)
+                            {
+                                articleId = articleResult.id();
+                                hasContent = true;
+                            }
+                        }
+                        catch (Exception e)
+                        {
+                            log.error("提取文章失败: {}", urlInfo.getUrl(), e);
+                        }
                     }
-                    catch (InterruptedException ie)
+                    
+                    // 在详情页提取图片并关联到文章
+                    if (articleResult != null && articleResult.unchanged())
                     {
-                        Thread.currentThread().interrupt();
-                        return false;
+                        log.debug("文章内容未变化，跳过图片提取: {}", urlInfo.getUrl());
+                    }
+                    else if ("IMAGE".equals(crawlType) || "BOTH".equals(crawlType))
+                    {
+                        // 提取图片前检查停止标志
+                        if (!runningTasks.getOrDefault(task.getId(), false))
+                        {
+                            log.info("任务 {} 已收到停止请求，跳过提取图片", task.getId());
+                            return true; // 返回true表示已处理（虽然没提取图片）
+                        }
+                        
+                        try
+                        {
+                            log.info("开始从详情页 {} 提取图片（articleId: {}）", urlInfo.getUrl(), articleId.getNow(null));
+                            extractImagesFromDetailPage(task, articleId, urlInfo.getUrl(), doc, features, rules, successCount,
+                                    articleResult != null && articleResult.existing());
+                            hasContent = true;
+                        }
+                        catch (Exception e)
+                        {
+                            log.error("从详情页提取图片失败: {}", urlInfo.getUrl(), e);
+                        }
+                    }
+                    else
+                    {
+                        log.debug("爬取类型为 {}，跳过详情页图片提取", crawlType);
                     }
-                    continue;
-                }
-                else
-                {
-                    // 不增加errorCount，快速跳过
-                    log.warn("请求URL失败，跳过: {} (错误: {})", urlInfo.url, e.getClass().getSimpleName());
-                    addLog(task.getId(), "WARN", "URL访问失败", 
-                            String.format("URL: %s, 错误: %s", urlInfo.url, e.getClass().getSimpleName()));
-                    return false;
                 }
             }
-            catch (Exception e)
+            
+            // 如果不是列表页或详情页，尝试提取所有链接（兜底逻辑）
+            if (!hasContent && urlInfo.getDepth() < maxDepth && totalUrls.intValue() < maxUrls)
             {
-                // 其他错误，不重试，快速跳过
-                log.warn("处理URL失败，跳过: {} (错误: {})", urlInfo.url, e.getClass().getSimpleName());
-                addLog(task.getId(), "WARN", "URL处理失败", 
-                        String.format("URL: %s, 错误: %s", urlInfo.url, e.getClass().getSimpleName()));
-                return false;
+                extractAllLinks(task, doc, urlQueue, visitedUrls, baseUrl, scopeType, 
+                        urlInfo.getDepth(), maxDepth, totalUrls, maxUrls);
             }
+            
+            // 如果成功获取页面内容或提取到数据，认为成功
+            successCount.increment();
+            return true;
+        }
+        catch (Exception e)
+        {
+            // 其他错误，不重试，快速跳过
+            log.warn("处理URL失败，跳过: {} (错误: {})", urlInfo.getUrl(), e.getClass().getSimpleName());
+            addLog(task.getId(), "WARN", "URL处理失败", 
+                    String.format("URL: %s, 错误: %s", urlInfo.getUrl(), e.getClass().getSimpleName()));
+            return false;
         }
-        
-        // 所有重试都失败
-        errorCount.incrementAndGet();
-        return false;
     }
     
     /**
      * 检测页面类型：列表页、详情页或混合页
      */
-    private PageType detectPageType(Document doc, String url)
+    private PageType detectPageType(CrawlerTaskEntity task, Document doc, String url, PageFeatures features)
     {
+        UrlClassifier classifier = classifier(task);
         // 0) 搜索结果页快速识别（WordPress 常见：/?s=keyword）
         // 这类页面是列表页，不应当作详情页提取正文图片
         try
@@ -851,28 +1345,27 @@ public class CrawlerExecutor
         }
 
         // 检测详情页特征
-        Elements articleElements = doc.select("article, .article-content, .post-content, .content-detail, .entry-content");
-        boolean hasArticleContent = articleElements.size() > 0;
+        int articleElements = features.getArticleElementCount();
+        boolean hasArticleContent = articleElements > 0;
         // 详情页通常只有一个主要内容区域
-        boolean hasSingleArticleContent = articleElements.size() == 1;
-        boolean hasSingleTitle = doc.select("h1").size() == 1;
-        boolean hasArticleMeta = doc.select(".article-meta, .post-meta, .publish-time, time[datetime]").size() > 0;
+        boolean hasSingleArticleContent = articleElements == 1;
+        boolean hasSingleTitle = features.getH1Count() == 1;
+        boolean hasArticleMeta = features.hasArticleMeta();
         
         // 检测列表页特征
-        boolean hasMultipleLinks = doc.select("a[href]").size() > 10;
+        boolean hasMultipleLinks = features.getLinkCount() > 10;
         // 传统列表容器
-        boolean hasListContainer = doc.select(".article-list, .post-list, .news-list, ul.article-list, .list-item").size() > 0;
+        boolean hasListContainer = features.hasListContainer();
         // 图片卡片网格布局（如 jrants.com）：多个 article.post 或 .entry 容器
-        Elements cardContainers = doc.select("article.post, article.entry, .post, .entry, .card, .post-item, .entry-item");
-        boolean hasMultipleCards = cardContainers.size() > 1; // 列表页通常有多个卡片
-        boolean hasPagination = doc.select(".pagination, .page-nav, .pager, a[rel='next'], a:contains(Next), a:contains(下一页)").size() > 0;
+        boolean hasMultipleCards = features.getCardCount() > 1; // 列表页通常有多个卡片
+        boolean hasPagination = features.hasPagination();
         
         // URL模式检测（优先判断，URL模式是最可靠的信号）
-        boolean urlLooksLikeDetail = url.matches(".*/(article|post|news|detail|view)/.*|.*\\.html$|.*/\\d+\\.html$");
-        boolean urlLooksLikeList = url.matches(".*/(list|index|category|tag|archive)/.*|.*/page/\\d+.*");
+        boolean urlLooksLikeDetail = classifier.looksLikeDetail(url);
+        boolean urlLooksLikeList = classifier.looksLikeList(url);
         
         // URL模式是强信号：如果URL明确包含 /page/，优先判断为列表页
-        if (url.contains("/page/") && url.matches(".*/page/\\d+.*"))
+        if (classifier.isPaginated(url))
         {
             log.debug("URL {} 包含 /page/，优先判断为列表页", url);
             return PageType.LIST;
@@ -991,45 +1484,24 @@ public class CrawlerExecutor
      * 1. 传统列表布局（一行一行）
      * 2. 图片卡片网格布局（如 jrants.com）
      */
-    private void extractArticleLinks(CrawlerTaskEntity task, String url, Document doc,
-                                    Queue<UrlInfo> urlQueue, Set<String> visitedUrls,
+    private void extractArticleLinks(CrawlerTaskEntity task, String url, PageFeatures features,
+                                    CrawlFrontier urlQueue, UrlSeenFilter visitedUrls,
                                     String baseUrl, String scopeType, int maxDepth,
-                                    AtomicInteger totalUrls, int maxUrls)
+                                    LongAdder totalUrls, int maxUrls)
     {
-        Set<String> foundLinks = new HashSet<>();
+        // 保持文档顺序：链接位置参与优先级评分
+        Set<String> foundLinks = new LinkedHashSet<>();
         
         // 策略1：尝试识别"卡片容器"布局（图片散落的网格布局）
-        // 优先使用精确的选择器，避免匹配到太多无关元素
-        String[] cardContainerSelectors = {
-            "article.post",           // WordPress 标准结构
-            "article.entry",          // WordPress 标准结构
-            "article[class*='post']", // 包含 post 的 article
-            "article[class*='entry']",// 包含 entry 的 article
-            ".post",                  // .post 类（需要手动检查是否包含图片）
-            ".entry",                 // .entry 类
-            ".article-item",           // .article-item 类
-            ".card",                  // .card 类
-            ".post-item",             // .post-item 类
-            ".entry-item"             // .entry-item 类
-        };
-        
+        // 优先使用精确的选择器，避免匹配到太多无关元素（选择器顺序见 PageFeatures.CARD_SELECTORS）
         boolean foundCards = false;
-        for (String containerSelector : cardContainerSelectors)
+        for (int i = 0; i < PageFeatures.CARD_SELECTORS.length; i++)
         {
+            String containerSelector = PageFeatures.CARD_SELECTORS[i];
             try
             {
-                Elements cards = doc.select(containerSelector);
-                // 过滤：只保留包含图片的卡片（避免匹配到 .post-meta 等无关元素）
-                List<Element> validCards = new ArrayList<>();
-                for (Element card : cards)
-                {
-                    // 检查卡片是否包含图片（至少一张）
-                    Elements imgs = card.select("img");
-                    if (!imgs.isEmpty())
-                    {
-                        validCards.add(card);
-                    }
-                }
+                // 只保留包含图片的卡片（避免匹配到 .post-meta 等无关元素）
+                List<Element> validCards = features.getCards(i);
                 
                 // 至少找到2个有效卡片才认为是卡片布局（避免误判）
                 if (validCards.size() >= 2)
@@ -1125,7 +1597,7 @@ public class CrawlerExecutor
                             if (href != null && !href.isEmpty() && !href.equals(url))
                             {
                                 // 对于卡片布局，放宽 isArticleLink 的检查
-                                if (isArticleLinkForCardLayout(href, url))
+                                if (classifier(task).isArticleLinkForCardLayout(href, url))
                                 {
                                     foundLinks.add(href);
                                 }
@@ -1149,36 +1621,15 @@ public class CrawlerExecutor
         }
         
         // 策略2：如果没有找到卡片布局或提取失败，使用传统的链接选择器（兼容传统列表布局）
+        // 候选链接：a[href*='/article/'|'/post/'|'/news/'|'/detail/'|'.html']，以及列表容器/article/标题内的链接
         if (!foundCards || foundLinks.isEmpty())
         {
-            String[] articleLinkSelectors = {
-                "a[href*='/article/']",
-                "a[href*='/post/']",
-                "a[href*='/news/']",
-                "a[href*='/detail/']",
-                "a[href*='.html']",
-                ".article-list a",
-                ".post-list a",
-                ".news-list a",
-                ".list-item a",
-                "article a",
-                ".title a",
-                "h2 a, h3 a, h4 a" // 标题链接
-            };
-            
-            for (String selector : articleLinkSelectors)
+            UrlClassifier classifier = classifier(task);
+            for (String href : features.getCandidateLinks())
             {
-                Elements links = doc.select(selector);
-                for (Element link : links)
+                if (!href.equals(url) && classifier.isArticleLink(href))
                 {
-                    String href = link.attr("abs:href");
-                    if (href != null && !href.isEmpty() && !href.equals(url))
-                    {
-                        if (isArticleLink(href))
-                        {
-                            foundLinks.add(href);
-                        }
-                    }
+                    foundLinks.add(href);
                 }
             }
         }
@@ -1188,9 +1639,12 @@ public class CrawlerExecutor
         // 默认限制为20个，如果用户设置了listMaxPages，可以根据页数调整
         int maxArticlesPerPage = 20; // 每页最多提取20个文章链接
         int addedCount = 0;
+        int position = -1;
+        UrlClassifier linkClassifier = classifier(task);
         for (String href : foundLinks)
         {
-            if (addedCount >= maxArticlesPerPage || totalUrls.get() >= maxUrls)
+            position++;
+            if (addedCount >= maxArticlesPerPage || totalUrls.intValue() >= maxUrls)
             {
                 break;
             }
@@ -1209,10 +1663,13 @@ public class CrawlerExecutor
                 }
                 
                 // 列表页提取的文章链接深度设为1（而不是0），这样如果被误判为列表页，不会再次提取链接
-                urlQueue.offer(new UrlInfo(href, 1));
-                visitedUrls.add(normalizedUrl);
-                totalUrls.incrementAndGet();
-                addedCount++;
+                if (visitedUrls.add(normalizedUrl))
+                {
+                    urlQueue.offer(new UrlInfo(href, 1, null, null,
+                            UrlPriorityScorer.score(linkClassifier, href, 1, position, foundLinks.size(), null)));
+                    totalUrls.increment();
+                    addedCount++;
+                }
             }
         }
         
@@ -1227,225 +1684,38 @@ public class CrawlerExecutor
     }
     
     /**
-     * 判断是否为文章链接
+     * 获取任务的URL分类器（任务已结束时临时创建，不再登记）
      */
-    private boolean isArticleLink(String url)
+    private UrlClassifier classifier(CrawlerTaskEntity task)
     {
-        if (url == null || url.isEmpty())
-        {
-            return false;
-        }
-        
-        // 排除的URL模式（列表页、功能页等）
-        String[] excludePatterns = {
-            "/tag/", "/author/", "/search", "/login", "/register",
-            "/about", "/contact", "/privacy", "/terms", "/#", "javascript:", "mailto:",
-            "/page/", "?page=", "&page=", // 分页链接
-            "/feed", "/rss", "/sitemap" // Feed和站点地图
-        };
-        
-        for (String pattern : excludePatterns)
-        {
-            if (url.contains(pattern))
-            {
-                return false;
-            }
-        }
-        
-        // 特殊处理：/category/ 开头的URL
-        // 如果URL是 /category/xxx/yyy/ 格式，且不是分页链接，可能是文章链接
-        // 例如：/category/wanghong/twitter/某个标题/ 是文章链接
-        // 但 /category/wanghong/twitter/page/2 是列表页链接
-        if (url.contains("/category/"))
-        {
-            // 排除分页链接
-            if (url.matches(".*/category/[^/]+/[^/]+/page/\\d+.*") || 
-                url.matches(".*/category/[^/]+/[^/]+\\?page=\\d+.*"))
-            {
-                return false;
-            }
-            // 如果 /category/ 后面有多于2个路径段，可能是文章链接
-            // 例如：/category/wanghong/twitter/某个标题/ 有4个路径段
-            String path = url.replaceFirst("https?://[^/]+", "");
-            String[] pathSegments = path.split("/");
-            int nonEmptySegments = 0;
-            for (String seg : pathSegments)
-            {
-                if (seg != null && !seg.isEmpty() && !seg.contains("?"))
-                {
-                    nonEmptySegments++;
-                }
-            }
-            // 如果路径段 >= 4（category + 分类1 + 分类2 + 文章标题），可能是文章链接
-            if (nonEmptySegments >= 4)
-            {
-                return true;
-            }
-            // 否则是分类列表页
-            return false;
-        }
-        
-        // 文章URL常见模式
-        String[] articlePatterns = {
-            "/article/", "/post/", "/news/", "/detail/", "/view/", ".html", "/\\d+"
-        };
-        
-        for (String pattern : articlePatterns)
-        {
-            if (url.contains(pattern))
-            {
-                return true;
-            }
-        }
-        
-        // 如果URL看起来像是一个具体的页面（不是列表页），也可能是文章链接
-        // 例如：/某个标题/ 或 /某个标题.html
-        // 但需要排除明显的列表页模式
-        if (!url.contains("/list") && !url.contains("/index") && 
-            !url.contains("/archive") && !url.matches(".*/page/\\d+.*"))
-        {
-            // 如果URL路径段数 >= 2（不包括域名），可能是文章链接
-            String path = url.replaceFirst("https?://[^/]+", "");
-            String[] pathSegments = path.split("/");
-            int nonEmptySegments = 0;
-            for (String seg : pathSegments)
-            {
-                if (seg != null && !seg.isEmpty() && !seg.contains("?") && !seg.contains("#"))
-                {
-                    nonEmptySegments++;
-                }
-            }
-            // 如果路径段 >= 2，且不是明显的列表页，可能是文章链接
-            if (nonEmptySegments >= 2)
-            {
-                return true;
-            }
-        }
-        
-        return false;
+        UrlClassifier classifier = task.getId() != null ? taskClassifiers.get(task.getId()) : null;
+        return classifier != null ? classifier : classifierFactory.create(task);
     }
     
     /**
-     * 判断是否为文章链接（针对卡片布局，更宽松的检查）
-     * 用于图片散落的网格布局（如 jrants.com），放宽对 WordPress permalink 的检查
+     * 获取任务的解析规则集（任务已结束时临时创建，不再登记）
      */
-    private boolean isArticleLinkForCardLayout(String url, String currentPageUrl)
+    private ParseRuleSet ruleSet(CrawlerTaskEntity task)
     {
-        if (url == null || url.isEmpty())
-        {
-            return false;
-        }
-        
-        // 排除明显的非文章链接
-        String[] excludePatterns = {
-            "/tag/", "/author/", "/search", "/login", "/register",
-            "/about", "/contact", "/privacy", "/terms", "/#", "javascript:", "mailto:",
-            "/feed", "/rss", "/sitemap", "/wp-admin", "/wp-content", "/wp-includes"
-        };
-        
-        for (String pattern : excludePatterns)
-        {
-            if (url.contains(pattern))
-            {
-                return false;
-            }
-        }
-        
-        // 排除分页链接（更严格的检查）
-        if (url.matches(".*/page/\\d+.*") || url.matches(".*[?&]page=\\d+.*"))
-        {
-            return false;
-        }
-        
-        // 特殊处理：/category/ 开头的URL（WordPress permalink 结构）
-        // jrants.com 的文章链接格式：/category/wanghong/twitter/某个标题/
-        if (url.contains("/category/"))
-        {
-            // 排除分页链接
-            if (url.matches(".*/category/[^/]+/[^/]+/page/\\d+.*") || 
-                url.matches(".*/category/[^/]+/[^/]+\\?page=\\d+.*"))
-            {
-                return false;
-            }
-            
-            // 计算路径段数
-            String path = url.replaceFirst("https?://[^/]+", "").split("\\?")[0]; // 去掉查询参数
-            String[] pathSegments = path.split("/");
-            int nonEmptySegments = 0;
-            for (String seg : pathSegments)
-            {
-                if (seg != null && !seg.isEmpty())
-                {
-                    nonEmptySegments++;
-                }
-            }
-            
-            // WordPress permalink: /category/分类1/分类2/文章标题/
-            // 如果路径段 >= 4（category + 分类1 + 分类2 + 文章标题），很可能是文章链接
-            if (nonEmptySegments >= 4)
-            {
-                return true;
-            }
-            
-            // 如果路径段 == 3（category + 分类1 + 分类2），且当前页面也是 category 列表页，则这是列表页链接
-            if (nonEmptySegments == 3 && currentPageUrl != null && currentPageUrl.contains("/category/"))
-            {
-                return false;
-            }
-        }
-        
-        // 文章URL常见模式
-        String[] articlePatterns = {
-            "/article/", "/post/", "/news/", "/detail/", "/view/", ".html"
-        };
-        
-        for (String pattern : articlePatterns)
-        {
-            if (url.contains(pattern))
-            {
-                return true;
-            }
-        }
-        
-        // 对于卡片布局，如果URL路径段数 >= 2，且不是明显的列表页，可能是文章链接
-        String path = url.replaceFirst("https?://[^/]+", "").split("\\?")[0];
-        String[] pathSegments = path.split("/");
-        int nonEmptySegments = 0;
-        for (String seg : pathSegments)
-        {
-            if (seg != null && !seg.isEmpty() && !seg.contains("#"))
-            {
-                nonEmptySegments++;
-            }
-        }
-        
-        // 排除明显的列表页模式
-        if (url.contains("/list") || url.contains("/index") || url.contains("/archive"))
-        {
-            return false;
-        }
-        
-        // 如果路径段 >= 2，且不是当前列表页本身，可能是文章链接
-        if (nonEmptySegments >= 2 && !url.equals(currentPageUrl))
-        {
-            return true;
-        }
-        
-        return false;
+        ParseRuleSet rules = task.getId() != null ? taskRuleSets.get(task.getId()) : null;
+        return rules != null ? rules : parseRuleSetFactory.create(task);
     }
     
     /**
      * 提取所有链接（兜底逻辑）
      */
-    private void extractAllLinks(Document doc, Queue<UrlInfo> urlQueue, Set<String> visitedUrls,
+    private void extractAllLinks(CrawlerTaskEntity task, Document doc, CrawlFrontier urlQueue, UrlSeenFilter visitedUrls,
                                 String baseUrl, String scopeType, int currentDepth, int maxDepth,
-                                AtomicInteger totalUrls, int maxUrls)
+                                LongAdder totalUrls, int maxUrls)
     {
         Elements links = doc.select("a[href]");
+        UrlClassifier linkClassifier = classifier(task);
         int addedCount = 0;
+        int position = -1;
         for (Element link : links)
         {
-            if (addedCount >= 50 || totalUrls.get() >= maxUrls || currentDepth >= maxDepth)
+            position++;
+            if (addedCount >= 50 || totalUrls.intValue() >= maxUrls || currentDepth >= maxDepth)
             {
                 break;
             }
@@ -1466,10 +1736,13 @@ public class CrawlerExecutor
                         }
                     }
                     
-                    urlQueue.offer(new UrlInfo(href, currentDepth + 1));
-                    visitedUrls.add(normalizedUrl);
-                    totalUrls.incrementAndGet();
-                    addedCount++;
+                    if (visitedUrls.add(normalizedUrl))
+                    {
+                        urlQueue.offer(new UrlInfo(href, currentDepth + 1, null, null,
+                                UrlPriorityScorer.score(linkClassifier, href, currentDepth + 1, position, links.size(), null)));
+                        totalUrls.increment();
+                        addedCount++;
+                    }
                 }
             }
         }
@@ -1478,11 +1751,11 @@ public class CrawlerExecutor
     private void enqueueNextListPageIfNeeded(CrawlerTaskEntity task,
                                              UrlInfo currentUrlInfo,
                                              Document doc,
-                                             Queue<UrlInfo> urlQueue,
-                                             Set<String> visitedUrls,
+                                             CrawlFrontier urlQueue,
+                                             UrlSeenFilter visitedUrls,
                                              String baseUrl,
                                              String scopeType,
-                                             AtomicInteger totalUrls,
+                                             LongAdder totalUrls,
                                              int maxUrls)
     {
         Integer listMaxPages = task.getListMaxPages();
@@ -1519,14 +1792,19 @@ public class CrawlerExecutor
             }
         }
 
-        if (totalUrls.get() >= maxUrls)
+        if (totalUrls.intValue() >= maxUrls)
         {
             return;
         }
 
-        visitedUrls.add(normalizedUrl);
-        totalUrls.incrementAndGet();
-        urlQueue.offer(new UrlInfo(nextUrl, Math.max(0, currentUrlInfo.depth + 1)));
+        if (!visitedUrls.add(normalizedUrl))
+        {
+            return;
+        }
+        totalUrls.increment();
+        int nextDepth = Math.max(0, currentUrlInfo.getDepth() + 1);
+        urlQueue.offer(new UrlInfo(nextUrl, nextDepth, null, null,
+                UrlPriorityScorer.score(classifier(task), nextUrl, nextDepth, -1, 0, null)));
         log.info("列表页翻页：已处理 {}/{}，加入下一页: {}", processed, listMaxPages, nextUrl);
     }
 
@@ -1555,104 +1833,270 @@ public class CrawlerExecutor
         }
         if (next != null)
         {
-            String href = next.attr("abs:href");
-            if (href != null && !href.isEmpty() && !href.startsWith("javascript:"))
+            String href = next.attr("abs:href");
+            if (href != null && !href.isEmpty() && !href.startsWith("javascript:"))
+            {
+                return href;
+            }
+        }
+        return "";
+    }
+    
+    /**
+     * 提取文章内容
+     * <p>
+     * 标题、正文、作者、发布时间按任务解析规则集提取（任务规则优先，内置规则兜底）。
+     * 增量爬取时 knownArticle 为同一URL的已有文章：内容哈希相同则只刷新条件请求校验值，
+     * 不同则原地更新并标记 isUpdated，不再重复插入。
+     * @return 文章处理结果，如果提取失败返回null
+     */
+    private ArticleResult extractArticle(CrawlerTaskEntity task, String url, Document doc, ParseRuleSet rules,
+                                         LongAdder successCount, CrawlerArticleEntity knownArticle,
+                                         String etag, String lastModified)
+    {
+        try
+        {
+            ParseRuleSet.Fields fields = rules.extract(doc);
+            String title = fields.title();
+            String content = fields.content() != null ? fields.content() : "";
+            String author = fields.author() != null ? fields.author() : "";
+            Date publishTime = parsePublishTime(fields.publishTime());
+            
+            // 保存文章
+            if (title != null && !title.isEmpty() && content != null && !content.isEmpty())
+            {
+                String contentHash = contentHash(title, content);
+                if (knownArticle != null)
+                {
+                    return refreshArticle(knownArticle, url, title, content, author, contentHash,
+                            etag, lastModified, successCount);
+                }
+                
+                CrawlerArticleEntity article = new CrawlerArticleEntity();
+                article.setTaskId(task.getId());
+                article.setTitle(title);
+                article.setContent(content);
+                article.setUrl(url);
+                article.setUrlHash(DigestUtil.md5Hex(url)); // 计算URL的MD5哈希值
+                article.setAuthor(author);
+                article.setSourceSite(extractBaseUrl(url));
+                article.setPublishTime(publishTime);
+                article.setContentHash(contentHash);
+                article.setIsUpdated(0);
+                article.setEtag(etag);
+                article.setLastModified(lastModified);
+                article.setCreateTime(new Date());
+                // 继承任务的创建人和部门信息（数据权限）
+                article.setCreateBy(task.getCreateBy());
+                article.setDeptId(task.getDeptId());
+                // 写后批量插入，不等待落库：文章ID随批次回填，图片在 Future 完成后再关联入队
+                CompletableFuture<Long> articleId = persistence.saveArticle(article)
+                        .whenComplete((saved, e) -> {
+                            if (e != null)
+                            {
+                                log.error("保存文章失败: {}", url, e);
+                            }
+                        })
+                        .thenApply(CrawlerArticleEntity::getId);
+                successCount.increment();
+                return new ArticleResult(articleId, false, false);
+            }
+        }
+        catch (Exception e)
+        {
+            log.error("提取文章失败: {}", url, e);
+        }
+        return null;
+    }
+    
+    /**
+     * 解析发布时间文本（datetime 属性或页面文本），无法识别时返回 null
+     */
+    private Date parsePublishTime(String timeStr)
+    {
+        if (timeStr == null || timeStr.isBlank())
+        {
+            return null;
+        }
+        try
+        {
+            return DateUtil.parse(timeStr.trim());
+        }
+        catch (Exception e)
+        {
+            log.debug("发布时间无法解析: {}", timeStr);
+            return null;
+        }
+    }
+    
+    /**
+     * 增量爬取：按内容哈希决定是否更新已有文章（仅写变化的字段）
+     */
+    private ArticleResult refreshArticle(CrawlerArticleEntity known, String url, String title, String content,
+                                         String author, String contentHash, String etag, String lastModified,
+                                         LongAdder successCount)
+    {
+        CrawlerArticleEntity update = new CrawlerArticleEntity();
+        update.setId(known.getId());
+        update.setEtag(etag);
+        update.setLastModified(lastModified);
+        
+        if (contentHash.equals(known.getContentHash()))
+        {
+            // 内容未变化：校验值也未变化时不写库
+            if (!Objects.equals(etag, known.getEtag()) || !Objects.equals(lastModified, known.getLastModified()))
             {
-                return href;
+                persistence.updateArticle(update);
             }
+            log.debug("文章内容未变化: {}", url);
+            return new ArticleResult(CompletableFuture.completedFuture(known.getId()), true, true);
         }
-        return "";
+        
+        update.setTitle(title);
+        update.setContent(content);
+        update.setAuthor(author);
+        update.setContentHash(contentHash);
+        update.setIsUpdated(1);
+        update.setUpdateTime(new Date());
+        persistence.updateArticle(update);
+        successCount.increment();
+        log.info("文章内容已变化，更新: {}", url);
+        return new ArticleResult(CompletableFuture.completedFuture(known.getId()), true, false);
     }
     
     /**
-     * 提取文章内容
-     * @return 文章ID，如果提取失败返回null
+     * 归一化内容哈希：标题 + 正文，合并空白后计算 MD5，避免排版差异导致误判为更新
+     */
+    private static String contentHash(String title, String content)
+    {
+        String normalized = (title.trim() + "\n" + content).replaceAll("\\s+", " ").trim();
+        return DigestUtil.md5Hex(normalized);
+    }
+    
+    private static boolean isIncremental(CrawlerTaskEntity task)
+    {
+        return task.getIncremental() != null && task.getIncremental() == 1;
+    }
+    
+    /**
+     * 从站点 sitemap 播种：条目带 lastmod 流式入队，不把整个 sitemap 读入内存。
+     * 增量模式下跳过自上次抓取后未修改的页面（lastmod 不晚于文章的更新时间）。
      */
-    private Long extractArticle(CrawlerTaskEntity task, String url, Document doc, AtomicInteger successCount)
+    private void seedFromSitemap(CrawlerTaskEntity task, String baseUrl, CrawlFrontier urlQueue,
+                                 UrlSeenFilter visitedUrls, LongAdder totalUrls, int maxUrls)
     {
+        Long taskId = task.getId();
+        boolean siteScope = "SITE".equals(task.getScopeType() != null ? task.getScopeType() : "SITE");
+        boolean incremental = isIncremental(task);
+        boolean respectRobots = task.getRespectRobots() != null && task.getRespectRobots() == 1;
+        int[] added = {0};
+        int[] unchanged = {0};
+        UrlClassifier sitemapClassifier = classifier(task);
         try
         {
-            // 简单的文章提取逻辑（可以根据实际需求优化）
-            String title = doc.title();
-            if (title == null || title.isEmpty())
+            RobotsRules robots = robotsFor(task, baseUrl);
+            sitemapSeeder.seed(baseUrl, robots, respectRobots, siteMetadataHeaders(task), siteMetadataProxy(task), batch ->
             {
-                Elements titleElements = doc.select("h1, h2, .title, .article-title");
-                if (!titleElements.isEmpty())
+                Map<String, Date> crawledTimes = Collections.emptyMap();
+                if (incremental)
                 {
-                    title = titleElements.first().text();
+                    List<String> hashes = new ArrayList<>(batch.size());
+                    for (SitemapEntry entry : batch)
+                    {
+                        if (entry.lastmod() != null)
+                        {
+                            hashes.add(DigestUtil.md5Hex(entry.loc()));
+                        }
+                    }
+                    crawledTimes = articleService.findCrawledTimes(taskId, hashes);
                 }
-            }
-            
-            // 提取正文
-            Elements contentElements = doc.select("article, .content, .article-content, .post-content, #content");
-            String content = "";
-            if (!contentElements.isEmpty())
-            {
-                content = contentElements.first().text();
-            }
-            else
-            {
-                // 如果没有找到特定容器，尝试提取body中的文本
-                content = doc.body().text();
-            }
-            
-            // 提取发布时间
-            Date publishTime = null;
-            Elements timeElements = doc.select("time, .publish-time, .date, .post-date");
-            if (!timeElements.isEmpty())
-            {
-                String timeStr = timeElements.first().attr("datetime");
-                if (timeStr == null || timeStr.isEmpty())
+                for (SitemapEntry entry : batch)
                 {
-                    timeStr = timeElements.first().text();
+                    if (totalUrls.intValue() >= maxUrls || !runningTasks.getOrDefault(taskId, false))
+                    {
+                        return false;
+                    }
+                    String url = entry.loc();
+                    if (siteScope && !baseUrl.equals(extractBaseUrl(url)))
+                    {
+                        continue;
+                    }
+                    if (entry.lastmod() != null && !crawledTimes.isEmpty())
+                    {
+                        Date crawledAt = crawledTimes.get(DigestUtil.md5Hex(url));
+                        if (crawledAt != null && !entry.lastmod().after(crawledAt))
+                        {
+                            unchanged[0]++;
+                            continue;
+                        }
+                    }
+                    if (visitedUrls.add(normalizeUrl(url)))
+                    {
+                        urlQueue.offer(new UrlInfo(url, 1, null, entry.lastmod(),
+                                UrlPriorityScorer.score(sitemapClassifier, url, 1, -1, 0, entry.lastmod())));
+                        totalUrls.increment();
+                        added[0]++;
+                    }
                 }
-                // 简单的时间解析（可以根据实际需求优化）
-            }
-            
-            // 提取作者
-            String author = "";
-            Elements authorElements = doc.select(".author, .writer, .post-author");
-            if (!authorElements.isEmpty())
-            {
-                author = authorElements.first().text();
-            }
-            
-            // 保存文章
-            if (title != null && !title.isEmpty() && content != null && !content.isEmpty())
-            {
-                CrawlerArticleEntity article = new CrawlerArticleEntity();
-                article.setTaskId(task.getId());
-                article.setTitle(title);
-                article.setContent(content);
-                article.setUrl(url);
-                article.setUrlHash(DigestUtil.md5Hex(url)); // 计算URL的MD5哈希值
-                article.setAuthor(author);
-                article.setSourceSite(extractBaseUrl(url));
-                article.setPublishTime(publishTime);
-                article.setCreateTime(new Date());
-                // 继承任务的创建人和部门信息（数据权限）
-                article.setCreateBy(task.getCreateBy());
-                article.setDeptId(task.getDeptId());
-                articleService.save(article);
-                successCount.incrementAndGet();
-                return article.getId();
-            }
+                return true;
+            });
         }
         catch (Exception e)
         {
-            log.error("提取文章失败: {}", url, e);
+            log.warn("任务 {} sitemap 播种失败: {}", taskId, e.getMessage());
+        }
+        addLog(taskId, "INFO", "sitemap播种", unchanged[0] > 0
+                ? String.format("从 sitemap 入队 %d 个URL，跳过未修改 %d 个", added[0], unchanged[0])
+                : String.format("从 sitemap 入队 %d 个URL", added[0]));
+    }
+    
+    /**
+     * 站点 robots.txt 规则（按站点缓存）
+     */
+    private RobotsRules robotsFor(CrawlerTaskEntity task, String origin)
+    {
+        return siteMetadataCache.robots(origin, siteMetadataHeaders(task), siteMetadataProxy(task));
+    }
+    
+    private Map<String, String> siteMetadataHeaders(CrawlerTaskEntity task)
+    {
+        return Map.of("User-Agent", getUserAgent(task, 0));
+    }
+    
+    /**
+     * robots.txt / sitemap 请求使用的代理：共享 HttpClient 只支持 HTTP 代理，SOCKS 代理时直连
+     */
+    private FetchProxy siteMetadataProxy(CrawlerTaskEntity task)
+    {
+        ProxyEndpoint proxy = proxyPool.select(proxyPool.resolve(task));
+        return proxy != null && !proxy.isSocks() ? proxy.toFetchProxy() : null;
+    }
+    
+    /**
+     * 查询任务下同一URL已抓取的文章，查询失败按未抓取处理（全量请求）
+     */
+    private CrawlerArticleEntity findCrawledArticle(CrawlerTaskEntity task, String url)
+    {
+        try
+        {
+            return articleService.findCrawledArticle(task.getId(), DigestUtil.md5Hex(url));
+        }
+        catch (Exception e)
+        {
+            log.debug("查询已抓取文章失败，按全量请求处理: {} - {}", url, e.getMessage());
+            return null;
         }
-        return null;
     }
     
     /**
      * 提取图片
      */
-    private void extractImages(CrawlerTaskEntity task, String url, Document doc, AtomicInteger successCount)
+    private void extractImages(CrawlerTaskEntity task, String url, Document doc, LongAdder successCount)
     {
         try
         {
             Elements imgElements = doc.select("img[src]");
+            List<CompletableFuture<CrawlerImageEntity>> toDownload = new ArrayList<>();
             for (Element img : imgElements)
             {
                 String imgSrc = img.attr("abs:src");
@@ -1665,17 +2109,20 @@ public class CrawlerExecutor
                     image.setDownloadStatus("PENDING");
                     image.setFormat(extractFileExtension(imgSrc));
                     image.setCreateTime(new Date());
-                    imageService.save(image);
+                    CompletableFuture<CrawlerImageEntity> saved = persistence.saveImage(image);
 
                     // 纯图片任务（无文章ID），如果开启下载，则使用任务级目录
                     if (task.getDownloadImages() != null && task.getDownloadImages() == 1)
                     {
-                        downloadImageToLocal(task, null, image, imgSrc, url);
+                        toDownload.add(saved);
                     }
 
-                    successCount.incrementAndGet();
+                    successCount.increment();
                 }
             }
+            
+            // 整页图片一起入批，交给图片下载阶段，落库取得ID后再下载
+            submitImageDownloads(task, toDownload, url);
         }
         catch (Exception e)
         {
@@ -1859,56 +2306,43 @@ public class CrawlerExecutor
     /**
      * 从详情页提取图片并关联到文章
      */
-    private void extractImagesFromDetailPage(CrawlerTaskEntity task, Long articleId, String url, 
-                                            Document doc, AtomicInteger successCount)
+    private void extractImagesFromDetailPage(CrawlerTaskEntity task, CompletableFuture<Long> articleId, String url, 
+                                            Document doc, PageFeatures features, ParseRuleSet rules,
+                                            LongAdder successCount, boolean existingArticle)
     {
         try
         {
-            log.debug("开始从详情页 {} 提取图片，articleId: {}", url, articleId);
+            log.debug("开始从详情页 {} 提取图片，articleId: {}", url, articleId.getNow(null));
             
             Elements imgElements;
             
-            // 优先使用用户配置的选择器
-            String contentSelector = task.getContentSelector();
-            String imageSelector = task.getImageSelector();
-            String excludeSelector = task.getExcludeSelector();
+            // 优先使用用户配置的选择器（已在任务启动时编译，图片选择器已补全 img）
+            String contentSelector = rules.contentSelector();
+            String imageSelector = rules.imageSelector();
+            String excludeSelector = rules.excludeSelector();
             
             // 调试日志：输出配置信息
             log.info("任务 {} 图片提取配置 - contentSelector: [{}], imageSelector: [{}], excludeSelector: [{}]", 
                 task.getId(), contentSelector, imageSelector, excludeSelector);
             
             // 如果用户配置了图片选择器，优先使用（即使没有配置正文容器选择器）
-            if (imageSelector != null && !imageSelector.trim().isEmpty())
+            if (imageSelector != null)
             {
-                // 如果用户配置的选择器不包含 img 标签，自动添加 img 标签
-                // 例如：.entry-content -> .entry-content img
-                String actualImageSelector = imageSelector.trim();
-                String lowerSelector = actualImageSelector.toLowerCase();
-                boolean needAddImg = !lowerSelector.contains("img") && !lowerSelector.contains("image");
-                
-                if (needAddImg)
+                Evaluator imageEval = rules.imageEval();
+                if (imageEval == null)
                 {
-                    // 如果选择器以空格结尾，直接添加 img，否则添加空格和 img
-                    if (actualImageSelector.endsWith(" "))
-                    {
-                        actualImageSelector = actualImageSelector + "img";
-                    }
-                    else
-                    {
-                        actualImageSelector = actualImageSelector + " img";
-                    }
-                    log.info("详情页 {} 用户配置的图片选择器不包含 img 标签，自动添加: {} -> {}", url, imageSelector, actualImageSelector);
+                    log.warn("详情页 {} 用户配置的图片选择器无法解析: {}，跳过图片提取", url, imageSelector);
+                    imgElements = new Elements();
                 }
-                
-                if (contentSelector != null && !contentSelector.trim().isEmpty())
+                else if (contentSelector != null)
                 {
                     // 如果同时配置了正文容器：严格在“最佳正文容器”中查找（不再回退到整页）
-                    Element contentRoot = selectBestContentRoot(doc, contentSelector, actualImageSelector);
+                    Element contentRoot = selectBestContentRoot(doc, features, rules, imageEval);
                     if (contentRoot != null)
                     {
                         log.info("详情页 {} 使用用户配置的正文容器选择器: {}，找到容器", url, contentSelector);
-                        imgElements = contentRoot.select(actualImageSelector);
-                        log.info("详情页 {} 在正文容器中使用用户配置的图片选择器: {}，找到 {} 个图片元素", url, actualImageSelector, imgElements.size());
+                        imgElements = contentRoot.select(imageEval);
+                        log.info("详情页 {} 在正文容器中使用用户配置的图片选择器: {}，找到 {} 个图片元素", url, imageSelector, imgElements.size());
                     }
                     else
                     {
@@ -1920,7 +2354,7 @@ public class CrawlerExecutor
                 else
                 {
                     // 只配置了图片选择器，先从整个文档中选择
-                    Elements selectedElements = doc.select(actualImageSelector);
+                    Elements selectedElements = doc.select(imageEval);
                     
                     // 检查选择到的元素是否是 img 元素，如果不是，尝试在这些元素中查找 img
                     imgElements = new Elements();
@@ -1934,254 +2368,48 @@ public class CrawlerExecutor
                         else
                         {
                             // 不是 img 元素，可能是容器，在容器中查找 img
-                            Elements imgsInContainer = element.select("img");
+                            Elements imgsInContainer = element.getElementsByTag("img");
                             imgElements.addAll(imgsInContainer);
                             if (!imgsInContainer.isEmpty())
                             {
                                 log.debug("详情页 {} 选择器 {} 选择到容器元素 {}，在容器中找到 {} 个 img 元素", 
-                                    url, actualImageSelector, element.tagName(), imgsInContainer.size());
+                                    url, imageSelector, element.tagName(), imgsInContainer.size());
                             }
                         }
                     }
                     
-                    log.info("详情页 {} 从整个文档中使用用户配置的图片选择器: {}，找到 {} 个图片元素", url, actualImageSelector, imgElements.size());
+                    log.info("详情页 {} 从整个文档中使用用户配置的图片选择器: {}，找到 {} 个图片元素", url, imageSelector, imgElements.size());
                 }
                 
                 // 如果配置了排除选择器，应用排除选择器
-                if (excludeSelector != null && !excludeSelector.trim().isEmpty() && imgElements != null && !imgElements.isEmpty())
+                if (!rules.excludeEvals().isEmpty() && !imgElements.isEmpty())
                 {
                     int originalCount = imgElements.size();
-                    Elements filteredElements = new Elements();
-                    // 支持英文逗号、中文逗号、分号分隔多个选择器
-                    String[] excludeSelectors = excludeSelector.split("[,，;]+");
-                    
-                    // 先找到所有匹配排除选择器的元素
-                    Elements excludeElements = new Elements();
-                    for (String selector : excludeSelectors)
-                    {
-                        selector = selector.trim();
-                        if (selector.isEmpty()) continue;
-                        
-                        try
-                        {
-                            Elements matched = doc.select(selector);
-                            excludeElements.addAll(matched);
-                            if (!matched.isEmpty())
-                            {
-                                log.debug("详情页 {} 排除选择器 {} 匹配到 {} 个元素", url, selector, matched.size());
-                            }
-                        }
-                        catch (Exception e)
-                        {
-                            log.warn("排除选择器 {} 查询时出错: {}", selector, e.getMessage());
-                        }
-                    }
-                    
-                    // 如果找到了排除元素，检查每个图片是否在这些元素内
-                    if (!excludeElements.isEmpty())
-                    {
-                        log.info("详情页 {} 排除选择器共匹配到 {} 个元素，开始过滤图片", url, excludeElements.size());
-                    }
-                    
-                    for (Element img : imgElements)
-                    {
-                        boolean shouldExclude = false;
-                        String imgSrc = img.attr("src");
-                        if (imgSrc == null || imgSrc.isEmpty())
-                        {
-                            imgSrc = img.attr("data-src");
-                        }
-                        
-                        // 检查图片本身或任何祖先元素是否匹配排除选择器
-                        Element current = img;
-                        int depth = 0;
-                        while (current != null && depth < 20)
-                        {
-                            // 检查当前元素是否在排除元素列表中
-                            for (Element excludeElement : excludeElements)
-                            {
-                                if (excludeElement.equals(current))
-                                {
-                                    shouldExclude = true;
-                                    log.info("图片 {} 位于排除选择器匹配的元素内（深度: {}，元素: {}）", 
-                                        imgSrc, depth, excludeElement.tagName() + (excludeElement.className().isEmpty() ? "" : "." + excludeElement.className()));
-                                    break;
-                                }
-                            }
-                            
-                            if (shouldExclude)
-                            {
-                                break;
-                            }
-                            
-                            // 也检查当前元素是否匹配排除选择器本身
-                            for (String selector : excludeSelectors)
-                            {
-                                selector = selector.trim();
-                                if (selector.isEmpty()) continue;
-                                
-                                try
-                                {
-                                    if (current.is(selector))
-                                    {
-                                        shouldExclude = true;
-                                        log.info("图片 {} 的祖先元素（深度: {}）匹配排除选择器: {}", imgSrc, depth, selector);
-                                        break;
-                                    }
-                                }
-                                catch (Exception e)
-                                {
-                                    // 忽略选择器错误
-                                }
-                            }
-                            
-                            if (shouldExclude)
-                            {
-                                break;
-                            }
-                            
-                            current = current.parent();
-                            depth++;
-                        }
-                        
-                        if (!shouldExclude)
-                        {
-                            filteredElements.add(img);
-                        }
-                        else
-                        {
-                            log.info("图片 {} 被排除选择器过滤", imgSrc);
-                        }
-                    }
-                    imgElements = filteredElements;
+                    imgElements = excludeImages(imgElements, rules);
                     log.info("详情页 {} 应用排除选择器: {}，过滤后剩余 {} 个图片元素（原始: {} 个，过滤: {} 个）", 
                         url, excludeSelector, imgElements.size(), originalCount, originalCount - imgElements.size());
                 }
             }
-            else if (contentSelector != null && !contentSelector.trim().isEmpty())
+            else if (contentSelector != null)
             {
                 // 用户只配置了正文容器选择器，没有配置图片选择器
-                Element contentRoot = selectBestContentRoot(doc, contentSelector, "img");
+                Element contentRoot = selectBestContentRoot(doc, features, rules, null);
                 if (contentRoot != null)
                 {
                     log.info("详情页 {} 使用用户配置的正文容器选择器: {}，找到容器", url, contentSelector);
+                    Elements allImgs = contentRoot.getElementsByTag("img");
                     
                     // 如果用户配置了排除选择器，应用排除选择器
-                    if (excludeSelector != null && !excludeSelector.trim().isEmpty())
+                    if (!rules.excludeEvals().isEmpty())
                     {
-                        // 先获取所有图片，然后手动过滤
-                        Elements allImgs = contentRoot.select("img");
-                        Elements filteredElements = new Elements();
-                        // 支持英文逗号、中文逗号、分号分隔多个选择器
-                        String[] excludeSelectors = excludeSelector.split("[,，;]+");
-                        
-                        // 先找到所有匹配排除选择器的元素
-                        Elements excludeElements = new Elements();
-                        for (String selector : excludeSelectors)
-                        {
-                            selector = selector.trim();
-                            if (selector.isEmpty()) continue;
-                            
-                            try
-                            {
-                                Elements matched = doc.select(selector);
-                                excludeElements.addAll(matched);
-                                if (!matched.isEmpty())
-                                {
-                                    log.debug("详情页 {} 排除选择器 {} 匹配到 {} 个元素", url, selector, matched.size());
-                                }
-                            }
-                            catch (Exception e)
-                            {
-                                log.warn("排除选择器 {} 查询时出错: {}", selector, e.getMessage());
-                            }
-                        }
-                        
-                        // 如果找到了排除元素，检查每个图片是否在这些元素内
-                        if (!excludeElements.isEmpty())
-                        {
-                            log.info("详情页 {} 排除选择器共匹配到 {} 个元素，开始过滤图片", url, excludeElements.size());
-                        }
-                        
-                        for (Element img : allImgs)
-                        {
-                            boolean shouldExclude = false;
-                            String imgSrc = img.attr("src");
-                            if (imgSrc == null || imgSrc.isEmpty())
-                            {
-                                imgSrc = img.attr("data-src");
-                            }
-                            
-                            // 检查图片本身或任何祖先元素是否匹配排除选择器
-                            Element current = img;
-                            int depth = 0;
-                            while (current != null && depth < 20)
-                            {
-                                // 检查当前元素是否在排除元素列表中
-                                for (Element excludeElement : excludeElements)
-                                {
-                                    if (excludeElement.equals(current))
-                                    {
-                                        shouldExclude = true;
-                                        log.info("图片 {} 位于排除选择器匹配的元素内（深度: {}，元素: {}）", 
-                                            imgSrc, depth, excludeElement.tagName() + (excludeElement.className().isEmpty() ? "" : "." + excludeElement.className()));
-                                        break;
-                                    }
-                                }
-                                
-                                if (shouldExclude)
-                                {
-                                    break;
-                                }
-                                
-                                // 也检查当前元素是否匹配排除选择器本身
-                                for (String selector : excludeSelectors)
-                                {
-                                    selector = selector.trim();
-                                    if (selector.isEmpty()) continue;
-                                    
-                                    try
-                                    {
-                                        if (current.is(selector))
-                                        {
-                                            shouldExclude = true;
-                                            log.info("图片 {} 的祖先元素（深度: {}）匹配排除选择器: {}", imgSrc, depth, selector);
-                                            break;
-                                        }
-                                    }
-                                    catch (Exception e)
-                                    {
-                                        // 忽略选择器错误
-                                    }
-                                }
-                                
-                                if (shouldExclude)
-                                {
-                                    break;
-                                }
-                                
-                                current = current.parent();
-                                depth++;
-                            }
-                            
-                            if (!shouldExclude)
-                            {
-                                filteredElements.add(img);
-                            }
-                            else
-                            {
-                                log.info("图片 {} 被排除选择器过滤", imgSrc);
-                            }
-                        }
-                        
-                        imgElements = filteredElements;
+                        imgElements = excludeImages(allImgs, rules);
                         log.info("详情页 {} 使用用户配置的排除选择器: {}，过滤后剩余 {} 个图片元素（原始: {} 个，过滤: {} 个）", 
                             url, excludeSelector, imgElements.size(), allImgs.size(), allImgs.size() - imgElements.size());
                     }
                     else
                     {
                         // 只配置了正文容器，提取所有图片
-                        imgElements = contentRoot.select("img");
+                        imgElements = allImgs;
                         log.info("详情页 {} 从用户配置的正文容器中提取所有图片，找到 {} 个图片元素", url, imgElements.size());
                     }
                 }
@@ -2196,19 +2424,19 @@ public class CrawlerExecutor
             {
                 // 用户未配置，使用默认逻辑
                 // 尝试多种可能的正文容器选择器
-                Element contentRoot = doc.selectFirst("#conttpc, .tpc_content, #content, .content, article, main, .post-content, .article-content");
+                Element contentRoot = doc.selectFirst(DEFAULT_CONTENT_ROOT);
                 log.debug("详情页 {} 使用默认正文容器选择器，contentRoot: {}", url, contentRoot != null ? "找到" : "未找到");
                 
                 if (contentRoot != null)
                 {
                     // 从正文容器中提取所有图片
-                    imgElements = contentRoot.select("img");
+                    imgElements = contentRoot.getElementsByTag("img");
                     log.info("详情页 {} 在默认正文容器中找到 {} 个图片元素", url, imgElements.size());
                 }
                 else
                 {
                     // 如果找不到正文容器，从 body 提取所有图片
-                    imgElements = doc.select("body img");
+                    imgElements = doc.body().getElementsByTag("img");
                     log.info("详情页 {} 在 body 中找到 {} 个图片元素", url, imgElements.size());
                 }
             }
@@ -2216,6 +2444,15 @@ public class CrawlerExecutor
             int filteredCount = 0;
             int emptyUrlCount = 0;
             Set<String> savedUrls = new HashSet<>();
+            if (existingArticle && articleId.getNow(null) != null)
+            {
+                // 增量更新的文章：已关联的图片不重复入库
+                for (CrawlerImageEntity existing : imageService.listByArticleId(articleId.getNow(null)))
+                {
+                    savedUrls.add(normalizeUrl(existing.getUrl()));
+                }
+            }
+            List<CompletableFuture<CrawlerImageEntity>> pendingDownloads = new ArrayList<>();
             log.info("开始处理 {} 个图片元素", imgElements.size());
             for (Element img : imgElements)
             {
@@ -2257,21 +2494,25 @@ public class CrawlerExecutor
                     boolean isValid = isValidImage(imgSrc, img, hasImageSelector, hasContentSelector);
                     if (isValid)
                     {
-                        log.info("找到有效图片: {} (articleId: {})", imgSrc, articleId);
+                        log.info("找到有效图片: {} (articleId: {})", imgSrc, articleId.getNow(null));
                         CrawlerImageEntity image = new CrawlerImageEntity();
                         image.setTaskId(task.getId());
-                        image.setArticleId(articleId); // 关联到文章
                         image.setUrl(imgSrc);
                         image.setUrlHash(DigestUtil.md5Hex(imgSrc));
                         image.setDownloadStatus("PENDING");
                         image.setFormat(extractFileExtension(imgSrc));
                         image.setCreateTime(new Date());
-                        imageService.save(image);
+                        // 新文章的ID在其批次落库后才有：文章落库时再关联并入队，不阻塞提取线程
+                        // （回调在文章写入线程内执行，先于文章队列的 flush 返回，任务结束时的 flush 顺序仍然成立）
+                        CompletableFuture<CrawlerImageEntity> saved = articleId.thenCompose(id -> {
+                            image.setArticleId(id); // 关联到文章
+                            return persistence.saveImage(image);
+                        });
 
-                        // 如果任务开启了"下载图片"，则尝试立即下载到本地
+                        // 如果任务开启了"下载图片"，待本页图片落库取得ID后下载到本地
                         if (task.getDownloadImages() != null && task.getDownloadImages() == 1)
                         {
-                            downloadImageToLocal(task, articleId, image, imgSrc, url);
+                            pendingDownloads.add(saved);
                         }
 
                         imageCount++;
@@ -2291,14 +2532,17 @@ public class CrawlerExecutor
                 }
             }
             
+            // 本页图片已一起入批，交给图片下载阶段，逐个等待落库取得ID后下载
+            submitImageDownloads(task, pendingDownloads, url);
+            
             if (imageCount > 0)
             {
-                log.info("从详情页 {} 提取到 {} 张图片（articleId: {}）", url, imageCount, articleId);
+                log.info("从详情页 {} 提取到 {} 张图片（articleId: {}）", url, imageCount, articleId.getNow(null));
             }
             else
             {
                 log.warn("从详情页 {} 未提取到任何图片（articleId: {}）。统计：找到 {} 个图片元素，{} 个URL为空，{} 个被过滤", 
-                    url, articleId, imgElements.size(), emptyUrlCount, filteredCount);
+                    url, articleId.getNow(null), imgElements.size(), emptyUrlCount, filteredCount);
             }
         }
         catch (Exception e)
@@ -2309,49 +2553,121 @@ public class CrawlerExecutor
 
     /**
      * 从多个匹配的正文容器中选择“最像正文”的那个（避免 selectFirst 选到 header/sidebar 等）
-     * 规则：选择在容器内匹配 imageSelector 数量最多的；若并列则选文本更长的。
+     * 规则：选择在容器内匹配图片选择器数量最多的；若并列则选文本更长的。
+     * 候选容器及其 img 数量优先取自页面特征（已在同一次遍历中算出），不再整页 select。
+     *
+     * @param imageEval 编译后的图片选择器，为 null 时按 img 计数
      */
-    private Element selectBestContentRoot(Document doc, String contentSelector, String imageSelector)
+    private Element selectBestContentRoot(Document doc, PageFeatures features, ParseRuleSet rules, Evaluator imageEval)
     {
         try
         {
-            Elements roots = doc.select(contentSelector);
-            if (roots == null || roots.isEmpty())
+            Evaluator contentEval = rules.contentEval();
+            if (contentEval == null)
+            {
+                // 正文容器选择器无法解析，视为没有匹配容器
+                return null;
+            }
+            List<PageFeatures.Candidate> precomputed = features != null ? features.getContentRoots(rules.contentSelector()) : null;
+            List<Element> roots = new ArrayList<>();
+            if (precomputed != null)
+            {
+                for (PageFeatures.Candidate candidate : precomputed)
+                {
+                    roots.add(candidate.getElement());
+                }
+            }
+            else
+            {
+                roots = doc.select(contentEval);
+            }
+            if (roots.isEmpty())
             {
                 return null;
             }
+            boolean plainImg = precomputed != null && imageEval == null;
             Element best = null;
             int bestImgCount = -1;
             int bestTextLen = -1;
-            String imgSel = (imageSelector == null || imageSelector.isBlank()) ? "img" : imageSelector;
 
-            for (Element root : roots)
+            for (int i = 0; i < roots.size(); i++)
             {
+                Element root = roots.get(i);
                 int imgCount;
-                try
+                if (plainImg)
                 {
-                    imgCount = root.select(imgSel).size();
+                    imgCount = precomputed.get(i).getImgCount();
                 }
-                catch (Exception e)
+                else if (imageEval != null)
+                {
+                    imgCount = root.select(imageEval).size();
+                }
+                else
                 {
-                    // imageSelector 可能不是纯 img 选择器（例如用户误配），兜底用 img
-                    imgCount = root.select("img").size();
+                    imgCount = root.getElementsByTag("img").size();
                 }
                 int textLen = root.text() != null ? root.text().length() : 0;
 
                 if (imgCount > bestImgCount || (imgCount == bestImgCount && textLen > bestTextLen))
                 {
-                    best = root;
-                    bestImgCount = imgCount;
-                    bestTextLen = textLen;
+                    best = root;
+                    bestImgCount = imgCount;
+                    bestTextLen = textLen;
+                }
+            }
+            return best;
+        }
+        catch (Exception e)
+        {
+            return null;
+        }
+    }
+
+    /**
+     * 按任务的排除选择器过滤图片：图片本身或任一祖先元素（最多向上 20 层）匹配任一排除选择器即排除
+     */
+    private Elements excludeImages(Elements imgElements, ParseRuleSet rules)
+    {
+        List<Evaluator> excludeEvals = rules.excludeEvals();
+        List<String> excludeSelectors = rules.excludeSelectors();
+        Elements filteredElements = new Elements();
+        for (Element img : imgElements)
+        {
+            String matchedSelector = null;
+            Element current = img;
+            int depth = 0;
+            while (current != null && depth < 20)
+            {
+                for (int i = 0; i < excludeEvals.size() && matchedSelector == null; i++)
+                {
+                    if (current.is(excludeEvals.get(i)))
+                    {
+                        matchedSelector = excludeSelectors.get(i);
+                    }
+                }
+                if (matchedSelector != null)
+                {
+                    break;
+                }
+                current = current.parent();
+                depth++;
+            }
+            
+            if (matchedSelector == null)
+            {
+                filteredElements.add(img);
+            }
+            else
+            {
+                String imgSrc = img.attr("src");
+                if (imgSrc.isEmpty())
+                {
+                    imgSrc = img.attr("data-src");
                 }
+                log.info("图片 {} 的祖先元素（深度: {}）匹配排除选择器: {}，已过滤", imgSrc, depth, matchedSelector);
             }
-            return best;
-        }
-        catch (Exception e)
-        {
-            return null;
         }
+        return filteredElements;
     }
 
     private String extractImageUrlFromElement(Element img, String pageUrl, String baseUri)
@@ -2423,22 +2739,47 @@ public class CrawlerExecutor
         }
     }
 
+    /**
+     * 把本页待下载图片交给图片下载阶段（队列满时阻塞，背压传回提取阶段）
+     */
+    private void submitImageDownloads(CrawlerTaskEntity task, List<CompletableFuture<CrawlerImageEntity>> images,
+                                      String pageUrl)
+    {
+        for (CompletableFuture<CrawlerImageEntity> saved : images)
+        {
+            boolean accepted = imageDownloader.submit(new AsyncImageDownloader.DownloadJob(task.getId(), saved,
+                    image -> downloadImageToLocal(task, image, image.getUrl(), pageUrl)));
+            if (!accepted)
+            {
+                // 下载阶段已关闭（服务停止中）：在当前线程下载，避免图片停留在 PENDING
+                CrawlerImageEntity image = saved.join();
+                downloadImageToLocal(task, image, image.getUrl(), pageUrl);
+            }
+        }
+    }
+    
     /**
      * 将图片下载到本地，并更新 crawler_image 记录。
-     * 当 articleId 不为空时，每篇文章使用「文章ID_时间戳」单独目录。
+     * 图片按内容 MD5 存入内容寻址存储（{@link ImageBlobStore}），跨任务、跨文章的相同图片只保存一份。
      */
     private void downloadImageToLocal(CrawlerTaskEntity task,
-                                      Long articleId,
                                       CrawlerImageEntity image,
                                       String imgSrc,
                                       String pageUrl)
     {
+        // 同一URL已被其他记录下载过且文件仍在：直接引用，不再请求
+        if (linkDownloadedImage(image))
+        {
+            return;
+        }
+
         // 最多重试3次
         int maxRetries = task.getMaxRetries() != null ? task.getMaxRetries() : 3;
         Exception lastException = null;
         
         for (int attempt = 0; attempt <= maxRetries; attempt++)
         {
+            FetchResponse resp = null;
             try
             {
                 if (attempt > 0)
@@ -2449,45 +2790,8 @@ public class CrawlerExecutor
                     log.info("图片下载第 {} 次重试: {}", attempt, imgSrc);
                 }
                 
-                if (imageBasePath == null || imageBasePath.isEmpty())
-                {
-                    imageBasePath = "./data/crawler-images";
-                }
-
-                Path baseDir = Paths.get(imageBasePath).toAbsolutePath().normalize();
-                Files.createDirectories(baseDir);
-
-                Path articleDir;
-                if (articleId != null)
-                {
-                    articleDir = resolveArticleImageDir(articleId);
-                }
-                else
-                {
-                    // 纯图片任务：放在任务级目录下
-                    String folderName = "task_" + task.getId();
-                    articleDir = baseDir.resolve(folderName);
-                }
-                Files.createDirectories(articleDir);
-
-                // 清理URL用于提取扩展名（移除查询参数）
-                String cleanImgSrc = cleanUrlForFilename(imgSrc);
-                String extension = extractFileExtension(cleanImgSrc);
-                String fileName;
-                if (image.getId() != null)
-                {
-                    fileName = image.getId() + (extension != null && !"unknown".equals(extension) ? "." + extension : "");
-                }
-                else
-                {
-                    fileName = DigestUtil.md5Hex(cleanImgSrc + System.currentTimeMillis())
-                            + (extension != null && !"unknown".equals(extension) ? "." + extension : "");
-                }
-                
-                // 清理文件名，移除所有非法字符（Windows/Linux文件系统不允许的字符）
-                fileName = sanitizeFileName(fileName);
-
-                Path targetFile = articleDir.resolve(fileName);
+                // 清理URL用于提取扩展名（移除查询参数），文件头无法识别格式时使用
+                String extension = extractFileExtension(cleanUrlForFilename(imgSrc));
 
                 // 执行图片下载请求前检查停止标志
                 if (!runningTasks.getOrDefault(task.getId(), false))
@@ -2495,7 +2799,7 @@ public class CrawlerExecutor
                     log.info("任务 {} 已收到停止请求，取消图片下载: {}", task.getId(), imgSrc);
                     image.setDownloadStatus("FAILED");
                     image.setErrorMsg("任务已停止");
-                    imageService.updateById(image);
+                    persistence.updateImage(image);
                     return;
                 }
 
@@ -2506,7 +2810,7 @@ public class CrawlerExecutor
                 configureSslForImageDownload(imgSrc);
                 
                 // 解析代理列表（任务优先，其次全局）
-                EffectiveProxyList effectiveProxyList = parseProxyList(task);
+                ProxyPool.ProxyList effectiveProxyList = proxyPool.resolve(task);
                 
                 // SOCKS 代理下部分站点会出现 TLS 握手被终止（SSLHandshakeException）。
                 // Clash mixed-port 同时支持 SOCKS/HTTP，遇到该问题时自动降级为 HTTP CONNECT 代理（同 host:port）。
@@ -2517,53 +2821,39 @@ public class CrawlerExecutor
                         .userAgent(getUserAgent(task, attempt))
                         .timeout(timeout)
                         .ignoreContentType(true)
-                        .maxBodySize(50 * 1024 * 1024) // 增加到50MB
+                        .maxBodySize(MAX_IMAGE_BYTES)
                         .followRedirects(true);
 
                 // 设置代理（如果启用）
-                ProxyInfo requestProxyInfo = null;
+                ProxyEndpoint requestProxyInfo = null;
                 String requestProxyTypeForThisAttempt = null;
                 if (task.getUseProxy() != null && task.getUseProxy() == 1)
                 {
-                    if (effectiveProxyList.proxies.isEmpty())
+                    if (effectiveProxyList.isEmpty())
                     {
                         // 任务启用代理但未配置/无启用全局代理：明确提示
                         if (attempt == 0)
                         {
-                            log.warn("任务 {} 图片下载已启用代理(useProxy=1)，但未找到可用代理（source={}）。本次请求将直连，可能导致防爬虫拦截。", task.getId(), effectiveProxyList.source);
+                            log.warn("任务 {} 图片下载已启用代理(useProxy=1)，但未找到可用代理（source={}）。本次请求将直连，可能导致防爬虫拦截。", task.getId(), effectiveProxyList.source());
                         }
                     }
                     else
                     {
-                        ProxyInfo proxyInfo = effectiveProxyList.proxies.get(ThreadLocalRandom.current().nextInt(effectiveProxyList.proxies.size()));
+                        ProxyEndpoint proxyInfo = proxyPool.select(effectiveProxyList);
                         requestProxyInfo = proxyInfo;
-                        requestProxyTypeForThisAttempt = forceHttpProxyForTls ? "HTTP" : proxyInfo.type;
+                        requestProxyTypeForThisAttempt = forceHttpProxyForTls ? "HTTP" : proxyInfo.type();
                         Proxy.Type proxyType = "SOCKS".equalsIgnoreCase(requestProxyTypeForThisAttempt) ? Proxy.Type.SOCKS : Proxy.Type.HTTP;
-                        Proxy proxy = new Proxy(proxyType, new InetSocketAddress(proxyInfo.host, proxyInfo.port));
+                        Proxy proxy = new Proxy(proxyType, new InetSocketAddress(proxyInfo.host(), proxyInfo.port()));
                         connection.proxy(proxy);
 
                         if (attempt == 0)
                         {
                             log.info("任务 {} 图片下载使用{}代理({}) {}:{}",
                                     task.getId(),
-                                    effectiveProxyList.source,
+                                    effectiveProxyList.source(),
                                     requestProxyTypeForThisAttempt,
-                                    proxyInfo.host,
-                                    proxyInfo.port);
-                        }
-
-                        if (proxyInfo.username != null && !proxyInfo.username.isEmpty())
-                        {
-                            // 代理认证：通过全局 Authenticator 处理（对 HttpURLConnection/Jsoup 生效）
-                            String password = proxyInfo.password != null ? proxyInfo.password : "";
-                            Authenticator.setDefault(new Authenticator()
-                            {
-                                @Override
-                                protected PasswordAuthentication getPasswordAuthentication()
-                                {
-                                    return new PasswordAuthentication(proxyInfo.username, password.toCharArray());
-                                }
-                            });
+                                    proxyInfo.host(),
+                                    proxyInfo.port());
                         }
                     }
                 }
@@ -2618,16 +2908,18 @@ public class CrawlerExecutor
 
                 // 执行下载
                 log.debug("开始下载图片: {} (尝试 {}/{})", imgSrc, attempt + 1, maxRetries + 1);
-                org.jsoup.Connection.Response resp;
                 try
                 {
-                    resp = connection.execute();
+                    long requestStartedAt = System.currentTimeMillis();
+                    resp = executeImageRequest(connection, imgSrc, requestProxyInfo, requestProxyTypeForThisAttempt, timeout);
                     // 成功后清理 TLS 降级标志
                     forceHttpProxyForTls = false;
+                    recordProxyResult(requestProxyInfo, resp.statusCode(), requestStartedAt);
                 }
                 catch (java.net.SocketTimeoutException | java.net.ConnectException | 
                        java.net.UnknownHostException | SSLException e)
                 {
+                    proxyPool.recordFailure(requestProxyInfo);
                     // 若使用 SOCKS 代理发生 TLS 握手错误，尝试切换为 HTTP 代理重试
                     if (!forceHttpProxyForTls
                             && requestProxyInfo != null
@@ -2638,8 +2930,8 @@ public class CrawlerExecutor
                         forceHttpProxyForTls = true;
                         log.warn("任务 {} 图片下载走 SOCKS 代理发生 TLS 握手失败，下一次尝试将降级为 HTTP 代理: {}:{}（错误: {}）",
                                 task.getId(),
-                                requestProxyInfo.host,
-                                requestProxyInfo.port,
+                                requestProxyInfo.host(),
+                                requestProxyInfo.port(),
                                 e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
                         // 继续重试
                         if (attempt < maxRetries)
@@ -2670,8 +2962,8 @@ public class CrawlerExecutor
                 {
                     // 如果返回 HTML，可能是防爬虫页面或重定向页面
                     // 特殊处理：尝试从页面中提取真实图片URL
-                    String htmlContent = resp.body();
-                    String responseUrl = resp.url().toString();
+                    String htmlContent = resp.text(2 * 1024 * 1024);
+                    String responseUrl = resp.url();
                     
                     // 记录HTML内容用于调试（完整内容，便于分析）
                     if (htmlContent != null && !htmlContent.isEmpty())
@@ -2698,31 +2990,18 @@ public class CrawlerExecutor
                                 .userAgent(getUserAgent(task, attempt))
                                 .timeout(timeout)
                                 .ignoreContentType(true)
-                                .maxBodySize(50 * 1024 * 1024)
+                                .maxBodySize(MAX_IMAGE_BYTES)
                                 .followRedirects(true);
                         
                         // 重新设置代理（如果启用）
-                        if (task.getUseProxy() != null && task.getUseProxy() == 1 && 
-                            effectiveProxyList.proxies != null && !effectiveProxyList.proxies.isEmpty())
+                        ProxyEndpoint retryProxyInfo = null;
+                        if (task.getUseProxy() != null && task.getUseProxy() == 1 && !effectiveProxyList.isEmpty())
                         {
-                            ProxyInfo proxyInfo = effectiveProxyList.proxies.get(
-                                    ThreadLocalRandom.current().nextInt(effectiveProxyList.proxies.size()));
-                            Proxy.Type proxyType = "SOCKS".equalsIgnoreCase(proxyInfo.type) ? Proxy.Type.SOCKS : Proxy.Type.HTTP;
-                            Proxy proxy = new Proxy(proxyType, new InetSocketAddress(proxyInfo.host, proxyInfo.port));
+                            ProxyEndpoint proxyInfo = proxyPool.select(effectiveProxyList);
+                            retryProxyInfo = proxyInfo;
+                            Proxy.Type proxyType = proxyInfo.isSocks() ? Proxy.Type.SOCKS : Proxy.Type.HTTP;
+                            Proxy proxy = new Proxy(proxyType, new InetSocketAddress(proxyInfo.host(), proxyInfo.port()));
                             connection.proxy(proxy);
-                            
-                            if (proxyInfo.username != null && !proxyInfo.username.isEmpty())
-                            {
-                                String password = proxyInfo.password != null ? proxyInfo.password : "";
-                                Authenticator.setDefault(new Authenticator()
-                                {
-                                    @Override
-                                    protected PasswordAuthentication getPasswordAuthentication()
-                                    {
-                                        return new PasswordAuthentication(proxyInfo.username, password.toCharArray());
-                                    }
-                                });
-                            }
                         }
                         
                         // 重新设置请求头和Referer
@@ -2758,8 +3037,12 @@ public class CrawlerExecutor
                         // 使用新的URL重新执行请求
                         try
                         {
-                            resp = connection.execute();
+                            resp.close();
+                            long retryStartedAt = System.currentTimeMillis();
+                            resp = executeImageRequest(connection, imgSrc, retryProxyInfo,
+                                    retryProxyInfo != null ? retryProxyInfo.type() : null, timeout);
                             forceHttpProxyForTls = false;
+                            recordProxyResult(retryProxyInfo, resp.statusCode(), retryStartedAt);
                             // 重新检查Content-Type
                             contentType = resp.contentType();
                             if (contentType == null || !contentType.toLowerCase().contains("text/html"))
@@ -2775,6 +3058,7 @@ public class CrawlerExecutor
                         catch (java.net.SocketTimeoutException | java.net.ConnectException | 
                                java.net.UnknownHostException | SSLException e)
                         {
+                            proxyPool.recordFailure(retryProxyInfo);
                             // 处理网络错误（与之前的逻辑相同）
                             if (!forceHttpProxyForTls
                                     && requestProxyInfo != null
@@ -2832,30 +3116,58 @@ public class CrawlerExecutor
                     }
                 }
 
-                byte[] bytes = resp.bodyAsBytes();
-                if (bytes == null || bytes.length == 0)
+                // 边下载边计算 MD5 写入暂存文件，再按内容地址入库（相同内容只保存一份）
+                ImageBlobStore.Blob blob = imageBlobStore.store(resp.body(), extension, MAX_IMAGE_BYTES);
+                try
                 {
-                    throw new IOException("图片内容为空");
-                }
+                    // 检查文件大小（过滤掉异常小的"图片"，可能是防爬虫返回的占位图）
+                    if (blob.size() < 1024)
+                    {
+                        log.warn("图片文件过小 ({} bytes)，可能不是真实图片: {}", blob.size(), imgSrc);
+                    }
 
-                // 检查文件大小（过滤掉异常小的"图片"，可能是防爬虫返回的占位图）
-                if (bytes.length < 1024)
+                    image.setFileName(blob.fileName());
+                    image.setFilePath(blob.dir().toString());
+                    image.setFileSize(blob.size());
+                    image.setMd5(blob.md5());
+                    // 以文件头识别的格式与尺寸为准（URL 扩展名可能与实际内容不符）
+                    if (blob.format() != null)
+                    {
+                        image.setFormat(blob.format());
+                    }
+                    if (blob.width() > 0 && blob.height() > 0)
+                    {
+                        image.setWidth(blob.width());
+                        image.setHeight(blob.height());
+                    }
+                    image.setDownloadStatus("SUCCESS");
+                    persistence.updateImage(image);
+                }
+                finally
                 {
-                    log.warn("图片文件过小 ({} bytes)，可能不是真实图片: {}", bytes.length, imgSrc);
+                    // 记录已进入写入队列，之后删除前写出队列即可统计到该引用
+                    imageBlobStore.release(blob.fileName());
                 }
-
-                Files.write(targetFile, bytes, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
-
-                image.setFileName(fileName);
-                image.setFilePath(articleDir.toString());
-                image.setFileSize((long) bytes.length);
-                image.setMd5(DigestUtil.md5Hex(bytes));
-                image.setDownloadStatus("SUCCESS");
-                imageService.updateById(image);
+                // crawler.image-rendition.eager 开启时在下载线程内预生成缩略图，列表首次访问不再现场缩放
+                renditionService.renderAll(image.getFilePath(), image.getFileName(), image.getWidth());
                 
-                log.debug("图片下载成功: {} -> {} ({} bytes)", imgSrc, targetFile, bytes.length);
+                log.debug("图片下载成功: {} -> {}/{} ({} bytes{})", imgSrc, blob.dir(), blob.fileName(), blob.size(),
+                        blob.existed() ? "，内容已存在" : "");
                 return; // 下载成功，退出
             }
+            catch (ImageRejectedException e)
+            {
+                // 图标、占位图、跟踪像素：读完首块即中止，不重试
+                ImageHeaderProbe.ImageInfo info = e.getInfo();
+                image.setFormat(info.format() != null ? info.format() : image.getFormat());
+                image.setWidth(info.width());
+                image.setHeight(info.height());
+                image.setDownloadStatus("FAILED");
+                image.setErrorMsg(e.getMessage());
+                persistence.updateImage(image);
+                log.debug("图片被过滤（{}）: {}", e.getMessage(), imgSrc);
+                return;
+            }
             catch (InterruptedException e)
             {
                 Thread.currentThread().interrupt();
@@ -2874,6 +3186,13 @@ public class CrawlerExecutor
                     continue;
                 }
             }
+            finally
+            {
+                if (resp != null)
+                {
+                    resp.close();
+                }
+            }
         }
         
         // 所有重试都失败
@@ -2881,7 +3200,7 @@ public class CrawlerExecutor
         {
             image.setDownloadStatus("FAILED");
             image.setErrorMsg(lastException != null ? lastException.getMessage() : "下载失败");
-            imageService.updateById(image);
+            persistence.updateImage(image);
             log.error("图片下载最终失败 (已重试 {} 次): {} -> {}", 
                     maxRetries, imgSrc, lastException != null ? lastException.getMessage() : "未知错误");
         }
@@ -2892,31 +3211,108 @@ public class CrawlerExecutor
     }
 
     /**
-     * 根據文章ID獲取（或創建）圖片存儲目錄：文章ID_時間戳
+     * 执行图片请求：直连与 HTTP 代理走共享 HttpClient，SOCKS 代理仍使用 Jsoup 连接。
+     * 两种方式均返回未读取的流式响应，由调用方关闭。
+     */
+    private FetchResponse executeImageRequest(org.jsoup.Connection connection,
+                                              String url,
+                                              ProxyEndpoint proxyInfo,
+                                              String proxyType,
+                                              int timeout) throws IOException, InterruptedException
+    {
+        if (proxyInfo != null && "SOCKS".equalsIgnoreCase(proxyType))
+        {
+            return FetchResponse.of(connection.execute());
+        }
+        org.jsoup.Connection.Request prepared = connection.request();
+        return httpFetcher.get(url, prepared.headers(), prepared.cookies(),
+                proxyInfo != null ? proxyInfo.toFetchProxy() : null, timeout);
+    }
+    
+    /**
+     * 记录处理URL时的意外异常：计入失败并完成爬取边界中的URL
+     */
+    private void recordCrawlFailure(Long taskId, CrawlFrontier frontier, UrlInfo urlInfo, Exception e,
+                                    LongAdder crawledUrls, LongAdder errorCount)
+    {
+        String message = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+        errorCount.increment();
+        crawledUrls.increment();
+        frontier.complete(urlInfo, "FAILED", message);
+        log.error("爬取URL失败: {}", urlInfo.getUrl(), e);
+        addLog(taskId, "ERROR", "爬取失败", String.format("URL: %s, 错误: %s", urlInfo.getUrl(), message));
+    }
+    
+    /**
+     * 同一URL重试前的等待时间：遵守主机的 Retry-After，否则按主机当前请求间隔指数退避
+     */
+    private long retryDelay(CrawlerTaskEntity task, String url, int retry)
+    {
+        HostPolitenessScheduler scheduler = taskSchedulers.get(task.getId());
+        return scheduler != null ? scheduler.retryDelayMillis(url, retry) : 2000L * (retry + 1);
+    }
+    
+    /**
+     * 记录代理请求结果：拿到响应即视为代理可用（407 为代理认证失败）
+     */
+    private void recordProxyResult(ProxyEndpoint proxy, int statusCode, long startedAt)
+    {
+        if (proxy == null)
+        {
+            return;
+        }
+        if (statusCode == 407)
+        {
+            proxyPool.recordFailure(proxy);
+        }
+        else
+        {
+            proxyPool.recordSuccess(proxy, System.currentTimeMillis() - startedAt);
+        }
+    }
+
+    /**
+     * 按 URL 哈希复用已下载的图片：复制文件引用与元数据，不重复下载。
+     * 文件位于内容寻址存储中，删除时按引用数判断是否真正删除文件。
      */
-    private Path resolveArticleImageDir(Long articleId) throws IOException
+    private boolean linkDownloadedImage(CrawlerImageEntity image)
     {
-        String folder = articleImageFolderCache.computeIfAbsent(articleId, id -> {
+        try
+        {
+            CrawlerImageEntity existing = imageService.findDownloadedByUrlHash(image.getUrlHash());
+            if (existing == null
+                    || existing.getId().equals(image.getId())
+                    || !imageBlobStore.retain(existing.getFilePath(), existing.getFileName()))
+            {
+                return false;
+            }
             try
             {
-                CrawlerArticleEntity article = articleService.getById(id);
-                long ts = System.currentTimeMillis();
-                if (article != null && article.getCreateTime() != null)
+                image.setFileName(existing.getFileName());
+                image.setFilePath(existing.getFilePath());
+                image.setFileSize(existing.getFileSize());
+                image.setMd5(existing.getMd5());
+                image.setWidth(existing.getWidth());
+                image.setHeight(existing.getHeight());
+                if (image.getFormat() == null || image.getFormat().isEmpty())
                 {
-                    ts = article.getCreateTime().getTime();
+                    image.setFormat(existing.getFormat());
                 }
-                String formatted = new java.text.SimpleDateFormat("yyyyMMddHHmmss").format(new Date(ts));
-                return id + "_" + formatted;
+                image.setDownloadStatus("SUCCESS");
+                persistence.updateImage(image);
             }
-            catch (Exception e)
+            finally
             {
-                String formatted = new java.text.SimpleDateFormat("yyyyMMddHHmmss").format(new Date());
-                return id + "_" + formatted;
+                imageBlobStore.release(existing.getFileName());
             }
-        });
-
-        Path baseDir = Paths.get(imageBasePath).toAbsolutePath().normalize();
-        return baseDir.resolve(folder);
+            log.debug("图片URL已下载过，直接复用: {} -> {}/{}", image.getUrl(), existing.getFilePath(), existing.getFileName());
+            return true;
+        }
+        catch (Exception e)
+        {
+            log.debug("查询可复用图片失败，继续下载: {} - {}", image.getUrl(), e.getMessage());
+            return false;
+        }
     }
     /**
      * 判断是否为有效图片（过滤明显的小图标、logo、广告横幅等）
@@ -3204,6 +3600,65 @@ public class CrawlerExecutor
         MIXED   // 混合页（既有列表又有详情）
     }
     
+    /**
+     * 文章处理结果
+     * @param id        文章ID，新文章在其批次落库后完成
+     * @param existing  是否为增量爬取命中的已有文章
+     * @param unchanged 已有文章内容是否未变化（未变化时跳过图片提取）
+     */
+    private record ArticleResult(CompletableFuture<Long> id, boolean existing, boolean unchanged)
+    {
+    }
+    
+    /**
+     * 抓取阶段交给提取阶段的页面
+     * @param doc          解析后的文档（大页面为流式解析裁剪后的文档）；增量爬取命中 304 时为 null
+     * @param features     流式解析时已统计的页面特征；完整 DOM 解析时为 null，由提取阶段遍历统计
+     * @param etag         响应 ETag
+     * @param lastModified 响应 Last-Modified
+     * @param knownArticle 增量爬取命中的已有文章
+     * @param retryDelayMillis 需要稍后重试时的等待毫秒数，正常结果为 -1
+     */
+    private record FetchedPage(Document doc, PageFeatures features, String etag, String lastModified,
+                               CrawlerArticleEntity knownArticle, long retryDelayMillis)
+    {
+        FetchedPage(Document doc, PageFeatures features, String etag, String lastModified,
+                    CrawlerArticleEntity knownArticle)
+        {
+            this(doc, features, etag, lastModified, knownArticle, -1);
+        }
+        
+        /**
+         * 限流或网络错误，等待后重试
+         */
+        static FetchedPage retryLater(long delayMillis)
+        {
+            return new FetchedPage(null, null, null, null, null, Math.max(0, delayMillis));
+        }
+        
+        boolean retry()
+        {
+            return retryDelayMillis >= 0;
+        }
+    }
+    
+    /**
+     * 提取阶段的处理项
+     */
+    private record PageJob(UrlInfo urlInfo, FetchedPage page)
+    {
+    }
+    
+    /**
+     * 任务级流水线阶段
+     * @param fetch   抓取阶段指标
+     * @param extract 提取阶段
+     * @param parse   页面解析指标（完整 DOM / 流式解析）
+     */
+    private record TaskPipeline(StageMetrics fetch, PipelineStage<PageJob> extract, HtmlParseMetrics parse)
+    {
+    }
+    
     /**
      * 配置SSL，忽略证书验证（仅用于特定站点如23img.com）
      * 注意：这会降低安全性，仅用于处理证书问题的站点
@@ -3746,44 +4201,6 @@ public class CrawlerExecutor
         return url;
     }
     
-    /**
-     * 清理文件名，移除文件系统不允许的非法字符
-     */
-    private String sanitizeFileName(String fileName)
-    {
-        if (fileName == null || fileName.isEmpty())
-        {
-            return fileName;
-        }
-        
-        // Windows/Linux文件系统不允许的字符: < > : " / \ | ? *
-        // 同时移除控制字符
-        String sanitized = fileName.replaceAll("[<>:\"/\\\\|?*\\x00-\\x1F]", "_");
-        
-        // 移除开头和结尾的点或空格（Windows不允许）
-        sanitized = sanitized.replaceAll("^[\\.\\s]+", "").replaceAll("[\\.\\s]+$", "");
-        
-        // 确保文件名不为空
-        if (sanitized.isEmpty())
-        {
-            sanitized = "image_" + System.currentTimeMillis();
-        }
-        
-        // 限制文件名长度（Windows最大255字符）
-        if (sanitized.length() > 255)
-        {
-            String extension = "";
-            int lastDot = sanitized.lastIndexOf('.');
-            if (lastDot > 0 && lastDot < sanitized.length() - 1)
-            {
-                extension = sanitized.substring(lastDot);
-                sanitized = sanitized.substring(0, lastDot);
-            }
-            sanitized = sanitized.substring(0, 255 - extension.length()) + extension;
-        }
-        
-        return sanitized;
-    }
     
     /**
      * 更新任务状态
@@ -3804,7 +4221,13 @@ public class CrawlerExecutor
                 {
                     task.setEndTime(new Date());
                 }
-                taskService.updateById(task);
+                // 只更新状态相关列，计数列由进度汇总器维护
+                CrawlerTaskEntity update = new CrawlerTaskEntity();
+                update.setId(taskId);
+                update.setStatus(task.getStatus());
+                update.setErrorMsg(errorMsg);
+                update.setEndTime(task.getEndTime());
+                taskService.updateById(update);
                 
                 // SSE推送状态变化
                 publishTaskStatus(task, status);
@@ -3816,33 +4239,6 @@ public class CrawlerExecutor
         }
     }
     
-    /**
-     * 更新任务进度
-     */
-    private void updateTaskProgress(Long taskId, int totalUrls, int crawledUrls, 
-                                    int successCount, int errorCount)
-    {
-        try
-        {
-            CrawlerTaskEntity task = taskService.getById(taskId);
-            if (task != null)
-            {
-                task.setTotalUrls(totalUrls);
-                task.setCrawledUrls(crawledUrls);
-                task.setSuccessCount(successCount);
-                task.setErrorCount(errorCount);
-                taskService.updateById(task);
-                
-                // SSE推送进度更新
-                publishTaskProgress(task);
-            }
-        }
-        catch (Exception e)
-        {
-            log.error("更新任务进度失败: {}", taskId, e);
-        }
-    }
-    
     /**
      * SSE推送任务状态变化
      */
@@ -3867,22 +4263,6 @@ public class CrawlerExecutor
         }
     }
     
-    /**
-     * SSE推送任务进度更新
-     */
-    private void publishTaskProgress(CrawlerTaskEntity task)
-    {
-        try
-        {
-            Map<String, Object> data = buildTaskStatusData(task);
-            ssePublisher.publish(SSE_TOPIC_TASK_STATUS, "task.progress", data);
-        }
-        catch (Exception e)
-        {
-            log.debug("SSE推送任务进度失败: {}", e.getMessage());
-        }
-    }
-    
     /**
      * 构建任务状态数据
      */
@@ -3920,21 +4300,8 @@ public class CrawlerExecutor
     {
         try
         {
-            CrawlerLogEntity logEntity = new CrawlerLogEntity();
-            logEntity.setTaskId(taskId);
-            logEntity.setLogType(logType);
-            logEntity.setLevel(level);
-            logEntity.setMessage(message);
-            logEntity.setCreateTime(new Date());
-            
-            // 从任务获取权限信息
-            CrawlerTaskEntity task = taskService.getById(taskId);
-            if (task != null) {
-                logEntity.setCreateBy(task.getCreateBy());
-                logEntity.setDeptId(task.getDeptId());
-            }
-            
-            logService.save(logEntity);
+            // 交给日志写入器缓冲、合并后批量入库，不阻塞抓取
+            logSink.log(taskId, level, logType, message);
         }
         catch (Exception e)
         {
@@ -3947,12 +4314,19 @@ public class CrawlerExecutor
      */
     public void stopTask(Long taskId)
     {
+        // 分布式任务经 Redis 通知所有节点
+        boolean signalled = distributedCoordinator.signal(taskId, DistributedCrawlCoordinator.STATE_STOPPED);
         if (runningTasks.containsKey(taskId))
         {
             runningTasks.remove(taskId);
+            wakeUpDispatcher(taskId);
             log.info("任务 {} 已收到停止请求，将在下一个检查点停止", taskId);
             addLog(taskId, "INFO", "停止请求", "任务已收到停止请求，正在安全停止...");
         }
+        else if (signalled)
+        {
+            log.info("任务 {} 不在本节点运行，已通过 Redis 通知执行节点停止", taskId);
+        }
         else
         {
             log.warn("任务 {} 不在运行中，无需停止", taskId);
@@ -3960,118 +4334,133 @@ public class CrawlerExecutor
     }
     
     /**
-     * 确保任务不在运行状态（清理可能残留的运行状态）
+     * 暂停任务：停止调度，已租用未处理的URL归还队列，下次恢复时继续
      */
-    public void ensureTaskNotRunning(Long taskId)
+    public void pauseTask(Long taskId)
     {
-        runningTasks.remove(taskId);
+        boolean signalled = distributedCoordinator.signal(taskId, DistributedCrawlCoordinator.STATE_PAUSED);
+        if (runningTasks.containsKey(taskId))
+        {
+            pausedTasks.add(taskId);
+            runningTasks.remove(taskId);
+            wakeUpDispatcher(taskId);
+            log.info("任务 {} 已收到暂停请求，将在下一个检查点暂停", taskId);
+            addLog(taskId, "INFO", "暂停请求", "任务已收到暂停请求，正在保存进度...");
+        }
+        else if (signalled)
+        {
+            log.info("任务 {} 不在本节点运行，已通过 Redis 通知执行节点暂停", taskId);
+        }
+        else
+        {
+            log.warn("任务 {} 不在运行中，无需暂停", taskId);
+        }
     }
     
     /**
-     * 解析代理列表
+     * 任务是否在本节点运行
      */
-    private EffectiveProxyList parseProxyList(CrawlerTaskEntity task)
+    public boolean isRunning(Long taskId)
     {
-        if (task.getUseProxy() == null || task.getUseProxy() != 1)
-        {
-            return new EffectiveProxyList("NONE", Collections.emptyList());
-        }
-
-        String taskProxyListJson = task.getProxyList();
-        if (taskProxyListJson == null || taskProxyListJson.trim().isEmpty() || "[]".equals(taskProxyListJson.trim()))
+        return runningTasks.containsKey(taskId);
+    }
+    
+    /**
+     * 应用经 Redis 传来的分布式任务控制状态（PAUSED 暂停；STOPPED 或任务已结束时停止）
+     */
+    public void applyDistributedSignal(Long taskId, String state)
+    {
+        if (!runningTasks.containsKey(taskId))
         {
-            return new EffectiveProxyList("GLOBAL", getEnabledProxyListFromDb());
+            return;
         }
-
-        try
+        // 先登记暂停再清除运行标志，调度循环退出时据此判定最终状态
+        if (DistributedCrawlCoordinator.STATE_PAUSED.equals(state))
         {
-            // 解析代理列表（JSON格式：[{"type":"HTTP","host":"127.0.0.1","port":8080,"username":"","password":""}]）
-            List<Map<String, Object>> proxyMapList = objectMapper.readValue(taskProxyListJson,
-                    objectMapper.getTypeFactory().constructCollectionType(List.class, Map.class));
-            List<ProxyInfo> proxyList = new ArrayList<>();
-            for (Map<String, Object> proxyMap : proxyMapList)
-            {
-                ProxyInfo proxyInfo = new ProxyInfo();
-                proxyInfo.type = String.valueOf(proxyMap.getOrDefault("type", "HTTP"));
-                proxyInfo.host = (String) proxyMap.get("host");
-                proxyInfo.port = proxyMap.get("port") instanceof Integer 
-                        ? (Integer) proxyMap.get("port") 
-                        : Integer.parseInt(String.valueOf(proxyMap.get("port")));
-                proxyInfo.username = (String) proxyMap.getOrDefault("username", "");
-                proxyInfo.password = (String) proxyMap.getOrDefault("password", "");
-                if (proxyInfo.host != null && !proxyInfo.host.isEmpty() && proxyInfo.port > 0)
-                {
-                    proxyList.add(proxyInfo);
-                }
-            }
-            if (proxyList.isEmpty())
-            {
-                // 任务代理列表解析后为空：回退到全局代理
-                return new EffectiveProxyList("GLOBAL", getEnabledProxyListFromDb());
-            }
-            return new EffectiveProxyList("TASK", proxyList);
+            pausedTasks.add(taskId);
         }
-        catch (Exception e)
+        runningTasks.remove(taskId);
+        wakeUpDispatcher(taskId);
+        log.info("任务 {} 收到分布式控制状态 {}，本节点停止调度", taskId, state);
+    }
+    
+    /**
+     * 获取运行中任务的URL去重统计，任务未运行时返回 null
+     */
+    public Map<String, Object> getDedupStats(Long taskId)
+    {
+        UrlSeenFilter filter = taskSeenFilters.get(taskId);
+        if (filter == null)
         {
-            log.warn("解析代理列表失败: {}", e.getMessage());
-            // 任务代理列表解析失败：回退到全局代理
-            return new EffectiveProxyList("GLOBAL", getEnabledProxyListFromDb());
+            return null;
         }
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("mode", filter.mode());
+        stats.put("seenUrls", filter.size());
+        stats.put("memoryBytes", filter.memoryBytes());
+        return stats;
     }
-
-    private List<ProxyInfo> getEnabledProxyListFromDb()
-    {
-        return proxyService.listEnabled().stream()
-                .map(p -> {
-                    ProxyInfo pi = new ProxyInfo();
-                    pi.type = p.getProxyType();
-                    pi.host = p.getHost();
-                    pi.port = p.getPort() != null ? p.getPort() : 0;
-                    pi.username = p.getUsername();
-                    pi.password = p.getPassword();
-                    return pi;
-                })
-                .filter(pi -> pi.host != null && !pi.host.isEmpty() && pi.port > 0)
-                .toList();
-    }
-
-    private static class EffectiveProxyList
+    
+    /**
+     * 获取运行中任务各流水线阶段的队列深度与吞吐量，任务未在本节点运行时返回 null
+     * <p>
+     * 抓取、提取阶段为任务级；持久化与图片下载阶段为全局共享。
+     */
+    public Map<String, Object> getPipelineStats(Long taskId)
     {
-        String source; // TASK / GLOBAL / NONE
-        List<ProxyInfo> proxies;
-
-        EffectiveProxyList(String source, List<ProxyInfo> proxies)
+        TaskPipeline pipeline = taskPipelines.get(taskId);
+        if (pipeline == null)
         {
-            this.source = source;
-            this.proxies = proxies;
+            return null;
         }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("fetch", pipeline.fetch().snapshot());
+        stats.put("extract", pipeline.extract().metrics().snapshot());
+        stats.put("parse", pipeline.parse().snapshot());
+        stats.put("persist", persistence.stats());
+        Map<String, Object> download = imageDownloader.metrics().snapshot();
+        download.put("taskPending", imageDownloader.pending(taskId));
+        stats.put("download", download);
+        return stats;
     }
     
     /**
-     * 代理信息
+     * 获取运行中任务各解析规则的命中率，任务未在本节点运行时返回 null
      */
-    private static class ProxyInfo
+    public Map<String, Object> getParseRuleStats(Long taskId)
     {
-        String type; // HTTP / SOCKS
-        String host;
-        int port;
-        String username;
-        String password;
+        ParseRuleSet rules = taskRuleSets.get(taskId);
+        return rules != null ? rules.stats() : null;
     }
     
     /**
-     * URL信息
+     * 获取运行中任务各主机当前的并发上限与请求间隔，任务未在本节点运行时返回 null
      */
-    private static class UrlInfo
+    public List<Map<String, Object>> getHostLimits(Long taskId)
     {
-        String url;
-        int depth;
-        
-        UrlInfo(String url, int depth)
+        HostPolitenessScheduler scheduler = taskSchedulers.get(taskId);
+        return scheduler != null ? scheduler.hostLimits() : null;
+    }
+    
+    /**
+     * 唤醒任务调度循环，使其立即观察到停止/暂停标志
+     */
+    private void wakeUpDispatcher(Long taskId)
+    {
+        BlockingQueue<Object> signals = dispatchSignals.get(taskId);
+        if (signals != null)
         {
-            this.url = url;
-            this.depth = depth;
+            signals.offer(WAKE_UP);
         }
     }
+    
+    /**
+     * 确保任务不在运行状态（清理可能残留的运行状态）
+     */
+    public void ensureTaskNotRunning(Long taskId)
+    {
+        runningTasks.remove(taskId);
+        wakeUpDispatcher(taskId);
+    }
 }
 
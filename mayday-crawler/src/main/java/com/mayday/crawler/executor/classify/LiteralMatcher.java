@@ -0,0 +1,212 @@
+package com.mayday.crawler.executor.classify;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 多模式字面量匹配（Aho-Corasick）
+ * <p>
+ * 每个模式归属一个分组（0-63），一次扫描返回命中分组的位掩码，替代对每个模式逐一调用 {@code String.contains}。
+ * ASCII 字符走预先展开的完整状态转移表（无回溯、无分配），非 ASCII 字符沿失败链回退。
+ * 构建后只读，可多线程共享。
+ */
+final class LiteralMatcher
+{
+    private static final int ASCII = 128;
+
+    /**
+     * ASCII 转移表：asciiNext[state * 128 + c]
+     */
+    private final int[] asciiNext;
+
+    /**
+     * 非 ASCII 转移（按字符升序），仅 trie 边
+     */
+    private final char[][] wideKeys;
+    private final int[][] wideTargets;
+
+    private final int[] fail;
+
+    /**
+     * 到达该状态时命中的分组（含失败链上的输出）
+     */
+    private final long[] output;
+
+    private LiteralMatcher(int[] asciiNext, char[][] wideKeys, int[][] wideTargets, int[] fail, long[] output)
+    {
+        this.asciiNext = asciiNext;
+        this.wideKeys = wideKeys;
+        this.wideTargets = wideTargets;
+        this.fail = fail;
+        this.output = output;
+    }
+
+    /**
+     * 扫描文本，返回命中分组的位掩码
+     */
+    long match(String text)
+    {
+        long hits = 0L;
+        int state = 0;
+        for (int i = 0, n = text.length(); i < n; i++)
+        {
+            char c = text.charAt(i);
+            state = c < ASCII ? asciiNext[state * ASCII + c] : wideStep(state, c);
+            hits |= output[state];
+        }
+        return hits;
+    }
+
+    private int wideStep(int state, char c)
+    {
+        while (true)
+        {
+            int idx = Arrays.binarySearch(wideKeys[state], c);
+            if (idx >= 0)
+            {
+                return wideTargets[state][idx];
+            }
+            if (state == 0)
+            {
+                return 0;
+            }
+            state = fail[state];
+        }
+    }
+
+    /**
+     * @param groups 分组号 -> 该分组的字面量（空串忽略）
+     */
+    static LiteralMatcher build(Map<Integer, List<String>> groups)
+    {
+        // 1) 构建 trie
+        Trie trie = new Trie();
+        for (Map.Entry<Integer, List<String>> e : groups.entrySet())
+        {
+            int group = e.getKey();
+            if (group < 0 || group > 63)
+            {
+                throw new IllegalArgumentException("分组号需在 0-63 之间: " + group);
+            }
+            for (String pattern : e.getValue())
+            {
+                if (pattern == null || pattern.isEmpty())
+                {
+                    continue;
+                }
+                int state = 0;
+                for (int i = 0; i < pattern.length(); i++)
+                {
+                    state = trie.child(state, pattern.charAt(i));
+                }
+                trie.output[state] |= 1L << group;
+            }
+        }
+
+        // 2) BFS 计算失败链与 ASCII 完整转移表
+        int size = trie.size;
+        int[] fail = new int[size];
+        long[] output = Arrays.copyOf(trie.output, size);
+        int[] asciiNext = new int[size * ASCII];
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+
+        for (int c = 0; c < ASCII; c++)
+        {
+            Integer child = trie.edges.get(0).get((char) c);
+            if (child != null)
+            {
+                asciiNext[c] = child;
+                queue.add(child);
+            }
+        }
+        for (Map.Entry<Character, Integer> edge : trie.edges.get(0).entrySet())
+        {
+            if (edge.getKey() >= ASCII)
+            {
+                queue.add(edge.getValue());
+            }
+        }
+
+        while (!queue.isEmpty())
+        {
+            int state = queue.poll();
+            output[state] |= output[fail[state]];
+            for (Map.Entry<Character, Integer> edge : trie.edges.get(state).entrySet())
+            {
+                char c = edge.getKey();
+                int child = edge.getValue();
+                int f = fail[state];
+                while (f != 0 && !trie.edges.get(f).containsKey(c))
+                {
+                    f = fail[f];
+                }
+                Integer target = trie.edges.get(f).get(c);
+                fail[child] = target != null ? target : 0;
+                queue.add(child);
+            }
+            for (int c = 0; c < ASCII; c++)
+            {
+                Integer child = trie.edges.get(state).get((char) c);
+                asciiNext[state * ASCII + c] = child != null ? child : asciiNext[fail[state] * ASCII + c];
+            }
+        }
+
+        // 3) 非 ASCII 边压缩为有序数组
+        char[][] wideKeys = new char[size][];
+        int[][] wideTargets = new int[size][];
+        for (int s = 0; s < size; s++)
+        {
+            Map<Character, Integer> wide = trie.edges.get(s).tailMap((char) ASCII);
+            wideKeys[s] = new char[wide.size()];
+            wideTargets[s] = new int[wide.size()];
+            int i = 0;
+            for (Map.Entry<Character, Integer> edge : wide.entrySet())
+            {
+                wideKeys[s][i] = edge.getKey();
+                wideTargets[s][i] = edge.getValue();
+                i++;
+            }
+        }
+        return new LiteralMatcher(asciiNext, wideKeys, wideTargets, fail, output);
+    }
+
+    /**
+     * 构建期使用的可变 trie
+     */
+    private static final class Trie
+    {
+        private final List<TreeMap<Character, Integer>> edges = new ArrayList<>();
+        private long[] output = new long[16];
+        private int size;
+
+        Trie()
+        {
+            newState();
+        }
+
+        int child(int state, char c)
+        {
+            Integer next = edges.get(state).get(c);
+            if (next == null)
+            {
+                next = newState();
+                edges.get(state).put(c, next);
+            }
+            return next;
+        }
+
+        private int newState()
+        {
+            edges.add(new TreeMap<>());
+            if (size == output.length)
+            {
+                output = Arrays.copyOf(output, size * 2);
+            }
+            return size++;
+        }
+    }
+}
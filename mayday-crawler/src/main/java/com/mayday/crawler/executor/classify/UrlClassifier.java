@@ -0,0 +1,280 @@
+package com.mayday.crawler.executor.classify;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * URL 分类器（任务级）
+ * <p>
+ * 所有正则在类加载时编译一次；所有字面量规则合并为一个 {@link LiteralMatcher}，一次扫描得到全部命中分组。
+ * 每个 URL 的特征只计算一次并缓存，列表页上重复出现的链接（导航、分页、推荐）判定时不再产生分配。
+ * 线程安全，由 {@link UrlClassifierFactory} 按任务创建。
+ */
+public class UrlClassifier
+{
+    // 字面量分组
+    static final int EXCLUDE = 0;
+    static final int EXCLUDE_PAGINATION = 1;
+    static final int EXCLUDE_WP = 2;
+    static final int ARTICLE = 3;
+    static final int LIST_MARKER = 4;
+    static final int CATEGORY = 5;
+
+    static final List<String> DEFAULT_EXCLUDE = List.of(
+            "/tag/", "/author/", "/search", "/login", "/register",
+            "/about", "/contact", "/privacy", "/terms", "/#", "javascript:", "mailto:",
+            "/feed", "/rss", "/sitemap" // Feed和站点地图
+    );
+    static final List<String> DEFAULT_PAGINATION = List.of("/page/", "?page=", "&page=");
+    static final List<String> DEFAULT_WP = List.of("/wp-admin", "/wp-content", "/wp-includes");
+    static final List<String> DEFAULT_ARTICLE = List.of("/article/", "/post/", "/news/", "/detail/", "/view/", ".html");
+    static final List<String> DEFAULT_LIST_MARKER = List.of("/list", "/index", "/archive");
+
+    private static final Pattern DETAIL_URL = Pattern.compile("/(article|post|news|detail|view)/|\\.html$");
+    private static final Pattern LIST_URL = Pattern.compile("/(list|index|category|tag|archive)/|/page/\\d+");
+    private static final Pattern PAGE_PATH = Pattern.compile("/page/\\d+");
+    private static final Pattern PAGE_QUERY = Pattern.compile("[?&]page=\\d+");
+    private static final Pattern CATEGORY_PAGE = Pattern.compile("/category/[^/]+/[^/]+(/page/|\\?page=)\\d+");
+    private static final Pattern SCHEME_HOST = Pattern.compile("https?://[^/]+");
+
+    private final LiteralMatcher matcher;
+    private final int cacheSize;
+    private final Map<String, UrlFeatures> cache = new ConcurrentHashMap<>();
+
+    UrlClassifier(LiteralMatcher matcher, int cacheSize)
+    {
+        this.matcher = matcher;
+        this.cacheSize = cacheSize;
+    }
+
+    /**
+     * 判断是否为文章链接
+     */
+    public boolean isArticleLink(String url)
+    {
+        if (url == null || url.isEmpty())
+        {
+            return false;
+        }
+        UrlFeatures f = features(url);
+
+        // 排除的URL模式（列表页、功能页、分页链接等）
+        if (f.any(EXCLUDE) || f.any(EXCLUDE_PAGINATION))
+        {
+            return false;
+        }
+
+        // 特殊处理：/category/ 开头的URL
+        // 例如：/category/wanghong/twitter/某个标题/ 是文章链接，/category/wanghong/twitter/page/2 是列表页链接
+        if (f.any(CATEGORY))
+        {
+            if (f.categoryPage)
+            {
+                return false;
+            }
+            // 路径段 >= 4（category + 分类1 + 分类2 + 文章标题）才是文章链接，否则是分类列表页
+            return f.segmentsNoQuery >= 4;
+        }
+
+        // 文章URL常见模式
+        if (f.any(ARTICLE))
+        {
+            return true;
+        }
+
+        // 如果URL看起来像是一个具体的页面（不是列表页），路径段数 >= 2 时也可能是文章链接
+        if (!f.any(LIST_MARKER) && !f.pagePath)
+        {
+            return f.segmentsNoQueryHash >= 2;
+        }
+        return false;
+    }
+
+    /**
+     * 判断是否为文章链接（针对卡片布局，更宽松的检查）
+     * 用于图片散落的网格布局（如 jrants.com），放宽对 WordPress permalink 的检查
+     */
+    public boolean isArticleLinkForCardLayout(String url, String currentPageUrl)
+    {
+        if (url == null || url.isEmpty())
+        {
+            return false;
+        }
+        UrlFeatures f = features(url);
+
+        // 排除明显的非文章链接
+        if (f.any(EXCLUDE) || f.any(EXCLUDE_WP))
+        {
+            return false;
+        }
+
+        // 排除分页链接（更严格的检查）
+        if (f.pagePath || f.pageQuery)
+        {
+            return false;
+        }
+
+        // 特殊处理：/category/ 开头的URL（WordPress permalink 结构）
+        // jrants.com 的文章链接格式：/category/wanghong/twitter/某个标题/
+        if (f.any(CATEGORY))
+        {
+            if (f.categoryPage)
+            {
+                return false;
+            }
+            // 路径段 >= 4（category + 分类1 + 分类2 + 文章标题），很可能是文章链接
+            if (f.segmentsBeforeQuery >= 4)
+            {
+                return true;
+            }
+            // 路径段 == 3 且当前页面也是 category 列表页，则这是列表页链接
+            if (f.segmentsBeforeQuery == 3 && currentPageUrl != null && currentPageUrl.contains("/category/"))
+            {
+                return false;
+            }
+        }
+
+        // 文章URL常见模式
+        if (f.any(ARTICLE))
+        {
+            return true;
+        }
+
+        // 排除明显的列表页模式
+        if (f.any(LIST_MARKER))
+        {
+            return false;
+        }
+
+        // 如果路径段 >= 2，且不是当前列表页本身，可能是文章链接
+        return f.segmentsBeforeQueryNoHash >= 2 && !url.equals(currentPageUrl);
+    }
+
+    /**
+     * URL 形态像详情页（/article/、/post/ 等路径或 .html 结尾）
+     */
+    public boolean looksLikeDetail(String url)
+    {
+        return features(url).detailUrl;
+    }
+
+    /**
+     * URL 形态像列表页（/list/、/category/ 等路径或分页路径）
+     */
+    public boolean looksLikeList(String url)
+    {
+        return features(url).listUrl;
+    }
+
+    /**
+     * URL 含 /page/{数字} 分页路径
+     */
+    public boolean isPaginated(String url)
+    {
+        return features(url).pagePath;
+    }
+
+    /**
+     * 当前缓存的 URL 数
+     */
+    public int cachedCount()
+    {
+        return cache.size();
+    }
+
+    UrlFeatures features(String url)
+    {
+        UrlFeatures f = cache.get(url);
+        if (f == null)
+        {
+            f = compute(url);
+            // 超出容量时整体清空，避免长任务无限增长
+            if (cache.size() >= cacheSize)
+            {
+                cache.clear();
+            }
+            cache.put(url, f);
+        }
+        return f;
+    }
+
+    private UrlFeatures compute(String url)
+    {
+        long literals = matcher.match(url);
+        String path = SCHEME_HOST.matcher(url).replaceFirst("");
+        String beforeQuery = path.split("\\?")[0];
+        return new UrlFeatures(
+                literals,
+                DETAIL_URL.matcher(url).find(),
+                LIST_URL.matcher(url).find(),
+                PAGE_PATH.matcher(url).find(),
+                PAGE_QUERY.matcher(url).find(),
+                (literals & (1L << CATEGORY)) != 0 && CATEGORY_PAGE.matcher(url).find(),
+                countSegments(path, true, false),
+                countSegments(path, true, true),
+                countSegments(beforeQuery, false, false),
+                countSegments(beforeQuery, false, true));
+    }
+
+    /**
+     * 统计非空路径段数
+     *
+     * @param skipQuery 跳过含 '?' 的段
+     * @param skipHash  跳过含 '#' 的段
+     */
+    private static int countSegments(String path, boolean skipQuery, boolean skipHash)
+    {
+        int count = 0;
+        for (String seg : path.split("/"))
+        {
+            if (seg.isEmpty()
+                    || (skipQuery && seg.indexOf('?') >= 0)
+                    || (skipHash && seg.indexOf('#') >= 0))
+            {
+                continue;
+            }
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * 单个 URL 的分类特征（不可变）
+     */
+    static final class UrlFeatures
+    {
+        final long literals;
+        final boolean detailUrl;
+        final boolean listUrl;
+        final boolean pagePath;
+        final boolean pageQuery;
+        final boolean categoryPage;
+        final int segmentsNoQuery;
+        final int segmentsNoQueryHash;
+        final int segmentsBeforeQuery;
+        final int segmentsBeforeQueryNoHash;
+
+        UrlFeatures(long literals, boolean detailUrl, boolean listUrl, boolean pagePath, boolean pageQuery,
+                    boolean categoryPage, int segmentsNoQuery, int segmentsNoQueryHash,
+                    int segmentsBeforeQuery, int segmentsBeforeQueryNoHash)
+        {
+            this.literals = literals;
+            this.detailUrl = detailUrl;
+            this.listUrl = listUrl;
+            this.pagePath = pagePath;
+            this.pageQuery = pageQuery;
+            this.categoryPage = categoryPage;
+            this.segmentsNoQuery = segmentsNoQuery;
+            this.segmentsNoQueryHash = segmentsNoQueryHash;
+            this.segmentsBeforeQuery = segmentsBeforeQuery;
+            this.segmentsBeforeQueryNoHash = segmentsBeforeQueryNoHash;
+        }
+
+        boolean any(int group)
+        {
+            return (literals & (1L << group)) != 0;
+        }
+    }
+}
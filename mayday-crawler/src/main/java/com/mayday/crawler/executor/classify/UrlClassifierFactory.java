@@ -0,0 +1,65 @@
+package com.mayday.crawler.executor.classify;
+
+import com.mayday.crawler.config.UrlClassifyConfig;
+import com.mayday.crawler.modl.entity.CrawlerTaskEntity;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * URL分类器工厂
+ * 合并内置规则、crawler.classify 全局配置与任务级规则，为每个任务编译一个独立的分类器
+ */
+@Component
+@RequiredArgsConstructor
+public class UrlClassifierFactory
+{
+    private final UrlClassifyConfig classifyConfig;
+    
+    public UrlClassifier create(CrawlerTaskEntity task)
+    {
+        List<String> exclude = new ArrayList<>(UrlClassifier.DEFAULT_EXCLUDE);
+        exclude.addAll(classifyConfig.getExtraExcludePatterns());
+        exclude.addAll(splitPatterns(task.getExcludeUrlPatterns()));
+        
+        List<String> article = new ArrayList<>(UrlClassifier.DEFAULT_ARTICLE);
+        article.addAll(classifyConfig.getExtraArticlePatterns());
+        article.addAll(splitPatterns(task.getArticleUrlPatterns()));
+        
+        Map<Integer, List<String>> groups = new HashMap<>();
+        groups.put(UrlClassifier.EXCLUDE, exclude);
+        groups.put(UrlClassifier.EXCLUDE_PAGINATION, UrlClassifier.DEFAULT_PAGINATION);
+        groups.put(UrlClassifier.EXCLUDE_WP, UrlClassifier.DEFAULT_WP);
+        groups.put(UrlClassifier.ARTICLE, article);
+        groups.put(UrlClassifier.LIST_MARKER, UrlClassifier.DEFAULT_LIST_MARKER);
+        groups.put(UrlClassifier.CATEGORY, List.of("/category/"));
+        
+        int cacheSize = Math.max(classifyConfig.getCacheSize(), 1);
+        return new UrlClassifier(LiteralMatcher.build(groups), cacheSize);
+    }
+    
+    /**
+     * 按换行或逗号拆分任务配置的规则
+     */
+    private static List<String> splitPatterns(String value)
+    {
+        List<String> result = new ArrayList<>();
+        if (value == null || value.isBlank())
+        {
+            return result;
+        }
+        for (String part : value.split("[\\r\\n,]+"))
+        {
+            String p = part.trim();
+            if (!p.isEmpty())
+            {
+                result.add(p);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,53 @@
+package com.mayday.crawler.executor.dedup;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 精确去重：保存完整的规范化URL，无误判，内存随URL长度线性增长
+ */
+public class ExactUrlSeenFilter implements UrlSeenFilter
+{
+    // 每个条目的固定开销估算：String对象头+数组头（约40字节）+ CHM节点（约32字节）+ 桶引用
+    private static final long ENTRY_OVERHEAD = 80;
+    
+    private final Set<String> urls = ConcurrentHashMap.newKeySet();
+    private final AtomicLong charCount = new AtomicLong();
+    
+    @Override
+    public boolean contains(String normalizedUrl)
+    {
+        return urls.contains(normalizedUrl);
+    }
+    
+    @Override
+    public boolean add(String normalizedUrl)
+    {
+        if (urls.add(normalizedUrl))
+        {
+            charCount.addAndGet(normalizedUrl.length());
+            return true;
+        }
+        return false;
+    }
+    
+    @Override
+    public long size()
+    {
+        return urls.size();
+    }
+    
+    @Override
+    public long memoryBytes()
+    {
+        // 紧凑字符串下 Latin-1 URL 每字符1字节
+        return urls.size() * ENTRY_OVERHEAD + charCount.get();
+    }
+    
+    @Override
+    public String mode()
+    {
+        return "EXACT";
+    }
+}
@@ -0,0 +1,181 @@
+package com.mayday.crawler.executor.dedup;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 可扩展布隆过滤器（基于URL 64位指纹）
+ * <p>
+ * 位图保存在 long 原生数组中，每个URL约占 10~20 bit。当前分段写满预估容量后追加一个
+ * 容量翻倍、误判率减半的新分段；首段取目标误判率的一半，各段误判率之和不超过目标值。
+ * 并发场景下同一URL被两个线程同时首次加入时可能都返回 true，由爬取边界容忍这种极少的重复。
+ */
+public class ScalableBloomUrlSeenFilter implements UrlSeenFilter
+{
+    private static final double TIGHTENING_RATIO = 0.5;
+    
+    private final List<Segment> segments = new CopyOnWriteArrayList<>();
+    private final AtomicLong count = new AtomicLong();
+    
+    /**
+     * @param initialCapacity   首个分段的预估URL数
+     * @param falsePositiveRate 首个分段的目标误判率
+     */
+    public ScalableBloomUrlSeenFilter(long initialCapacity, double falsePositiveRate)
+    {
+        double fpp = falsePositiveRate > 0 && falsePositiveRate < 1 ? falsePositiveRate : 0.001;
+        segments.add(new Segment(Math.max(1024, initialCapacity), fpp * (1 - TIGHTENING_RATIO)));
+    }
+    
+    @Override
+    public boolean contains(String normalizedUrl)
+    {
+        long fp = UrlFingerprint.of(normalizedUrl);
+        for (Segment segment : segments)
+        {
+            if (segment.mightContain(fp))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    @Override
+    public boolean add(String normalizedUrl)
+    {
+        long fp = UrlFingerprint.of(normalizedUrl);
+        for (Segment segment : segments)
+        {
+            if (segment.mightContain(fp))
+            {
+                return false;
+            }
+        }
+        Segment current = currentSegment();
+        if (current.put(fp))
+        {
+            count.incrementAndGet();
+            return true;
+        }
+        return false;
+    }
+    
+    @Override
+    public long size()
+    {
+        return count.get();
+    }
+    
+    @Override
+    public long memoryBytes()
+    {
+        long bytes = 0;
+        for (Segment segment : segments)
+        {
+            bytes += segment.bits.length() * 8L;
+        }
+        return bytes;
+    }
+    
+    @Override
+    public String mode()
+    {
+        return "BLOOM";
+    }
+    
+    private Segment currentSegment()
+    {
+        Segment last = segments.get(segments.size() - 1);
+        if (last.inserted.get() < last.capacity)
+        {
+            return last;
+        }
+        synchronized (segments)
+        {
+            last = segments.get(segments.size() - 1);
+            if (last.inserted.get() >= last.capacity)
+            {
+                last = new Segment(last.capacity * 2, last.fpp * TIGHTENING_RATIO);
+                segments.add(last);
+            }
+            return last;
+        }
+    }
+    
+    /**
+     * 单个定长布隆分段，使用双重哈希 h1 + i*h2 生成 k 个位置
+     */
+    private static class Segment
+    {
+        final long capacity;
+        final double fpp;
+        final long bitCount;
+        final int hashCount;
+        final AtomicLongArray bits;
+        final AtomicLong inserted = new AtomicLong();
+        
+        Segment(long capacity, double fpp)
+        {
+            this.capacity = capacity;
+            this.fpp = fpp;
+            long m = (long) Math.ceil(-capacity * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+            int words = (int) Math.min(Integer.MAX_VALUE - 8, (m + 63) >>> 6);
+            this.bits = new AtomicLongArray(words);
+            this.bitCount = words * 64L;
+            this.hashCount = Math.max(1, (int) Math.round((double) bitCount / capacity * Math.log(2)));
+        }
+        
+        boolean mightContain(long fp)
+        {
+            long h1 = fp;
+            long h2 = UrlFingerprint.mix(fp ^ 0x9e3779b97f4a7c15L) | 1;
+            for (int i = 0; i < hashCount; i++)
+            {
+                long index = Long.remainderUnsigned(h1 + i * h2, bitCount);
+                if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0)
+                {
+                    return false;
+                }
+            }
+            return true;
+        }
+        
+        /**
+         * @return 是否至少置位了一个原本为0的位（即此前未见过）
+         */
+        boolean put(long fp)
+        {
+            long h1 = fp;
+            long h2 = UrlFingerprint.mix(fp ^ 0x9e3779b97f4a7c15L) | 1;
+            boolean changed = false;
+            for (int i = 0; i < hashCount; i++)
+            {
+                long index = Long.remainderUnsigned(h1 + i * h2, bitCount);
+                int word = (int) (index >>> 6);
+                long mask = 1L << index;
+                long old;
+                do
+                {
+                    old = bits.get(word);
+                    if ((old & mask) != 0)
+                    {
+                        break;
+                    }
+                }
+                while (!bits.compareAndSet(word, old, old | mask));
+                if ((old & mask) == 0)
+                {
+                    changed = true;
+                }
+            }
+            if (changed)
+            {
+                inserted.incrementAndGet();
+            }
+            return changed;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.mayday.crawler.executor.dedup;
+
+/**
+ * URL 64位指纹
+ * 对规范化URL的字符做 FNV-1a 累加，再用 MurmurHash3 的 fmix64 打散高低位
+ */
+public final class UrlFingerprint
+{
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    
+    private UrlFingerprint()
+    {
+    }
+    
+    public static long of(String url)
+    {
+        long h = FNV_OFFSET;
+        for (int i = 0, n = url.length(); i < n; i++)
+        {
+            h ^= url.charAt(i);
+            h *= FNV_PRIME;
+        }
+        return mix(h);
+    }
+    
+    /**
+     * MurmurHash3 fmix64
+     */
+    static long mix(long k)
+    {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+}
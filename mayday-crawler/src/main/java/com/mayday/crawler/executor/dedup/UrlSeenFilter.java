@@ -0,0 +1,37 @@
+package com.mayday.crawler.executor.dedup;
+
+/**
+ * URL去重过滤器
+ * <p>
+ * 执行器通过该接口判断URL是否已入队；实现可以是精确集合，也可以是允许少量误判的概率结构。
+ * 概率实现只会把"未见过"误判为"已见过"（跳过少量URL），不会重复入队。
+ */
+public interface UrlSeenFilter
+{
+    /**
+     * 是否（可能）已见过该URL
+     */
+    boolean contains(String normalizedUrl);
+    
+    /**
+     * 记录URL
+     *
+     * @return true 表示此前未见过（调用方应入队），false 表示已见过
+     */
+    boolean add(String normalizedUrl);
+    
+    /**
+     * 已记录的URL数量
+     */
+    long size();
+    
+    /**
+     * 估算占用内存（字节）
+     */
+    long memoryBytes();
+    
+    /**
+     * 实现名称（EXACT / BLOOM）
+     */
+    String mode();
+}
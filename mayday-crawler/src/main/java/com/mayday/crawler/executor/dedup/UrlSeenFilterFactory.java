@@ -0,0 +1,28 @@
+package com.mayday.crawler.executor.dedup;
+
+import com.mayday.crawler.config.DedupConfig;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * URL去重过滤器工厂
+ * 按 crawler.dedup.mode 创建每个任务独立的过滤器
+ */
+@Component
+@RequiredArgsConstructor
+public class UrlSeenFilterFactory
+{
+    private final DedupConfig dedupConfig;
+    
+    /**
+     * @param expectedUrls 任务预计的URL数量（通常为任务的最大URL数）
+     */
+    public UrlSeenFilter create(long expectedUrls)
+    {
+        if ("EXACT".equalsIgnoreCase(dedupConfig.getMode()))
+        {
+            return new ExactUrlSeenFilter();
+        }
+        return new ScalableBloomUrlSeenFilter(expectedUrls, dedupConfig.getFalsePositiveRate());
+    }
+}
@@ -0,0 +1,362 @@
+package com.mayday.crawler.executor.distributed;
+
+import com.mayday.crawler.config.DistributedCrawlConfig;
+import com.mayday.crawler.executor.dedup.UrlSeenFilter;
+import com.mayday.crawler.executor.frontier.CrawlFrontier;
+import com.mayday.crawler.executor.progress.TaskProgress;
+import com.mayday.crawler.modl.entity.CrawlerTaskEntity;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 分布式任务协调器
+ * <p>
+ * 管理分布式任务在 Redis 中的状态：共享的URL队列与去重集合、控制状态（停止/暂停信号）、
+ * 参与节点与汇总计数。发起任务的节点负责初始化与收尾，其它节点通过 {@link DistributedCrawlWorker} 加入。
+ * <p>
+ * 各节点的进度计数先在本地累加，由轮询线程把增量写入 Redis 哈希；发起节点再读取汇总值落库，
+ * 这样多个节点不会互相覆盖 crawler_task 的计数列。
+ */
+@Slf4j
+@Component
+public class DistributedCrawlCoordinator
+{
+    public static final String STATE_RUNNING = "RUNNING";
+    public static final String STATE_PAUSED = "PAUSED";
+    public static final String STATE_STOPPED = "STOPPED";
+    
+    private static final String[] STAT_FIELDS = {"total", "crawled", "success", "error"};
+    
+    /**
+     * 任务结束后汇总计数的保留时长（迟到的节点增量仍可写入，不会残留）
+     */
+    private static final long STATS_RETENTION_SECONDS = 3600;
+    
+    private final StringRedisTemplate redis;
+    private final DistributedCrawlConfig config;
+    private final String nodeId;
+    
+    /**
+     * 本节点上运行中的分布式任务
+     */
+    private final Map<Long, LocalRun> localRuns = new ConcurrentHashMap<>();
+    
+    /**
+     * 本节点上运行中任务的URL队列（由轮询线程续租）
+     */
+    private final Map<Long, RedisCrawlFrontier> frontiers = new ConcurrentHashMap<>();
+    
+    public DistributedCrawlCoordinator(StringRedisTemplate redis, DistributedCrawlConfig config)
+    {
+        this.redis = redis;
+        this.config = config;
+        this.nodeId = config.getNodeId() != null && !config.getNodeId().isBlank()
+                ? config.getNodeId() : defaultNodeId();
+    }
+    
+    /**
+     * 本节点上的一次任务执行
+     */
+    private static final class LocalRun
+    {
+        private final TaskProgress progress;
+        private final boolean owner;
+        private long[] pushed = new long[STAT_FIELDS.length];
+        
+        LocalRun(TaskProgress progress, boolean owner)
+        {
+            this.progress = progress;
+            this.owner = owner;
+        }
+    }
+    
+    public String nodeId()
+    {
+        return nodeId;
+    }
+    
+    /**
+     * 空闲节点重试租用的间隔（毫秒）
+     */
+    public long pollIntervalMillis()
+    {
+        return Math.max(100, config.getPollIntervalMs());
+    }
+    
+    /**
+     * 任务是否按分布式方式执行（本节点未启用分布式时退化为单机执行）
+     */
+    public boolean isDistributed(CrawlerTaskEntity task)
+    {
+        return config.isEnabled() && task.getDistributed() != null && task.getDistributed() == 1;
+    }
+    
+    /**
+     * 发起节点初始化任务
+     *
+     * @param resume 是否沿用 Redis 中上次暂停时的队列与去重集合
+     * @return 恢复执行时 Redis 中是否仍有待爬URL
+     */
+    public boolean start(Long taskId, boolean resume)
+    {
+        DistributedCrawlKeys keys = keys(taskId);
+        boolean resumable = false;
+        if (resume)
+        {
+            // 上次暂停时所有节点均已停止，未回报的租约按原优先级直接归还
+            long requeued = RedisCrawlFrontier.requeueLeased(redis, keys);
+            if (requeued > 0)
+            {
+                log.info("分布式任务 {} 恢复执行，归还未回报的租约 {} 条", taskId, requeued);
+            }
+            Long pending = redis.opsForZSet().zCard(keys.frontier());
+            resumable = pending != null && pending > 0;
+        }
+        if (!resumable)
+        {
+            redis.delete(List.of(keys.frontier(), keys.leased(), keys.leaseOwners(), keys.seen(), keys.stats(), keys.nodes()));
+        }
+        redis.persist(keys.stats());
+        redis.opsForValue().set(keys.control(), STATE_RUNNING);
+        redis.opsForSet().add(activeTasksKey(), String.valueOf(taskId));
+        redis.opsForSet().add(keys.nodes(), nodeId);
+        log.info("分布式任务 {} 已发布，发起节点: {}", taskId, nodeId);
+        return resumable;
+    }
+    
+    /**
+     * 其它节点加入运行中的任务
+     *
+     * @return false 表示任务已不在运行
+     */
+    public boolean join(Long taskId)
+    {
+        if (!STATE_RUNNING.equals(control(taskId)))
+        {
+            return false;
+        }
+        redis.opsForSet().add(keys(taskId).nodes(), nodeId);
+        return true;
+    }
+    
+    /**
+     * 节点退出任务（执行结束）
+     */
+    public void leave(Long taskId)
+    {
+        redis.opsForSet().remove(keys(taskId).nodes(), nodeId);
+    }
+    
+    /**
+     * 发起节点收尾：暂停时保留队列供恢复，其余情况清理 Redis 中的任务数据
+     */
+    public void finish(Long taskId, boolean paused)
+    {
+        DistributedCrawlKeys keys = keys(taskId);
+        redis.opsForSet().remove(activeTasksKey(), String.valueOf(taskId));
+        if (paused)
+        {
+            redis.opsForValue().set(keys.control(), STATE_PAUSED);
+            return;
+        }
+        // 先删除控制键：仍在退出的节点据此不再归还租约
+        redis.delete(keys.control());
+        redis.delete(List.of(keys.frontier(), keys.leased(), keys.leaseOwners(), keys.seen(), keys.nodes()));
+        redis.expire(keys.stats(), STATS_RETENTION_SECONDS, TimeUnit.SECONDS);
+    }
+    
+    public CrawlFrontier createFrontier(Long taskId)
+    {
+        RedisCrawlFrontier frontier = new RedisCrawlFrontier(redis, keys(taskId), nodeId, config.getLeaseSize(),
+                config.getLeaseTimeoutSeconds() * 1000L, config.getOfferBatchSize());
+        frontiers.put(taskId, frontier);
+        return frontier;
+    }
+    
+    /**
+     * 续租本节点在任务中仍持有的URL（按租约时长节流，可每次轮询调用）
+     */
+    public void renewLeases(Long taskId)
+    {
+        RedisCrawlFrontier frontier = frontiers.get(taskId);
+        if (frontier != null)
+        {
+            frontier.renewLeases();
+        }
+    }
+    
+    /**
+     * @param limit 集群范围内最多记录的URL数（任务最大URL数）
+     */
+    public UrlSeenFilter createSeenFilter(Long taskId, long limit)
+    {
+        return new RedisUrlSeenFilter(redis, keys(taskId), limit);
+    }
+    
+    /**
+     * 任务控制状态，任务已结束时返回 null
+     */
+    public String control(Long taskId)
+    {
+        return redis.opsForValue().get(keys(taskId).control());
+    }
+    
+    /**
+     * 向所有节点发送停止/暂停信号
+     *
+     * @return false 表示任务不是运行中的分布式任务
+     */
+    public boolean signal(Long taskId, String state)
+    {
+        if (!config.isEnabled() || !STATE_RUNNING.equals(control(taskId)))
+        {
+            return false;
+        }
+        redis.opsForValue().set(keys(taskId).control(), state);
+        log.info("分布式任务 {} 收到 {} 信号（节点: {}）", taskId, state, nodeId);
+        return true;
+    }
+    
+    /**
+     * 运行中的分布式任务ID
+     */
+    public Set<Long> activeTaskIds()
+    {
+        Set<String> members = redis.opsForSet().members(activeTasksKey());
+        Set<Long> ids = new HashSet<>();
+        if (members != null)
+        {
+            for (String member : members)
+            {
+                try
+                {
+                    ids.add(Long.parseLong(member));
+                }
+                catch (NumberFormatException ignored)
+                {
+                    // 忽略无效成员
+                }
+            }
+        }
+        return ids;
+    }
+    
+    /**
+     * Redis 中是否还有待租用的URL（决定是否值得加入任务）
+     */
+    public boolean hasPendingUrls(Long taskId)
+    {
+        Long size = redis.opsForZSet().zCard(keys(taskId).frontier());
+        return size != null && size > 0;
+    }
+    
+    /**
+     * 参与任务的节点
+     */
+    public Set<String> nodes(Long taskId)
+    {
+        Set<String> nodes = redis.opsForSet().members(keys(taskId).nodes());
+        return nodes != null ? nodes : Set.of();
+    }
+    
+    /**
+     * 登记本节点上的任务执行，之后由轮询线程同步进度
+     *
+     * @param owner 是否为发起节点（负责把汇总计数落库）
+     */
+    public void attach(Long taskId, TaskProgress progress, boolean owner)
+    {
+        localRuns.put(taskId, new LocalRun(progress, owner));
+    }
+    
+    /**
+     * 注销本节点上的任务执行，注销前写出最后一次增量
+     */
+    public void detach(Long taskId)
+    {
+        syncProgress(taskId);
+        localRuns.remove(taskId);
+        frontiers.remove(taskId);
+    }
+    
+    /**
+     * 本节点上运行中的分布式任务ID
+     */
+    public Collection<Long> localTaskIds()
+    {
+        return new ArrayList<>(localRuns.keySet());
+    }
+    
+    /**
+     * 写出本节点计数增量；发起节点同时读取集群汇总值
+     */
+    public void syncProgress(Long taskId)
+    {
+        LocalRun run = localRuns.get(taskId);
+        if (run == null)
+        {
+            return;
+        }
+        DistributedCrawlKeys keys = keys(taskId);
+        synchronized (run)
+        {
+            long[] current = run.progress.localSnapshot();
+            for (int i = 0; i < STAT_FIELDS.length; i++)
+            {
+                long delta = current[i] - run.pushed[i];
+                if (delta != 0)
+                {
+                    redis.opsForHash().increment(keys.stats(), STAT_FIELDS[i], delta);
+                }
+            }
+            run.pushed = current;
+            if (run.owner)
+            {
+                List<Object> values = redis.opsForHash().multiGet(keys.stats(), List.of((Object[]) STAT_FIELDS));
+                long[] totals = new long[STAT_FIELDS.length];
+                for (int i = 0; i < totals.length; i++)
+                {
+                    Object value = values != null && i < values.size() ? values.get(i) : null;
+                    totals[i] = value != null ? Long.parseLong(value.toString()) : 0;
+                }
+                run.progress.setClusterTotals(totals);
+            }
+        }
+    }
+    
+    private DistributedCrawlKeys keys(Long taskId)
+    {
+        return new DistributedCrawlKeys(config.getKeyPrefix(), taskId);
+    }
+    
+    private String activeTasksKey()
+    {
+        return config.getKeyPrefix() + "tasks";
+    }
+    
+    private static String defaultNodeId()
+    {
+        String host;
+        try
+        {
+            host = InetAddress.getLocalHost().getHostName();
+        }
+        catch (Exception e)
+        {
+            host = "unknown";
+        }
+        return host + ":" + ManagementFactory.getRuntimeMXBean().getPid();
+    }
+}
@@ -0,0 +1,71 @@
+package com.mayday.crawler.executor.distributed;
+
+/**
+ * 分布式任务在 Redis 中的键
+ *
+ * @param prefix 键前缀
+ * @param taskId 任务ID
+ */
+record DistributedCrawlKeys(String prefix, Long taskId)
+{
+    /**
+     * 待爬URL（有序集合）
+     */
+    String frontier()
+    {
+        return task("frontier");
+    }
+    
+    /**
+     * 已租用URL（有序集合，分值为租约到期时间）
+     */
+    String leased()
+    {
+        return task("leased");
+    }
+    
+    /**
+     * 租约持有节点（哈希：成员 -> 节点标识），回报与续租时据此确认租约仍属于本节点
+     */
+    String leaseOwners()
+    {
+        return task("lease-owners");
+    }
+    
+    /**
+     * 已见URL指纹（集合）
+     */
+    String seen()
+    {
+        return task("seen");
+    }
+    
+    /**
+     * 汇总计数（哈希：total / crawled / success / error）
+     */
+    String stats()
+    {
+        return task("stats");
+    }
+    
+    /**
+     * 任务控制状态（RUNNING / PAUSED / STOPPED），删除即表示任务已结束
+     */
+    String control()
+    {
+        return task("control");
+    }
+    
+    /**
+     * 参与任务的节点（集合）
+     */
+    String nodes()
+    {
+        return task("nodes");
+    }
+    
+    private String task(String name)
+    {
+        return prefix + "task:" + taskId + ":" + name;
+    }
+}
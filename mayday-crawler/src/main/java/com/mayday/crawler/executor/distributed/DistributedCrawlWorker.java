@@ -0,0 +1,94 @@
+package com.mayday.crawler.executor.distributed;
+
+import com.mayday.crawler.config.DistributedCrawlConfig;
+import com.mayday.crawler.executor.CrawlerExecutor;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 分布式爬取节点
+ * <p>
+ * 启用 crawler.distributed.enabled 后，单个轮询线程按固定节奏：
+ * 1. 同步本节点运行中分布式任务的进度增量，并续租仍持有的URL；
+ * 2. 读取任务控制状态，把其它节点发出的停止/暂停信号转交执行器；
+ * 3. 发现本节点尚未参与、且仍有待爬URL的分布式任务时加入执行。
+ */
+@Slf4j
+@Component
+public class DistributedCrawlWorker
+{
+    private final DistributedCrawlCoordinator coordinator;
+    private final DistributedCrawlConfig config;
+    private final CrawlerExecutor crawlerExecutor;
+    private ScheduledExecutorService scheduler;
+    
+    public DistributedCrawlWorker(DistributedCrawlCoordinator coordinator, DistributedCrawlConfig config,
+                                  @Lazy CrawlerExecutor crawlerExecutor)
+    {
+        this.coordinator = coordinator;
+        this.config = config;
+        this.crawlerExecutor = crawlerExecutor;
+    }
+    
+    @PostConstruct
+    public void init()
+    {
+        if (!config.isEnabled())
+        {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "crawler-distributed-worker");
+            t.setDaemon(true);
+            return t;
+        });
+        long interval = Math.max(100, config.getPollIntervalMs());
+        scheduler.scheduleWithFixedDelay(this::tick, interval, interval, TimeUnit.MILLISECONDS);
+        log.info("分布式爬取节点已启动: {}", coordinator.nodeId());
+    }
+    
+    @PreDestroy
+    public void shutdown()
+    {
+        if (scheduler != null)
+        {
+            scheduler.shutdown();
+        }
+    }
+    
+    private void tick()
+    {
+        try
+        {
+            for (Long taskId : coordinator.localTaskIds())
+            {
+                coordinator.syncProgress(taskId);
+                coordinator.renewLeases(taskId);
+                String state = coordinator.control(taskId);
+                if (!DistributedCrawlCoordinator.STATE_RUNNING.equals(state))
+                {
+                    crawlerExecutor.applyDistributedSignal(taskId, state);
+                }
+            }
+            for (Long taskId : coordinator.activeTaskIds())
+            {
+                if (!crawlerExecutor.isRunning(taskId) && coordinator.hasPendingUrls(taskId))
+                {
+                    Thread.ofVirtual().name("crawler-distributed-" + taskId)
+                            .start(() -> crawlerExecutor.joinDistributedTask(taskId));
+                }
+            }
+        }
+        catch (Exception e)
+        {
+            log.warn("分布式节点轮询失败: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,398 @@
+package com.mayday.crawler.executor.distributed;
+
+import com.mayday.crawler.executor.frontier.CrawlFrontier;
+import com.mayday.crawler.executor.frontier.UrlInfo;
+import com.mayday.crawler.executor.frontier.UrlPriorityScorer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * 基于 Redis 的共享爬取边界
+ * <p>
+ * - 待爬URL存放在有序集合 frontier 中（分值由优先级与入队时间组成：优先级高的先出，同优先级先进先出）；<br>
+ * - 租用时由 Lua 脚本把一批URL原子地移入 leased（分值为租约到期时间），并顺带回收已过期的租约（节点宕机）；<br>
+ * - 租约记录持有节点（lease-owners），回报与归还只处理仍属于本节点的租约；持有期间由轮询线程定期续租；<br>
+ * - 回报结果即从 leased 中移除，PENDING 表示归还 frontier；<br>
+ * - 边界为空的判定是 frontier 与 leased 同时为空：其它节点仍在处理的URL可能产生新链接。
+ * <p>
+ * 成员编码为 "深度|lastmod毫秒|优先级|URL"，同一 URL 的编码固定，回报时无需额外映射。
+ */
+public class RedisCrawlFrontier implements CrawlFrontier
+{
+    private static final Logger log = LoggerFactory.getLogger(RedisCrawlFrontier.class);
+    
+    /**
+     * 每级优先级在分值中的跨度（大于毫秒时间戳），分值 = (MAX - 优先级) * 跨度 + 入队时间
+     */
+    private static final double PRIORITY_STRIDE = 1e13;
+    
+    /**
+     * 脚本内按成员编码中的优先级（第 3 段）重新计算 frontier 分值，与 {@link #flushOffers()} 一致；
+     * 回收或归还的URL按当前时间排在同优先级末尾，而不是以 0 分插到所有URL之前
+     */
+    private static final String SCORE_FUNCTION =
+            "local function score(m, now)\n"
+            + "  local p = tonumber(string.match(m, '^[^|]*|[^|]*|(%-?%d+)|')) or " + UrlPriorityScorer.MIN + "\n"
+            // 以整数字符串传给 ZADD：Lua 数字直接转字符串只保留 14 位有效数字，会丢掉时间戳末位
+            + "  return string.format('%.0f', (" + UrlPriorityScorer.MAX + " - p) * " + (long) PRIORITY_STRIDE + " + now)\n"
+            + "end\n";
+    
+    /**
+     * KEYS[1]=frontier KEYS[2]=leased KEYS[3]=lease-owners
+     * ARGV[1]=租用条数 ARGV[2]=租约到期时间 ARGV[3]=当前时间 ARGV[4]=节点标识
+     */
+    private static final RedisScript<List> LEASE_SCRIPT = new DefaultRedisScript<>(
+            SCORE_FUNCTION
+            + "local now = tonumber(ARGV[3])\n"
+            + "local expired = redis.call('ZRANGEBYSCORE', KEYS[2], '-inf', ARGV[3], 'LIMIT', 0, 1000)\n"
+            + "for _, m in ipairs(expired) do\n"
+            + "  redis.call('ZREM', KEYS[2], m)\n"
+            + "  redis.call('HDEL', KEYS[3], m)\n"
+            + "  redis.call('ZADD', KEYS[1], score(m, now), m)\n"
+            + "end\n"
+            + "local items = redis.call('ZRANGE', KEYS[1], 0, tonumber(ARGV[1]) - 1)\n"
+            + "for _, m in ipairs(items) do\n"
+            + "  redis.call('ZREM', KEYS[1], m)\n"
+            + "  redis.call('ZADD', KEYS[2], ARGV[2], m)\n"
+            + "  redis.call('HSET', KEYS[3], m, ARGV[4])\n"
+            + "end\n"
+            + "return items", List.class);
+    
+    /**
+     * KEYS[1]=frontier KEYS[2]=leased KEYS[3]=control KEYS[4]=lease-owners ARGV[1]=当前时间 ARGV[2]=节点标识 ARGV[3...]=成员
+     * 任务已结束（control 已删除）时不再归还，避免残留键；租约已过期并被其它节点重新租用时不做处理
+     */
+    private static final RedisScript<Long> RETURN_SCRIPT = new DefaultRedisScript<>(
+            SCORE_FUNCTION
+            + "if redis.call('EXISTS', KEYS[3]) == 0 then return 0 end\n"
+            + "local now = tonumber(ARGV[1])\n"
+            + "local n = 0\n"
+            + "for i = 3, #ARGV do\n"
+            + "  local m = ARGV[i]\n"
+            + "  if redis.call('HGET', KEYS[4], m) == ARGV[2] then\n"
+            + "    redis.call('ZREM', KEYS[2], m)\n"
+            + "    redis.call('HDEL', KEYS[4], m)\n"
+            + "    redis.call('ZADD', KEYS[1], score(m, now), m)\n"
+            + "    n = n + 1\n"
+            + "  end\n"
+            + "end\n"
+            + "return n", Long.class);
+    
+    /**
+     * KEYS[1]=leased KEYS[2]=lease-owners ARGV[1]=节点标识 ARGV[2]=成员
+     * 只移除仍属于本节点的租约，不会删掉其它节点重新租用后的有效租约
+     */
+    private static final RedisScript<Long> COMPLETE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('HGET', KEYS[2], ARGV[2]) ~= ARGV[1] then return 0 end\n"
+            + "redis.call('ZREM', KEYS[1], ARGV[2])\n"
+            + "redis.call('HDEL', KEYS[2], ARGV[2])\n"
+            + "return 1", Long.class);
+    
+    /**
+     * KEYS[1]=leased KEYS[2]=lease-owners ARGV[1]=新的租约到期时间 ARGV[2]=节点标识 ARGV[3...]=成员
+     * 返回已不属于本节点的成员（租约曾过期并被其它节点租走）
+     */
+    private static final RedisScript<List> RENEW_SCRIPT = new DefaultRedisScript<>(
+            "local lost = {}\n"
+            + "for i = 3, #ARGV do\n"
+            + "  local m = ARGV[i]\n"
+            + "  if redis.call('HGET', KEYS[2], m) == ARGV[2] then\n"
+            + "    redis.call('ZADD', KEYS[1], 'XX', ARGV[1], m)\n"
+            + "  else\n"
+            + "    lost[#lost + 1] = m\n"
+            + "  end\n"
+            + "end\n"
+            + "return lost", List.class);
+    
+    /**
+     * KEYS[1]=frontier KEYS[2]=leased KEYS[3]=lease-owners ARGV[1]=当前时间
+     * 恢复执行时把全部租约按各自优先级归还 frontier
+     */
+    private static final RedisScript<Long> REQUEUE_SCRIPT = new DefaultRedisScript<>(
+            SCORE_FUNCTION
+            + "local now = tonumber(ARGV[1])\n"
+            + "local members = redis.call('ZRANGE', KEYS[2], 0, -1)\n"
+            + "for _, m in ipairs(members) do\n"
+            + "  redis.call('ZADD', KEYS[1], score(m, now), m)\n"
+            + "end\n"
+            + "redis.call('DEL', KEYS[2], KEYS[3])\n"
+            + "return #members", Long.class);
+    
+    /**
+     * KEYS[1]=frontier KEYS[2]=leased
+     */
+    private static final RedisScript<Long> SIZE_SCRIPT = new DefaultRedisScript<>(
+            "return redis.call('ZCARD', KEYS[1]) + redis.call('ZCARD', KEYS[2])", Long.class);
+    
+    /**
+     * 单次续租脚本携带的成员数上限
+     */
+    private static final int RENEW_BATCH = 500;
+    
+    private final StringRedisTemplate redis;
+    private final String frontierKey;
+    private final String leasedKey;
+    private final String controlKey;
+    private final String ownersKey;
+    private final String nodeId;
+    private final int leaseSize;
+    private final long leaseTimeoutMillis;
+    private final int offerBatchSize;
+    
+    // 待写入 Redis 的新URL
+    private final List<UrlInfo> offerBuffer = new ArrayList<>();
+    // 已租用、尚未交给执行器的URL
+    private final Queue<UrlInfo> leased = new ConcurrentLinkedQueue<>();
+    // 本节点持有、尚未回报的租约（本地缓冲、调度器缓冲与重试等待中的URL均在其中），续租时使用
+    private final Set<String> held = ConcurrentHashMap.newKeySet();
+    private volatile long lastRenewMillis = System.currentTimeMillis();
+    
+    private final Object offerLock = new Object();
+    private final Object leaseLock = new Object();
+    
+    RedisCrawlFrontier(StringRedisTemplate redis, DistributedCrawlKeys keys, String nodeId, int leaseSize,
+                       long leaseTimeoutMillis, int offerBatchSize)
+    {
+        this.redis = redis;
+        this.frontierKey = keys.frontier();
+        this.leasedKey = keys.leased();
+        this.controlKey = keys.control();
+        this.ownersKey = keys.leaseOwners();
+        this.nodeId = nodeId;
+        this.leaseSize = Math.max(1, leaseSize);
+        this.leaseTimeoutMillis = Math.max(1000, leaseTimeoutMillis);
+        this.offerBatchSize = Math.max(1, offerBatchSize);
+    }
+    
+    @Override
+    public void offer(UrlInfo urlInfo)
+    {
+        boolean full;
+        synchronized (offerLock)
+        {
+            offerBuffer.add(urlInfo);
+            full = offerBuffer.size() >= offerBatchSize;
+        }
+        if (full)
+        {
+            flushOffers();
+        }
+    }
+    
+    @Override
+    public UrlInfo poll()
+    {
+        UrlInfo next = leased.poll();
+        if (next != null)
+        {
+            return next;
+        }
+        synchronized (leaseLock)
+        {
+            next = leased.poll();
+            if (next != null)
+            {
+                return next;
+            }
+            // 租用前先写出缓冲，保证刚发现的URL对所有节点可见
+            flushOffers();
+            long now = System.currentTimeMillis();
+            List<?> items = redis.execute(LEASE_SCRIPT, List.of(frontierKey, leasedKey, ownersKey),
+                    String.valueOf(leaseSize), String.valueOf(now + leaseTimeoutMillis), String.valueOf(now), nodeId);
+            if (items != null)
+            {
+                for (Object item : items)
+                {
+                    String member = String.valueOf(item);
+                    UrlInfo info = decode(member);
+                    if (info != null)
+                    {
+                        held.add(member);
+                        leased.add(info);
+                    }
+                }
+            }
+            return leased.poll();
+        }
+    }
+    
+    @Override
+    public boolean isEmpty()
+    {
+        if (!leased.isEmpty())
+        {
+            return false;
+        }
+        synchronized (offerLock)
+        {
+            if (!offerBuffer.isEmpty())
+            {
+                return false;
+            }
+        }
+        Long size = redis.execute(SIZE_SCRIPT, List.of(frontierKey, leasedKey));
+        return size == null || size == 0;
+    }
+    
+    @Override
+    public void complete(UrlInfo urlInfo, String status, String errorMsg)
+    {
+        String member = encode(urlInfo);
+        held.remove(member);
+        if ("PENDING".equals(status))
+        {
+            redis.execute(RETURN_SCRIPT, List.of(frontierKey, leasedKey, controlKey, ownersKey),
+                    String.valueOf(System.currentTimeMillis()), nodeId, member);
+        }
+        else
+        {
+            redis.execute(COMPLETE_SCRIPT, List.of(leasedKey, ownersKey), nodeId, member);
+        }
+    }
+    
+    /**
+     * 续租本节点仍持有的URL
+     * <p>
+     * URL 从租用到回报之间可能在本地缓冲、调度器缓冲或重试等待中停留超过租约时长，
+     * 由轮询线程定期调用，每经过租约时长的 1/3 把这些租约的到期时间顺延一个租约时长。
+     * 已被其它节点重新租用的URL不再续租，之后的回报也不会影响对方的租约。
+     */
+    public void renewLeases()
+    {
+        long now = System.currentTimeMillis();
+        if (now - lastRenewMillis < leaseTimeoutMillis / 3 || held.isEmpty())
+        {
+            return;
+        }
+        lastRenewMillis = now;
+        List<String> members = new ArrayList<>(held);
+        String deadline = String.valueOf(now + leaseTimeoutMillis);
+        int lostCount = 0;
+        for (int from = 0; from < members.size(); from += RENEW_BATCH)
+        {
+            List<String> args = new ArrayList<>(RENEW_BATCH + 2);
+            args.add(deadline);
+            args.add(nodeId);
+            args.addAll(members.subList(from, Math.min(members.size(), from + RENEW_BATCH)));
+            List<?> lost = redis.execute(RENEW_SCRIPT, List.of(leasedKey, ownersKey), args.toArray());
+            if (lost != null)
+            {
+                for (Object member : lost)
+                {
+                    held.remove(String.valueOf(member));
+                }
+                lostCount += lost.size();
+            }
+        }
+        if (lostCount > 0)
+        {
+            log.warn("{} 条URL的租约已过期并被其它节点重新租用", lostCount);
+        }
+    }
+    
+    @Override
+    public void flush()
+    {
+        flushOffers();
+    }
+    
+    @Override
+    public void close()
+    {
+        try
+        {
+            flushOffers();
+            // 归还已租用但未交给执行器的URL
+            List<String> members = new ArrayList<>();
+            members.add(String.valueOf(System.currentTimeMillis()));
+            members.add(nodeId);
+            UrlInfo info;
+            while ((info = leased.poll()) != null)
+            {
+                members.add(encode(info));
+            }
+            if (members.size() > 2)
+            {
+                redis.execute(RETURN_SCRIPT, List.of(frontierKey, leasedKey, controlKey, ownersKey), members.toArray());
+            }
+            held.clear();
+        }
+        catch (Exception e)
+        {
+            log.warn("关闭分布式URL队列失败: {}", e.getMessage());
+        }
+    }
+    
+    /**
+     * 把任务的全部租约归还 frontier（所有节点均已停止时使用），分值与入队时的计算方式一致
+     *
+     * @return 归还的URL数
+     */
+    static long requeueLeased(StringRedisTemplate redis, DistributedCrawlKeys keys)
+    {
+        Long count = redis.execute(REQUEUE_SCRIPT, List.of(keys.frontier(), keys.leased(), keys.leaseOwners()),
+                String.valueOf(System.currentTimeMillis()));
+        return count != null ? count : 0;
+    }
+    
+    private void flushOffers()
+    {
+        List<UrlInfo> batch;
+        synchronized (offerLock)
+        {
+            if (offerBuffer.isEmpty())
+            {
+                return;
+            }
+            batch = new ArrayList<>(offerBuffer);
+            offerBuffer.clear();
+        }
+        long now = System.currentTimeMillis();
+        Set<ZSetOperations.TypedTuple<String>> tuples = new HashSet<>(batch.size() * 2);
+        for (UrlInfo urlInfo : batch)
+        {
+            double score = (UrlPriorityScorer.MAX - urlInfo.getPriority()) * PRIORITY_STRIDE + now;
+            tuples.add(new DefaultTypedTuple<>(encode(urlInfo), score));
+        }
+        redis.opsForZSet().add(frontierKey, tuples);
+    }
+    
+    static String encode(UrlInfo urlInfo)
+    {
+        Date lastModified = urlInfo.getLastModified();
+        return urlInfo.getDepth() + "|" + (lastModified != null ? lastModified.getTime() : "") + "|"
+                + urlInfo.getPriority() + "|" + urlInfo.getUrl();
+    }
+    
+    static UrlInfo decode(String member)
+    {
+        String[] parts = member.split("\\|", 4);
+        if (parts.length < 4)
+        {
+            return null;
+        }
+        try
+        {
+            Date lastModified = parts[1].isEmpty() ? null : new Date(Long.parseLong(parts[1]));
+            return new UrlInfo(parts[3], Integer.parseInt(parts[0]), null, lastModified, Integer.parseInt(parts[2]));
+        }
+        catch (NumberFormatException e)
+        {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.mayday.crawler.executor.distributed;
+
+import com.mayday.crawler.executor.dedup.UrlFingerprint;
+import com.mayday.crawler.executor.dedup.UrlSeenFilter;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 基于 Redis 集合的共享去重过滤器
+ * <p>
+ * 记录 URL 的 64 位指纹（与本地过滤器相同的 {@link UrlFingerprint}），所有节点共用一个集合，
+ * 同一 URL 只会被一个节点入队。集合大小达到任务最大URL数后不再接收新URL，由此在集群范围内限制任务规模。
+ * 本地另保留已确认"见过"的指纹，导航、推荐等重复链接不必每次访问 Redis。
+ */
+public class RedisUrlSeenFilter implements UrlSeenFilter
+{
+    /**
+     * KEYS[1]=seen ARGV[1]=指纹 ARGV[2]=容量上限（<=0 表示不限）
+     */
+    private static final RedisScript<Long> ADD_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('SISMEMBER', KEYS[1], ARGV[1]) == 1 then return 0 end\n"
+            + "local limit = tonumber(ARGV[2])\n"
+            + "if limit > 0 and redis.call('SCARD', KEYS[1]) >= limit then return 0 end\n"
+            + "return redis.call('SADD', KEYS[1], ARGV[1])", Long.class);
+    
+    /**
+     * 本地已见指纹缓存上限，超出后清空
+     */
+    private static final int LOCAL_CACHE_SIZE = 100_000;
+    
+    /**
+     * Redis 集合中每个指纹的估算占用（字节）
+     */
+    private static final int BYTES_PER_ENTRY = 64;
+    
+    private final StringRedisTemplate redis;
+    private final String seenKey;
+    private final long limit;
+    private final Set<Long> localSeen = ConcurrentHashMap.newKeySet();
+    
+    RedisUrlSeenFilter(StringRedisTemplate redis, DistributedCrawlKeys keys, long limit)
+    {
+        this.redis = redis;
+        this.seenKey = keys.seen();
+        this.limit = limit;
+    }
+    
+    @Override
+    public boolean contains(String normalizedUrl)
+    {
+        long fp = UrlFingerprint.of(normalizedUrl);
+        if (localSeen.contains(fp))
+        {
+            return true;
+        }
+        Boolean member = redis.opsForSet().isMember(seenKey, Long.toHexString(fp));
+        if (Boolean.TRUE.equals(member))
+        {
+            remember(fp);
+            return true;
+        }
+        return false;
+    }
+    
+    @Override
+    public boolean add(String normalizedUrl)
+    {
+        long fp = UrlFingerprint.of(normalizedUrl);
+        if (localSeen.contains(fp))
+        {
+            return false;
+        }
+        Long added = redis.execute(ADD_SCRIPT, List.of(seenKey), Long.toHexString(fp), String.valueOf(limit));
+        // 无论是本次加入还是其它节点已加入，之后都视为见过
+        remember(fp);
+        return added != null && added == 1;
+    }
+    
+    @Override
+    public long size()
+    {
+        Long size = redis.opsForSet().size(seenKey);
+        return size != null ? size : 0;
+    }
+    
+    @Override
+    public long memoryBytes()
+    {
+        return size() * BYTES_PER_ENTRY;
+    }
+    
+    @Override
+    public String mode()
+    {
+        return "REDIS";
+    }
+    
+    private void remember(long fp)
+    {
+        if (localSeen.size() >= LOCAL_CACHE_SIZE)
+        {
+            localSeen.clear();
+        }
+        localSeen.add(fp);
+    }
+}
@@ -1,364 +1,139 @@
 package com.mayday.crawler.executor.download;
 
-import com.mayday.crawler.service.ICrawlerImageService;
-import com.mayday.crawler.util.RequestHeaderBuilder;
+import com.mayday.crawler.config.PipelineConfig;
+import com.mayday.crawler.executor.pipeline.PipelineStage;
+import com.mayday.crawler.executor.pipeline.StageMetrics;
 import com.mayday.crawler.modl.entity.CrawlerImageEntity;
-import com.mayday.crawler.modl.entity.CrawlerTaskEntity;
-import cn.hutool.crypto.digest.DigestUtil;
-import org.jsoup.Jsoup;
-import org.jsoup.Connection;
+import jakarta.annotation.PreDestroy;
 import org.springframework.stereotype.Component;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardOpenOption;
-import java.util.List;
-import java.util.concurrent.*;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 /**
- * 异步图片下载器
- * 使用虚拟线程池批量并发下载图片，提升下载速度
+ * 异步图片下载器（爬取流水线的图片下载阶段）
+ * <p>
+ * 提取阶段把待下载图片放入全局有界队列后立即返回，不再在抓取/提取线程里逐张下载；
+ * 固定数量的虚拟线程消费队列，等待图片记录落库取得主键后执行下载。队列满时提交方阻塞，背压传回提取阶段。
+ * 按任务统计未完成的下载数，任务结束时可等待本任务的下载收尾。
  */
 @Component
 public class AsyncImageDownloader
 {
     private static final Logger log = LoggerFactory.getLogger(AsyncImageDownloader.class);
-    private final ICrawlerImageService imageService;
-    private final ExecutorService downloadExecutor;
-    private final Semaphore downloadSemaphore;
-    
-    // 下载统计
-    private final AtomicInteger successCount = new AtomicInteger(0);
-    private final AtomicInteger failedCount = new AtomicInteger(0);
-    
+    private final PipelineStage<DownloadJob> stage;
+
+    // 各任务已提交未完成的下载数
+    private final Map<Long, AtomicInteger> outstanding = new ConcurrentHashMap<>();
+
     /**
-     * 最大并发下载数
+     * 一次图片下载
+     *
+     * @param taskId   任务ID
+     * @param image    图片记录（Future 完成时已落库回填主键）
+     * @param download 下载动作（请求、写入存储并回写图片记录）
      */
-    private static final int MAX_CONCURRENT_DOWNLOADS = 50;
-    
-    public AsyncImageDownloader(ICrawlerImageService imageService)
+    public record DownloadJob(Long taskId, CompletableFuture<CrawlerImageEntity> image,
+                              Consumer<CrawlerImageEntity> download)
+    {
+    }
+
+    public AsyncImageDownloader(PipelineConfig pipelineConfig)
     {
-        this.imageService = imageService;
-        // 使用虚拟线程池，轻量级，支持大量并发
-        this.downloadExecutor = Executors.newVirtualThreadPerTaskExecutor();
-        this.downloadSemaphore = new Semaphore(MAX_CONCURRENT_DOWNLOADS);
+        this.stage = new PipelineStage<>("image-download", pipelineConfig.getDownloadQueueCapacity(),
+                pipelineConfig.getDownloadConcurrency(), this::runJob);
     }
-    
+
     /**
-     * 批量异步下载图片
-     * @param images 待下载的图片列表
-     * @param task 爬虫任务
-     * @param baseDir 基础存储目录
-     * @param pageUrl 页面URL（用作Referer）
-     * @return 成功下载的数量
+     * 提交下载，队列满时阻塞直到有空位
+     *
+     * @return 下载器已关闭时返回 false
      */
-    public int downloadBatch(List<CrawlerImageEntity> images, 
-                            CrawlerTaskEntity task, 
-                            Path baseDir,
-                            String pageUrl)
+    public boolean submit(DownloadJob job)
     {
-        if (images == null || images.isEmpty())
-        {
-            return 0;
-        }
-        
-        CountDownLatch latch = new CountDownLatch(images.size());
-        AtomicInteger batchSuccess = new AtomicInteger(0);
-        AtomicInteger batchFailed = new AtomicInteger(0);
-        
-        for (CrawlerImageEntity image : images)
+        AtomicInteger counter = outstanding.computeIfAbsent(job.taskId(), k -> new AtomicInteger());
+        counter.incrementAndGet();
+        if (stage.submit(job))
         {
-            // 提交到虚拟线程池异步下载
-            downloadExecutor.submit(() -> {
-                try
-                {
-                    // 限流：同时最多 MAX_CONCURRENT_DOWNLOADS 个下载任务
-                    downloadSemaphore.acquire();
-                    try
-                    {
-                        boolean success = downloadSingleImage(image, task, baseDir, pageUrl);
-                        if (success)
-                        {
-                            batchSuccess.incrementAndGet();
-                            successCount.incrementAndGet();
-                        }
-                        else
-                        {
-                            batchFailed.incrementAndGet();
-                            failedCount.incrementAndGet();
-                        }
-                    }
-                    finally
-                    {
-                        downloadSemaphore.release();
-                    }
-                }
-                catch (Exception e)
-                {
-                    log.error("下载图片异常: {}", image.getUrl(), e);
-                    batchFailed.incrementAndGet();
-                    failedCount.incrementAndGet();
-                }
-                finally
-                {
-                    latch.countDown();
-                }
-            });
-        }
-        
-        // 等待所有下载完成（最多等待5分钟）
-        try
-        {
-            boolean finished = latch.await(5, TimeUnit.MINUTES);
-            if (!finished)
-            {
-                log.warn("批量下载超时，部分图片可能未下载完成");
-            }
-        }
-        catch (InterruptedException e)
-        {
-            Thread.currentThread().interrupt();
-            log.error("批量下载被中断", e);
+            return true;
         }
-        
-        log.info("批量下载完成: 成功={}, 失败={}", batchSuccess.get(), batchFailed.get());
-        return batchSuccess.get();
+        finish(job.taskId());
+        return false;
     }
-    
+
     /**
-     * 下载单张图片
+     * 等待任务已提交的下载全部完成
+     *
+     * @return 是否在超时前完成
      */
-    private boolean downloadSingleImage(CrawlerImageEntity image, 
-                                       CrawlerTaskEntity task,
-                                       Path baseDir,
-                                       String pageUrl)
+    public boolean awaitTask(Long taskId, long timeout, TimeUnit unit)
     {
+        AtomicInteger counter = outstanding.get(taskId);
+        if (counter == null)
+        {
+            return true;
+        }
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
         try
         {
-            String imgUrl = image.getUrl();
-            if (imgUrl == null || imgUrl.isEmpty())
-            {
-                updateImageStatus(image, "FAILED", "图片URL为空");
-                return false;
-            }
-            
-            // 创建存储目录
-            Files.createDirectories(baseDir);
-            
-            // 生成文件名
-            String extension = extractFileExtension(imgUrl);
-            String fileName = image.getId() + (extension != null && !"unknown".equals(extension) ? "." + extension : ".jpg");
-            Path targetFile = baseDir.resolve(fileName);
-            
-            // 如果文件已存在且大小>0，跳过下载
-            if (Files.exists(targetFile) && Files.size(targetFile) > 0)
-            {
-                log.debug("图片已存在，跳过下载: {}", fileName);
-                updateImageStatusSuccess(image, targetFile, fileName);
-                return true;
-            }
-            
-            // 构建下载请求
-            int timeout = task.getRequestTimeout() != null ? task.getRequestTimeout() : 30000;
-            Connection connection = Jsoup.connect(imgUrl)
-                    .timeout(timeout)
-                    .ignoreContentType(true)
-                    .maxBodySize(20 * 1024 * 1024)  // 最大20MB
-                    .followRedirects(true);
-            
-            // 使用 RequestHeaderBuilder 设置请求头（模拟真实浏览器）
-            RequestHeaderBuilder headerBuilder = RequestHeaderBuilder.create()
-                    .asImageRequest();  // 设置为图片请求模式
-            
-            // 设置 Referer
-            if (task.getReferer() != null && !task.getReferer().isEmpty())
+            synchronized (counter)
             {
-                headerBuilder.withReferer(task.getReferer());
-            }
-            else if (pageUrl != null && !pageUrl.isEmpty())
-            {
-                headerBuilder.withReferer(pageUrl);
-            }
-            
-            // 应用请求头
-            headerBuilder.applyTo(connection);
-            
-            // 重试机制（最多3次）
-            int maxRetries = 3;
-            byte[] bytes = null;
-            String contentType = null;
-            int statusCode = 0;
-            
-            for (int retry = 0; retry <= maxRetries; retry++)
-            {
-                try
+                while (counter.get() > 0)
                 {
-                    Connection.Response response = connection.execute();
-                    statusCode = response.statusCode();
-                    contentType = response.contentType();
-                    
-                    if (statusCode == 200)
+                    long remainingMs = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                    if (remainingMs <= 0)
                     {
-                        bytes = response.bodyAsBytes();
-                        break;  // 成功，跳出重试循环
-                    }
-                    else
-                    {
-                        log.warn("下载图片HTTP错误 (尝试 {}/{}): {} - 状态码: {}", 
-                                retry + 1, maxRetries + 1, imgUrl, statusCode);
+                        log.warn("任务 {} 仍有 {} 张图片未下载完成，不再等待", taskId, counter.get());
+                        return false;
                     }
+                    counter.wait(remainingMs);
                 }
-                catch (Exception e)
-                {
-                    if (retry < maxRetries)
-                    {
-                        log.warn("下载图片失败 (尝试 {}/{}): {} - 错误: {}", 
-                                retry + 1, maxRetries + 1, imgUrl, e.getMessage());
-                        // 指数退避：等待1s, 2s, 4s
-                        Thread.sleep((long) Math.pow(2, retry) * 1000);
-                    }
-                    else
-                    {
-                        throw e;  // 最后一次重试失败，抛出异常
-                    }
-                }
-            }
-            
-            // 检查HTTP状态码
-            if (statusCode != 200)
-            {
-                updateImageStatus(image, "FAILED", "HTTP状态码: " + statusCode);
-                return false;
-            }
-            
-            // 检查Content-Type
-            if (contentType == null || !contentType.toLowerCase().startsWith("image/"))
-            {
-                log.warn("非图片Content-Type: {} - {}", imgUrl, contentType);
-                // 不严格要求Content-Type，某些网站可能返回错误的类型
-            }
-            
-            // 检查响应内容
-            if (bytes == null || bytes.length == 0)
-            {
-                updateImageStatus(image, "FAILED", "图片内容为空");
-                return false;
             }
-            
-            // 检查文件大小（过滤过小的图片，可能是占位图）
-            if (bytes.length < 1024)  // 小于1KB
-            {
-                log.warn("图片过小，可能是占位图: {} - {}字节", imgUrl, bytes.length);
-                updateImageStatus(image, "FAILED", "图片过小: " + bytes.length + "字节");
-                return false;
-            }
-            
-            // 写入文件
-            Files.write(targetFile, bytes, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
-            
-            // 更新数据库记录
-            updateImageStatusSuccess(image, targetFile, fileName);
-            
-            log.debug("图片下载成功: {} -> {} ({}字节)", imgUrl, fileName, bytes.length);
             return true;
         }
-        catch (Exception e)
+        catch (InterruptedException e)
         {
-            log.warn("下载图片失败: {} - {}", image.getUrl(), e.getMessage());
-            updateImageStatus(image, "FAILED", e.getMessage());
+            Thread.currentThread().interrupt();
             return false;
         }
-    }
-    
-    /**
-     * 更新图片状态为成功
-     */
-    private void updateImageStatusSuccess(CrawlerImageEntity image, Path targetFile, String fileName)
-    {
-        try
+        finally
         {
-            byte[] bytes = Files.readAllBytes(targetFile);
-            image.setFileName(fileName);
-            image.setFilePath(targetFile.getParent().toString());
-            image.setFileSize((long) bytes.length);
-            image.setMd5(DigestUtil.md5Hex(bytes));
-            image.setDownloadStatus("SUCCESS");
-            image.setErrorMsg(null);
-            imageService.updateById(image);
-        }
-        catch (Exception e)
-        {
-            log.error("更新图片状态失败: {}", image.getId(), e);
+            outstanding.remove(taskId, counter);
         }
     }
-    
+
     /**
-     * 更新图片状态为失败
+     * 任务未完成的下载数
      */
-    private void updateImageStatus(CrawlerImageEntity image, String status, String errorMsg)
+    public int pending(Long taskId)
     {
-        try
-        {
-            image.setDownloadStatus(status);
-            image.setErrorMsg(errorMsg);
-            imageService.updateById(image);
-        }
-        catch (Exception e)
-        {
-            log.error("更新图片状态失败: {}", image.getId(), e);
-        }
+        AtomicInteger counter = outstanding.get(taskId);
+        return counter != null ? counter.get() : 0;
     }
-    
+
     /**
-     * 提取文件扩展名
+     * 下载阶段的运行指标（全局）
      */
-    private String extractFileExtension(String url)
+    public StageMetrics metrics()
     {
-        if (url == null || url.isEmpty())
-        {
-            return "jpg";
-        }
-        
-        // 移除查询参数
-        String path = url.split("\\?")[0];
-        
-        int lastDot = path.lastIndexOf('.');
-        int lastSlash = path.lastIndexOf('/');
-        
-        if (lastDot > lastSlash && lastDot < path.length() - 1)
-        {
-            String ext = path.substring(lastDot + 1).toLowerCase();
-            // 验证扩展名是否合法
-            if (ext.matches("[a-z0-9]{2,5}"))
-            {
-                return ext;
-            }
-        }
-        
-        return "jpg";  // 默认jpg
+        return stage.metrics();
     }
-    
+
     /**
      * 获取下载统计
      */
     public DownloadStats getStats()
     {
-        return new DownloadStats(successCount.get(), failedCount.get());
+        StageMetrics metrics = stage.metrics();
+        return new DownloadStats((int) (metrics.processed() - metrics.failed()), (int) metrics.failed());
     }
-    
-    /**
-     * 重置统计
-     */
-    public void resetStats()
-    {
-        successCount.set(0);
-        failedCount.set(0);
-    }
-    
+
     /**
      * 下载统计
      */
@@ -368,37 +143,55 @@ public class AsyncImageDownloader
         {
             return success + failed;
         }
-        
+
         public double successRate()
         {
             int total = total();
             return total > 0 ? (double) success / total * 100 : 0;
         }
     }
-    
+
     /**
-     * 关闭下载器
+     * 关闭下载器（已入队的下载最多再等待 60 秒）
      */
+    @PreDestroy
     public void shutdown()
     {
-        downloadExecutor.shutdown();
+        stage.closeAndAwait(60, TimeUnit.SECONDS);
+    }
+
+    private boolean runJob(DownloadJob job)
+    {
         try
         {
-            if (!downloadExecutor.awaitTermination(60, TimeUnit.SECONDS))
-            {
-                downloadExecutor.shutdownNow();
-            }
+            CrawlerImageEntity image = job.image().join();
+            job.download().accept(image);
+            return "SUCCESS".equals(image.getDownloadStatus());
         }
-        catch (InterruptedException e)
+        catch (Exception e)
         {
-            downloadExecutor.shutdownNow();
-            Thread.currentThread().interrupt();
+            log.warn("下载图片失败: {}", e.getMessage());
+            return false;
+        }
+        finally
+        {
+            finish(job.taskId());
         }
     }
-}
-
-
-
-
-
 
+    private void finish(Long taskId)
+    {
+        AtomicInteger counter = outstanding.get(taskId);
+        if (counter == null)
+        {
+            return;
+        }
+        synchronized (counter)
+        {
+            if (counter.decrementAndGet() <= 0)
+            {
+                counter.notifyAll();
+            }
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.mayday.crawler.executor.download;
+
+/**
+ * 图片文件头探测
+ * <p>
+ * 只读取流开头的若干字节即可得到格式与宽高，不解码像素：
+ * PNG 读 IHDR，GIF 读逻辑屏幕描述符，BMP 读 DIB 头，WebP 读 VP8/VP8L/VP8X 块头，ICO 读首个目录项，
+ * JPEG 逐段跳过直到 SOFn 帧头（EXIF/ICC 段较大时需要更多字节，见 {@link ImageInfo#needsMore()}）。
+ */
+public final class ImageHeaderProbe
+{
+    private ImageHeaderProbe()
+    {
+    }
+
+    /**
+     * 探测结果
+     *
+     * @param format    由文件头识别出的格式，无法识别时为 null
+     * @param width     宽度（像素），未知时为 0
+     * @param height    高度（像素），未知时为 0
+     * @param needsMore 格式支持探测尺寸，但已读字节不足以到达尺寸字段
+     */
+    public record ImageInfo(String format, int width, int height, boolean needsMore)
+    {
+        public boolean hasDimensions()
+        {
+            return width > 0 && height > 0;
+        }
+    }
+
+    /**
+     * 探测文件头
+     *
+     * @param b   流开头的字节
+     * @param len 有效字节数
+     */
+    public static ImageInfo probe(byte[] b, int len)
+    {
+        String format = ImageStreamWriter.sniffFormat(b, len);
+        if (format == null)
+        {
+            return new ImageInfo(null, 0, 0, false);
+        }
+        return switch (format)
+        {
+            case "png" -> len >= 24 && b[12] == 'I' && b[13] == 'H' && b[14] == 'D' && b[15] == 'R'
+                    ? sized(format, be32(b, 16), be32(b, 20))
+                    : pending(format, len < 24);
+            case "gif" -> len >= 10 ? sized(format, le16(b, 6), le16(b, 8)) : pending(format, true);
+            case "bmp" -> probeBmp(b, len);
+            case "webp" -> probeWebp(b, len);
+            case "ico" -> len >= 8 && le16(b, 4) > 0
+                    ? sized(format, b[6] == 0 ? 256 : b[6] & 0xFF, b[7] == 0 ? 256 : b[7] & 0xFF)
+                    : pending(format, len < 8);
+            case "jpg" -> probeJpeg(b, len);
+            default -> new ImageInfo(format, 0, 0, false);
+        };
+    }
+
+    private static ImageInfo probeBmp(byte[] b, int len)
+    {
+        if (len < 26)
+        {
+            return pending("bmp", true);
+        }
+        int headerSize = le32(b, 14);
+        if (headerSize == 12)
+        {
+            // OS/2 BITMAPCOREHEADER
+            return sized("bmp", le16(b, 18), le16(b, 20));
+        }
+        // 高度为负表示自上而下存储
+        return sized("bmp", le32(b, 18), Math.abs(le32(b, 22)));
+    }
+
+    private static ImageInfo probeWebp(byte[] b, int len)
+    {
+        if (len < 30)
+        {
+            return pending("webp", true);
+        }
+        if (b[12] == 'V' && b[13] == 'P' && b[14] == '8' && b[15] == ' ')
+        {
+            // 有损：关键帧起始码 9d 01 2a 之后是 14 位宽高
+            if ((b[23] & 0xFF) == 0x9D && (b[24] & 0xFF) == 0x01 && (b[25] & 0xFF) == 0x2A)
+            {
+                return sized("webp", le16(b, 26) & 0x3FFF, le16(b, 28) & 0x3FFF);
+            }
+            return new ImageInfo("webp", 0, 0, false);
+        }
+        if (b[12] == 'V' && b[13] == 'P' && b[14] == '8' && b[15] == 'L')
+        {
+            // 无损：签名 0x2f 之后依次为 14 位宽-1、14 位高-1
+            if ((b[20] & 0xFF) != 0x2F)
+            {
+                return new ImageInfo("webp", 0, 0, false);
+            }
+            int bits = le32(b, 21);
+            return sized("webp", (bits & 0x3FFF) + 1, ((bits >>> 14) & 0x3FFF) + 1);
+        }
+        if (b[12] == 'V' && b[13] == 'P' && b[14] == '8' && b[15] == 'X')
+        {
+            // 扩展格式：画布宽高各 24 位（减一存储）
+            return sized("webp", le24(b, 24) + 1, le24(b, 27) + 1);
+        }
+        return new ImageInfo("webp", 0, 0, false);
+    }
+
+    private static ImageInfo probeJpeg(byte[] b, int len)
+    {
+        int i = 2;
+        while (true)
+        {
+            if (i + 4 > len)
+            {
+                return pending("jpg", true);
+            }
+            if ((b[i] & 0xFF) != 0xFF)
+            {
+                // 段结构异常，放弃探测
+                return new ImageInfo("jpg", 0, 0, false);
+            }
+            int marker = b[i + 1] & 0xFF;
+            if (marker == 0xFF)
+            {
+                // 填充字节
+                i++;
+                continue;
+            }
+            if (marker == 0x01 || (marker >= 0xD0 && marker <= 0xD8))
+            {
+                // 无长度字段的独立标记
+                i += 2;
+                continue;
+            }
+            if (marker == 0xD9 || marker == 0xDA)
+            {
+                // 到达图像结束或扫描数据仍未见帧头
+                return new ImageInfo("jpg", 0, 0, false);
+            }
+            int segmentLength = be16(b, i + 2);
+            if (isStartOfFrame(marker))
+            {
+                if (i + 9 > len)
+                {
+                    return pending("jpg", true);
+                }
+                return sized("jpg", be16(b, i + 7), be16(b, i + 5));
+            }
+            if (segmentLength < 2)
+            {
+                return new ImageInfo("jpg", 0, 0, false);
+            }
+            i += 2 + segmentLength;
+        }
+    }
+
+    /**
+     * SOF0-SOF15，排除 DHT(C4)、JPG(C8)、DAC(CC)
+     */
+    private static boolean isStartOfFrame(int marker)
+    {
+        return marker >= 0xC0 && marker <= 0xCF && marker != 0xC4 && marker != 0xC8 && marker != 0xCC;
+    }
+
+    private static ImageInfo sized(String format, int width, int height)
+    {
+        return width > 0 && height > 0 ? new ImageInfo(format, width, height, false) : new ImageInfo(format, 0, 0, false);
+    }
+
+    private static ImageInfo pending(String format, boolean needsMore)
+    {
+        return new ImageInfo(format, 0, 0, needsMore);
+    }
+
+    private static int be16(byte[] b, int i)
+    {
+        return ((b[i] & 0xFF) << 8) | (b[i + 1] & 0xFF);
+    }
+
+    private static int be32(byte[] b, int i)
+    {
+        return ((b[i] & 0xFF) << 24) | ((b[i + 1] & 0xFF) << 16) | ((b[i + 2] & 0xFF) << 8) | (b[i + 3] & 0xFF);
+    }
+
+    private static int le16(byte[] b, int i)
+    {
+        return (b[i] & 0xFF) | ((b[i + 1] & 0xFF) << 8);
+    }
+
+    private static int le24(byte[] b, int i)
+    {
+        return (b[i] & 0xFF) | ((b[i + 1] & 0xFF) << 8) | ((b[i + 2] & 0xFF) << 16);
+    }
+
+    private static int le32(byte[] b, int i)
+    {
+        return (b[i] & 0xFF) | ((b[i + 1] & 0xFF) << 8) | ((b[i + 2] & 0xFF) << 16) | ((b[i + 3] & 0xFF) << 24);
+    }
+}
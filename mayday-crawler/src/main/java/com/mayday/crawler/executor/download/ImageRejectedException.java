@@ -0,0 +1,25 @@
+package com.mayday.crawler.executor.download;
+
+import java.io.IOException;
+
+/**
+ * 图片在下载首块后即被判定为无需保存（图标、占位图、跟踪像素等），不应重试
+ */
+public class ImageRejectedException extends IOException
+{
+    private final ImageHeaderProbe.ImageInfo info;
+
+    public ImageRejectedException(String message, ImageHeaderProbe.ImageInfo info)
+    {
+        super(message);
+        this.info = info;
+    }
+
+    /**
+     * 探测到的格式与尺寸
+     */
+    public ImageHeaderProbe.ImageInfo getInfo()
+    {
+        return info;
+    }
+}
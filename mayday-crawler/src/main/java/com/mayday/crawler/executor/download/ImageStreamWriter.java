@@ -0,0 +1,227 @@
+package com.mayday.crawler.executor.download;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Locale;
+
+/**
+ * 图片流式落盘
+ * <p>
+ * 响应流按块写入同目录下的临时文件，写入过程中同步计算 MD5 与大小；首块读取后识别文件头与宽高
+ * （{@link ImageHeaderProbe}），遇到 HTML 等非图片内容或尺寸低于下限的图片立即中止。
+ * 写完后原子移动到目标位置，失败时删除临时文件，不会留下半截图片。
+ * 堆内只保留一个固定大小的缓冲区，不再整图读入内存。
+ */
+public final class ImageStreamWriter
+{
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * 首块读取的字节数（足以覆盖除 JPEG 外各格式的尺寸字段）
+     */
+    private static final int PROBE_SIZE = 4 * 1024;
+
+    private ImageStreamWriter()
+    {
+    }
+
+    /**
+     * 落盘结果
+     *
+     * @param size   文件大小（字节）
+     * @param md5    内容 MD5（小写十六进制）
+     * @param format 由文件头识别出的格式（jpg/png/gif/webp/bmp/ico/avif/svg），无法识别时为 null
+     * @param width  由文件头读出的宽度（像素），未知时为 0
+     * @param height 由文件头读出的高度（像素），未知时为 0
+     */
+    public record StoredImage(long size, String md5, String format, int width, int height)
+    {
+    }
+
+    /**
+     * 将图片流写入目标文件，文件头显示尺寸低于下限时读完首块即中止
+     *
+     * @param in            已解压的响应体流（由调用方关闭）
+     * @param targetFile    目标文件
+     * @param maxBytes      大小上限，超过即中止
+     * @param minWidth      最小宽度，0 表示不限制
+     * @param minHeight     最小高度，0 表示不限制
+     * @param maxProbeBytes 探测尺寸时最多读取的字节数
+     * @return 落盘结果
+     * @throws ImageRejectedException 尺寸低于下限
+     * @throws IOException            内容为空、为 HTML 页面、超过上限或写入失败
+     */
+    public static StoredImage write(InputStream in, Path targetFile, long maxBytes,
+                                    int minWidth, int minHeight, int maxProbeBytes) throws IOException
+    {
+        MessageDigest md5 = newMd5();
+        byte[] buffer = new byte[BUFFER_SIZE];
+
+        // 先读够文件头再创建临时文件，HTML 占位页与尺寸过小的图片不产生任何磁盘写入
+        int head = in.readNBytes(buffer, 0, PROBE_SIZE);
+        if (head <= 0)
+        {
+            throw new IOException("图片内容为空");
+        }
+        ImageHeaderProbe.ImageInfo info = ImageHeaderProbe.probe(buffer, head);
+        // JPEG 的帧头可能位于较大的 EXIF/ICC 段之后：在同一缓冲区内继续读取，直到拿到尺寸或达到探测上限
+        int probeLimit = Math.min(Math.max(maxProbeBytes, PROBE_SIZE), BUFFER_SIZE);
+        boolean eof = head < PROBE_SIZE;
+        while (info.needsMore() && !eof && head < probeLimit)
+        {
+            int want = Math.min(PROBE_SIZE, probeLimit - head);
+            int n = in.readNBytes(buffer, head, want);
+            head += n;
+            eof = n < want;
+            info = ImageHeaderProbe.probe(buffer, head);
+        }
+        String format = info.format();
+        if (format == null && looksLikeHtml(buffer, head))
+        {
+            throw new IOException("返回HTML内容而非图片");
+        }
+        if (info.hasDimensions() && (info.width() < minWidth || info.height() < minHeight))
+        {
+            throw new ImageRejectedException(String.format("图片尺寸过小: %dx%d", info.width(), info.height()), info);
+        }
+
+        Path tmp = targetFile.resolveSibling(targetFile.getFileName() + ".part");
+        long size = 0;
+        boolean moved = false;
+        try
+        {
+            try (FileChannel channel = FileChannel.open(tmp,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING))
+            {
+                int n = head;
+                while (n > 0)
+                {
+                    size += n;
+                    if (size > maxBytes)
+                    {
+                        throw new IOException("图片超过大小上限: " + maxBytes + " bytes");
+                    }
+                    md5.update(buffer, 0, n);
+                    ByteBuffer bb = ByteBuffer.wrap(buffer, 0, n);
+                    while (bb.hasRemaining())
+                    {
+                        channel.write(bb);
+                    }
+                    n = in.read(buffer);
+                }
+            }
+            move(tmp, targetFile);
+            moved = true;
+        }
+        finally
+        {
+            if (!moved)
+            {
+                Files.deleteIfExists(tmp);
+            }
+        }
+        return new StoredImage(size, HexFormat.of().formatHex(md5.digest()), format, info.width(), info.height());
+    }
+
+    /**
+     * 根据文件头识别图片格式
+     */
+    static String sniffFormat(byte[] b, int len)
+    {
+        if (len >= 3 && (b[0] & 0xFF) == 0xFF && (b[1] & 0xFF) == 0xD8 && (b[2] & 0xFF) == 0xFF)
+        {
+            return "jpg";
+        }
+        if (len >= 8 && (b[0] & 0xFF) == 0x89 && b[1] == 'P' && b[2] == 'N' && b[3] == 'G')
+        {
+            return "png";
+        }
+        if (len >= 6 && b[0] == 'G' && b[1] == 'I' && b[2] == 'F' && b[3] == '8')
+        {
+            return "gif";
+        }
+        if (len >= 12 && b[0] == 'R' && b[1] == 'I' && b[2] == 'F' && b[3] == 'F'
+                && b[8] == 'W' && b[9] == 'E' && b[10] == 'B' && b[11] == 'P')
+        {
+            return "webp";
+        }
+        if (len >= 2 && b[0] == 'B' && b[1] == 'M')
+        {
+            return "bmp";
+        }
+        if (len >= 4 && b[0] == 0 && b[1] == 0 && b[2] == 1 && b[3] == 0)
+        {
+            return "ico";
+        }
+        if (len >= 12 && b[4] == 'f' && b[5] == 't' && b[6] == 'y' && b[7] == 'p')
+        {
+            return "avif";
+        }
+        String text = leadingText(b, len);
+        if (text.startsWith("<svg") || (text.startsWith("<?xml") && !text.contains("<html")))
+        {
+            return "svg";
+        }
+        return null;
+    }
+
+    private static boolean looksLikeHtml(byte[] b, int len)
+    {
+        String text = leadingText(b, len);
+        return text.startsWith("<!doctype") || text.startsWith("<html") || text.startsWith("<head")
+                || text.startsWith("<body") || text.startsWith("<meta") || text.startsWith("<script")
+                || text.startsWith("<!--") || text.startsWith("<title");
+    }
+
+    /**
+     * 去掉 BOM 与前导空白后的小写文本
+     */
+    private static String leadingText(byte[] b, int len)
+    {
+        int start = 0;
+        if (len >= 3 && (b[0] & 0xFF) == 0xEF && (b[1] & 0xFF) == 0xBB && (b[2] & 0xFF) == 0xBF)
+        {
+            start = 3;
+        }
+        while (start < len && (b[start] == ' ' || b[start] == '\t' || b[start] == '\r' || b[start] == '\n'))
+        {
+            start++;
+        }
+        return new String(b, start, len - start, StandardCharsets.ISO_8859_1).toLowerCase(Locale.ROOT);
+    }
+
+    private static void move(Path tmp, Path target) throws IOException
+    {
+        try
+        {
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        }
+        catch (AtomicMoveNotSupportedException e)
+        {
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static MessageDigest newMd5()
+    {
+        try
+        {
+            return MessageDigest.getInstance("MD5");
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.mayday.crawler.executor.fetch;
+
+import com.mayday.crawler.config.HttpClientConfig;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.net.Authenticator;
+import java.net.InetSocketAddress;
+import java.net.PasswordAuthentication;
+import java.net.ProxySelector;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 爬虫共享 HTTP 客户端池
+ * <p>
+ * 直连共用一个 {@link HttpClient}，每个代理（地址+账号）各一个实例；客户端内部维护 keep-alive 连接池，
+ * 优先协商 HTTP/2，同一主机的请求可复用连接与 TLS 会话。代理认证挂在各自客户端上，不再修改全局 Authenticator。
+ * 关闭 crawler.http.use-connection-pool 时每次请求创建新客户端（不复用连接），由响应关闭时一并关闭（见 {@link #isPooled()}）。
+ */
+@Component
+@RequiredArgsConstructor
+public class CrawlerHttpClientPool
+{
+    private static final String DIRECT_KEY = "DIRECT";
+    
+    private final HttpClientConfig httpClientConfig;
+    
+    private final Map<String, HttpClient> clients = new ConcurrentHashMap<>();
+    private final ExecutorService ioExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    
+    /**
+     * 获取客户端
+     *
+     * @param proxy HTTP 代理，为空表示直连
+     */
+    public HttpClient client(FetchProxy proxy)
+    {
+        if (!httpClientConfig.isUseConnectionPool())
+        {
+            return build(proxy);
+        }
+        String key = proxy != null ? proxy.key() : DIRECT_KEY;
+        return clients.computeIfAbsent(key, k -> build(proxy));
+    }
+    
+    /**
+     * 客户端是否为共享实例；为 false 时 {@link #client(FetchProxy)} 每次返回新客户端，调用方用完后须关闭
+     */
+    public boolean isPooled()
+    {
+        return httpClientConfig.isUseConnectionPool();
+    }
+    
+    /**
+     * 当前缓存的客户端数量
+     */
+    public int size()
+    {
+        return clients.size();
+    }
+    
+    /**
+     * 移除所有代理客户端（代理配置增删改后调用），下次使用时按新配置重建；直连客户端保留。
+     * 被移除的客户端有序关闭：已发出的请求继续完成，之后释放连接池与选择器线程
+     */
+    public void evictProxies()
+    {
+        clients.entrySet().removeIf(entry -> {
+            if (DIRECT_KEY.equals(entry.getKey()))
+            {
+                return false;
+            }
+            entry.getValue().shutdown();
+            return true;
+        });
+    }
+    
+    @PreDestroy
+    public void shutdown()
+    {
+        // 立即关闭各客户端的连接与选择器线程，再关闭共享的 I/O 线程池
+        clients.values().forEach(HttpClient::shutdownNow);
+        clients.clear();
+        ioExecutor.shutdown();
+    }
+    
+    private HttpClient build(FetchProxy proxy)
+    {
+        HttpClient.Builder builder = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .connectTimeout(Duration.ofMillis(httpClientConfig.getConnectTimeout()))
+                .executor(ioExecutor);
+        if (proxy != null)
+        {
+            builder.proxy(ProxySelector.of(new InetSocketAddress(proxy.host(), proxy.port())));
+            if (proxy.username() != null && !proxy.username().isEmpty())
+            {
+                String password = proxy.password() != null ? proxy.password() : "";
+                builder.authenticator(new Authenticator()
+                {
+                    @Override
+                    protected PasswordAuthentication getPasswordAuthentication()
+                    {
+                        if (getRequestorType() != RequestorType.PROXY)
+                        {
+                            return null;
+                        }
+                        return new PasswordAuthentication(proxy.username(), password.toCharArray());
+                    }
+                });
+            }
+        }
+        return builder.build();
+    }
+}
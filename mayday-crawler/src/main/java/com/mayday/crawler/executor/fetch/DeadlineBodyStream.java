@@ -0,0 +1,190 @@
+package com.mayday.crawler.executor.fetch;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 带截止时间的响应体流
+ * <p>
+ * {@link java.net.http.HttpRequest#timeout} 只覆盖到响应头到达为止，{@code BodyHandlers.ofInputStream()} 读取响应体时没有任何超时，
+ * 服务端在响应体中途停住会让抓取线程与主机并发名额一直被占用。这里作为 BodySubscriber 自行接收数据块，
+ * 每次等待都以请求开始时计算的截止时间为上限，超时后取消订阅（连接随之关闭）并抛出 {@link SocketTimeoutException}，
+ * 与 Jsoup 路径的总超时语义一致。同一时刻只向上游请求一个数据块，缓冲不会无限增长。
+ */
+final class DeadlineBodyStream extends InputStream implements HttpResponse.BodySubscriber<InputStream>
+{
+    // 流结束标记（按引用比较，不能用可能与上游空列表相同的 List.of()）
+    private static final List<ByteBuffer> END = Collections.unmodifiableList(new ArrayList<>());
+
+    private final long deadlineNanos;
+    private final BlockingQueue<List<ByteBuffer>> chunks = new LinkedBlockingQueue<>();
+    private volatile Flow.Subscription subscription;
+    private volatile Throwable error;
+    private volatile boolean closed;
+
+    private Iterator<ByteBuffer> buffers = Collections.emptyIterator();
+    private ByteBuffer current;
+    private boolean ended;
+
+    /**
+     * @param deadlineNanos 读取截止时间（{@link System#nanoTime()} 时间基准）
+     */
+    DeadlineBodyStream(long deadlineNanos)
+    {
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    @Override
+    public CompletionStage<InputStream> getBody()
+    {
+        return CompletableFuture.completedStage(this);
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription)
+    {
+        if (closed)
+        {
+            subscription.cancel();
+            return;
+        }
+        this.subscription = subscription;
+        subscription.request(1);
+    }
+
+    @Override
+    public void onNext(List<ByteBuffer> item)
+    {
+        chunks.offer(item);
+    }
+
+    @Override
+    public void onError(Throwable throwable)
+    {
+        error = throwable;
+        chunks.offer(END);
+    }
+
+    @Override
+    public void onComplete()
+    {
+        chunks.offer(END);
+    }
+
+    @Override
+    public int read() throws IOException
+    {
+        ByteBuffer buf = current();
+        return buf != null ? buf.get() & 0xFF : -1;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException
+    {
+        Objects.checkFromIndexSize(off, len, b.length);
+        if (len == 0)
+        {
+            return 0;
+        }
+        ByteBuffer buf = current();
+        if (buf == null)
+        {
+            return -1;
+        }
+        int n = Math.min(len, buf.remaining());
+        buf.get(b, off, n);
+        return n;
+    }
+
+    @Override
+    public int available()
+    {
+        ByteBuffer buf = current;
+        return buf != null ? buf.remaining() : 0;
+    }
+
+    @Override
+    public void close()
+    {
+        closed = true;
+        Flow.Subscription s = subscription;
+        subscription = null;
+        if (s != null)
+        {
+            s.cancel();
+        }
+        chunks.clear();
+    }
+
+    /**
+     * 当前可读的数据块；流结束返回 null，超过截止时间抛出 {@link SocketTimeoutException}
+     */
+    private ByteBuffer current() throws IOException
+    {
+        while (current == null || !current.hasRemaining())
+        {
+            if (buffers.hasNext())
+            {
+                current = buffers.next();
+                continue;
+            }
+            if (ended)
+            {
+                return null;
+            }
+            if (closed)
+            {
+                throw new IOException("响应体已关闭");
+            }
+            List<ByteBuffer> next;
+            try
+            {
+                long wait = deadlineNanos - System.nanoTime();
+                next = wait > 0 ? chunks.poll(wait, TimeUnit.NANOSECONDS) : chunks.poll();
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                close();
+                throw new InterruptedIOException("读取响应体被中断");
+            }
+            if (next == null)
+            {
+                close();
+                throw new SocketTimeoutException("读取响应体超时");
+            }
+            if (next == END)
+            {
+                ended = true;
+                Throwable t = error;
+                if (t != null)
+                {
+                    throw t instanceof IOException io ? io : new IOException(t);
+                }
+                return null;
+            }
+            buffers = next.iterator();
+            Flow.Subscription s = subscription;
+            if (s != null)
+            {
+                s.request(1);
+            }
+        }
+        return current;
+    }
+}
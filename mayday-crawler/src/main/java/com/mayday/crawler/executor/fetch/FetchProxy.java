@@ -0,0 +1,20 @@
+package com.mayday.crawler.executor.fetch;
+
+/**
+ * 抓取使用的 HTTP 代理
+ *
+ * @param host     代理主机
+ * @param port     代理端口
+ * @param username 认证用户名，可为空
+ * @param password 认证密码，可为空
+ */
+public record FetchProxy(String host, int port, String username, String password)
+{
+    /**
+     * 客户端池中的键：同一代理地址与账号共享一个客户端（连接池）
+     */
+    String key()
+    {
+        return host + ":" + port + "@" + (username != null ? username : "");
+    }
+}
@@ -0,0 +1,246 @@
+package com.mayday.crawler.executor.fetch;
+
+import org.jsoup.Connection;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * 流式响应
+ * 响应体按需读取，调用方必须关闭（try-with-resources）以归还连接
+ */
+public class FetchResponse implements AutoCloseable
+{
+    private final HttpResponse<InputStream> response;
+    // SOCKS 代理仍走 Jsoup，包装其响应以共用同一套流式处理
+    private final Connection.Response jsoupResponse;
+    // 未启用连接池时本次请求专用的客户端，随响应一起关闭
+    private final HttpClient ownedClient;
+    private InputStream body;
+    
+    FetchResponse(HttpResponse<InputStream> response, HttpClient ownedClient)
+    {
+        this.response = response;
+        this.jsoupResponse = null;
+        this.ownedClient = ownedClient;
+    }
+    
+    private FetchResponse(Connection.Response jsoupResponse)
+    {
+        this.response = null;
+        this.jsoupResponse = jsoupResponse;
+        this.ownedClient = null;
+    }
+    
+    /**
+     * 包装 Jsoup 响应（响应体尚未读取）
+     */
+    public static FetchResponse of(Connection.Response jsoupResponse)
+    {
+        return new FetchResponse(jsoupResponse);
+    }
+    
+    public int statusCode()
+    {
+        return response != null ? response.statusCode() : jsoupResponse.statusCode();
+    }
+    
+    /**
+     * 重定向后的最终URL
+     */
+    public String url()
+    {
+        return response != null ? response.uri().toString() : jsoupResponse.url().toString();
+    }
+    
+    public String header(String name)
+    {
+        return response != null ? response.headers().firstValue(name).orElse(null) : jsoupResponse.header(name);
+    }
+    
+    public String contentType()
+    {
+        return header("Content-Type");
+    }
+    
+    /**
+     * 协商使用的协议版本（HTTP_1_1 / HTTP_2）
+     */
+    public String protocol()
+    {
+        return response != null ? response.version().name() : "HTTP_1_1";
+    }
+    
+    /**
+     * 已按 Content-Encoding 解压的响应体流
+     */
+    public InputStream body() throws IOException
+    {
+        if (body == null && jsoupResponse != null)
+        {
+            // Jsoup 已按 Content-Encoding 解压
+            body = jsoupResponse.bodyStream();
+        }
+        if (body == null)
+        {
+            InputStream raw = response.body();
+            String encoding = header("Content-Encoding");
+            encoding = encoding != null ? encoding.trim().toLowerCase(Locale.ROOT) : "";
+            if (encoding.contains("gzip"))
+            {
+                body = new GZIPInputStream(raw, 8192);
+            }
+            else if (encoding.contains("deflate"))
+            {
+                body = new InflaterInputStream(raw);
+            }
+            else
+            {
+                body = raw;
+            }
+        }
+        return body;
+    }
+    
+    /**
+     * 最多读取 maxBodySize 字节的响应体流，超出部分被截断（与 Jsoup maxBodySize 行为一致）；0 表示不限制
+     */
+    public InputStream body(int maxBodySize) throws IOException
+    {
+        return maxBodySize > 0 ? new LimitedInputStream(body(), maxBodySize) : body();
+    }
+    
+    /**
+     * 将响应体解析为 Jsoup 文档，超出 maxBodySize 的部分被截断（与 Jsoup maxBodySize 行为一致）
+     */
+    public Document parse(int maxBodySize) throws IOException
+    {
+        return Jsoup.parse(body(maxBodySize), charset(), url());
+    }
+    
+    /**
+     * 以文本读取响应体（最多 maxBodySize 字节），用于非图片响应的排查与解析
+     */
+    public String text(int maxBodySize) throws IOException
+    {
+        byte[] bytes = new LimitedInputStream(body(), maxBodySize).readAllBytes();
+        String cs = charset();
+        Charset charset;
+        try
+        {
+            charset = cs != null ? Charset.forName(cs) : StandardCharsets.UTF_8;
+        }
+        catch (IllegalArgumentException e)
+        {
+            charset = StandardCharsets.UTF_8;
+        }
+        return new String(bytes, charset);
+    }
+    
+    /**
+     * Content-Type 中声明的字符集，未声明时返回 null 交由 Jsoup 从 meta 探测
+     */
+    public String charset()
+    {
+        String contentType = contentType();
+        if (contentType == null)
+        {
+            return null;
+        }
+        for (String part : contentType.split(";"))
+        {
+            String p = part.trim();
+            if (p.toLowerCase(Locale.ROOT).startsWith("charset="))
+            {
+                String cs = p.substring(8).replace("\"", "").trim();
+                return cs.isEmpty() ? null : cs;
+            }
+        }
+        return null;
+    }
+    
+    @Override
+    public void close()
+    {
+        try
+        {
+            if (body != null)
+            {
+                body.close();
+            }
+            else if (response != null)
+            {
+                response.body().close();
+            }
+            else
+            {
+                jsoupResponse.bodyStream().close();
+            }
+        }
+        catch (IOException ignored)
+        {
+            // ignore
+        }
+        finally
+        {
+            if (ownedClient != null)
+            {
+                ownedClient.shutdownNow();
+            }
+        }
+    }
+    
+    /**
+     * 读取到上限后返回 EOF
+     */
+    private static class LimitedInputStream extends FilterInputStream
+    {
+        private long remaining;
+        
+        LimitedInputStream(InputStream in, long limit)
+        {
+            super(in);
+            this.remaining = limit;
+        }
+        
+        @Override
+        public int read() throws IOException
+        {
+            if (remaining <= 0)
+            {
+                return -1;
+            }
+            int b = super.read();
+            if (b >= 0)
+            {
+                remaining--;
+            }
+            return b;
+        }
+        
+        @Override
+        public int read(byte[] buf, int off, int len) throws IOException
+        {
+            if (remaining <= 0)
+            {
+                return -1;
+            }
+            int n = super.read(buf, off, (int) Math.min(len, remaining));
+            if (n > 0)
+            {
+                remaining -= n;
+            }
+            return n;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.mayday.crawler.executor.fetch;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基于共享 {@link java.net.http.HttpClient} 的抓取器
+ * <p>
+ * 请求头、Cookie 沿用任务配置；响应体以流的形式返回，页面交给 Jsoup 解析，图片可直接落盘。
+ * 超时覆盖整个请求：响应头之前由 HttpRequest 超时控制，读取响应体由 {@link DeadlineBodyStream} 按同一截止时间控制。
+ */
+@Component
+@RequiredArgsConstructor
+public class HttpFetcher
+{
+    // HttpClient 不允许调用方设置的头，以及由本类统一设置的头
+    private static final Set<String> SKIPPED_HEADERS = Set.of(
+            "connection", "content-length", "expect", "host", "upgrade", "accept-encoding", "keep-alive");
+    
+    private final CrawlerHttpClientPool clientPool;
+    
+    /**
+     * 发起 GET 请求
+     *
+     * @param url       请求地址
+     * @param headers   请求头（含 User-Agent / Referer）
+     * @param cookies   Cookie，可为空
+     * @param proxy     HTTP 代理，为空表示直连
+     * @param timeoutMs 请求超时（毫秒），包括读取响应体的时间
+     * @return 流式响应，调用方负责关闭
+     * @throws SocketTimeoutException 请求超时（与 Jsoup 路径的异常语义保持一致，便于重试逻辑复用）
+     */
+    public FetchResponse get(String url, Map<String, String> headers, Map<String, String> cookies,
+                             FetchProxy proxy, int timeoutMs) throws IOException, InterruptedException
+    {
+        long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(url))
+                .timeout(Duration.ofMillis(timeoutMs))
+                .header("Accept-Encoding", "gzip, deflate")
+                .GET();
+        if (headers != null)
+        {
+            for (Map.Entry<String, String> e : headers.entrySet())
+            {
+                if (e.getKey() == null || e.getValue() == null
+                        || SKIPPED_HEADERS.contains(e.getKey().toLowerCase(Locale.ROOT)))
+                {
+                    continue;
+                }
+                builder.header(e.getKey(), e.getValue());
+            }
+        }
+        if (cookies != null && !cookies.isEmpty())
+        {
+            StringJoiner joiner = new StringJoiner("; ");
+            cookies.forEach((k, v) -> joiner.add(k + "=" + v));
+            builder.header("Cookie", joiner.toString());
+        }
+        
+        HttpClient client = clientPool.client(proxy);
+        // 未启用连接池时客户端只用于本次请求，随响应一起关闭（否则其选择器线程与连接要等到 GC 才释放）
+        HttpClient owned = clientPool.isPooled() ? null : client;
+        try
+        {
+            HttpResponse<InputStream> response = client.send(builder.build(), info -> new DeadlineBodyStream(deadlineNanos));
+            return new FetchResponse(response, owned);
+        }
+        catch (HttpTimeoutException e)
+        {
+            closeQuietly(owned);
+            SocketTimeoutException timeout = new SocketTimeoutException(e.getMessage());
+            timeout.initCause(e);
+            throw timeout;
+        }
+        catch (IOException | InterruptedException | RuntimeException e)
+        {
+            closeQuietly(owned);
+            throw e;
+        }
+    }
+    
+    private static void closeQuietly(HttpClient client)
+    {
+        if (client != null)
+        {
+            client.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.mayday.crawler.executor.frontier;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.ToIntFunction;
+
+/**
+ * 分桶优先级队列（线程安全）
+ * <p>
+ * 优先级为 [0, maxPriority] 的整数，每个优先级一个无锁队列（桶内先进先出），另用位图记录非空的桶；
+ * 出队时从最高位的非空桶取，入队/出队均为 O(1)（与元素数量无关），适合大量元素、优先级取值有限的场景。
+ * 与堆相比没有全局锁，也不需要比较元素。
+ */
+public final class BucketedPriorityQueue<E>
+{
+    private final ConcurrentLinkedQueue<E>[] buckets;
+    private final AtomicLongArray nonEmpty;
+    private final AtomicInteger size = new AtomicInteger();
+    private final ToIntFunction<E> priorityOf;
+    private final int maxPriority;
+    
+    @SuppressWarnings("unchecked")
+    public BucketedPriorityQueue(int maxPriority, ToIntFunction<E> priorityOf)
+    {
+        this.maxPriority = Math.max(0, maxPriority);
+        this.priorityOf = priorityOf;
+        this.buckets = new ConcurrentLinkedQueue[this.maxPriority + 1];
+        for (int i = 0; i < buckets.length; i++)
+        {
+            buckets[i] = new ConcurrentLinkedQueue<>();
+        }
+        this.nonEmpty = new AtomicLongArray((buckets.length + 63) / 64);
+    }
+    
+    public void offer(E element)
+    {
+        int bucket = Math.max(0, Math.min(maxPriority, priorityOf.applyAsInt(element)));
+        buckets[bucket].offer(element);
+        size.incrementAndGet();
+        // 先入桶再置位：并发出队最多错过本次元素，下次仍能取到
+        setBit(bucket);
+    }
+    
+    /**
+     * 取出优先级最高的元素（同优先级先进先出），没有时返回 null
+     */
+    public E poll()
+    {
+        for (int word = nonEmpty.length() - 1; word >= 0; word--)
+        {
+            long bits = nonEmpty.get(word);
+            while (bits != 0)
+            {
+                int bit = 63 - Long.numberOfLeadingZeros(bits);
+                int bucket = word * 64 + bit;
+                E element = buckets[bucket].poll();
+                if (element != null)
+                {
+                    size.decrementAndGet();
+                    return element;
+                }
+                // 桶已空：清除标记后复查，避免与并发入队竞争导致漏标
+                clearBit(bucket);
+                if (!buckets[bucket].isEmpty())
+                {
+                    setBit(bucket);
+                }
+                bits &= ~(1L << bit);
+            }
+        }
+        return null;
+    }
+    
+    public boolean isEmpty()
+    {
+        return size.get() <= 0;
+    }
+    
+    public int size()
+    {
+        return Math.max(0, size.get());
+    }
+    
+    /**
+     * 按优先级从高到低取出全部元素
+     */
+    public void drainTo(Collection<? super E> target)
+    {
+        E element;
+        while ((element = poll()) != null)
+        {
+            target.add(element);
+        }
+    }
+    
+    private void setBit(int bucket)
+    {
+        int word = bucket >>> 6;
+        long mask = 1L << (bucket & 63);
+        long current;
+        do
+        {
+            current = nonEmpty.get(word);
+            if ((current & mask) != 0)
+            {
+                return;
+            }
+        }
+        while (!nonEmpty.compareAndSet(word, current, current | mask));
+    }
+    
+    private void clearBit(int bucket)
+    {
+        int word = bucket >>> 6;
+        long mask = 1L << (bucket & 63);
+        long current;
+        do
+        {
+            current = nonEmpty.get(word);
+            if ((current & mask) == 0)
+            {
+                return;
+            }
+        }
+        while (!nonEmpty.compareAndSet(word, current, current & ~mask));
+    }
+}
@@ -0,0 +1,44 @@
+package com.mayday.crawler.executor.frontier;
+
+/**
+ * 爬取边界（待爬URL队列）
+ * <p>
+ * 执行器只通过该接口入队、出队与回报处理结果，具体存储方式由实现决定。
+ */
+public interface CrawlFrontier extends AutoCloseable
+{
+    /**
+     * 新发现的URL入队
+     */
+    void offer(UrlInfo urlInfo);
+    
+    /**
+     * 取出下一个待爬URL，没有时返回 null
+     */
+    UrlInfo poll();
+    
+    /**
+     * 是否已没有待爬URL
+     */
+    boolean isEmpty();
+    
+    /**
+     * 回报URL处理结果
+     *
+     * @param urlInfo  已处理的URL
+     * @param status   SUCCESS / FAILED / SKIPPED
+     * @param errorMsg 错误信息，可为空
+     */
+    void complete(UrlInfo urlInfo, String status, String errorMsg);
+    
+    /**
+     * 将缓冲中的入队与检查点写入存储
+     */
+    void flush();
+    
+    /**
+     * 刷新缓冲并归还未处理的租约
+     */
+    @Override
+    void close();
+}
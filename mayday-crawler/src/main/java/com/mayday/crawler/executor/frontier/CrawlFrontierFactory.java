@@ -0,0 +1,41 @@
+package com.mayday.crawler.executor.frontier;
+
+import com.mayday.crawler.config.FrontierConfig;
+import com.mayday.crawler.service.ICrawlerUrlQueueService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * 爬取边界工厂
+ * 每次任务执行创建独立的边界实例
+ */
+@Component
+@RequiredArgsConstructor
+public class CrawlFrontierFactory
+{
+    private final ICrawlerUrlQueueService queueService;
+    private final FrontierConfig frontierConfig;
+    
+    /**
+     * 创建任务的持久化爬取边界
+     *
+     * @param taskId 任务ID
+     * @param resume 是否恢复上次未完成的队列（否则清空后重新开始）
+     */
+    public CrawlFrontier create(Long taskId, boolean resume)
+    {
+        long pending = 0;
+        if (resume)
+        {
+            queueService.resetProcessing(taskId);
+            pending = queueService.countByStatus(taskId, "PENDING");
+        }
+        else
+        {
+            queueService.clearByTaskId(taskId);
+        }
+        return new PersistentCrawlFrontier(taskId, queueService,
+                frontierConfig.getInsertBatchSize(), frontierConfig.getLeaseSize(),
+                frontierConfig.getCheckpointBatchSize(), pending);
+    }
+}
@@ -0,0 +1,223 @@
+package com.mayday.crawler.executor.frontier;
+
+import cn.hutool.crypto.digest.DigestUtil;
+import com.mayday.crawler.modl.entity.CrawlerUrlQueueEntity;
+import com.mayday.crawler.service.ICrawlerUrlQueueService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 基于 crawler_url_queue 的持久化爬取边界
+ * <p>
+ * - 新URL先进入内存缓冲，达到阈值或需要租用时批量入库；<br>
+ * - 出队按块租用（PENDING -> PROCESSING，按优先级从高到低，同优先级先进先出），本地消费；<br>
+ * - 处理结果作为检查点批量回写；<br>
+ * - 关闭时把已租用但未处理的URL归还为 PENDING，供下次恢复执行。
+ */
+public class PersistentCrawlFrontier implements CrawlFrontier
+{
+    private static final Logger log = LoggerFactory.getLogger(PersistentCrawlFrontier.class);
+    
+    private final Long taskId;
+    private final ICrawlerUrlQueueService queueService;
+    private final int insertBatchSize;
+    private final int leaseSize;
+    private final int checkpointBatchSize;
+    
+    // 待入库的新URL
+    private final List<CrawlerUrlQueueEntity> insertBuffer = new ArrayList<>();
+    // 待回写的状态检查点
+    private final List<CrawlerUrlQueueEntity> checkpointBuffer = new ArrayList<>();
+    // 已租用、尚未交给执行器的URL
+    private final Queue<UrlInfo> leased = new ConcurrentLinkedQueue<>();
+    // 缓冲中 + 库中 PENDING 的URL数量，避免 isEmpty 查库
+    private final AtomicLong pendingCount;
+    
+    private final Object insertLock = new Object();
+    private final Object leaseLock = new Object();
+    private final Object checkpointLock = new Object();
+    
+    public PersistentCrawlFrontier(Long taskId, ICrawlerUrlQueueService queueService,
+                                   int insertBatchSize, int leaseSize, int checkpointBatchSize,
+                                   long initialPending)
+    {
+        this.taskId = taskId;
+        this.queueService = queueService;
+        this.insertBatchSize = Math.max(1, insertBatchSize);
+        this.leaseSize = Math.max(1, leaseSize);
+        this.checkpointBatchSize = Math.max(1, checkpointBatchSize);
+        this.pendingCount = new AtomicLong(initialPending);
+    }
+    
+    @Override
+    public void offer(UrlInfo urlInfo)
+    {
+        CrawlerUrlQueueEntity entity = new CrawlerUrlQueueEntity();
+        entity.setTaskId(taskId);
+        entity.setUrl(urlInfo.getUrl());
+        entity.setUrlHash(DigestUtil.md5Hex(urlInfo.getUrl()));
+        entity.setDepth(urlInfo.getDepth());
+        entity.setLastmod(urlInfo.getLastModified());
+        entity.setPriority(urlInfo.getPriority());
+        entity.setStatus("PENDING");
+        entity.setRetryCount(0);
+        Date now = new Date();
+        entity.setCreateTime(now);
+        entity.setUpdateTime(now);
+        
+        boolean full;
+        synchronized (insertLock)
+        {
+            insertBuffer.add(entity);
+            full = insertBuffer.size() >= insertBatchSize;
+        }
+        pendingCount.incrementAndGet();
+        if (full)
+        {
+            flushInserts();
+        }
+    }
+    
+    @Override
+    public UrlInfo poll()
+    {
+        UrlInfo next = leased.poll();
+        if (next != null)
+        {
+            return next;
+        }
+        synchronized (leaseLock)
+        {
+            next = leased.poll();
+            if (next != null)
+            {
+                return next;
+            }
+            if (pendingCount.get() <= 0)
+            {
+                return null;
+            }
+            // 租用前先把缓冲写入，保证新发现的URL参与排序
+            flushInserts();
+            List<CrawlerUrlQueueEntity> rows = queueService.leasePending(taskId, leaseSize);
+            if (rows.isEmpty())
+            {
+                // 库中已无待处理记录，校正计数
+                pendingCount.set(0);
+                return null;
+            }
+            pendingCount.addAndGet(-rows.size());
+            for (CrawlerUrlQueueEntity row : rows)
+            {
+                int depth = row.getDepth() != null ? row.getDepth() : 0;
+                int priority = row.getPriority() != null ? row.getPriority() : UrlPriorityScorer.DEFAULT;
+                leased.offer(new UrlInfo(row.getUrl(), depth, row.getId(), row.getLastmod(), priority));
+            }
+            return leased.poll();
+        }
+    }
+    
+    @Override
+    public boolean isEmpty()
+    {
+        return leased.isEmpty() && pendingCount.get() <= 0;
+    }
+    
+    @Override
+    public void complete(UrlInfo urlInfo, String status, String errorMsg)
+    {
+        if (urlInfo == null || urlInfo.getQueueId() == null)
+        {
+            return;
+        }
+        CrawlerUrlQueueEntity checkpoint = new CrawlerUrlQueueEntity();
+        checkpoint.setId(urlInfo.getQueueId());
+        checkpoint.setStatus(status);
+        if (errorMsg != null)
+        {
+            checkpoint.setErrorMsg(errorMsg.length() > 500 ? errorMsg.substring(0, 500) : errorMsg);
+        }
+        checkpoint.setUpdateTime(new Date());
+        
+        boolean full;
+        synchronized (checkpointLock)
+        {
+            checkpointBuffer.add(checkpoint);
+            full = checkpointBuffer.size() >= checkpointBatchSize;
+        }
+        if (full)
+        {
+            flushCheckpoints();
+        }
+    }
+    
+    @Override
+    public void flush()
+    {
+        flushInserts();
+        flushCheckpoints();
+    }
+    
+    @Override
+    public void close()
+    {
+        try
+        {
+            flush();
+        }
+        finally
+        {
+            List<Long> unprocessed = new ArrayList<>();
+            UrlInfo info;
+            while ((info = leased.poll()) != null)
+            {
+                if (info.getQueueId() != null)
+                {
+                    unprocessed.add(info.getQueueId());
+                }
+            }
+            if (!unprocessed.isEmpty())
+            {
+                queueService.releaseLeased(unprocessed);
+                log.info("任务 {} 归还未处理的URL租约 {} 条", taskId, unprocessed.size());
+            }
+        }
+    }
+    
+    private void flushInserts()
+    {
+        List<CrawlerUrlQueueEntity> batch;
+        synchronized (insertLock)
+        {
+            if (insertBuffer.isEmpty())
+            {
+                return;
+            }
+            batch = new ArrayList<>(insertBuffer);
+            insertBuffer.clear();
+        }
+        queueService.saveBatch(batch, insertBatchSize);
+    }
+    
+    private void flushCheckpoints()
+    {
+        List<CrawlerUrlQueueEntity> batch;
+        synchronized (checkpointLock)
+        {
+            if (checkpointBuffer.isEmpty())
+            {
+                return;
+            }
+            batch = new ArrayList<>(checkpointBuffer);
+            checkpointBuffer.clear();
+        }
+        queueService.updateBatch(batch, checkpointBatchSize);
+    }
+}
@@ -0,0 +1,73 @@
+package com.mayday.crawler.executor.frontier;
+
+import lombok.Getter;
+
+import java.util.Date;
+
+/**
+ * URL信息
+ */
+@Getter
+public class UrlInfo
+{
+    private final String url;
+    private final int depth;
+    
+    /**
+     * 对应 crawler_url_queue 的记录ID（尚未入库时为空）
+     */
+    private final Long queueId;
+    
+    /**
+     * 页面最后修改时间（来自 sitemap 的 lastmod，未知时为空）
+     */
+    private final Date lastModified;
+    
+    /**
+     * 抓取优先级（0~100，越大越先抓取，见 {@link UrlPriorityScorer}）
+     */
+    private final int priority;
+    
+    /**
+     * 已进行的抓取尝试次数（限流或网络错误后交回调度器重试时递增，不持久化）
+     */
+    private final int attempt;
+    
+    public UrlInfo(String url, int depth)
+    {
+        this(url, depth, null, null);
+    }
+    
+    public UrlInfo(String url, int depth, Long queueId)
+    {
+        this(url, depth, queueId, null);
+    }
+    
+    public UrlInfo(String url, int depth, Long queueId, Date lastModified)
+    {
+        this(url, depth, queueId, lastModified, UrlPriorityScorer.DEFAULT);
+    }
+    
+    public UrlInfo(String url, int depth, Long queueId, Date lastModified, int priority)
+    {
+        this(url, depth, queueId, lastModified, priority, 0);
+    }
+    
+    private UrlInfo(String url, int depth, Long queueId, Date lastModified, int priority, int attempt)
+    {
+        this.url = url;
+        this.depth = depth;
+        this.queueId = queueId;
+        this.lastModified = lastModified;
+        this.priority = priority;
+        this.attempt = attempt;
+    }
+    
+    /**
+     * 下一次尝试的同一URL
+     */
+    public UrlInfo nextAttempt()
+    {
+        return new UrlInfo(url, depth, queueId, lastModified, priority, attempt + 1);
+    }
+}
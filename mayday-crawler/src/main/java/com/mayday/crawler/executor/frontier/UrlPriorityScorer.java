@@ -0,0 +1,86 @@
+package com.mayday.crawler.executor.frontier;
+
+import com.mayday.crawler.executor.classify.UrlClassifier;
+
+import java.util.Date;
+
+/**
+ * URL 优先级评分
+ * <p>
+ * 分值范围 [0, 100]，越大越先抓取，用于在 maxUrls 预算内优先抓取高价值页面：
+ * <ul>
+ *     <li>页面类型：像详情页的加分最多，列表/分页页次之（可继续发现详情页），其余不加分；</li>
+ *     <li>深度：每深一层扣分；</li>
+ *     <li>链接位置：同一页面中越靠前的链接（通常是主内容区）加分越多；</li>
+ *     <li>新鲜度：sitemap 声明的 lastmod 越近加分越多，很久未更新的扣分。</li>
+ * </ul>
+ */
+public final class UrlPriorityScorer
+{
+    public static final int MIN = 0;
+    public static final int MAX = 100;
+    
+    /**
+     * 未评分URL的默认优先级
+     */
+    public static final int DEFAULT = 40;
+    
+    private static final int DETAIL_BONUS = 30;
+    private static final int LIST_BONUS = 15;
+    private static final int DEPTH_PENALTY = 5;
+    private static final int MAX_DEPTH_PENALTY = 25;
+    private static final int POSITION_BONUS = 10;
+    
+    private static final long DAY_MILLIS = 24L * 60 * 60 * 1000;
+    
+    private UrlPriorityScorer()
+    {
+    }
+    
+    /**
+     * @param classifier   任务的URL分类器
+     * @param url          URL
+     * @param depth        深度
+     * @param position     在来源页面候选链接中的序号（从0开始），未知时传 -1
+     * @param total        来源页面候选链接总数
+     * @param lastModified sitemap lastmod，未知时为 null
+     */
+    public static int score(UrlClassifier classifier, String url, int depth, int position, int total, Date lastModified)
+    {
+        int score = DEFAULT;
+        if (classifier.looksLikeDetail(url) || classifier.isArticleLink(url))
+        {
+            score += DETAIL_BONUS;
+        }
+        else if (classifier.looksLikeList(url) || classifier.isPaginated(url))
+        {
+            score += LIST_BONUS;
+        }
+        score -= Math.min(MAX_DEPTH_PENALTY, Math.max(0, depth) * DEPTH_PENALTY);
+        if (position >= 0 && total > 1)
+        {
+            score += Math.round((float) POSITION_BONUS * (total - 1 - Math.min(position, total - 1)) / (total - 1));
+        }
+        if (lastModified != null)
+        {
+            long ageDays = (System.currentTimeMillis() - lastModified.getTime()) / DAY_MILLIS;
+            if (ageDays <= 7)
+            {
+                score += 15;
+            }
+            else if (ageDays <= 30)
+            {
+                score += 10;
+            }
+            else if (ageDays <= 365)
+            {
+                score += 3;
+            }
+            else
+            {
+                score -= 5;
+            }
+        }
+        return Math.max(MIN, Math.min(MAX, score));
+    }
+}
@@ -0,0 +1,240 @@
+package com.mayday.crawler.executor.logsink;
+
+import com.mayday.crawler.config.CrawlerLogConfig;
+import com.mayday.crawler.modl.entity.CrawlerLogEntity;
+import com.mayday.crawler.modl.entity.CrawlerTaskEntity;
+import com.mayday.crawler.service.ICrawlerLogService;
+import com.mayday.crawler.service.ICrawlerTaskService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * 爬虫任务日志写入器
+ * <p>
+ * - 任务归属（createBy / deptId）每次运行只查询一次并缓存；<br>
+ * - 日志先进入有界环形缓冲，写入方永不阻塞，满时按配置策略丢弃；<br>
+ * - 后台线程按间隔取出一批，把同一任务、级别、类型且消息模板相同（数字、URL归一）的日志合并为一条并附带次数；<br>
+ * - 合并后批量插入 crawler_log。
+ */
+@Component
+public class CrawlerLogSink
+{
+    private static final Logger log = LoggerFactory.getLogger(CrawlerLogSink.class);
+    
+    private static final Pattern URL_PATTERN = Pattern.compile("https?://\\S+");
+    private static final Pattern NUMBER_PATTERN = Pattern.compile("\\d+");
+    
+    private final ICrawlerLogService logService;
+    private final ICrawlerTaskService taskService;
+    private final CrawlerLogConfig logConfig;
+    
+    private final Map<Long, TaskOwner> owners = new ConcurrentHashMap<>();
+    private final AtomicLong dropped = new AtomicLong();
+    private BlockingQueue<CrawlerLogEntity> buffer;
+    private Thread worker;
+    private volatile boolean closed;
+    
+    public CrawlerLogSink(ICrawlerLogService logService,
+                          @Lazy ICrawlerTaskService taskService,
+                          CrawlerLogConfig logConfig)
+    {
+        this.logService = logService;
+        this.taskService = taskService;
+        this.logConfig = logConfig;
+    }
+    
+    @PostConstruct
+    public void init()
+    {
+        buffer = new ArrayBlockingQueue<>(Math.max(16, logConfig.getBufferSize()));
+        worker = Thread.ofVirtual().name("crawler-log-sink").start(this::runLoop);
+    }
+    
+    /**
+     * 任务开始运行时登记归属信息，避免每条日志回查任务
+     */
+    public void registerTask(CrawlerTaskEntity task)
+    {
+        owners.put(task.getId(), new TaskOwner(task.getCreateBy(), task.getDeptId()));
+    }
+    
+    /**
+     * 任务结束：写出缓冲中的日志并移除归属缓存
+     */
+    public void unregisterTask(Long taskId)
+    {
+        flush();
+        owners.remove(taskId);
+    }
+    
+    /**
+     * 记录一条任务日志（非阻塞）
+     */
+    public void log(Long taskId, String level, String logType, String message)
+    {
+        CrawlerLogEntity entity = new CrawlerLogEntity();
+        entity.setTaskId(taskId);
+        entity.setLevel(level);
+        entity.setLogType(logType);
+        entity.setMessage(message);
+        entity.setCreateTime(new Date());
+        
+        if (buffer.offer(entity))
+        {
+            return;
+        }
+        String policy = logConfig.getDropPolicy();
+        if ("DROP_NEWEST".equalsIgnoreCase(policy))
+        {
+            dropped.incrementAndGet();
+            return;
+        }
+        if ("KEEP_ERRORS".equalsIgnoreCase(policy) && !"ERROR".equals(level))
+        {
+            dropped.incrementAndGet();
+            return;
+        }
+        // DROP_OLDEST：腾出位置后再放入，竞争失败则放弃本条
+        if (buffer.poll() != null)
+        {
+            dropped.incrementAndGet();
+        }
+        if (!buffer.offer(entity))
+        {
+            dropped.incrementAndGet();
+        }
+    }
+    
+    /**
+     * 同步写出缓冲中的全部日志
+     */
+    public synchronized void flush()
+    {
+        List<CrawlerLogEntity> drained = new ArrayList<>();
+        buffer.drainTo(drained);
+        write(drained);
+    }
+    
+    @PreDestroy
+    public void shutdown()
+    {
+        closed = true;
+        if (worker != null)
+        {
+            worker.interrupt();
+        }
+        flush();
+    }
+    
+    private void runLoop()
+    {
+        while (!closed)
+        {
+            try
+            {
+                TimeUnit.MILLISECONDS.sleep(Math.max(100, logConfig.getFlushIntervalMs()));
+                flush();
+            }
+            catch (InterruptedException e)
+            {
+                if (closed)
+                {
+                    break;
+                }
+            }
+            catch (Exception e)
+            {
+                log.error("爬虫日志写入线程异常", e);
+            }
+        }
+    }
+    
+    private void write(List<CrawlerLogEntity> drained)
+    {
+        long droppedCount = dropped.getAndSet(0);
+        if (drained.isEmpty() && droppedCount == 0)
+        {
+            return;
+        }
+        
+        // 合并重复日志：同一任务+级别+类型+消息模板
+        Map<String, CrawlerLogEntity> merged = new LinkedHashMap<>();
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (CrawlerLogEntity entity : drained)
+        {
+            String key = entity.getTaskId() + "|" + entity.getLevel() + "|" + entity.getLogType() + "|" + template(entity.getMessage());
+            merged.putIfAbsent(key, entity);
+            counts.merge(key, 1, Integer::sum);
+        }
+        
+        List<CrawlerLogEntity> rows = new ArrayList<>(merged.size());
+        for (Map.Entry<String, CrawlerLogEntity> e : merged.entrySet())
+        {
+            CrawlerLogEntity entity = e.getValue();
+            int count = counts.get(e.getKey());
+            if (count > 1)
+            {
+                entity.setMessage(entity.getMessage() + String.format("（已合并相似日志 %d 条）", count));
+            }
+            fillOwner(entity);
+            rows.add(entity);
+        }
+        
+        if (droppedCount > 0)
+        {
+            log.warn("爬虫日志缓冲区已满，丢弃 {} 条日志", droppedCount);
+        }
+        
+        try
+        {
+            logService.saveBatch(rows, Math.max(1, logConfig.getBatchSize()));
+        }
+        catch (Exception e)
+        {
+            log.error("批量写入爬虫日志失败，共 {} 条", rows.size(), e);
+        }
+    }
+    
+    private void fillOwner(CrawlerLogEntity entity)
+    {
+        TaskOwner owner = owners.get(entity.getTaskId());
+        if (owner == null)
+        {
+            // 未登记的任务（如任务结束后的停止请求日志）回查任务获取归属
+            CrawlerTaskEntity task = taskService.getById(entity.getTaskId());
+            owner = task != null ? new TaskOwner(task.getCreateBy(), task.getDeptId()) : new TaskOwner(null, null);
+        }
+        entity.setCreateBy(owner.createBy());
+        entity.setDeptId(owner.deptId());
+    }
+    
+    private static String template(String message)
+    {
+        if (message == null)
+        {
+            return "";
+        }
+        String t = URL_PATTERN.matcher(message).replaceAll("<url>");
+        return NUMBER_PATTERN.matcher(t).replaceAll("#");
+    }
+    
+    private record TaskOwner(Long createBy, Long deptId)
+    {
+    }
+}
@@ -0,0 +1,185 @@
+package com.mayday.crawler.executor.parse;
+
+import com.mayday.crawler.config.HtmlParseConfig;
+import com.mayday.crawler.executor.fetch.FetchResponse;
+import lombok.RequiredArgsConstructor;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.SequenceInputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 页面解析入口
+ * <p>
+ * 先读取不超过 streamingThresholdBytes 的前缀：响应在阈值内结束时照常构建完整 DOM；
+ * 否则将前缀与剩余响应体拼接后交给 {@link HtmlTokenizer} + {@link StreamingDocumentBuilder} 流式解析，
+ * 页面特征在读取过程中即统计完成，只保留提取所需的子树。
+ */
+@Component
+@RequiredArgsConstructor
+public class HtmlPageParser
+{
+    /**
+     * 探测 meta 声明字符集时扫描的前缀长度
+     */
+    private static final int CHARSET_SNIFF_BYTES = 4096;
+
+    private static final Pattern META_CHARSET = Pattern.compile(
+            "<meta[^>]+charset\\s*=\\s*[\"']?\\s*([A-Za-z0-9_.:-]+)", Pattern.CASE_INSENSITIVE);
+
+    private final HtmlParseConfig config;
+
+    /**
+     * 解析结果
+     *
+     * @param document  文档；流式解析时为裁剪后的文档
+     * @param features  流式解析时已统计的页面特征，完整 DOM 时为 null（由调用方遍历 DOM 统计）
+     * @param streamed  是否走流式解析
+     * @param bodyBytes 读取的响应体字节数
+     * @param peakBytes 解析过程内存估算峰值：完整 DOM 时为响应体大小，流式解析时为读缓冲、前缀与保留部分之和
+     * @param truncated 流式解析是否因超出保留额度丢弃了内容
+     */
+    public record ParsedHtml(Document document, PageFeatures features, boolean streamed,
+                             long bodyBytes, long peakBytes, boolean truncated)
+    {
+    }
+
+    /**
+     * 单个页面响应体上限（字节）
+     */
+    public int maxBodyBytes()
+    {
+        return config.getMaxBodyBytes();
+    }
+
+    /**
+     * 解析响应体，超出 maxBodyBytes 的部分被截断
+     *
+     * @param rules 任务解析规则集，决定流式解析时保留哪些子树
+     */
+    public ParsedHtml parse(FetchResponse response, ParseRuleSet rules) throws IOException
+    {
+        CountingInputStream in = new CountingInputStream(response.body(config.getMaxBodyBytes()));
+        String baseUri = response.url();
+        String declaredCharset = response.charset();
+        int threshold = config.getStreamingThresholdBytes();
+        if (threshold <= 0)
+        {
+            Document doc = Jsoup.parse(in, declaredCharset, baseUri);
+            return new ParsedHtml(doc, null, false, in.count, in.count, false);
+        }
+
+        byte[] prefix = in.readNBytes(threshold);
+        if (prefix.length < threshold)
+        {
+            Document doc = Jsoup.parse(new ByteArrayInputStream(prefix), declaredCharset, baseUri);
+            return new ParsedHtml(doc, null, false, prefix.length, prefix.length, false);
+        }
+
+        Charset charset = resolveCharset(declaredCharset, prefix);
+        StreamingDocumentBuilder builder = new StreamingDocumentBuilder(baseUri, rules.contentSelector(),
+                rules.contentEval(), rules.retainEvals(), config.getMaxRetainedBytes());
+        InputStream body = new SequenceInputStream(new ByteArrayInputStream(prefix), in);
+        new HtmlTokenizer(new InputStreamReader(body, charset), builder).run();
+        StreamingDocumentBuilder.Result result = builder.finish();
+
+        long peak = result.peakBytes() + prefix.length + 2L * HtmlTokenizer.bufferChars();
+        return new ParsedHtml(result.document(), result.features(), true, in.count, peak, result.truncated());
+    }
+
+    /**
+     * 字符集优先级：Content-Type 声明 > BOM > 前缀中的 meta 声明 > UTF-8
+     */
+    static Charset resolveCharset(String declared, byte[] prefix)
+    {
+        Charset charset = forName(declared);
+        if (charset != null)
+        {
+            return charset;
+        }
+        if (prefix.length >= 3 && (prefix[0] & 0xFF) == 0xEF && (prefix[1] & 0xFF) == 0xBB && (prefix[2] & 0xFF) == 0xBF)
+        {
+            return StandardCharsets.UTF_8;
+        }
+        if (prefix.length >= 2 && (prefix[0] & 0xFF) == 0xFE && (prefix[1] & 0xFF) == 0xFF)
+        {
+            return StandardCharsets.UTF_16BE;
+        }
+        if (prefix.length >= 2 && (prefix[0] & 0xFF) == 0xFF && (prefix[1] & 0xFF) == 0xFE)
+        {
+            return StandardCharsets.UTF_16LE;
+        }
+        String head = new String(prefix, 0, Math.min(prefix.length, CHARSET_SNIFF_BYTES), StandardCharsets.ISO_8859_1);
+        Matcher m = META_CHARSET.matcher(head);
+        if (m.find())
+        {
+            charset = forName(m.group(1));
+            if (charset != null)
+            {
+                return charset;
+            }
+        }
+        return StandardCharsets.UTF_8;
+    }
+
+    private static Charset forName(String name)
+    {
+        if (name == null || name.isBlank())
+        {
+            return null;
+        }
+        try
+        {
+            return Charset.forName(name.trim());
+        }
+        catch (IllegalArgumentException e)
+        {
+            return null;
+        }
+    }
+
+    /**
+     * 统计读取字节数
+     */
+    private static class CountingInputStream extends FilterInputStream
+    {
+        private long count;
+
+        CountingInputStream(InputStream in)
+        {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException
+        {
+            int b = super.read();
+            if (b >= 0)
+            {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buf, int off, int len) throws IOException
+        {
+            int n = super.read(buf, off, len);
+            if (n > 0)
+            {
+                count += n;
+            }
+            return n;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.mayday.crawler.executor.parse;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 任务级页面解析指标：完整 DOM 与流式解析的页面数、响应体大小与单页内存估算峰值。线程安全。
+ */
+public class HtmlParseMetrics
+{
+    private final LongAdder domPages = new LongAdder();
+    private final LongAdder streamedPages = new LongAdder();
+    private final LongAdder truncatedPages = new LongAdder();
+    private final LongAdder streamedPeakTotal = new LongAdder();
+    private final LongAccumulator maxBodyBytes = new LongAccumulator(Math::max, 0);
+    private final LongAccumulator maxDomBodyBytes = new LongAccumulator(Math::max, 0);
+    private final LongAccumulator maxStreamedPeakBytes = new LongAccumulator(Math::max, 0);
+
+    public void record(HtmlPageParser.ParsedHtml parsed)
+    {
+        maxBodyBytes.accumulate(parsed.bodyBytes());
+        if (!parsed.streamed())
+        {
+            domPages.increment();
+            maxDomBodyBytes.accumulate(parsed.bodyBytes());
+            return;
+        }
+        streamedPages.increment();
+        streamedPeakTotal.add(parsed.peakBytes());
+        maxStreamedPeakBytes.accumulate(parsed.peakBytes());
+        if (parsed.truncated())
+        {
+            truncatedPages.increment();
+        }
+    }
+
+    public Map<String, Object> snapshot()
+    {
+        long streamed = streamedPages.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("domPages", domPages.sum());
+        stats.put("streamedPages", streamed);
+        stats.put("truncatedPages", truncatedPages.sum());
+        stats.put("maxBodyBytes", maxBodyBytes.get());
+        stats.put("maxDomBodyBytes", maxDomBodyBytes.get());
+        stats.put("maxStreamedPeakBytes", maxStreamedPeakBytes.get());
+        stats.put("avgStreamedPeakBytes", streamed > 0 ? streamedPeakTotal.sum() / streamed : 0);
+        return stats;
+    }
+}
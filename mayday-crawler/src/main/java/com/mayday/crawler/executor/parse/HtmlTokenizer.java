@@ -0,0 +1,443 @@
+package com.mayday.crawler.executor.parse;
+
+import org.jsoup.nodes.Attributes;
+import org.jsoup.parser.Parser;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * 流式 HTML 分词器（SAX 风格）
+ * <p>
+ * 从 {@link Reader} 按块读取，依次回调开始标签、结束标签与文本，不构建树，内存只占读缓冲与当前 token：
+ * 文本按块回调，过长的属性值（如 data: URI）直接丢弃。script/style 等原始文本元素的内容跳过不回调，
+ * title/textarea 的内容作为文本回调。注释、DOCTYPE、处理指令忽略。
+ */
+public final class HtmlTokenizer
+{
+    /**
+     * 分词回调，标签名均为小写，文本与属性值已解码实体
+     */
+    public interface Handler
+    {
+        void startTag(String name, Attributes attributes, boolean selfClosing);
+
+        void endTag(String name);
+
+        void text(String text);
+    }
+
+    private static final int BUFFER_SIZE = 16 * 1024;
+    private static final int TEXT_CHUNK = 8 * 1024;
+    private static final int MAX_NAME = 64;
+    private static final int MAX_ATTR_VALUE = 8 * 1024;
+    private static final int MAX_ATTRS = 64;
+    private static final int MAX_RCDATA = 4 * 1024;
+
+    /**
+     * 内容不回调的原始文本元素
+     */
+    private static final Set<String> RAW_SKIP = Set.of("script", "style", "xmp", "iframe", "noembed", "noframes");
+
+    /**
+     * 内容作为文本回调的元素
+     */
+    private static final Set<String> RCDATA = Set.of("title", "textarea");
+
+    private final Reader reader;
+    private final Handler handler;
+    private final char[] buf = new char[BUFFER_SIZE];
+    private int pos;
+    private int limit;
+    private boolean eof;
+
+    private final StringBuilder text = new StringBuilder();
+
+    public HtmlTokenizer(Reader reader, Handler handler)
+    {
+        this.reader = reader;
+        this.handler = handler;
+    }
+
+    /**
+     * 读缓冲与文本块占用的字符数上限（用于估算内存）
+     */
+    public static int bufferChars()
+    {
+        return BUFFER_SIZE + TEXT_CHUNK + MAX_ATTR_VALUE;
+    }
+
+    /**
+     * 读取到流结束
+     */
+    public void run() throws IOException
+    {
+        if (ensure(1) && buf[pos] == '\uFEFF')
+        {
+            // 跳过 BOM
+            pos++;
+        }
+        while (ensure(1))
+        {
+            char c = buf[pos];
+            if (c != '<')
+            {
+                appendText(c);
+                pos++;
+                continue;
+            }
+            ensure(4);
+            char next = pos + 1 < limit ? buf[pos + 1] : 0;
+            if (isAsciiLetter(next))
+            {
+                flushText();
+                pos++;
+                readStartTag();
+            }
+            else if (next == '/')
+            {
+                flushText();
+                pos += 2;
+                readEndTag();
+            }
+            else if (next == '!')
+            {
+                flushText();
+                if (startsWith("<!--"))
+                {
+                    pos += 4;
+                    skipPast("-->");
+                }
+                else
+                {
+                    skipPast(">");
+                }
+            }
+            else if (next == '?')
+            {
+                flushText();
+                skipPast(">");
+            }
+            else
+            {
+                appendText(c);
+                pos++;
+            }
+        }
+        flushText();
+    }
+
+    private void readStartTag() throws IOException
+    {
+        String name = readName();
+        Attributes attributes = new Attributes();
+        boolean selfClosing = false;
+        while (true)
+        {
+            skipWhitespace();
+            if (!ensure(1))
+            {
+                return;
+            }
+            char c = buf[pos];
+            if (c == '>')
+            {
+                pos++;
+                break;
+            }
+            if (c == '/')
+            {
+                pos++;
+                if (ensure(1) && buf[pos] == '>')
+                {
+                    pos++;
+                    selfClosing = true;
+                    break;
+                }
+                continue;
+            }
+            readAttribute(attributes);
+        }
+        handler.startTag(name, attributes, selfClosing);
+        if (selfClosing)
+        {
+            return;
+        }
+        if (RAW_SKIP.contains(name))
+        {
+            skipRawText(name, null);
+            handler.endTag(name);
+        }
+        else if (RCDATA.contains(name))
+        {
+            StringBuilder content = new StringBuilder();
+            skipRawText(name, content);
+            if (content.length() > 0)
+            {
+                handler.text(Parser.unescapeEntities(content.toString(), false));
+            }
+            handler.endTag(name);
+        }
+        else if ("plaintext".equals(name))
+        {
+            // 其后全部为纯文本，直接丢弃
+            pos = limit;
+            while (ensure(1))
+            {
+                pos = limit;
+            }
+        }
+    }
+
+    private void readEndTag() throws IOException
+    {
+        if (!ensure(1) || !isAsciiLetter(buf[pos]))
+        {
+            // </> 或 </ 后非字母：按注释跳过
+            skipPast(">");
+            return;
+        }
+        String name = readName();
+        skipPast(">");
+        handler.endTag(name);
+    }
+
+    private void readAttribute(Attributes attributes) throws IOException
+    {
+        StringBuilder name = new StringBuilder();
+        while (ensure(1))
+        {
+            char c = buf[pos];
+            if (isWhitespace(c) || c == '>' || c == '=' || (c == '/' && name.length() > 0))
+            {
+                break;
+            }
+            if (name.length() < MAX_NAME)
+            {
+                name.append(Character.toLowerCase(c));
+            }
+            pos++;
+        }
+        if (name.length() == 0)
+        {
+            // 孤立的 '=' 等异常字符
+            pos++;
+            return;
+        }
+        skipWhitespace();
+        String value = "";
+        boolean overflow = false;
+        if (ensure(1) && buf[pos] == '=')
+        {
+            pos++;
+            skipWhitespace();
+            StringBuilder raw = new StringBuilder();
+            if (ensure(1) && (buf[pos] == '"' || buf[pos] == '\''))
+            {
+                char quote = buf[pos++];
+                while (ensure(1) && buf[pos] != quote)
+                {
+                    overflow |= appendBounded(raw, buf[pos++], MAX_ATTR_VALUE);
+                }
+                if (ensure(1))
+                {
+                    pos++;
+                }
+            }
+            else
+            {
+                while (ensure(1) && !isWhitespace(buf[pos]) && buf[pos] != '>')
+                {
+                    overflow |= appendBounded(raw, buf[pos++], MAX_ATTR_VALUE);
+                }
+            }
+            value = Parser.unescapeEntities(raw.toString(), true);
+        }
+        String key = name.toString();
+        // 过长的属性值（内联数据等）整体丢弃；重复属性以首次出现为准
+        if (!overflow && attributes.size() < MAX_ATTRS && !attributes.hasKey(key))
+        {
+            attributes.put(key, value);
+        }
+    }
+
+    private String readName() throws IOException
+    {
+        StringBuilder name = new StringBuilder();
+        while (ensure(1))
+        {
+            char c = buf[pos];
+            if (isWhitespace(c) || c == '>' || c == '/')
+            {
+                break;
+            }
+            if (name.length() < MAX_NAME)
+            {
+                name.append(c);
+            }
+            pos++;
+        }
+        return name.toString().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 跳过原始文本直到匹配的结束标签（含）；content 不为 null 时收集内容（有上限）
+     */
+    private void skipRawText(String name, StringBuilder content) throws IOException
+    {
+        String end = "</" + name;
+        while (ensure(1))
+        {
+            if (buf[pos] == '<' && startsWithIgnoreCase(end))
+            {
+                char after = ensure(end.length() + 1) && pos + end.length() < limit ? buf[pos + end.length()] : '>';
+                if (isWhitespace(after) || after == '>' || after == '/')
+                {
+                    pos += end.length();
+                    skipPast(">");
+                    return;
+                }
+            }
+            if (content != null && content.length() < MAX_RCDATA)
+            {
+                content.append(buf[pos]);
+            }
+            pos++;
+        }
+    }
+
+    private void skipPast(String terminator) throws IOException
+    {
+        while (ensure(terminator.length()))
+        {
+            if (startsWith(terminator))
+            {
+                pos += terminator.length();
+                return;
+            }
+            pos++;
+        }
+        pos = limit;
+    }
+
+    private void skipWhitespace() throws IOException
+    {
+        while (ensure(1) && isWhitespace(buf[pos]))
+        {
+            pos++;
+        }
+    }
+
+    private void appendText(char c)
+    {
+        text.append(c);
+        if (text.length() >= TEXT_CHUNK && c != '&')
+        {
+            // 避免把实体从中间截断
+            int amp = text.lastIndexOf("&");
+            if (amp < 0 || text.length() - amp > 32 || text.indexOf(";", amp) > 0)
+            {
+                flushText();
+            }
+        }
+    }
+
+    private void flushText()
+    {
+        if (text.length() > 0)
+        {
+            handler.text(Parser.unescapeEntities(text.toString(), false));
+            text.setLength(0);
+        }
+    }
+
+    /**
+     * 追加字符，超过上限时返回 true
+     */
+    private static boolean appendBounded(StringBuilder sb, char c, int max)
+    {
+        if (sb.length() >= max)
+        {
+            return true;
+        }
+        sb.append(c);
+        return false;
+    }
+
+    private boolean startsWith(String s) throws IOException
+    {
+        if (!ensure(s.length()))
+        {
+            return false;
+        }
+        for (int i = 0; i < s.length(); i++)
+        {
+            if (buf[pos + i] != s.charAt(i))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean startsWithIgnoreCase(String s) throws IOException
+    {
+        if (!ensure(s.length()))
+        {
+            return false;
+        }
+        for (int i = 0; i < s.length(); i++)
+        {
+            if (Character.toLowerCase(buf[pos + i]) != s.charAt(i))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 确保缓冲中至少有 n 个未读字符（流结束时可能不足），返回是否满足
+     */
+    private boolean ensure(int n) throws IOException
+    {
+        if (limit - pos >= n)
+        {
+            return true;
+        }
+        if (!eof)
+        {
+            if (pos > 0)
+            {
+                System.arraycopy(buf, pos, buf, 0, limit - pos);
+                limit -= pos;
+                pos = 0;
+            }
+            while (limit - pos < n && !eof)
+            {
+                int read = reader.read(buf, limit, buf.length - limit);
+                if (read < 0)
+                {
+                    eof = true;
+                }
+                else
+                {
+                    limit += read;
+                }
+            }
+        }
+        return limit - pos >= n;
+    }
+
+    private static boolean isAsciiLetter(char c)
+    {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isWhitespace(char c)
+    {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f';
+    }
+}
@@ -0,0 +1,274 @@
+package com.mayday.crawler.executor.parse;
+
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.Node;
+import org.jsoup.select.Evaluator;
+import org.jsoup.select.NodeTraversor;
+import org.jsoup.select.NodeVisitor;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Locale;
+
+/**
+ * 单次遍历的页面特征提取器
+ * <p>
+ * 原先页面类型判定、卡片/传统链接提取、正文容器选择各自执行十余次整树 select（含 :contains 文本匹配），
+ * 大页面上重复遍历占据了主要的解析 CPU。这里用一个 {@link NodeVisitor} 在一次先序遍历中完成全部计数与候选收集：
+ * 内置选择器改为直接判断标签/class/属性，任务配置的正文容器选择器（由 {@link ParseRuleSet} 预先编译的 {@link Evaluator}）逐元素匹配；
+ * 子树内的 img 数量通过进入/离开元素时的全局计数差得到。
+ * <p>
+ * 判定语义与原 select 一致（class 与属性值匹配不区分大小写）。
+ */
+public final class PageFeatureExtractor
+{
+    private static final String[] ARTICLE_LINK_HREFS = {"/article/", "/post/", "/news/", "/detail/", ".html"};
+
+    private PageFeatureExtractor()
+    {
+    }
+
+    /**
+     * @param doc             已解析的文档
+     * @param contentSelector 正文容器选择器原文（作为候选结果的标识）
+     * @param contentEval     预先编译的正文容器选择器，为 null 时不收集候选
+     */
+    public static PageFeatures extract(Document doc, String contentSelector, Evaluator contentEval)
+    {
+        PageFeatures features = new PageFeatures();
+        if (contentEval != null)
+        {
+            features.contentSelector = contentSelector;
+        }
+        NodeTraversor.traverse(new Visitor(doc, features, contentEval), doc);
+        return features;
+    }
+
+    /**
+     * 创建特征统计访问器，供 {@link StreamingDocumentBuilder} 在元素开始/结束时直接驱动：
+     * 元素的判定只依赖自身属性与祖先，链接文本在离开链接时读取，因此无需等待整棵树构建完成
+     */
+    static NodeVisitor visitor(Document doc, PageFeatures features, Evaluator contentEval)
+    {
+        return new Visitor(doc, features, contentEval);
+    }
+
+    private static final class Visitor implements NodeVisitor
+    {
+        private final Document doc;
+        private final PageFeatures features;
+        private final Evaluator contentEval;
+
+        /**
+         * 已遍历的 img 元素数
+         */
+        private int imgSeen;
+
+        /**
+         * 当前所在的列表/标题容器层数（.article-list a、article a、h2 a 等的祖先条件）
+         */
+        private int linkContainerDepth;
+
+        /**
+         * 尚未离开的候选元素
+         */
+        private final Deque<Frame> open = new ArrayDeque<>();
+
+        Visitor(Document doc, PageFeatures features, Evaluator contentEval)
+        {
+            this.doc = doc;
+            this.features = features;
+            this.contentEval = contentEval;
+        }
+
+        @Override
+        public void head(Node node, int depth)
+        {
+            if (!(node instanceof Element el) || el == doc)
+            {
+                return;
+            }
+            String tag = el.normalName();
+            boolean isArticle = "article".equals(tag);
+            int imgBefore = imgSeen;
+            if ("img".equals(tag))
+            {
+                imgSeen++;
+            }
+
+            // 详情页特征
+            if (isArticle || el.hasClass("article-content") || el.hasClass("post-content")
+                    || el.hasClass("content-detail") || el.hasClass("entry-content"))
+            {
+                features.articleElementCount++;
+            }
+            if ("h1".equals(tag))
+            {
+                features.h1Count++;
+            }
+            if (!features.articleMeta && (el.hasClass("article-meta") || el.hasClass("post-meta")
+                    || el.hasClass("publish-time") || ("time".equals(tag) && el.hasAttr("datetime"))))
+            {
+                features.articleMeta = true;
+            }
+
+            // 列表页特征
+            if (!features.listContainer && (el.hasClass("article-list") || el.hasClass("post-list")
+                    || el.hasClass("news-list") || el.hasClass("list-item")))
+            {
+                features.listContainer = true;
+            }
+            boolean post = el.hasClass("post");
+            boolean entry = el.hasClass("entry");
+            boolean card = el.hasClass("card");
+            boolean postItem = el.hasClass("post-item");
+            boolean entryItem = el.hasClass("entry-item");
+            if (post || entry || card || postItem || entryItem)
+            {
+                features.cardCount++;
+            }
+            if (!features.pagination && (el.hasClass("pagination") || el.hasClass("page-nav") || el.hasClass("pager")))
+            {
+                features.pagination = true;
+            }
+
+            // 卡片候选（按 PageFeatures.CARD_SELECTORS 顺序）
+            Frame frame = null;
+            if (isArticle || post || entry || card || postItem || entryItem || el.hasClass("article-item"))
+            {
+                String cls = isArticle ? el.className().toLowerCase(Locale.ROOT) : "";
+                boolean[] hits = {
+                    isArticle && post,
+                    isArticle && entry,
+                    isArticle && cls.contains("post"),
+                    isArticle && cls.contains("entry"),
+                    post,
+                    entry,
+                    el.hasClass("article-item"),
+                    card,
+                    postItem,
+                    entryItem
+                };
+                for (int i = 0; i < hits.length; i++)
+                {
+                    if (hits[i])
+                    {
+                        frame = frame != null ? frame : new Frame(el, imgBefore);
+                        features.cards.get(i).add(frame.candidate);
+                    }
+                }
+            }
+            if (contentEval != null && contentEval.matches(doc, el))
+            {
+                frame = frame != null ? frame : new Frame(el, imgBefore);
+                features.contentRoots.add(frame.candidate);
+            }
+            if (frame != null)
+            {
+                open.push(frame);
+            }
+
+            // 祖先条件在判断完自身之后再计入
+            if (isLinkContainer(el, tag, isArticle))
+            {
+                linkContainerDepth++;
+            }
+        }
+
+        @Override
+        public void tail(Node node, int depth)
+        {
+            if (!(node instanceof Element el) || el == doc)
+            {
+                return;
+            }
+            if (isLinkContainer(el, el.normalName(), "article".equals(el.normalName())))
+            {
+                linkContainerDepth--;
+            }
+            // 链接在离开时处理（此时链接文本已完整，流式解析时同样成立）
+            if ("a".equals(el.normalName()))
+            {
+                visitAnchor(el);
+            }
+            Frame top = open.peek();
+            if (top != null && top.candidate.getElement() == el)
+            {
+                open.pop();
+                top.candidate.imgCount = imgSeen - top.imgBefore;
+            }
+        }
+
+        private void visitAnchor(Element a)
+        {
+            boolean hasHref = a.hasAttr("href");
+            if (hasHref)
+            {
+                features.linkCount++;
+            }
+            if (!features.pagination)
+            {
+                if ("next".equalsIgnoreCase(a.attr("rel").trim()))
+                {
+                    features.pagination = true;
+                }
+                else
+                {
+                    String text = a.text().toLowerCase(Locale.ROOT);
+                    if (text.contains("next") || text.contains("下一页"))
+                    {
+                        features.pagination = true;
+                    }
+                }
+            }
+            if (!hasHref)
+            {
+                return;
+            }
+            boolean candidate = linkContainerDepth > 0;
+            if (!candidate)
+            {
+                String href = a.attr("href").toLowerCase(Locale.ROOT);
+                for (String pattern : ARTICLE_LINK_HREFS)
+                {
+                    if (href.contains(pattern))
+                    {
+                        candidate = true;
+                        break;
+                    }
+                }
+            }
+            if (candidate)
+            {
+                String abs = a.attr("abs:href");
+                if (!abs.isEmpty())
+                {
+                    features.candidateLinks.add(abs);
+                }
+            }
+        }
+
+        /**
+         * .article-list, .post-list, .news-list, .list-item, article, .title, h2, h3, h4
+         */
+        private static boolean isLinkContainer(Element el, String tag, boolean isArticle)
+        {
+            return isArticle || "h2".equals(tag) || "h3".equals(tag) || "h4".equals(tag)
+                    || el.hasClass("title") || el.hasClass("article-list") || el.hasClass("post-list")
+                    || el.hasClass("news-list") || el.hasClass("list-item");
+        }
+    }
+
+    private static final class Frame
+    {
+        private final PageFeatures.Candidate candidate;
+        private final int imgBefore;
+
+        Frame(Element element, int imgBefore)
+        {
+            this.candidate = new PageFeatures.Candidate(element);
+            this.imgBefore = imgBefore;
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.mayday.crawler.executor.parse;
+
+import org.jsoup.nodes.Element;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 页面结构特征
+ * <p>
+ * 由 {@link PageFeatureExtractor} 一次遍历 DOM 得到，供页面类型判定、列表页链接提取与正文容器选择共用，
+ * 避免对同一文档反复执行整树 select。
+ */
+public final class PageFeatures
+{
+    /**
+     * 卡片容器选择器（按优先级），与 {@link #getCards(int)} 的下标对应
+     */
+    public static final String[] CARD_SELECTORS = {
+        "article.post",           // WordPress 标准结构
+        "article.entry",          // WordPress 标准结构
+        "article[class*='post']", // 包含 post 的 article
+        "article[class*='entry']",// 包含 entry 的 article
+        ".post",                  // .post 类（需要手动检查是否包含图片）
+        ".entry",                 // .entry 类
+        ".article-item",          // .article-item 类
+        ".card",                  // .card 类
+        ".post-item",             // .post-item 类
+        ".entry-item"             // .entry-item 类
+    };
+
+    /**
+     * 未配置正文容器选择器时详情页的默认正文容器
+     */
+    public static final String DEFAULT_CONTENT_ROOT =
+            "#conttpc, .tpc_content, #content, .content, article, main, .post-content, .article-content";
+
+    // 详情页特征
+    int articleElementCount;
+    int h1Count;
+    boolean articleMeta;
+
+    // 列表页特征
+    int linkCount;
+    boolean listContainer;
+    int cardCount;
+    boolean pagination;
+
+    /**
+     * 各卡片选择器命中的元素（文档顺序）
+     */
+    final List<List<Candidate>> cards = new ArrayList<>(CARD_SELECTORS.length);
+
+    /**
+     * 传统列表布局的候选文章链接（绝对地址，文档顺序去重）
+     */
+    final Set<String> candidateLinks = new LinkedHashSet<>();
+
+    /**
+     * 正文容器候选（命中任务 contentSelector 的元素，文档顺序）
+     */
+    final List<Candidate> contentRoots = new ArrayList<>();
+
+    /**
+     * 提取时使用的正文容器选择器；为 null 表示未预计算
+     */
+    String contentSelector;
+
+    PageFeatures()
+    {
+        for (int i = 0; i < CARD_SELECTORS.length; i++)
+        {
+            cards.add(new ArrayList<>());
+        }
+    }
+
+    /**
+     * 命中的元素及其子树内 img 数量（含自身）
+     */
+    public static final class Candidate
+    {
+        private final Element element;
+        int imgCount;
+
+        Candidate(Element element)
+        {
+            this.element = element;
+        }
+
+        public Element getElement()
+        {
+            return element;
+        }
+
+        public int getImgCount()
+        {
+            return imgCount;
+        }
+    }
+
+    /**
+     * article, .article-content, .post-content, .content-detail, .entry-content
+     */
+    public int getArticleElementCount()
+    {
+        return articleElementCount;
+    }
+
+    public int getH1Count()
+    {
+        return h1Count;
+    }
+
+    /**
+     * .article-meta, .post-meta, .publish-time, time[datetime]
+     */
+    public boolean hasArticleMeta()
+    {
+        return articleMeta;
+    }
+
+    /**
+     * a[href]
+     */
+    public int getLinkCount()
+    {
+        return linkCount;
+    }
+
+    /**
+     * .article-list, .post-list, .news-list, ul.article-list, .list-item
+     */
+    public boolean hasListContainer()
+    {
+        return listContainer;
+    }
+
+    /**
+     * article.post, article.entry, .post, .entry, .card, .post-item, .entry-item
+     */
+    public int getCardCount()
+    {
+        return cardCount;
+    }
+
+    /**
+     * .pagination, .page-nav, .pager, a[rel='next'], a:contains(Next), a:contains(下一页)
+     */
+    public boolean hasPagination()
+    {
+        return pagination;
+    }
+
+    /**
+     * 第 index 个卡片选择器命中、且包含图片的卡片
+     */
+    public List<Element> getCards(int index)
+    {
+        List<Element> result = new ArrayList<>();
+        for (Candidate c : cards.get(index))
+        {
+            if (c.imgCount > 0)
+            {
+                result.add(c.element);
+            }
+        }
+        return result;
+    }
+
+    public Set<String> getCandidateLinks()
+    {
+        return Collections.unmodifiableSet(candidateLinks);
+    }
+
+    /**
+     * 已登记的卡片候选总数（流式解析据此判断刚进入的元素是否成为卡片候选）
+     */
+    int cardCandidateCount()
+    {
+        int count = 0;
+        for (List<Candidate> list : cards)
+        {
+            count += list.size();
+        }
+        return count;
+    }
+
+    /**
+     * 正文容器候选；selector 与提取时不一致时返回 null（调用方需自行查询）
+     */
+    public List<Candidate> getContentRoots(String selector)
+    {
+        if (contentSelector == null || !contentSelector.equals(selector))
+        {
+            return null;
+        }
+        return Collections.unmodifiableList(contentRoots);
+    }
+}
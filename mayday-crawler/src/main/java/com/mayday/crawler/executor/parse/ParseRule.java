@@ -0,0 +1,269 @@
+package com.mayday.crawler.executor.parse;
+
+import org.jsoup.helper.W3CDom;
+import org.jsoup.nodes.Element;
+import org.jsoup.parser.Parser;
+import org.jsoup.select.Evaluator;
+import org.jsoup.select.QueryParser;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 编译后的单条解析规则
+ * <p>
+ * CSS 选择器编译为 {@link Evaluator}，正则编译为 {@link Pattern}，XPath 编译为 {@link XPathExpression}
+ * （非线程安全，按需编译副本放入池中复用）。规则在任务启动时编译一次，之后每个页面只做匹配；
+ * 命中/未命中次数按规则累计，用于评估规则质量。
+ */
+public final class ParseRule
+{
+    // 规则类型
+    public static final String TITLE = "TITLE";
+    public static final String CONTENT = "CONTENT";
+    public static final String AUTHOR = "AUTHOR";
+    public static final String PUBLISH_TIME = "PUBLISH_TIME";
+
+    // 解析方法
+    public static final String CSS_SELECTOR = "CSS_SELECTOR";
+    public static final String XPATH = "XPATH";
+    public static final String REGEX = "REGEX";
+
+    static final Set<String> TYPES = Set.of(TITLE, CONTENT, AUTHOR, PUBLISH_TIME);
+    static final Set<String> METHODS = Set.of(CSS_SELECTOR, XPATH, REGEX);
+
+    private static final Pattern TAG = Pattern.compile("<[^>]+>");
+    private static final Pattern SPACES = Pattern.compile("\\s+");
+
+    private final Long id;
+    private final String type;
+    private final String method;
+    private final String value;
+    private final int priority;
+    private final boolean builtin;
+
+    private final Evaluator css;
+    private final Pattern regex;
+    private final ConcurrentLinkedQueue<XPathExpression> xpaths;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    private ParseRule(Long id, String type, String method, String value, int priority, boolean builtin)
+            throws XPathExpressionException
+    {
+        this.id = id;
+        this.type = type;
+        this.method = method;
+        this.value = value;
+        this.priority = priority;
+        this.builtin = builtin;
+        switch (method)
+        {
+            case CSS_SELECTOR ->
+            {
+                this.css = QueryParser.parse(value);
+                this.regex = null;
+                this.xpaths = null;
+            }
+            case REGEX ->
+            {
+                this.css = null;
+                this.regex = Pattern.compile(value, Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+                this.xpaths = null;
+            }
+            default ->
+            {
+                this.css = null;
+                this.regex = null;
+                this.xpaths = new ConcurrentLinkedQueue<>();
+                this.xpaths.add(compileXpath(value));
+            }
+        }
+    }
+
+    /**
+     * 编译规则
+     *
+     * @throws IllegalArgumentException 类型、方法不支持或规则值无法编译
+     */
+    public static ParseRule compile(Long id, String type, String method, String value, int priority, boolean builtin)
+    {
+        if (type == null || !TYPES.contains(type))
+        {
+            throw new IllegalArgumentException("不支持的规则类型: " + type);
+        }
+        if (method == null || !METHODS.contains(method))
+        {
+            throw new IllegalArgumentException("不支持的解析方法: " + method);
+        }
+        if (value == null || value.isBlank())
+        {
+            throw new IllegalArgumentException("规则值为空");
+        }
+        try
+        {
+            return new ParseRule(id, type, method, value.trim(), priority, builtin);
+        }
+        catch (Exception e)
+        {
+            throw new IllegalArgumentException(method + " 规则无法编译: " + value + " - " + e.getMessage(), e);
+        }
+    }
+
+    private static XPathExpression compileXpath(String value) throws XPathExpressionException
+    {
+        return XPathFactory.newInstance().newXPath().compile(value);
+    }
+
+    /**
+     * 在页面上执行规则，命中（得到非空值）返回规范化后的文本，否则返回 null
+     */
+    String evaluate(ParseRuleSet.ParsedPage page)
+    {
+        String result;
+        try
+        {
+            result = switch (method)
+            {
+                case CSS_SELECTOR -> elementValue(page.document().selectFirst(css));
+                case REGEX -> regexValue(page.html());
+                default -> xpathValue(page);
+            };
+        }
+        catch (Exception e)
+        {
+            result = null;
+        }
+        if (result == null || result.isEmpty())
+        {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return result;
+    }
+
+    private String elementValue(Element element)
+    {
+        if (element == null)
+        {
+            return null;
+        }
+        if (PUBLISH_TIME.equals(type))
+        {
+            // 优先取机器可读的 datetime 属性
+            String datetime = element.attr("datetime").trim();
+            if (!datetime.isEmpty())
+            {
+                return datetime;
+            }
+        }
+        return element.text();
+    }
+
+    private String regexValue(String html)
+    {
+        Matcher m = regex.matcher(html);
+        if (!m.find())
+        {
+            return null;
+        }
+        String raw = m.groupCount() > 0 ? m.group(1) : m.group();
+        if (raw == null)
+        {
+            return null;
+        }
+        String text = Parser.unescapeEntities(TAG.matcher(raw).replaceAll(" "), false);
+        return SPACES.matcher(text).replaceAll(" ").trim();
+    }
+
+    private String xpathValue(ParseRuleSet.ParsedPage page) throws XPathExpressionException
+    {
+        XPathExpression expr = xpaths.poll();
+        if (expr == null)
+        {
+            expr = compileXpath(value);
+        }
+        try
+        {
+            NodeList nodes = (NodeList) expr.evaluate(page.w3cDocument(), XPathConstants.NODESET);
+            for (int i = 0; i < nodes.getLength(); i++)
+            {
+                Node node = nodes.item(i);
+                // 元素节点映射回 jsoup 元素，与 CSS 规则取值方式一致；文本/属性节点直接取值
+                String text = node.getUserData(W3CDom.SourceProperty) instanceof Element el
+                        ? elementValue(el)
+                        : SPACES.matcher(node.getTextContent()).replaceAll(" ").trim();
+                if (text != null && !text.isEmpty())
+                {
+                    return text;
+                }
+            }
+            return null;
+        }
+        finally
+        {
+            xpaths.offer(expr);
+        }
+    }
+
+    /**
+     * 编译后的 CSS 选择器，非 CSS 规则为 null
+     */
+    Evaluator css()
+    {
+        return css;
+    }
+
+    public String getType()
+    {
+        return type;
+    }
+
+    public int getPriority()
+    {
+        return priority;
+    }
+
+    public boolean isBuiltin()
+    {
+        return builtin;
+    }
+
+    public Long getId()
+    {
+        return id;
+    }
+
+    /**
+     * 规则定义与命中统计
+     */
+    public Map<String, Object> snapshot()
+    {
+        long hit = hits.sum();
+        long miss = misses.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("id", id);
+        stats.put("ruleType", type);
+        stats.put("ruleMethod", method);
+        stats.put("ruleValue", value);
+        stats.put("priority", priority);
+        stats.put("builtin", builtin);
+        stats.put("hits", hit);
+        stats.put("misses", miss);
+        stats.put("hitRate", hit + miss > 0 ? Math.round(hit * 10000.0 / (hit + miss)) / 100.0 : 0.0);
+        return stats;
+    }
+}
@@ -0,0 +1,243 @@
+package com.mayday.crawler.executor.parse;
+
+import org.jsoup.helper.W3CDom;
+import org.jsoup.nodes.Document;
+import org.jsoup.select.Evaluator;
+import org.jsoup.select.QueryParser;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 任务级解析规则集
+ * <p>
+ * 由 {@link ParseRuleSetFactory} 在任务启动时构建：crawler_parse_rule 中的任务规则与内置默认规则按类型分组编译，
+ * 任务配置的正文容器、图片、排除选择器也一并编译为 {@link Evaluator}，页面处理时不再重复解析选择器字符串。
+ * <p>
+ * 每种字段的规则按优先级依次执行，第一条得到非空值的规则即为结果（短路，后续规则不计入统计）；
+ * 任务规则全部未命中时才回退到内置规则。线程安全。
+ */
+public final class ParseRuleSet
+{
+    private static final Evaluator DEFAULT_CONTENT_ROOT = QueryParser.parse(PageFeatures.DEFAULT_CONTENT_ROOT);
+
+    private final Map<String, List<ParseRule>> rules;
+    private final List<Map<String, Object>> invalidRules;
+
+    private final String contentSelector;
+    private final Evaluator contentEval;
+    private final String imageSelector;
+    private final Evaluator imageEval;
+    private final String excludeSelector;
+    private final List<Evaluator> excludeEvals;
+    private final List<String> excludeSelectors;
+    private final List<Evaluator> retainEvals;
+
+    private final LongAdder pages = new LongAdder();
+    private final Map<String, LongAdder> fieldMisses = new LinkedHashMap<>();
+
+    ParseRuleSet(Map<String, List<ParseRule>> rules, List<Map<String, Object>> invalidRules,
+                 String contentSelector, Evaluator contentEval,
+                 String imageSelector, Evaluator imageEval,
+                 String excludeSelector, List<String> excludeSelectors, List<Evaluator> excludeEvals)
+    {
+        this.rules = rules;
+        this.invalidRules = invalidRules;
+        this.contentSelector = contentSelector;
+        this.contentEval = contentEval;
+        this.imageSelector = imageSelector;
+        this.imageEval = imageEval;
+        this.excludeSelector = excludeSelector;
+        this.excludeSelectors = excludeSelectors;
+        this.excludeEvals = excludeEvals;
+        List<Evaluator> retain = new ArrayList<>();
+        for (String type : rules.keySet())
+        {
+            fieldMisses.put(type, new LongAdder());
+            for (ParseRule rule : rules.get(type))
+            {
+                if (rule.css() != null)
+                {
+                    retain.add(rule.css());
+                }
+            }
+        }
+        if (contentEval != null)
+        {
+            retain.add(contentEval);
+        }
+        retain.add(DEFAULT_CONTENT_ROOT);
+        this.retainEvals = List.copyOf(retain);
+    }
+
+    /**
+     * 文章字段提取结果，未命中的字段为 null
+     */
+    public record Fields(String title, String content, String author, String publishTime)
+    {
+    }
+
+    /**
+     * 按规则提取详情页的文章字段
+     */
+    public Fields extract(Document doc)
+    {
+        pages.increment();
+        ParsedPage page = new ParsedPage(doc);
+        return new Fields(
+                evaluate(page, ParseRule.TITLE),
+                evaluate(page, ParseRule.CONTENT),
+                evaluate(page, ParseRule.AUTHOR),
+                evaluate(page, ParseRule.PUBLISH_TIME));
+    }
+
+    private String evaluate(ParsedPage page, String type)
+    {
+        List<ParseRule> candidates = rules.get(type);
+        if (candidates == null)
+        {
+            return null;
+        }
+        for (ParseRule rule : candidates)
+        {
+            String value = rule.evaluate(page);
+            if (value != null)
+            {
+                return value;
+            }
+        }
+        fieldMisses.get(type).increment();
+        return null;
+    }
+
+    /**
+     * 任务配置的正文容器选择器（原文），未配置时为 null
+     */
+    public String contentSelector()
+    {
+        return contentSelector;
+    }
+
+    /**
+     * 编译后的正文容器选择器；已配置但无法解析时为 null（此时视为没有任何匹配容器）
+     */
+    public Evaluator contentEval()
+    {
+        return contentEval;
+    }
+
+    /**
+     * 任务配置的图片选择器（不含 img 时已自动补全为后代 img），未配置时为 null
+     */
+    public String imageSelector()
+    {
+        return imageSelector;
+    }
+
+    /**
+     * 编译后的图片选择器；已配置但无法解析时为 null
+     */
+    public Evaluator imageEval()
+    {
+        return imageEval;
+    }
+
+    /**
+     * 任务配置的排除选择器（原文），未配置时为 null
+     */
+    public String excludeSelector()
+    {
+        return excludeSelector;
+    }
+
+    /**
+     * 编译后的排除选择器（已跳过无法解析的部分），与 {@link #excludeSelectors()} 一一对应
+     */
+    public List<Evaluator> excludeEvals()
+    {
+        return excludeEvals;
+    }
+
+    public List<String> excludeSelectors()
+    {
+        return excludeSelectors;
+    }
+
+    /**
+     * 流式解析时命中即整棵子树保留的选择器：各 CSS 规则、正文容器选择器与默认正文容器
+     */
+    List<Evaluator> retainEvals()
+    {
+        return retainEvals;
+    }
+
+    /**
+     * 各规则的命中率与各字段全部规则未命中的页面数
+     */
+    public Map<String, Object> stats()
+    {
+        List<Map<String, Object>> ruleStats = new ArrayList<>();
+        for (List<ParseRule> list : rules.values())
+        {
+            for (ParseRule rule : list)
+            {
+                ruleStats.add(rule.snapshot());
+            }
+        }
+        Map<String, Object> misses = new LinkedHashMap<>();
+        fieldMisses.forEach((type, counter) -> misses.put(type, counter.sum()));
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("pages", pages.sum());
+        stats.put("fieldMisses", misses);
+        stats.put("rules", ruleStats);
+        if (!invalidRules.isEmpty())
+        {
+            stats.put("invalid", Collections.unmodifiableList(invalidRules));
+        }
+        return stats;
+    }
+
+    /**
+     * 单个页面的求值上下文：正则规则所需的 HTML 文本与 XPath 规则所需的 W3C DOM 均按需生成一次，
+     * 同一页面的多条规则共用
+     */
+    static final class ParsedPage
+    {
+        private final Document document;
+        private String html;
+        private org.w3c.dom.Document w3cDocument;
+
+        ParsedPage(Document document)
+        {
+            this.document = document;
+        }
+
+        Document document()
+        {
+            return document;
+        }
+
+        String html()
+        {
+            if (html == null)
+            {
+                html = document.outerHtml();
+            }
+            return html;
+        }
+
+        org.w3c.dom.Document w3cDocument()
+        {
+            if (w3cDocument == null)
+            {
+                w3cDocument = new W3CDom().namespaceAware(false).fromJsoup(document);
+            }
+            return w3cDocument;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.mayday.crawler.executor.parse;
+
+import com.mayday.crawler.modl.entity.CrawlerParseRuleEntity;
+import com.mayday.crawler.modl.entity.CrawlerTaskEntity;
+import com.mayday.crawler.service.ICrawlerParseRuleService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.jsoup.select.Evaluator;
+import org.jsoup.select.QueryParser;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 解析规则集工厂
+ * 加载任务在 crawler_parse_rule 中启用的规则，与内置默认规则合并后为每个任务编译一个独立的规则集
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ParseRuleSetFactory
+{
+    /**
+     * 内置默认规则（原详情页提取逻辑中的固定选择器），排在任务规则之后兜底
+     */
+    private static final String[][] BUILTIN_RULES = {
+        {ParseRule.TITLE, "title"},
+        {ParseRule.TITLE, "h1, h2, .title, .article-title"},
+        {ParseRule.CONTENT, "article, .content, .article-content, .post-content, #content"},
+        {ParseRule.CONTENT, "body"},
+        {ParseRule.AUTHOR, ".author, .writer, .post-author"},
+        {ParseRule.PUBLISH_TIME, "time, .publish-time, .date, .post-date"}
+    };
+
+    private static final Comparator<CrawlerParseRuleEntity> BY_PRIORITY = Comparator
+            .comparing((CrawlerParseRuleEntity r) -> r.getPriority() != null ? r.getPriority() : 0, Comparator.reverseOrder())
+            .thenComparing(r -> r.getId() != null ? r.getId() : Long.MAX_VALUE);
+
+    private final ICrawlerParseRuleService parseRuleService;
+
+    public ParseRuleSet create(CrawlerTaskEntity task)
+    {
+        Map<String, List<ParseRule>> rules = new LinkedHashMap<>();
+        for (String type : List.of(ParseRule.TITLE, ParseRule.CONTENT, ParseRule.AUTHOR, ParseRule.PUBLISH_TIME))
+        {
+            rules.put(type, new ArrayList<>());
+        }
+        List<Map<String, Object>> invalid = new ArrayList<>();
+
+        List<CrawlerParseRuleEntity> taskRules = loadTaskRules(task);
+        taskRules.sort(BY_PRIORITY);
+        for (CrawlerParseRuleEntity entity : taskRules)
+        {
+            try
+            {
+                ParseRule rule = ParseRule.compile(entity.getId(), entity.getRuleType(), entity.getRuleMethod(),
+                        entity.getRuleValue(), entity.getPriority() != null ? entity.getPriority() : 0, false);
+                rules.get(rule.getType()).add(rule);
+            }
+            catch (IllegalArgumentException e)
+            {
+                log.warn("任务 {} 解析规则 {} 已跳过: {}", task.getId(), entity.getId(), e.getMessage());
+                Map<String, Object> item = new LinkedHashMap<>();
+                item.put("id", entity.getId());
+                item.put("ruleType", entity.getRuleType());
+                item.put("ruleMethod", entity.getRuleMethod());
+                item.put("ruleValue", entity.getRuleValue());
+                item.put("error", e.getMessage());
+                invalid.add(item);
+            }
+        }
+        for (String[] builtin : BUILTIN_RULES)
+        {
+            rules.get(builtin[0]).add(ParseRule.compile(null, builtin[0], ParseRule.CSS_SELECTOR, builtin[1], 0, true));
+        }
+
+        String contentSelector = trimToNull(task.getContentSelector());
+        Evaluator contentEval = contentSelector != null ? parseSelector(task, "正文容器", contentSelector) : null;
+
+        String imageSelector = normalizeImageSelector(task.getImageSelector());
+        Evaluator imageEval = imageSelector != null ? parseSelector(task, "图片", imageSelector) : null;
+
+        String excludeSelector = trimToNull(task.getExcludeSelector());
+        List<String> excludeSelectors = new ArrayList<>();
+        List<Evaluator> excludeEvals = new ArrayList<>();
+        if (excludeSelector != null)
+        {
+            // 支持英文逗号、中文逗号、分号分隔多个选择器
+            for (String part : excludeSelector.split("[,，;]+"))
+            {
+                String selector = part.trim();
+                if (selector.isEmpty())
+                {
+                    continue;
+                }
+                Evaluator eval = parseSelector(task, "排除", selector);
+                if (eval != null)
+                {
+                    excludeSelectors.add(selector);
+                    excludeEvals.add(eval);
+                }
+            }
+        }
+
+        return new ParseRuleSet(rules, invalid, contentSelector, contentEval, imageSelector, imageEval,
+                excludeSelector, List.copyOf(excludeSelectors), List.copyOf(excludeEvals));
+    }
+
+    private List<CrawlerParseRuleEntity> loadTaskRules(CrawlerTaskEntity task)
+    {
+        if (task.getId() == null)
+        {
+            return new ArrayList<>();
+        }
+        try
+        {
+            return new ArrayList<>(parseRuleService.listActiveByTask(task.getId()));
+        }
+        catch (Exception e)
+        {
+            log.warn("任务 {} 加载解析规则失败，仅使用内置规则: {}", task.getId(), e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * 图片选择器不包含 img 时自动补全为其后代 img（例如 .entry-content -> .entry-content img）
+     */
+    static String normalizeImageSelector(String imageSelector)
+    {
+        String selector = trimToNull(imageSelector);
+        if (selector == null)
+        {
+            return null;
+        }
+        String lower = selector.toLowerCase();
+        if (!lower.contains("img") && !lower.contains("image"))
+        {
+            selector = selector + " img";
+        }
+        return selector;
+    }
+
+    private static Evaluator parseSelector(CrawlerTaskEntity task, String kind, String selector)
+    {
+        try
+        {
+            return QueryParser.parse(selector);
+        }
+        catch (Exception e)
+        {
+            log.warn("任务 {} {}选择器无法解析: {} - {}", task.getId(), kind, selector, e.getMessage());
+            return null;
+        }
+    }
+
+    private static String trimToNull(String value)
+    {
+        if (value == null)
+        {
+            return null;
+        }
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+}
@@ -0,0 +1,587 @@
+package com.mayday.crawler.executor.parse;
+
+import org.jsoup.internal.StringUtil;
+import org.jsoup.nodes.Attribute;
+import org.jsoup.nodes.Attributes;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.TextNode;
+import org.jsoup.parser.ParseSettings;
+import org.jsoup.parser.Tag;
+import org.jsoup.select.Evaluator;
+import org.jsoup.select.NodeVisitor;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 流式构建裁剪后的文档
+ * <p>
+ * 接收 {@link HtmlTokenizer} 的回调，维护打开元素栈（元素挂在真实的祖先链上，选择器可按祖先判定），
+ * 进入/离开元素时直接驱动 {@link PageFeatureExtractor} 的特征统计。元素离开时决定去留：
+ * <ul>
+ *   <li>正文容器候选、命中解析规则的元素：整棵子树保留（受 maxRetainedBytes 限制）</li>
+ *   <li>卡片候选：元素本身保留，子元素按同样规则取舍（卡片提取只用到其中的链接与图片）</li>
+ *   <li>链接、图片、标题、meta 等小元素：保留（文本有上限）</li>
+ *   <li>其他元素：丢弃自身文本，没有保留下来的子元素时整体移除，否则只作为祖先外壳保留</li>
+ * </ul>
+ * 因此内存只与保留部分和当前打开的祖先链相关，与页面总大小无关。
+ * 树构建只处理常见的隐式结束（p、li、dd/dt、tr、td/th、option、h1-h6、a），不追求与 HTML5 规范完全一致。
+ */
+final class StreamingDocumentBuilder implements HtmlTokenizer.Handler
+{
+    private static final Set<String> VOID_TAGS = Set.of(
+            "area", "base", "br", "col", "embed", "hr", "img", "input", "link", "meta", "param",
+            "source", "track", "wbr", "keygen", "basefont", "bgsound", "frame");
+
+    /**
+     * 可出现在 head 中的元素，其余元素出现时视为进入 body
+     */
+    private static final Set<String> HEAD_TAGS = Set.of("title", "meta", "base", "link", "script", "style");
+
+    /**
+     * 始终保留的小元素（链接提取、图片提取、标题/发布时间规则、翻页识别所需）
+     */
+    private static final Set<String> SMALL_TAGS = Set.of("a", "img", "title", "meta", "link", "base", "time", "h1", "h2", "h3", "h4");
+
+    /**
+     * 子树对提取无用、直接跳过的元素
+     */
+    private static final Set<String> SKIP_TAGS = Set.of("svg", "math", "template", "select", "canvas");
+
+    private static final Set<String> P_CLOSERS = Set.of(
+            "address", "article", "aside", "blockquote", "center", "details", "dialog", "dir", "div", "dl",
+            "fieldset", "figcaption", "figure", "footer", "form", "h1", "h2", "h3", "h4", "h5", "h6", "header",
+            "hgroup", "hr", "li", "main", "menu", "nav", "ol", "p", "pre", "section", "summary", "table", "ul", "dd", "dt");
+    private static final Set<String> HEADINGS = Set.of("h1", "h2", "h3", "h4", "h5", "h6");
+    private static final Set<String> SCOPE = Set.of("applet", "caption", "html", "table", "td", "th", "marquee", "object", "template");
+    private static final Set<String> BUTTON_SCOPE = Set.of("applet", "caption", "html", "table", "td", "th", "marquee", "object", "template", "button");
+    private static final Set<String> LIST_SCOPE = Set.of("applet", "caption", "html", "table", "td", "th", "marquee", "object", "template", "ol", "ul");
+    private static final Set<String> TABLE_SCOPE = Set.of("html", "table", "template");
+
+    private static final int MAX_DEPTH = 256;
+    private static final int MAX_SMALL_TEXT = 512;
+    private static final int NODE_OVERHEAD = 96;
+    private static final int ATTR_OVERHEAD = 32;
+    private static final int TEXT_OVERHEAD = 48;
+
+    private final Document doc;
+    private final Element html;
+    private final Element head;
+    private final Element body;
+    private final PageFeatures features = new PageFeatures();
+    private final NodeVisitor visitor;
+    private final List<Evaluator> retainEvals;
+    private final long maxRetainedBytes;
+
+    private final Deque<Frame> stack = new ArrayDeque<>();
+    private Frame region;
+    private boolean inBody;
+    private String skipName;
+    private int skipDepth;
+
+    private long regionBytes;
+    private long smallBytes;
+    private long openBytes;
+    private long peakBytes;
+    private boolean truncated;
+
+    /**
+     * @param baseUri          页面地址
+     * @param contentSelector  正文容器选择器原文
+     * @param contentEval      编译后的正文容器选择器，可为 null
+     * @param retainEvals      命中即整棵子树保留的选择器
+     * @param maxRetainedBytes 保留部分的估算大小上限，整棵保留的子树与小元素各自计算
+     */
+    StreamingDocumentBuilder(String baseUri, String contentSelector, Evaluator contentEval,
+                             List<Evaluator> retainEvals, long maxRetainedBytes)
+    {
+        this.doc = Document.createShell(baseUri);
+        this.html = doc.child(0);
+        this.head = doc.head();
+        this.body = doc.body();
+        if (contentEval != null)
+        {
+            features.contentSelector = contentSelector;
+        }
+        this.visitor = PageFeatureExtractor.visitor(doc, features, contentEval);
+        this.retainEvals = retainEvals;
+        this.maxRetainedBytes = maxRetainedBytes;
+        visitor.head(html, 0);
+        visitor.head(head, 1);
+    }
+
+    /**
+     * 打开的元素
+     *
+     * @param region     是否为保留子树的根
+     * @param small      保留子树是否为小元素（文本有上限）
+     * @param keep       卡片候选：即使没有保留下来的后代也保留元素本身
+     * @param prevRegion 外层保留子树的根
+     */
+    private static final class Frame
+    {
+        final Element element;
+        final boolean region;
+        final boolean small;
+        final boolean keep;
+        final Frame prevRegion;
+        final long size;
+        int textChars;
+
+        Frame(Element element, boolean region, boolean small, boolean keep, Frame prevRegion, long size)
+        {
+            this.element = element;
+            this.region = region;
+            this.small = small;
+            this.keep = keep;
+            this.prevRegion = prevRegion;
+            this.size = size;
+        }
+    }
+
+    @Override
+    public void startTag(String name, Attributes attributes, boolean selfClosing)
+    {
+        if (skipName != null)
+        {
+            if (name.equals(skipName) && !selfClosing)
+            {
+                skipDepth++;
+            }
+            return;
+        }
+        switch (name)
+        {
+            case "html" ->
+            {
+                mergeAttributes(html, attributes);
+                return;
+            }
+            case "head" ->
+            {
+                return;
+            }
+            case "body" ->
+            {
+                mergeAttributes(body, attributes);
+                enterBody();
+                return;
+            }
+            default ->
+            {
+            }
+        }
+        if (!inBody && !HEAD_TAGS.contains(name))
+        {
+            enterBody();
+        }
+        closeImplied(name);
+        if (stack.size() >= MAX_DEPTH)
+        {
+            return;
+        }
+        if ("base".equals(name) && attributes.hasKey("href"))
+        {
+            String resolved = StringUtil.resolve(doc.baseUri(), attributes.get("href"));
+            if (!resolved.isEmpty())
+            {
+                // createShell 时 html/head/body 各自记录了页面地址，setBaseUri 不会下传，需逐个更新
+                doc.setBaseUri(resolved);
+                html.setBaseUri(resolved);
+                head.setBaseUri(resolved);
+                body.setBaseUri(resolved);
+            }
+        }
+
+        Element el = new Element(Tag.valueOf(name, ParseSettings.htmlDefault), null, attributes);
+        current().appendChild(el);
+        int rootsBefore = features.contentRoots.size();
+        int cardsBefore = features.cardCandidateCount();
+        visitor.head(el, stack.size() + 2);
+        boolean contentRoot = features.contentRoots.size() > rootsBefore;
+        boolean card = features.cardCandidateCount() > cardsBefore;
+
+        boolean startRegion = false;
+        boolean small = false;
+        long size = estimate(el);
+        if (region == null)
+        {
+            if (contentRoot || matchesRetain(el))
+            {
+                startRegion = fits(size, false);
+            }
+            else if (SMALL_TAGS.contains(name))
+            {
+                startRegion = fits(size, true);
+                small = true;
+            }
+        }
+        else if (!fits(size, region.small))
+        {
+            // 保留子树已超出额度：元素不再保留（离开时移除）
+            size = -size;
+        }
+
+        Frame frame = new Frame(el, startRegion, small, card, region, size);
+        if (startRegion)
+        {
+            region = frame;
+        }
+        if (region != null && size > 0)
+        {
+            retain(size, region.small);
+        }
+        else
+        {
+            openBytes += Math.abs(size);
+        }
+        trackPeak();
+
+        if (VOID_TAGS.contains(name) || selfClosing)
+        {
+            close(frame);
+            return;
+        }
+        stack.push(frame);
+        if (SKIP_TAGS.contains(name))
+        {
+            skipName = name;
+            skipDepth = 1;
+        }
+    }
+
+    @Override
+    public void endTag(String name)
+    {
+        if (skipName != null)
+        {
+            if (name.equals(skipName) && --skipDepth == 0)
+            {
+                skipName = null;
+                popUntil(name);
+            }
+            return;
+        }
+        if ("html".equals(name) || "head".equals(name) || "body".equals(name))
+        {
+            return;
+        }
+        popUntil(name);
+    }
+
+    @Override
+    public void text(String text)
+    {
+        if (skipName != null || text.isEmpty())
+        {
+            return;
+        }
+        if (!inBody && stack.isEmpty())
+        {
+            if (StringUtil.isBlank(text))
+            {
+                return;
+            }
+            enterBody();
+        }
+        if (region == null)
+        {
+            // 保留子树之外的文本直接丢弃
+            return;
+        }
+        Frame top = stack.peek();
+        if (top == null || top.size < 0)
+        {
+            return;
+        }
+        String kept = text;
+        if (region.small)
+        {
+            int room = MAX_SMALL_TEXT - region.textChars;
+            if (room <= 0)
+            {
+                return;
+            }
+            kept = text.length() > room ? text.substring(0, room) : text;
+            region.textChars += kept.length();
+        }
+        long size = TEXT_OVERHEAD + 2L * kept.length();
+        if (!fits(size, region.small))
+        {
+            return;
+        }
+        top.element.appendChild(new TextNode(kept));
+        retain(size, region.small);
+    }
+
+    /**
+     * 关闭所有打开的元素并返回结果
+     */
+    Result finish()
+    {
+        if (!inBody)
+        {
+            enterBody();
+        }
+        while (!stack.isEmpty())
+        {
+            close(stack.pop());
+        }
+        visitor.tail(body, 1);
+        visitor.tail(html, 0);
+        return new Result(doc, features, regionBytes + smallBytes, peakBytes, truncated);
+    }
+
+    /**
+     * 构建结果
+     *
+     * @param retainedBytes 最终保留部分的估算大小
+     * @param peakBytes     构建过程中保留部分与打开元素的估算峰值
+     * @param truncated     是否因超出额度丢弃了应保留的内容
+     */
+    record Result(Document document, PageFeatures features, long retainedBytes, long peakBytes, boolean truncated)
+    {
+    }
+
+    private void enterBody()
+    {
+        if (inBody)
+        {
+            return;
+        }
+        while (!stack.isEmpty())
+        {
+            close(stack.pop());
+        }
+        inBody = true;
+        visitor.tail(head, 1);
+        visitor.head(body, 1);
+    }
+
+    private Element current()
+    {
+        Frame top = stack.peek();
+        if (top != null)
+        {
+            return top.element;
+        }
+        return inBody ? body : head;
+    }
+
+    private void popUntil(String name)
+    {
+        boolean found = false;
+        for (Frame frame : stack)
+        {
+            if (frame.element.normalName().equals(name))
+            {
+                found = true;
+                break;
+            }
+        }
+        if (!found)
+        {
+            return;
+        }
+        while (!stack.isEmpty())
+        {
+            Frame frame = stack.pop();
+            close(frame);
+            if (frame.element.normalName().equals(name))
+            {
+                return;
+            }
+        }
+    }
+
+    private void close(Frame frame)
+    {
+        Element el = frame.element;
+        visitor.tail(el, stack.size() + 2);
+        if (frame.region)
+        {
+            region = frame.prevRegion;
+        }
+        boolean retained = frame.size > 0 && (frame.region || region != null);
+        if (retained)
+        {
+            return;
+        }
+        openBytes -= Math.abs(frame.size);
+        if (el.childNodeSize() == 0 && !(frame.keep && fits(Math.abs(frame.size), true)))
+        {
+            el.remove();
+        }
+        else
+        {
+            // 卡片候选或有保留下来的后代：自身作为外壳保留（选择器的祖先条件依赖它）
+            retain(Math.abs(frame.size), true);
+        }
+    }
+
+    /**
+     * 常见的隐式结束：新元素开始时关闭不能包含它的打开元素
+     */
+    private void closeImplied(String name)
+    {
+        if (P_CLOSERS.contains(name) && inScope("p", BUTTON_SCOPE))
+        {
+            popUntil("p");
+        }
+        switch (name)
+        {
+            case "li" ->
+            {
+                if (inScope("li", LIST_SCOPE))
+                {
+                    popUntil("li");
+                }
+            }
+            case "dd", "dt" ->
+            {
+                String open = nearest(Set.of("dd", "dt"), Set.of("dl", "html", "table", "template"));
+                if (open != null)
+                {
+                    popUntil(open);
+                }
+            }
+            case "tr" ->
+            {
+                if (inScope("tr", TABLE_SCOPE))
+                {
+                    popUntil("tr");
+                }
+            }
+            case "td", "th" ->
+            {
+                String open = nearest(Set.of("td", "th"), Set.of("tr", "html", "table", "template"));
+                if (open != null)
+                {
+                    popUntil(open);
+                }
+            }
+            case "option", "optgroup" ->
+            {
+                Frame top = stack.peek();
+                if (top != null && "option".equals(top.element.normalName()))
+                {
+                    stack.pop();
+                    close(top);
+                }
+            }
+            case "a" ->
+            {
+                if (inScope("a", SCOPE))
+                {
+                    popUntil("a");
+                }
+            }
+            default ->
+            {
+                if (HEADINGS.contains(name))
+                {
+                    Frame top = stack.peek();
+                    if (top != null && HEADINGS.contains(top.element.normalName()))
+                    {
+                        stack.pop();
+                        close(top);
+                    }
+                }
+            }
+        }
+    }
+
+    private boolean inScope(String name, Set<String> boundaries)
+    {
+        return nearest(Set.of(name), boundaries) != null;
+    }
+
+    /**
+     * 从栈顶向下查找第一个名称在 names 中的元素，遇到边界元素时停止
+     */
+    private String nearest(Set<String> names, Set<String> boundaries)
+    {
+        Iterator<Frame> it = stack.iterator();
+        while (it.hasNext())
+        {
+            String tag = it.next().element.normalName();
+            if (names.contains(tag))
+            {
+                return tag;
+            }
+            if (boundaries.contains(tag))
+            {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private boolean matchesRetain(Element el)
+    {
+        for (Evaluator eval : retainEvals)
+        {
+            if (eval.matches(doc, el))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 正文等整棵保留的子树与链接、图片、外壳等小元素分别计算额度，避免大量小元素挤占正文
+     */
+    private boolean fits(long size, boolean small)
+    {
+        if ((small ? smallBytes : regionBytes) + size <= maxRetainedBytes)
+        {
+            return true;
+        }
+        truncated = true;
+        return false;
+    }
+
+    private void retain(long size, boolean small)
+    {
+        if (small)
+        {
+            smallBytes += size;
+        }
+        else
+        {
+            regionBytes += size;
+        }
+        trackPeak();
+    }
+
+    private void trackPeak()
+    {
+        peakBytes = Math.max(peakBytes, regionBytes + smallBytes + openBytes);
+    }
+
+    private static void mergeAttributes(Element el, Attributes attributes)
+    {
+        for (Attribute attribute : attributes)
+        {
+            if (!el.hasAttr(attribute.getKey()))
+            {
+                el.attr(attribute.getKey(), attribute.getValue());
+            }
+        }
+    }
+
+    private static long estimate(Element el)
+    {
+        long size = NODE_OVERHEAD + 2L * el.normalName().length();
+        for (Attribute attribute : el.attributes())
+        {
+            size += ATTR_OVERHEAD + 2L * (attribute.getKey().length() + attribute.getValue().length());
+        }
+        return size;
+    }
+}
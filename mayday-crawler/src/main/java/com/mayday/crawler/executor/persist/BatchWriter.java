@@ -0,0 +1,318 @@
+package com.mayday.crawler.executor.persist;
+
+import com.mayday.crawler.executor.pipeline.StageMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * 单类实体的写后批量写入器
+ * <p>
+ * 提交方把实体放入有界队列后立即返回 Future；后台线程按条数或时间攒批，
+ * 调用批量写入函数后完成 Future（批量插入时实体已回填主键）。
+ * 队列满时提交方阻塞，形成对抓取线程的背压。批量写入失败时逐条重试，只让真正失败的实体报错。
+ * <p>
+ * {@link #flush()} 向队列投入屏障并等待其随所在批次写出，因此后台线程已取出、尚在攒批的实体同样会被等待。
+ *
+ * @param <T> 实体类型
+ */
+public class BatchWriter<T>
+{
+    private static final Logger log = LoggerFactory.getLogger(BatchWriter.class);
+    
+    private final String name;
+    private final BlockingQueue<Pending<T>> queue;
+    private final Consumer<Collection<T>> batchWrite;
+    private final Consumer<T> singleWrite;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    // 保证同一时刻只有一个批次在写（后台线程与 flush 调用方互斥）
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final Thread worker;
+    private final StageMetrics metrics;
+    private volatile boolean closed;
+    
+    public BatchWriter(String name, int capacity, int batchSize, long flushIntervalMs,
+                       Consumer<Collection<T>> batchWrite, Consumer<T> singleWrite)
+    {
+        this.name = name;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, capacity));
+        this.batchSize = Math.max(1, batchSize);
+        this.flushIntervalMs = Math.max(1, flushIntervalMs);
+        this.batchWrite = batchWrite;
+        this.singleWrite = singleWrite;
+        this.metrics = new StageMetrics(name, Math.max(1, capacity), 1, queue::size);
+        this.worker = Thread.ofVirtual().name("crawler-persist-" + name).start(this::runLoop);
+    }
+    
+    /**
+     * 提交实体，队列满时阻塞直到有空位
+     */
+    public CompletableFuture<T> submit(T entity)
+    {
+        Pending<T> pending = new Pending<>(entity);
+        if (closed)
+        {
+            writeNow(List.of(pending));
+            return pending.future;
+        }
+        try
+        {
+            if (!queue.offer(pending))
+            {
+                log.debug("持久化队列 {} 已满，等待写入", name);
+                queue.put(pending);
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            // 被中断时退化为同步写入，避免丢数据
+            writeNow(List.of(pending));
+        }
+        return pending.future;
+    }
+    
+    /**
+     * 同步写出调用前已提交的全部实体（含后台线程正在攒批的实体）
+     */
+    public void flush()
+    {
+        if (closed || !worker.isAlive())
+        {
+            drain();
+            return;
+        }
+        Pending<T> barrier = new Pending<>(null);
+        try
+        {
+            queue.put(barrier);
+            barrier.future.get();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            drain();
+        }
+        catch (ExecutionException e)
+        {
+            // 屏障只会正常完成
+        }
+    }
+    
+    /**
+     * 当前排队的实体数
+     */
+    public int backlog()
+    {
+        return queue.size();
+    }
+    
+    /**
+     * 写入指标（队列深度、已写入/失败条数、每秒写入条数）
+     */
+    public StageMetrics metrics()
+    {
+        return metrics;
+    }
+    
+    /**
+     * 停止后台线程并写出剩余实体
+     * <p>
+     * 不中断后台线程（虚拟线程在套接字读写中被中断会关闭连接），而是投入屏障唤醒它，
+     * 等它写完手中的批次退出后，再由调用方写出队列中剩余的实体。
+     */
+    public void close()
+    {
+        closed = true;
+        queue.offer(new Pending<>(null));
+        try
+        {
+            worker.join();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+        drain();
+    }
+    
+    private void runLoop()
+    {
+        while (!closed)
+        {
+            // 批次放在 try 之外：无论以何种方式结束攒批，已取出的实体都会写出
+            List<Pending<T>> batch = new ArrayList<>(batchSize);
+            try
+            {
+                Pending<T> first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null)
+                {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.currentTimeMillis() + flushIntervalMs;
+                // 遇到屏障（flush/close）立即写出，不再等待攒满
+                boolean barrier = first.isBarrier();
+                while (!barrier && !closed && batch.size() < batchSize)
+                {
+                    int from = batch.size();
+                    if (queue.drainTo(batch, batchSize - batch.size()) > 0)
+                    {
+                        barrier = containsBarrier(batch, from);
+                        continue;
+                    }
+                    long wait = deadline - System.currentTimeMillis();
+                    if (wait <= 0)
+                    {
+                        break;
+                    }
+                    Pending<T> next = queue.poll(wait, TimeUnit.MILLISECONDS);
+                    if (next == null)
+                    {
+                        break;
+                    }
+                    batch.add(next);
+                    barrier = next.isBarrier();
+                }
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                log.warn("持久化队列 {} 写入线程被中断，写出当前批次 {} 条后退出", name, batch.size());
+                writeNow(batch);
+                return;
+            }
+            catch (Exception e)
+            {
+                log.error("持久化队列 {} 写入线程异常", name, e);
+            }
+            writeNow(batch);
+        }
+    }
+    
+    /**
+     * 写出队列中当前的全部实体
+     */
+    private void drain()
+    {
+        List<Pending<T>> batch = new ArrayList<>();
+        while (queue.drainTo(batch, batchSize) > 0)
+        {
+            writeNow(batch);
+            batch = new ArrayList<>();
+        }
+    }
+    
+    private static <T> boolean containsBarrier(List<Pending<T>> batch, int from)
+    {
+        for (int i = from; i < batch.size(); i++)
+        {
+            if (batch.get(i).isBarrier())
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * 写出批次并完成各实体的 Future；批次中的屏障在写出后完成
+     */
+    private void writeNow(List<Pending<T>> batch)
+    {
+        if (batch.isEmpty())
+        {
+            return;
+        }
+        List<Pending<T>> barriers = new ArrayList<>();
+        List<Pending<T>> items = new ArrayList<>(batch.size());
+        for (Pending<T> p : batch)
+        {
+            (p.isBarrier() ? barriers : items).add(p);
+        }
+        try
+        {
+            write(items);
+        }
+        finally
+        {
+            barriers.forEach(b -> b.future.complete(null));
+        }
+    }
+    
+    private void write(List<Pending<T>> batch)
+    {
+        if (batch.isEmpty())
+        {
+            return;
+        }
+        writeLock.lock();
+        try
+        {
+            List<T> entities = new ArrayList<>(batch.size());
+            for (Pending<T> p : batch)
+            {
+                entities.add(p.entity);
+            }
+            try
+            {
+                batchWrite.accept(entities);
+                batch.forEach(p -> p.future.complete(p.entity));
+                metrics.onBatch(batch.size(), 0);
+            }
+            catch (Exception batchError)
+            {
+                log.warn("持久化队列 {} 批量写入 {} 条失败，逐条重试: {}", name, batch.size(), batchError.getMessage());
+                int failures = 0;
+                for (Pending<T> p : batch)
+                {
+                    try
+                    {
+                        singleWrite.accept(p.entity);
+                        p.future.complete(p.entity);
+                    }
+                    catch (Exception e)
+                    {
+                        failures++;
+                        p.future.completeExceptionally(e);
+                    }
+                }
+                metrics.onBatch(batch.size(), failures);
+            }
+        }
+        finally
+        {
+            writeLock.unlock();
+        }
+    }
+    
+    /**
+     * 排队的实体；entity 为 null 时是 flush/close 投入的屏障
+     */
+    private static class Pending<T>
+    {
+        final T entity;
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        
+        Pending(T entity)
+        {
+            this.entity = entity;
+        }
+        
+        boolean isBarrier()
+        {
+            return entity == null;
+        }
+    }
+}
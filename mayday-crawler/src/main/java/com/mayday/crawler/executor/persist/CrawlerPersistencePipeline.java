@@ -0,0 +1,127 @@
+package com.mayday.crawler.executor.persist;
+
+import com.mayday.crawler.config.PersistenceConfig;
+import com.mayday.crawler.modl.entity.CrawlerArticleEntity;
+import com.mayday.crawler.modl.entity.CrawlerImageEntity;
+import com.mayday.crawler.service.ICrawlerArticleService;
+import com.mayday.crawler.service.ICrawlerImageService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 爬取结果写后持久化管道
+ * <p>
+ * 文章插入、文章更新、图片插入、图片更新各自一个有界队列，按条数或时间批量写库，
+ * 抓取线程不再逐条同步等待 JDBC。插入返回的 Future 在批次写入后完成，此时实体已回填主键，
+ * 供图片下载阶段使用。任务结束时调用 {@link #flush()} 确保全部落库。
+ */
+@Component
+@RequiredArgsConstructor
+public class CrawlerPersistencePipeline
+{
+    private final ICrawlerArticleService articleService;
+    private final ICrawlerImageService imageService;
+    private final PersistenceConfig persistenceConfig;
+    
+    private BatchWriter<CrawlerArticleEntity> articleInserts;
+    private BatchWriter<CrawlerArticleEntity> articleUpdates;
+    private BatchWriter<CrawlerImageEntity> imageInserts;
+    private BatchWriter<CrawlerImageEntity> imageUpdates;
+    
+    @PostConstruct
+    public void init()
+    {
+        int capacity = persistenceConfig.getQueueCapacity();
+        int batchSize = persistenceConfig.getBatchSize();
+        long interval = persistenceConfig.getFlushIntervalMs();
+        articleInserts = new BatchWriter<>("article-insert", capacity, batchSize, interval,
+                batch -> articleService.saveBatch(batch, batchSize), articleService::save);
+        articleUpdates = new BatchWriter<>("article-update", capacity, batchSize, interval,
+                batch -> articleService.updateBatch(batch, batchSize), articleService::updateById);
+        imageInserts = new BatchWriter<>("image-insert", capacity, batchSize, interval,
+                batch -> imageService.saveBatch(batch, batchSize), imageService::save);
+        imageUpdates = new BatchWriter<>("image-update", capacity, batchSize, interval,
+                batch -> imageService.updateBatch(batch, batchSize), imageService::updateById);
+    }
+    
+    /**
+     * 异步插入文章，Future 完成时文章已回填主键
+     */
+    public CompletableFuture<CrawlerArticleEntity> saveArticle(CrawlerArticleEntity article)
+    {
+        return articleInserts.submit(article);
+    }
+    
+    /**
+     * 异步按主键更新文章（增量爬取：内容变化或条件请求校验值变化），空字段不更新
+     */
+    public void updateArticle(CrawlerArticleEntity article)
+    {
+        articleUpdates.submit(article);
+    }
+    
+    /**
+     * 异步插入图片，Future 完成时图片已回填主键
+     */
+    public CompletableFuture<CrawlerImageEntity> saveImage(CrawlerImageEntity image)
+    {
+        return imageInserts.submit(image);
+    }
+    
+    /**
+     * 异步按主键更新图片（下载状态、文件信息等）
+     */
+    public void updateImage(CrawlerImageEntity image)
+    {
+        imageUpdates.submit(image);
+    }
+    
+    /**
+     * 同步写出所有队列（插入先于更新）
+     */
+    public void flush()
+    {
+        articleInserts.flush();
+        articleUpdates.flush();
+        imageInserts.flush();
+        imageUpdates.flush();
+    }
+    
+    /**
+     * 同步写出图片队列（插入先于更新），删除图片文件前据此确认队列中没有仍引用该文件的记录
+     */
+    public void flushImages()
+    {
+        imageInserts.flush();
+        imageUpdates.flush();
+    }
+    
+    /**
+     * 各写入队列的深度与写入吞吐量（流水线持久化阶段，全局共享）
+     */
+    public List<Map<String, Object>> stats()
+    {
+        List<Map<String, Object>> stats = new ArrayList<>(4);
+        for (BatchWriter<?> writer : List.of(articleInserts, articleUpdates, imageInserts, imageUpdates))
+        {
+            stats.add(writer.metrics().snapshot());
+        }
+        return stats;
+    }
+    
+    @PreDestroy
+    public void shutdown()
+    {
+        articleInserts.close();
+        articleUpdates.close();
+        imageInserts.close();
+        imageUpdates.close();
+    }
+}
@@ -0,0 +1,154 @@
+package com.mayday.crawler.executor.pipeline;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * 流水线阶段：有界队列 + 固定数量的虚拟线程消费者
+ * <p>
+ * 队列满时 {@link #submit(Object)} 阻塞，背压传回上游阶段；关闭后不再接收新项，
+ * 已入队的项处理完后消费者退出。处理函数返回 false 或抛出异常均计为失败，异常不会终止消费者。
+ *
+ * @param <T> 阶段处理项类型
+ */
+public class PipelineStage<T>
+{
+    private static final Logger log = LoggerFactory.getLogger(PipelineStage.class);
+    private static final long POLL_MS = 200;
+
+    private final String name;
+    private final BlockingQueue<T> queue;
+    private final Predicate<T> handler;
+    private final StageMetrics metrics;
+    private final List<Thread> workers;
+    private volatile boolean closed;
+
+    /**
+     * @param name     阶段名（线程名前缀）
+     * @param capacity 队列容量
+     * @param workers  消费者数量
+     * @param handler  处理函数，返回是否成功
+     */
+    public PipelineStage(String name, int capacity, int workers, Predicate<T> handler)
+    {
+        this.name = name;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, capacity));
+        this.handler = handler;
+        int count = Math.max(1, workers);
+        this.metrics = new StageMetrics(name, Math.max(1, capacity), count, queue::size);
+        this.workers = new ArrayList<>(count);
+        for (int i = 0; i < count; i++)
+        {
+            this.workers.add(Thread.ofVirtual().name("crawler-" + name + "-" + i).start(this::runLoop));
+        }
+    }
+
+    /**
+     * 提交一项，队列满时阻塞直到有空位
+     *
+     * @return 阶段已关闭或等待时被中断时返回 false，调用方需自行处理该项
+     */
+    public boolean submit(T item)
+    {
+        try
+        {
+            while (!closed)
+            {
+                if (queue.offer(item, POLL_MS, TimeUnit.MILLISECONDS))
+                {
+                    return true;
+                }
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+        return false;
+    }
+
+    /**
+     * 停止接收新项；已入队的项仍会被处理
+     */
+    public void close()
+    {
+        closed = true;
+    }
+
+    /**
+     * 关闭并等待已入队的项处理完毕
+     *
+     * @return 是否在超时前全部处理完
+     */
+    public boolean closeAndAwait(long timeout, TimeUnit unit)
+    {
+        close();
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        try
+        {
+            for (Thread worker : workers)
+            {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0 || !worker.join(Duration.ofNanos(remaining)))
+                {
+                    log.warn("流水线阶段 {} 关闭超时，剩余 {} 项未处理", name, queue.size());
+                    workers.forEach(Thread::interrupt);
+                    return false;
+                }
+            }
+            return true;
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    public StageMetrics metrics()
+    {
+        return metrics;
+    }
+
+    private void runLoop()
+    {
+        while (!closed || !queue.isEmpty())
+        {
+            T item;
+            try
+            {
+                item = queue.poll(POLL_MS, TimeUnit.MILLISECONDS);
+            }
+            catch (InterruptedException e)
+            {
+                break;
+            }
+            if (item == null)
+            {
+                continue;
+            }
+            metrics.onStart();
+            boolean success = false;
+            try
+            {
+                success = handler.test(item);
+            }
+            catch (Exception e)
+            {
+                log.error("流水线阶段 {} 处理异常", name, e);
+            }
+            finally
+            {
+                metrics.onFinish(success);
+            }
+        }
+    }
+}
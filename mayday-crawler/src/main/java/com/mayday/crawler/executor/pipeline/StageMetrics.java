@@ -0,0 +1,116 @@
+package com.mayday.crawler.executor.pipeline;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+/**
+ * 流水线阶段的运行指标：队列深度、处理中数量、累计处理/失败数与吞吐量
+ * <p>
+ * 吞吐量按两次采样之间的处理数计算，采样间隔不足 1 秒时沿用上次结果。线程安全。
+ */
+public class StageMetrics
+{
+    private static final long SAMPLE_INTERVAL_MS = 1000;
+
+    private final String name;
+    private final int capacity;
+    private final int workers;
+    private final IntSupplier queueDepth;
+    private final LongAdder processed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final AtomicInteger active = new AtomicInteger();
+
+    private long sampledAt = System.currentTimeMillis();
+    private long sampledProcessed;
+    private double throughput;
+
+    /**
+     * @param name       阶段名
+     * @param capacity   队列容量，无界或不适用时为 -1
+     * @param workers    并发数
+     * @param queueDepth 当前排队数
+     */
+    public StageMetrics(String name, int capacity, int workers, IntSupplier queueDepth)
+    {
+        this.name = name;
+        this.capacity = capacity;
+        this.workers = workers;
+        this.queueDepth = queueDepth;
+    }
+
+    public void onStart()
+    {
+        active.incrementAndGet();
+    }
+
+    /**
+     * 记录一项处理结束
+     */
+    public void onFinish(boolean success)
+    {
+        active.decrementAndGet();
+        processed.increment();
+        if (!success)
+        {
+            failed.increment();
+        }
+    }
+
+    /**
+     * 记录一批处理结果（批量写入等不逐项调用 {@link #onStart()} 的阶段）
+     */
+    public void onBatch(int count, int failedCount)
+    {
+        processed.add(count);
+        failed.add(failedCount);
+    }
+
+    public int active()
+    {
+        return active.get();
+    }
+
+    public long processed()
+    {
+        return processed.sum();
+    }
+
+    public long failed()
+    {
+        return failed.sum();
+    }
+
+    /**
+     * 每秒处理数（最近一个采样间隔）
+     */
+    public synchronized double throughput()
+    {
+        long now = System.currentTimeMillis();
+        long elapsed = now - sampledAt;
+        if (elapsed >= SAMPLE_INTERVAL_MS)
+        {
+            long total = processed.sum();
+            throughput = (total - sampledProcessed) * 1000.0 / elapsed;
+            sampledProcessed = total;
+            sampledAt = now;
+        }
+        return throughput;
+    }
+
+    public Map<String, Object> snapshot()
+    {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("stage", name);
+        stats.put("queued", queueDepth.getAsInt());
+        stats.put("capacity", capacity);
+        stats.put("workers", workers);
+        stats.put("active", active.get());
+        stats.put("processed", processed.sum());
+        stats.put("failed", failed.sum());
+        stats.put("throughputPerSec", Math.round(throughput() * 100.0) / 100.0);
+        return stats;
+    }
+}
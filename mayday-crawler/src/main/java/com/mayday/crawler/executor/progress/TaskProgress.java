@@ -0,0 +1,68 @@
+package com.mayday.crawler.executor.progress;
+
+import lombok.Getter;
+
+import java.util.Date;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个运行中任务的进度计数器
+ * 抓取线程只做无竞争的累加，由 {@link TaskProgressAggregator} 定时汇总落库与推送
+ */
+@Getter
+public class TaskProgress
+{
+    private final Long taskId;
+    private final String taskName;
+    private final Date startTime;
+    
+    private final LongAdder totalUrls = new LongAdder();
+    private final LongAdder crawledUrls = new LongAdder();
+    private final LongAdder successCount = new LongAdder();
+    private final LongAdder errorCount = new LongAdder();
+    
+    /**
+     * 分布式任务的集群汇总计数（由发起节点从 Redis 读取），为空表示单机任务
+     */
+    private volatile long[] clusterTotals;
+    
+    public TaskProgress(Long taskId, String taskName, Date startTime)
+    {
+        this.taskId = taskId;
+        this.taskName = taskName;
+        this.startTime = startTime;
+    }
+    
+    /**
+     * 恢复执行时沿用上次的统计
+     */
+    public void restore(int total, int crawled, int success, int error)
+    {
+        totalUrls.add(total);
+        crawledUrls.add(crawled);
+        successCount.add(success);
+        errorCount.add(error);
+    }
+    
+    /**
+     * 落库与推送使用的计数快照：分布式任务为集群汇总，否则为本节点计数
+     */
+    long[] snapshot()
+    {
+        long[] totals = clusterTotals;
+        return totals != null ? totals.clone() : localSnapshot();
+    }
+    
+    /**
+     * 本节点计数快照：总URL数、已爬取、成功、失败
+     */
+    public long[] localSnapshot()
+    {
+        return new long[] {totalUrls.sum(), crawledUrls.sum(), successCount.sum(), errorCount.sum()};
+    }
+    
+    public void setClusterTotals(long[] clusterTotals)
+    {
+        this.clusterTotals = clusterTotals;
+    }
+}
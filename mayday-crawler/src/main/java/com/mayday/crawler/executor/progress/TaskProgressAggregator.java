@@ -0,0 +1,173 @@
+package com.mayday.crawler.executor.progress;
+
+import com.mayday.common.sse.SsePublisher;
+import com.mayday.crawler.modl.entity.CrawlerTaskEntity;
+import com.mayday.crawler.service.ICrawlerTaskService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 任务进度汇总器
+ * <p>
+ * 单个调度线程按固定节奏（默认500ms）遍历运行中任务：计数有变化时只更新
+ * crawler_task 的计数列，并推送一次合并后的 task.progress 事件。
+ * 数据库写入量与抓取速度无关，只与运行中任务数和刷新节奏相关。
+ */
+@Component
+public class TaskProgressAggregator
+{
+    private static final Logger log = LoggerFactory.getLogger(TaskProgressAggregator.class);
+    
+    private static final String SSE_TOPIC_TASK_STATUS = "crawler-task-status";
+    
+    private final ICrawlerTaskService taskService;
+    private final SsePublisher ssePublisher;
+    
+    @Value("${crawler.progress.flush-interval-ms:500}")
+    private long flushIntervalMs;
+    
+    private final Map<Long, TaskProgress> running = new ConcurrentHashMap<>();
+    // 每个任务上次落库的计数快照
+    private final Map<Long, long[]> lastFlushed = new ConcurrentHashMap<>();
+    private ScheduledExecutorService scheduler;
+    
+    public TaskProgressAggregator(@Lazy ICrawlerTaskService taskService, SsePublisher ssePublisher)
+    {
+        this.taskService = taskService;
+        this.ssePublisher = ssePublisher;
+    }
+    
+    @PostConstruct
+    public void init()
+    {
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "crawler-progress-flusher");
+            t.setDaemon(true);
+            return t;
+        });
+        long interval = Math.max(100, flushIntervalMs);
+        scheduler.scheduleWithFixedDelay(this::flushAll, interval, interval, TimeUnit.MILLISECONDS);
+    }
+    
+    @PreDestroy
+    public void shutdown()
+    {
+        scheduler.shutdown();
+        flushAll();
+    }
+    
+    /**
+     * 任务开始运行时登记进度计数器
+     */
+    public TaskProgress register(CrawlerTaskEntity task)
+    {
+        TaskProgress progress = new TaskProgress(task.getId(), task.getTaskName(), task.getStartTime());
+        running.put(task.getId(), progress);
+        lastFlushed.remove(task.getId());
+        return progress;
+    }
+    
+    /**
+     * 任务结束：立即刷新一次并移除
+     */
+    public void unregister(Long taskId)
+    {
+        flush(taskId);
+        running.remove(taskId);
+        lastFlushed.remove(taskId);
+    }
+    
+    /**
+     * 立即刷新指定任务的进度（任务结束前写入最终计数）
+     */
+    public void flush(Long taskId)
+    {
+        TaskProgress progress = running.get(taskId);
+        if (progress != null)
+        {
+            flushOne(progress);
+        }
+    }
+    
+    private void flushAll()
+    {
+        for (TaskProgress progress : running.values())
+        {
+            try
+            {
+                flushOne(progress);
+            }
+            catch (Exception e)
+            {
+                log.error("刷新任务进度失败: {}", progress.getTaskId(), e);
+            }
+        }
+    }
+    
+    private synchronized void flushOne(TaskProgress progress)
+    {
+        long[] snapshot = progress.snapshot();
+        long[] previous = lastFlushed.get(progress.getTaskId());
+        if (previous != null && Arrays.equals(previous, snapshot))
+        {
+            return;
+        }
+        
+        // 只更新计数列（空字段不参与 UPDATE）
+        CrawlerTaskEntity update = new CrawlerTaskEntity();
+        update.setId(progress.getTaskId());
+        update.setTotalUrls((int) snapshot[0]);
+        update.setCrawledUrls((int) snapshot[1]);
+        update.setSuccessCount((int) snapshot[2]);
+        update.setErrorCount((int) snapshot[3]);
+        taskService.updateById(update);
+        lastFlushed.put(progress.getTaskId(), snapshot);
+        
+        publishProgress(progress, snapshot);
+    }
+    
+    private void publishProgress(TaskProgress progress, long[] snapshot)
+    {
+        try
+        {
+            Map<String, Object> data = new HashMap<>();
+            data.put("id", progress.getTaskId());
+            data.put("taskName", progress.getTaskName());
+            data.put("status", "RUNNING");
+            data.put("totalUrls", snapshot[0]);
+            data.put("crawledUrls", snapshot[1]);
+            data.put("successCount", snapshot[2]);
+            data.put("errorCount", snapshot[3]);
+            data.put("startTime", progress.getStartTime());
+            data.put("endTime", null);
+            data.put("errorMsg", null);
+            if (snapshot[0] > 0)
+            {
+                double percent = (double) snapshot[1] / snapshot[0] * 100;
+                data.put("progress", Math.round(percent * 100.0) / 100.0);
+            }
+            else
+            {
+                data.put("progress", 0.0);
+            }
+            ssePublisher.publish(SSE_TOPIC_TASK_STATUS, "task.progress", data);
+        }
+        catch (Exception e)
+        {
+            log.debug("SSE推送任务进度失败: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.mayday.crawler.executor.proxy;
+
+import com.mayday.crawler.executor.fetch.FetchProxy;
+
+/**
+ * 代理地址与凭据
+ *
+ * @param type     HTTP / SOCKS
+ * @param host     代理主机
+ * @param port     代理端口
+ * @param username 认证用户名，可为空
+ * @param password 认证密码，可为空
+ */
+public record ProxyEndpoint(String type, String host, int port, String username, String password)
+{
+    public boolean isSocks()
+    {
+        return "SOCKS".equalsIgnoreCase(type);
+    }
+    
+    public boolean hasCredentials()
+    {
+        return username != null && !username.isEmpty();
+    }
+    
+    /**
+     * 健康统计与凭据登记的键（同一地址的代理共享健康状态）
+     */
+    public String address()
+    {
+        return host + ":" + port;
+    }
+    
+    /**
+     * 走共享 HttpClient 时的 HTTP 代理参数
+     */
+    public FetchProxy toFetchProxy()
+    {
+        return new FetchProxy(host, port, username, password);
+    }
+}
@@ -0,0 +1,86 @@
+package com.mayday.crawler.executor.proxy;
+
+/**
+ * 单个代理的健康状态
+ * <p>
+ * 成功率与延迟均为指数滑动平均；连续失败达到阈值后隔离一段时间，隔离期满可再次被选中（半开），
+ * 再次失败时隔离时长翻倍，成功一次即恢复。
+ */
+public class ProxyHealth
+{
+    private double successRate = 1.0;
+    private double latencyMs = -1;
+    private int consecutiveFailures;
+    private int quarantineLevel;
+    private long quarantineUntil;
+    private long successCount;
+    private long failureCount;
+    
+    synchronized void onSuccess(long elapsedMs, double alpha)
+    {
+        successRate = successRate * (1 - alpha) + alpha;
+        latencyMs = latencyMs < 0 ? elapsedMs : latencyMs * (1 - alpha) + elapsedMs * alpha;
+        consecutiveFailures = 0;
+        quarantineLevel = 0;
+        quarantineUntil = 0;
+        successCount++;
+    }
+    
+    /**
+     * @return 本次失败是否触发隔离
+     */
+    synchronized boolean onFailure(double alpha, int threshold, long baseQuarantineMs, long maxQuarantineMs, long now)
+    {
+        successRate = successRate * (1 - alpha);
+        consecutiveFailures++;
+        failureCount++;
+        if (consecutiveFailures < threshold)
+        {
+            return false;
+        }
+        long duration = Math.min(maxQuarantineMs, baseQuarantineMs << Math.min(quarantineLevel, 16));
+        quarantineUntil = now + duration;
+        quarantineLevel++;
+        consecutiveFailures = 0;
+        return true;
+    }
+    
+    synchronized boolean isQuarantined(long now)
+    {
+        return quarantineUntil > now;
+    }
+    
+    synchronized long getQuarantineUntil()
+    {
+        return quarantineUntil;
+    }
+    
+    /**
+     * 选择权重：成功率的平方除以延迟（延迟未知时按 1 秒计），保证最低权重避免饿死
+     */
+    synchronized double weight()
+    {
+        double latency = latencyMs < 0 ? 1000 : Math.max(latencyMs, 50);
+        return Math.max(successRate * successRate, 0.01) * 1000 / latency;
+    }
+    
+    public synchronized double getSuccessRate()
+    {
+        return successRate;
+    }
+    
+    public synchronized double getLatencyMs()
+    {
+        return latencyMs;
+    }
+    
+    public synchronized long getSuccessCount()
+    {
+        return successCount;
+    }
+    
+    public synchronized long getFailureCount()
+    {
+        return failureCount;
+    }
+}
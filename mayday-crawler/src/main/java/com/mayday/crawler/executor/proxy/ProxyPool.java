@@ -0,0 +1,353 @@
+package com.mayday.crawler.executor.proxy;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mayday.crawler.config.ProxyPoolConfig;
+import com.mayday.crawler.executor.fetch.CrawlerHttpClientPool;
+import com.mayday.crawler.modl.entity.CrawlerTaskEntity;
+import com.mayday.crawler.service.ICrawlerProxyService;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import java.net.Authenticator;
+import java.net.PasswordAuthentication;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 爬虫代理池
+ * <p>
+ * 代理列表在内存中保存快照：任务级 proxyList 按任务解析一次（内容变化时重新解析），全局代理从库中加载后缓存，
+ * 代理配置增删改时立即失效，另有 crawler.proxy-pool.refresh-seconds 兜底刷新。
+ * 每个代理地址记录成功率与延迟（指数滑动平均），连续失败达到阈值即隔离一段时间；选择时按健康度加权随机。
+ * <p>
+ * SOCKS 代理认证只能经由全局 {@link Authenticator}（HttpURLConnection 不支持按连接设置），
+ * 这里只安装一次路由认证器，按被请求的代理地址返回对应凭据，不再在每次请求时替换全局认证器。
+ * HTTP 代理的认证挂在共享 HttpClient 各自的实例上，不经过这里。
+ */
+@Slf4j
+@Component
+public class ProxyPool
+{
+    public static final String SOURCE_TASK = "TASK";
+    public static final String SOURCE_GLOBAL = "GLOBAL";
+    public static final String SOURCE_NONE = "NONE";
+
+    private final ICrawlerProxyService proxyService;
+    private final ProxyPoolConfig config;
+    private final CrawlerHttpClientPool clientPool;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private volatile List<ProxyEndpoint> globalSnapshot;
+    private volatile long globalLoadedAt;
+    private final Object globalLock = new Object();
+
+    private final Map<Long, TaskSnapshot> taskSnapshots = new ConcurrentHashMap<>();
+    private final Map<String, ProxyHealth> health = new ConcurrentHashMap<>();
+    private final Map<String, PasswordAuthentication> credentials = new ConcurrentHashMap<>();
+
+    public ProxyPool(@Lazy ICrawlerProxyService proxyService, ProxyPoolConfig config, CrawlerHttpClientPool clientPool)
+    {
+        this.proxyService = proxyService;
+        this.config = config;
+        this.clientPool = clientPool;
+    }
+
+    /**
+     * 生效的代理列表
+     *
+     * @param source  TASK / GLOBAL / NONE
+     * @param proxies 代理列表（不可变）
+     */
+    public record ProxyList(String source, List<ProxyEndpoint> proxies)
+    {
+        public boolean isEmpty()
+        {
+            return proxies.isEmpty();
+        }
+    }
+
+    private record TaskSnapshot(String raw, ProxyList list)
+    {
+    }
+
+    @PostConstruct
+    public void installAuthenticator()
+    {
+        Authenticator.setDefault(new RoutingAuthenticator(Authenticator.getDefault()));
+    }
+
+    /**
+     * 获取任务生效的代理列表（任务优先，其次全局）
+     */
+    public ProxyList resolve(CrawlerTaskEntity task)
+    {
+        if (task.getUseProxy() == null || task.getUseProxy() != 1)
+        {
+            return new ProxyList(SOURCE_NONE, Collections.emptyList());
+        }
+        String raw = task.getProxyList();
+        if (raw == null || raw.trim().isEmpty() || "[]".equals(raw.trim()))
+        {
+            return new ProxyList(SOURCE_GLOBAL, globalProxies());
+        }
+        if (task.getId() == null)
+        {
+            return parseTaskProxies(raw);
+        }
+        TaskSnapshot snapshot = taskSnapshots.get(task.getId());
+        if (snapshot == null || !snapshot.raw().equals(raw))
+        {
+            snapshot = new TaskSnapshot(raw, parseTaskProxies(raw));
+            taskSnapshots.put(task.getId(), snapshot);
+        }
+        // 任务代理列表为空或解析失败时回退到全局代理（全局快照可能已刷新，不缓存回退结果）
+        return snapshot.list() != null ? snapshot.list() : new ProxyList(SOURCE_GLOBAL, globalProxies());
+    }
+
+    /**
+     * 按健康度加权随机选择一个代理；全部处于隔离期时选最早解除隔离的，避免任务停摆
+     */
+    public ProxyEndpoint select(ProxyList list)
+    {
+        List<ProxyEndpoint> proxies = list.proxies();
+        if (proxies.isEmpty())
+        {
+            return null;
+        }
+        if (proxies.size() == 1)
+        {
+            return proxies.get(0);
+        }
+        long now = System.currentTimeMillis();
+        double[] weights = new double[proxies.size()];
+        double total = 0;
+        ProxyEndpoint soonest = null;
+        long soonestUntil = Long.MAX_VALUE;
+        for (int i = 0; i < proxies.size(); i++)
+        {
+            ProxyEndpoint p = proxies.get(i);
+            ProxyHealth h = health(p);
+            if (h.isQuarantined(now))
+            {
+                if (h.getQuarantineUntil() < soonestUntil)
+                {
+                    soonestUntil = h.getQuarantineUntil();
+                    soonest = p;
+                }
+                continue;
+            }
+            weights[i] = h.weight();
+            total += weights[i];
+        }
+        if (total <= 0)
+        {
+            return soonest;
+        }
+        double r = ThreadLocalRandom.current().nextDouble(total);
+        for (int i = 0; i < weights.length; i++)
+        {
+            r -= weights[i];
+            if (weights[i] > 0 && r < 0)
+            {
+                return proxies.get(i);
+            }
+        }
+        return proxies.get(proxies.size() - 1);
+    }
+
+    /**
+     * 记录一次经由代理拿到响应的请求
+     */
+    public void recordSuccess(ProxyEndpoint proxy, long elapsedMs)
+    {
+        if (proxy != null)
+        {
+            health(proxy).onSuccess(elapsedMs, config.getEwmaAlpha());
+        }
+    }
+
+    /**
+     * 记录一次代理连接失败（超时、拒绝连接、握手失败、407 等）
+     */
+    public void recordFailure(ProxyEndpoint proxy)
+    {
+        if (proxy == null)
+        {
+            return;
+        }
+        boolean quarantined = health(proxy).onFailure(config.getEwmaAlpha(),
+                Math.max(config.getFailureThreshold(), 1),
+                config.getQuarantineSeconds() * 1000L,
+                config.getMaxQuarantineSeconds() * 1000L,
+                System.currentTimeMillis());
+        if (quarantined)
+        {
+            log.warn("代理 {} 连续失败，暂时隔离", proxy.address());
+        }
+    }
+
+    /**
+     * 全局代理配置变更后调用，下次使用时重新加载；同时移除按代理缓存的 HTTP 客户端，
+     * 已删除或修改了地址/账号的代理不再占用连接池
+     */
+    public void invalidate()
+    {
+        globalSnapshot = null;
+        clientPool.evictProxies();
+    }
+
+    /**
+     * 任务结束时释放任务级快照
+     */
+    public void releaseTask(Long taskId)
+    {
+        if (taskId != null)
+        {
+            taskSnapshots.remove(taskId);
+        }
+    }
+
+    /**
+     * 各代理地址的健康状态（只读视图，用于监控）
+     */
+    public Map<String, ProxyHealth> healthView()
+    {
+        return Collections.unmodifiableMap(health);
+    }
+
+    private ProxyHealth health(ProxyEndpoint proxy)
+    {
+        return health.computeIfAbsent(proxy.address(), k -> new ProxyHealth());
+    }
+
+    private List<ProxyEndpoint> globalProxies()
+    {
+        List<ProxyEndpoint> snapshot = globalSnapshot;
+        long maxAge = Math.max(config.getRefreshSeconds(), 1) * 1000L;
+        if (snapshot != null && System.currentTimeMillis() - globalLoadedAt < maxAge)
+        {
+            return snapshot;
+        }
+        synchronized (globalLock)
+        {
+            snapshot = globalSnapshot;
+            if (snapshot != null && System.currentTimeMillis() - globalLoadedAt < maxAge)
+            {
+                return snapshot;
+            }
+            try
+            {
+                snapshot = proxyService.listEnabled().stream()
+                        .filter(p -> p.getHost() != null && !p.getHost().isEmpty() && p.getPort() != null && p.getPort() > 0)
+                        .map(p -> new ProxyEndpoint(p.getProxyType(), p.getHost(), p.getPort(), p.getUsername(), p.getPassword()))
+                        .toList();
+            }
+            catch (Exception e)
+            {
+                log.warn("加载全局代理失败: {}", e.getMessage());
+                // 加载失败时沿用旧快照，并在下个周期重试
+                snapshot = globalSnapshot != null ? globalSnapshot : Collections.emptyList();
+            }
+            snapshot.forEach(this::registerCredentials);
+            globalSnapshot = snapshot;
+            globalLoadedAt = System.currentTimeMillis();
+            return snapshot;
+        }
+    }
+
+    /**
+     * 解析任务代理列表（JSON格式：[{"type":"HTTP","host":"127.0.0.1","port":8080,"username":"","password":""}]）
+     *
+     * @return 解析结果；为空或解析失败时返回 null（回退到全局代理）
+     */
+    private ProxyList parseTaskProxies(String raw)
+    {
+        try
+        {
+            List<Map<String, Object>> proxyMapList = objectMapper.readValue(raw,
+                    objectMapper.getTypeFactory().constructCollectionType(List.class, Map.class));
+            List<ProxyEndpoint> proxies = new ArrayList<>();
+            for (Map<String, Object> proxyMap : proxyMapList)
+            {
+                String host = (String) proxyMap.get("host");
+                int port = proxyMap.get("port") instanceof Integer
+                        ? (Integer) proxyMap.get("port")
+                        : Integer.parseInt(String.valueOf(proxyMap.get("port")));
+                if (host != null && !host.isEmpty() && port > 0)
+                {
+                    ProxyEndpoint proxy = new ProxyEndpoint(
+                            String.valueOf(proxyMap.getOrDefault("type", "HTTP")),
+                            host,
+                            port,
+                            (String) proxyMap.getOrDefault("username", ""),
+                            (String) proxyMap.getOrDefault("password", ""));
+                    registerCredentials(proxy);
+                    proxies.add(proxy);
+                }
+            }
+            return proxies.isEmpty() ? null : new ProxyList(SOURCE_TASK, List.copyOf(proxies));
+        }
+        catch (Exception e)
+        {
+            log.warn("解析代理列表失败: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private void registerCredentials(ProxyEndpoint proxy)
+    {
+        if (!proxy.hasCredentials())
+        {
+            return;
+        }
+        PasswordAuthentication auth = new PasswordAuthentication(proxy.username(),
+                (proxy.password() != null ? proxy.password() : "").toCharArray());
+        PasswordAuthentication previous = credentials.put(proxy.address(), auth);
+        if (previous != null && !previous.getUserName().equals(auth.getUserName()))
+        {
+            log.warn("代理 {} 存在多组凭据，使用最近登记的用户名: {}", proxy.address(), auth.getUserName());
+        }
+    }
+
+    /**
+     * 按代理地址路由的全局认证器：只应答代理（含 SOCKS）认证，其余请求交给原认证器
+     */
+    private final class RoutingAuthenticator extends Authenticator
+    {
+        private final Authenticator fallback;
+
+        RoutingAuthenticator(Authenticator fallback)
+        {
+            this.fallback = fallback;
+        }
+
+        @Override
+        protected PasswordAuthentication getPasswordAuthentication()
+        {
+            String protocol = getRequestingProtocol();
+            boolean proxyAuth = getRequestorType() == RequestorType.PROXY
+                    || (protocol != null && protocol.toUpperCase().startsWith("SOCKS"));
+            if (proxyAuth && getRequestingHost() != null)
+            {
+                PasswordAuthentication auth = credentials.get(getRequestingHost() + ":" + getRequestingPort());
+                if (auth != null)
+                {
+                    return auth;
+                }
+            }
+            if (fallback != null)
+            {
+                return fallback.requestPasswordAuthenticationInstance(getRequestingHost(), getRequestingSite(),
+                        getRequestingPort(), protocol, getRequestingPrompt(), getRequestingScheme(),
+                        getRequestingURL(), getRequestorType());
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.mayday.crawler.executor.scheduler;
+
+import com.mayday.crawler.config.AdaptiveConcurrencyConfig;
+
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/**
+ * 单个主机的自适应并发与请求间隔（AIMD）
+ * <p>
+ * 每凑满一个成功窗口（成功数达到当前并发数），并发数加 increaseStep、请求间隔减 delayStepMillis；
+ * 遇到 429/503、超时/连接失败或响应延迟明显高于基线时，并发数乘以 decreaseFactor、请求间隔除以 decreaseFactor，
+ * 乘性减在冷却期内只生效一次。Retry-After 单独记录为该主机的暂停截止时间。
+ * <p>
+ * 非线程安全，由 {@link HostPolitenessScheduler} 在锁内访问。
+ */
+class AdaptiveHostLimit
+{
+    static final String REASON_INCREASE = "INCREASE";
+    static final String REASON_THROTTLED = "THROTTLED";
+    static final String REASON_TIMEOUT = "TIMEOUT";
+    static final String REASON_SLOW = "SLOW";
+
+    private final AdaptiveConcurrencyConfig config;
+    private final boolean adaptive;
+    private final int maxLimit;
+    private final long minDelay;
+    private final long maxDelay;
+
+    private double limit;
+    private long delay;
+    private int windowSuccesses;
+    private double latencyEwma;
+    private double latencyBaseline;
+    private long lastDecreaseAt;
+    private long pausedUntil;
+    private int throttledCount;
+    private int timeoutCount;
+    private String lastReason;
+
+    /**
+     * @param config     自适应配置，为 null 或未启用时并发与间隔固定
+     * @param maxLimit   并发上限
+     * @param startDelay 初始请求间隔（毫秒）
+     * @param minDelay   请求间隔下限（毫秒）
+     */
+    AdaptiveHostLimit(AdaptiveConcurrencyConfig config, int maxLimit, long startDelay, long minDelay)
+    {
+        this.config = config;
+        this.adaptive = config != null && config.isEnabled();
+        this.maxLimit = Math.max(1, maxLimit);
+        this.minDelay = Math.max(0, Math.min(minDelay, startDelay));
+        this.maxDelay = adaptive ? Math.max(config.getMaxDelayMillis(), startDelay) : startDelay;
+        this.limit = adaptive ? Math.min(Math.max(1, config.getInitialLimit()), this.maxLimit) : this.maxLimit;
+        this.delay = Math.max(0, startDelay);
+    }
+
+    int limit()
+    {
+        return (int) limit;
+    }
+
+    long delay()
+    {
+        return delay;
+    }
+
+    long pausedUntil()
+    {
+        return pausedUntil;
+    }
+
+    /**
+     * 记录一次正常响应
+     *
+     * @param latencyMs 请求耗时（毫秒）
+     */
+    void onSuccess(long latencyMs, long now)
+    {
+        if (!adaptive)
+        {
+            return;
+        }
+        double alpha = config.getEwmaAlpha();
+        latencyEwma = latencyEwma == 0 ? latencyMs : alpha * latencyMs + (1 - alpha) * latencyEwma;
+        if (latencyBaseline == 0 || latencyEwma < latencyBaseline)
+        {
+            latencyBaseline = latencyEwma;
+        }
+        // 延迟持续走高说明主机开始排队，先于 429/超时收缩
+        if (latencyBaseline > 0 && latencyEwma > latencyBaseline * config.getLatencyThreshold())
+        {
+            decrease(now, REASON_SLOW);
+            return;
+        }
+        if (++windowSuccesses < limit())
+        {
+            return;
+        }
+        windowSuccesses = 0;
+        limit = Math.min(maxLimit, limit + Math.max(1, config.getIncreaseStep()));
+        delay = Math.max(minDelay, delay - Math.max(0, config.getDelayStepMillis()));
+        lastReason = REASON_INCREASE;
+    }
+
+    /**
+     * 记录一次 429/503 响应
+     *
+     * @param retryAfterMs Retry-After 换算的毫秒数，没有时为 0
+     */
+    void onThrottled(long retryAfterMs, long now)
+    {
+        throttledCount++;
+        if (retryAfterMs > 0)
+        {
+            long cap = (config != null ? config.getMaxRetryAfterSeconds() : 300) * 1000L;
+            pausedUntil = Math.max(pausedUntil, now + Math.min(retryAfterMs, cap));
+        }
+        decrease(now, REASON_THROTTLED);
+    }
+
+    /**
+     * 记录一次超时或连接失败
+     */
+    void onTimeout(long now)
+    {
+        timeoutCount++;
+        decrease(now, REASON_TIMEOUT);
+    }
+
+    /**
+     * 同一URL第 attempt 次重试前的等待时间：Retry-After 未到期时等到期，否则按当前间隔指数退避
+     */
+    long backoffMillis(int attempt, long now)
+    {
+        long wait = Math.max(delay, 1000L) << Math.min(Math.max(attempt, 0), 6);
+        wait = Math.min(wait, Math.max(maxDelay, 1000L));
+        return Math.max(wait, pausedUntil - now);
+    }
+
+    private void decrease(long now, String reason)
+    {
+        windowSuccesses = 0;
+        if (!adaptive || now - lastDecreaseAt < config.getDecreaseCooldownMillis())
+        {
+            return;
+        }
+        lastDecreaseAt = now;
+        double factor = Math.min(Math.max(config.getDecreaseFactor(), 0.1), 0.9);
+        limit = Math.max(1, limit * factor);
+        delay = Math.min(maxDelay, Math.max((long) (delay / factor), Math.max(minDelay, config.getDelayStepMillis())));
+        // 收缩后以当前延迟重新作为基线，避免慢速主机持续判定为拥塞
+        latencyBaseline = latencyEwma;
+        lastReason = reason;
+    }
+
+    int throttledCount()
+    {
+        return throttledCount;
+    }
+
+    int timeoutCount()
+    {
+        return timeoutCount;
+    }
+
+    long latencyMs()
+    {
+        return (long) latencyEwma;
+    }
+
+    String lastReason()
+    {
+        return lastReason;
+    }
+
+    /**
+     * 解析 Retry-After 响应头（秒数或 HTTP 日期），无法解析时返回 0
+     */
+    static long parseRetryAfter(String value, long now)
+    {
+        if (value == null || value.isBlank())
+        {
+            return 0;
+        }
+        String v = value.trim();
+        try
+        {
+            return Math.max(0, Long.parseLong(v) * 1000L);
+        }
+        catch (NumberFormatException ignored)
+        {
+        }
+        try
+        {
+            return Math.max(0, ZonedDateTime.parse(v, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli() - now);
+        }
+        catch (DateTimeParseException e)
+        {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,368 @@
+package com.mayday.crawler.executor.scheduler;
+
+import com.mayday.crawler.config.AdaptiveConcurrencyConfig;
+import com.mayday.crawler.executor.frontier.BucketedPriorityQueue;
+import com.mayday.crawler.executor.frontier.UrlInfo;
+import com.mayday.crawler.executor.frontier.UrlPriorityScorer;
+
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 按主机礼貌调度器
+ * <p>
+ * 每个主机拥有独立的待爬队列（按URL优先级出队）、请求间隔与并发上限；
+ * 可调度的主机按"下次可请求时间"放入最小堆，取URL时只弹出已到时间且未达并发上限的主机，
+ * 工作线程无需持有并发许可去休眠等待。单个任务一个实例，线程安全。
+ * <p>
+ * 各主机的并发上限与请求间隔由 {@link AdaptiveHostLimit} 按请求结果（延迟、超时、429/503）自适应调整，
+ * 调整状态与下次可请求时间在主机队列清空后仍保留到任务结束，主机再次出现URL时不会绕过请求间隔。
+ * <p>
+ * 需要稍后重试的URL（限流、网络错误）由 {@link #retryLater} 交回，到达指定时间前不参与调度，
+ * 抓取线程不必持有并发名额休眠等待。
+ */
+public class HostPolitenessScheduler
+{
+    private final long minDelayMillis;
+    private final long delayFloorMillis;
+    private final boolean randomDelay;
+    private final int maxInFlightPerHost;
+    private final AdaptiveConcurrencyConfig adaptiveConfig;
+    
+    private final Map<String, HostState> hosts = new HashMap<>();
+    private final Map<String, AdaptiveHostLimit> limits = new HashMap<>();
+    // 已移除主机的下次可请求时间（队列清空后移除 HostState 时保留，再次加入URL时沿用）
+    private final Map<String, Long> idleReadyAt = new HashMap<>();
+    // 有待爬URL且未达并发上限的主机，按可请求时间排序
+    private final PriorityQueue<HostState> readyHeap =
+            new PriorityQueue<>(Comparator.comparingLong(h -> h.nextReadyAt));
+    // 等待重试的URL，按最早可重试时间排序，到时间后进入所属主机的队列
+    private final PriorityQueue<DelayedUrl> delayed =
+            new PriorityQueue<>(Comparator.comparingLong(DelayedUrl::notBefore));
+    private int queuedCount = 0;
+    
+    /**
+     * @param minDelayMillis     同一主机两次请求之间的初始间隔（毫秒）
+     * @param delayFloorMillis   自适应调整时请求间隔的下限（毫秒）
+     * @param randomDelay        是否在间隔上做 0.5~1.5 倍随机抖动
+     * @param maxInFlightPerHost 同一主机的并发请求数上限
+     * @param adaptiveConfig     自适应配置，为 null 时并发与间隔固定
+     */
+    public HostPolitenessScheduler(long minDelayMillis, long delayFloorMillis, boolean randomDelay,
+                                   int maxInFlightPerHost, AdaptiveConcurrencyConfig adaptiveConfig)
+    {
+        this.minDelayMillis = Math.max(0, minDelayMillis);
+        this.delayFloorMillis = Math.max(0, delayFloorMillis);
+        this.randomDelay = randomDelay;
+        this.maxInFlightPerHost = Math.max(1, maxInFlightPerHost);
+        this.adaptiveConfig = adaptiveConfig;
+    }
+    
+    /**
+     * 加入待爬URL
+     */
+    public synchronized void submit(UrlInfo urlInfo)
+    {
+        String host = hostOf(urlInfo.getUrl());
+        HostState state = hosts.computeIfAbsent(host, this::newHostState);
+        state.queue.offer(urlInfo);
+        queuedCount++;
+        scheduleIfEligible(state);
+    }
+    
+    /**
+     * 取出一个可立即请求的URL（主机间隔已到且未达并发上限），没有时返回 null
+     * <p>
+     * 取出后该主机的在途数加一，调用方处理完毕后必须调用 {@link #release(UrlInfo)}。
+     */
+    public synchronized UrlInfo poll()
+    {
+        promoteDue();
+        HostState state = readyHeap.peek();
+        // 入堆后并发上限被下调的主机先移出，等在途请求释放后再重新入堆
+        while (state != null && state.inFlight >= state.limit.limit())
+        {
+            readyHeap.poll();
+            state.scheduled = false;
+            state = readyHeap.peek();
+        }
+        if (state == null || state.nextReadyAt > System.currentTimeMillis())
+        {
+            return null;
+        }
+        readyHeap.poll();
+        state.scheduled = false;
+        
+        UrlInfo next = state.queue.poll();
+        queuedCount--;
+        state.inFlight++;
+        state.nextReadyAt = Math.max(System.currentTimeMillis() + nextDelay(state.limit.delay()), state.limit.pausedUntil());
+        scheduleIfEligible(state);
+        return next;
+    }
+    
+    /**
+     * 回报URL处理完毕，释放主机并发名额
+     */
+    public synchronized void release(UrlInfo urlInfo)
+    {
+        HostState state = hosts.get(hostOf(urlInfo.getUrl()));
+        if (state == null)
+        {
+            return;
+        }
+        state.inFlight = Math.max(0, state.inFlight - 1);
+        if (state.queue.isEmpty() && state.inFlight == 0)
+        {
+            hosts.remove(state.host);
+            if (state.nextReadyAt > System.currentTimeMillis())
+            {
+                idleReadyAt.put(state.host, state.nextReadyAt);
+            }
+            return;
+        }
+        scheduleIfEligible(state);
+    }
+    
+    /**
+     * 交回需要稍后重试的URL（调用方先 {@link #release(UrlInfo)} 释放名额）
+     *
+     * @param notBefore 最早可重试时间（毫秒时间戳）
+     */
+    public synchronized void retryLater(UrlInfo urlInfo, long notBefore)
+    {
+        delayed.offer(new DelayedUrl(urlInfo, notBefore));
+        queuedCount++;
+    }
+    
+    /**
+     * 回报一次收到响应的请求（含 429/503），据此调整主机的并发上限与请求间隔
+     *
+     * @param statusCode   HTTP 状态码
+     * @param latencyMs    请求耗时（毫秒）
+     * @param retryAfter   Retry-After 响应头，可为 null
+     */
+    public synchronized void onResponse(String url, int statusCode, long latencyMs, String retryAfter)
+    {
+        long now = System.currentTimeMillis();
+        AdaptiveHostLimit limit = limitOf(hostOf(url));
+        if (statusCode == 429 || statusCode == 503)
+        {
+            limit.onThrottled(AdaptiveHostLimit.parseRetryAfter(retryAfter, now), now);
+            reschedule(hostOf(url));
+        }
+        else if (statusCode < 500)
+        {
+            limit.onSuccess(latencyMs, now);
+        }
+    }
+    
+    /**
+     * 回报一次超时或连接失败
+     */
+    public synchronized void onTimeout(String url)
+    {
+        limitOf(hostOf(url)).onTimeout(System.currentTimeMillis());
+    }
+    
+    /**
+     * 同一URL第 attempt 次重试前应等待的毫秒数（遵守 Retry-After，否则按主机当前间隔指数退避）
+     */
+    public synchronized long retryDelayMillis(String url, int attempt)
+    {
+        return limitOf(hostOf(url)).backoffMillis(attempt, System.currentTimeMillis());
+    }
+    
+    /**
+     * 各主机当前的并发上限与请求间隔（用于任务状态展示），按受限程度排序
+     */
+    public synchronized List<Map<String, Object>> hostLimits()
+    {
+        long now = System.currentTimeMillis();
+        List<Map<String, Object>> result = new ArrayList<>(limits.size());
+        limits.entrySet().stream()
+                .sorted(Comparator.comparingInt((Map.Entry<String, AdaptiveHostLimit> e) -> e.getValue().limit())
+                        .thenComparing(e -> -e.getValue().delay()))
+                .forEach(e -> {
+                    AdaptiveHostLimit limit = e.getValue();
+                    HostState state = hosts.get(e.getKey());
+                    Map<String, Object> item = new LinkedHashMap<>();
+                    item.put("host", e.getKey());
+                    item.put("limit", limit.limit());
+                    item.put("maxLimit", maxInFlightPerHost);
+                    item.put("delayMs", limit.delay());
+                    item.put("inFlight", state != null ? state.inFlight : 0);
+                    item.put("queued", state != null ? state.queue.size() : 0);
+                    item.put("latencyMs", limit.latencyMs());
+                    item.put("throttled", limit.throttledCount());
+                    item.put("timeouts", limit.timeoutCount());
+                    item.put("pausedMs", Math.max(0, limit.pausedUntil() - now));
+                    item.put("lastChange", limit.lastReason());
+                    result.add(item);
+                });
+        return result;
+    }
+    
+    /**
+     * 距离最近一个主机可请求（或最近一个重试URL到期）的毫秒数；都没有时返回 -1
+     */
+    public synchronized long millisUntilReady()
+    {
+        promoteDue();
+        long now = System.currentTimeMillis();
+        HostState state = readyHeap.peek();
+        DelayedUrl next = delayed.peek();
+        if (state == null && next == null)
+        {
+            return -1;
+        }
+        long readyAt = Math.min(state != null ? state.nextReadyAt : Long.MAX_VALUE,
+                next != null ? next.notBefore() : Long.MAX_VALUE);
+        return Math.max(0, readyAt - now);
+    }
+    
+    /**
+     * 调度器中尚未取出的URL数量（含等待重试的URL）
+     */
+    public synchronized int queuedCount()
+    {
+        return queuedCount;
+    }
+    
+    /**
+     * 取出所有尚未调度的URL（任务停止时归还爬取边界）
+     */
+    public synchronized Deque<UrlInfo> drain()
+    {
+        Deque<UrlInfo> remaining = new ArrayDeque<>();
+        for (HostState state : hosts.values())
+        {
+            state.queue.drainTo(remaining);
+        }
+        for (DelayedUrl item : delayed)
+        {
+            remaining.add(item.urlInfo());
+        }
+        delayed.clear();
+        readyHeap.clear();
+        hosts.values().forEach(h -> h.scheduled = false);
+        queuedCount = 0;
+        return remaining;
+    }
+    
+    /**
+     * 到期的重试URL放回所属主机的队列
+     */
+    private void promoteDue()
+    {
+        long now = System.currentTimeMillis();
+        while (!delayed.isEmpty() && delayed.peek().notBefore() <= now)
+        {
+            queuedCount--;
+            submit(delayed.poll().urlInfo());
+        }
+    }
+    
+    private void scheduleIfEligible(HostState state)
+    {
+        if (!state.scheduled && !state.queue.isEmpty() && state.inFlight < state.limit.limit())
+        {
+            state.scheduled = true;
+            readyHeap.offer(state);
+        }
+    }
+    
+    /**
+     * 主机进入 Retry-After 暂停期时推迟其可请求时间（堆内元素的排序键变化后需重新入堆）
+     */
+    private void reschedule(String host)
+    {
+        HostState state = hosts.get(host);
+        if (state == null || state.limit.pausedUntil() <= state.nextReadyAt)
+        {
+            return;
+        }
+        boolean wasScheduled = state.scheduled && readyHeap.remove(state);
+        state.nextReadyAt = state.limit.pausedUntil();
+        if (wasScheduled)
+        {
+            readyHeap.offer(state);
+        }
+    }
+    
+    private HostState newHostState(String host)
+    {
+        HostState state = new HostState(host, limitOf(host));
+        Long readyAt = idleReadyAt.remove(host);
+        if (readyAt != null)
+        {
+            state.nextReadyAt = readyAt;
+        }
+        return state;
+    }
+    
+    private AdaptiveHostLimit limitOf(String host)
+    {
+        return limits.computeIfAbsent(host,
+                h -> new AdaptiveHostLimit(adaptiveConfig, maxInFlightPerHost, minDelayMillis, delayFloorMillis));
+    }
+    
+    private long nextDelay(long delay)
+    {
+        if (!randomDelay || delay == 0)
+        {
+            return delay;
+        }
+        return (long) (delay * (0.5 + ThreadLocalRandom.current().nextDouble()));
+    }
+    
+    private static String hostOf(String url)
+    {
+        try
+        {
+            String host = URI.create(url).getHost();
+            return host != null ? host.toLowerCase(Locale.ROOT) : "";
+        }
+        catch (IllegalArgumentException e)
+        {
+            return "";
+        }
+    }
+    
+    /**
+     * 等待重试的URL
+     */
+    private record DelayedUrl(UrlInfo urlInfo, long notBefore)
+    {
+    }
+    
+    /**
+     * 单个主机的调度状态
+     */
+    private static class HostState
+    {
+        final String host;
+        final AdaptiveHostLimit limit;
+        final BucketedPriorityQueue<UrlInfo> queue =
+                new BucketedPriorityQueue<>(UrlPriorityScorer.MAX, UrlInfo::getPriority);
+        int inFlight;
+        long nextReadyAt;
+        boolean scheduled;
+        
+        HostState(String host, AdaptiveHostLimit limit)
+        {
+            this.host = host;
+            this.limit = limit;
+        }
+    }
+}
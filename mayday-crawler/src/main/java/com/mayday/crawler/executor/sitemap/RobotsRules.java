@@ -0,0 +1,243 @@
+package com.mayday.crawler.executor.sitemap;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * robots.txt 解析结果（针对单个 User-agent）
+ * <p>
+ * 按 RFC 9309：选择与标识匹配的分组（都不匹配时用 * 分组），Allow/Disallow 取最长匹配，长度相同时 Allow 优先；
+ * 规则支持 * 通配与 $ 结尾锚定。Sitemap 声明与分组无关，全部保留。
+ */
+public final class RobotsRules
+{
+    private static final RobotsRules ALLOW_ALL = new RobotsRules(Collections.emptyList(), -1, Collections.emptyList());
+
+    private final List<Rule> rules;
+    private final long crawlDelayMs;
+    private final List<String> sitemaps;
+
+    private RobotsRules(List<Rule> rules, long crawlDelayMs, List<String> sitemaps)
+    {
+        this.rules = rules;
+        this.crawlDelayMs = crawlDelayMs;
+        this.sitemaps = sitemaps;
+    }
+
+    private record Rule(String pattern, boolean allow)
+    {
+    }
+
+    /**
+     * 无 robots.txt（404 等）时：全部允许
+     */
+    public static RobotsRules allowAll()
+    {
+        return ALLOW_ALL;
+    }
+
+    /**
+     * @param content robots.txt 内容
+     * @param agent   本爬虫的 User-agent 标识
+     */
+    public static RobotsRules parse(String content, String agent)
+    {
+        String token = agent != null ? agent.toLowerCase(Locale.ROOT) : "*";
+        List<Rule> specific = new ArrayList<>();
+        List<Rule> wildcard = new ArrayList<>();
+        long specificDelay = -1;
+        long wildcardDelay = -1;
+        boolean specificFound = false;
+        List<String> sitemaps = new ArrayList<>();
+
+        // 当前分组的 User-agent 是否匹配
+        boolean inSpecific = false;
+        boolean inWildcard = false;
+        boolean lastWasAgent = false;
+
+        for (String rawLine : content.split("\r\n|\r|\n"))
+        {
+            int hash = rawLine.indexOf('#');
+            String line = (hash >= 0 ? rawLine.substring(0, hash) : rawLine).trim();
+            int colon = line.indexOf(':');
+            if (colon <= 0)
+            {
+                continue;
+            }
+            String key = line.substring(0, colon).trim().toLowerCase(Locale.ROOT);
+            String value = line.substring(colon + 1).trim();
+
+            switch (key)
+            {
+                case "user-agent" ->
+                {
+                    if (!lastWasAgent)
+                    {
+                        inSpecific = false;
+                        inWildcard = false;
+                    }
+                    String ua = value.toLowerCase(Locale.ROOT);
+                    if ("*".equals(ua))
+                    {
+                        inWildcard = true;
+                    }
+                    else if (!ua.isEmpty() && token.contains(ua))
+                    {
+                        inSpecific = true;
+                        specificFound = true;
+                    }
+                    lastWasAgent = true;
+                }
+                case "allow", "disallow" ->
+                {
+                    lastWasAgent = false;
+                    // 空的 Disallow 表示不限制
+                    if (value.isEmpty())
+                    {
+                        continue;
+                    }
+                    Rule rule = new Rule(value, "allow".equals(key));
+                    if (inSpecific)
+                    {
+                        specific.add(rule);
+                    }
+                    if (inWildcard)
+                    {
+                        wildcard.add(rule);
+                    }
+                }
+                case "crawl-delay" ->
+                {
+                    lastWasAgent = false;
+                    long delay = parseDelayMs(value);
+                    if (inSpecific)
+                    {
+                        specificDelay = delay;
+                    }
+                    if (inWildcard)
+                    {
+                        wildcardDelay = delay;
+                    }
+                }
+                case "sitemap" ->
+                {
+                    if (!value.isEmpty())
+                    {
+                        sitemaps.add(value);
+                    }
+                }
+                default -> lastWasAgent = false;
+            }
+        }
+        return specificFound
+                ? new RobotsRules(List.copyOf(specific), specificDelay, List.copyOf(sitemaps))
+                : new RobotsRules(List.copyOf(wildcard), wildcardDelay, List.copyOf(sitemaps));
+    }
+
+    /**
+     * URL 是否允许抓取
+     */
+    public boolean isAllowed(String url)
+    {
+        if (rules.isEmpty())
+        {
+            return true;
+        }
+        String path = pathOf(url);
+        if ("/robots.txt".equals(path))
+        {
+            return true;
+        }
+        int bestLength = -1;
+        boolean allowed = true;
+        for (Rule rule : rules)
+        {
+            if (matches(rule.pattern(), path))
+            {
+                int length = rule.pattern().length();
+                if (length > bestLength || (length == bestLength && rule.allow()))
+                {
+                    bestLength = length;
+                    allowed = rule.allow();
+                }
+            }
+        }
+        return allowed;
+    }
+
+    /**
+     * Crawl-delay（毫秒），未声明时为 -1
+     */
+    public long getCrawlDelayMs()
+    {
+        return crawlDelayMs;
+    }
+
+    public List<String> getSitemaps()
+    {
+        return sitemaps;
+    }
+
+    private static String pathOf(String url)
+    {
+        try
+        {
+            URI uri = new URI(url);
+            String path = uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath();
+            return uri.getRawQuery() != null ? path + "?" + uri.getRawQuery() : path;
+        }
+        catch (Exception e)
+        {
+            return url;
+        }
+    }
+
+    /**
+     * 规则匹配：* 匹配任意字符序列，结尾的 $ 表示必须匹配到路径末尾
+     */
+    static boolean matches(String pattern, String path)
+    {
+        boolean anchored = pattern.endsWith("$");
+        String p = anchored ? pattern.substring(0, pattern.length() - 1) : pattern;
+        if (p.indexOf('*') < 0)
+        {
+            return anchored ? path.equals(p) : path.startsWith(p);
+        }
+        String[] parts = p.split("\\*", -1);
+        if (!path.startsWith(parts[0]))
+        {
+            return false;
+        }
+        int pos = parts[0].length();
+        for (int i = 1; i < parts.length; i++)
+        {
+            String part = parts[i];
+            if (i == parts.length - 1 && anchored)
+            {
+                return path.length() - pos >= part.length() && path.endsWith(part);
+            }
+            int idx = path.indexOf(part, pos);
+            if (idx < 0)
+            {
+                return false;
+            }
+            pos = idx + part.length();
+        }
+        return !anchored || pos == path.length();
+    }
+
+    private static long parseDelayMs(String value)
+    {
+        try
+        {
+            return (long) (Double.parseDouble(value) * 1000);
+        }
+        catch (NumberFormatException e)
+        {
+            return -1;
+        }
+    }
+}
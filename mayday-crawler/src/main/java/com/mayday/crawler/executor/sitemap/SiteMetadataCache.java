@@ -0,0 +1,132 @@
+package com.mayday.crawler.executor.sitemap;
+
+import com.mayday.crawler.config.SitemapConfig;
+import com.mayday.crawler.executor.fetch.FetchProxy;
+import com.mayday.crawler.executor.fetch.FetchResponse;
+import com.mayday.crawler.executor.fetch.HttpFetcher;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 站点元数据缓存（按站点 scheme://host）
+ * <p>
+ * robots.txt 的解析结果与 sitemap 索引展开后的子 sitemap 列表各自带 TTL 缓存，同一站点的多个任务、
+ * 同一任务的多次执行不再重复下载；sitemap 中的页面条目数量可能很大，只流式读取，不进入缓存。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SiteMetadataCache
+{
+    /**
+     * robots.txt 最大读取字节数（RFC 9309 要求至少解析 500KiB）
+     */
+    private static final int MAX_ROBOTS_BYTES = 512 * 1024;
+
+    /**
+     * robots.txt 暂时不可用（5xx、网络错误）时结果的缓存时长
+     */
+    private static final long UNAVAILABLE_TTL_MILLIS = 60_000;
+
+    /**
+     * 缓存条目数超过该值时清理过期条目
+     */
+    private static final int PURGE_THRESHOLD = 1024;
+
+    private final HttpFetcher httpFetcher;
+    private final SitemapConfig config;
+
+    private final Map<String, Cached<RobotsRules>> robotsCache = new ConcurrentHashMap<>();
+    private final Map<String, Cached<List<String>>> sitemapCache = new ConcurrentHashMap<>();
+
+    private record Cached<T>(T value, long expiresAt)
+    {
+        boolean expired(long now)
+        {
+            return now >= expiresAt;
+        }
+    }
+
+    /**
+     * 获取站点 robots.txt 规则，缓存未命中时下载并解析
+     *
+     * @param origin  scheme://host
+     * @param headers 请求头（含 User-Agent）
+     * @param proxy   HTTP 代理，为空表示直连
+     */
+    public RobotsRules robots(String origin, Map<String, String> headers, FetchProxy proxy)
+    {
+        long now = System.currentTimeMillis();
+        Cached<RobotsRules> cached = robotsCache.get(origin);
+        if (cached != null && !cached.expired(now))
+        {
+            return cached.value();
+        }
+        long ttl = config.getRobotsTtlMinutes() * 60_000L;
+        RobotsRules rules;
+        try (FetchResponse response = httpFetcher.get(origin + "/robots.txt", headers, null, proxy, config.getFetchTimeout()))
+        {
+            int status = response.statusCode();
+            if (status >= 200 && status < 300)
+            {
+                rules = RobotsRules.parse(response.text(MAX_ROBOTS_BYTES), config.getRobotsAgent());
+            }
+            else if (status >= 400 && status < 500)
+            {
+                // 4xx：视为没有 robots.txt
+                rules = RobotsRules.allowAll();
+            }
+            else
+            {
+                rules = RobotsRules.allowAll();
+                ttl = UNAVAILABLE_TTL_MILLIS;
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            return RobotsRules.allowAll();
+        }
+        catch (Exception e)
+        {
+            log.debug("获取 robots.txt 失败: {} - {}", origin, e.getMessage());
+            rules = RobotsRules.allowAll();
+            ttl = UNAVAILABLE_TTL_MILLIS;
+        }
+        put(robotsCache, origin, new Cached<>(rules, now + ttl));
+        return rules;
+    }
+
+    /**
+     * 已展开的页面级 sitemap 地址列表，未缓存或已过期时返回 null
+     */
+    public List<String> leafSitemaps(String origin)
+    {
+        Cached<List<String>> cached = sitemapCache.get(origin);
+        return cached != null && !cached.expired(System.currentTimeMillis()) ? cached.value() : null;
+    }
+
+    /**
+     * 缓存站点索引展开后的页面级 sitemap 地址列表
+     */
+    public void putLeafSitemaps(String origin, List<String> sitemaps)
+    {
+        put(sitemapCache, origin, new Cached<>(List.copyOf(sitemaps),
+                System.currentTimeMillis() + config.getSitemapTtlMinutes() * 60_000L));
+    }
+
+    private static <T> void put(Map<String, Cached<T>> cache, String key, Cached<T> value)
+    {
+        if (cache.size() >= PURGE_THRESHOLD)
+        {
+            long now = System.currentTimeMillis();
+            cache.values().removeIf(c -> c.expired(now));
+        }
+        cache.put(key, value);
+    }
+}
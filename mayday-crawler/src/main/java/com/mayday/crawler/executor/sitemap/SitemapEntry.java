@@ -0,0 +1,13 @@
+package com.mayday.crawler.executor.sitemap;
+
+import java.util.Date;
+
+/**
+ * sitemap 中的一条 URL（或索引中的一个子 sitemap）
+ *
+ * @param loc     地址
+ * @param lastmod 最后修改时间，未声明或无法解析时为 null
+ */
+public record SitemapEntry(String loc, Date lastmod)
+{
+}
@@ -0,0 +1,217 @@
+package com.mayday.crawler.executor.sitemap;
+
+import com.mayday.crawler.config.SitemapConfig;
+import com.mayday.crawler.executor.fetch.FetchProxy;
+import com.mayday.crawler.executor.fetch.FetchResponse;
+import com.mayday.crawler.executor.fetch.HttpFetcher;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * sitemap 播种器
+ * <p>
+ * 从 robots.txt 的 Sitemap 声明（未声明时为 /sitemap.xml）出发，逐层展开 sitemap 索引，
+ * 页面条目按批次交给调用方入队。展开得到的页面级 sitemap 列表由 {@link SiteMetadataCache} 缓存，
+ * 缓存命中时直接读取这些 sitemap，不再重新下载索引。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SitemapSeeder
+{
+    private static final int BATCH_SIZE = 500;
+
+    private final HttpFetcher httpFetcher;
+    private final SiteMetadataCache metadataCache;
+    private final SitemapConfig config;
+
+    /**
+     * 播种
+     *
+     * @param origin        站点 scheme://host
+     * @param robots        站点 robots.txt 规则（用于发现 Sitemap 声明）
+     * @param respectRobots 是否过滤 robots.txt 禁止抓取的 URL
+     * @param headers       请求头（含 User-Agent）
+     * @param proxy         HTTP 代理，为空表示直连
+     * @param sink          批次消费者，返回 false 时停止播种
+     * @return 交给 sink 的条目数
+     */
+    public int seed(String origin, RobotsRules robots, boolean respectRobots, Map<String, String> headers,
+                    FetchProxy proxy, Predicate<List<SitemapEntry>> sink)
+    {
+        Emitter emitter = new Emitter(respectRobots ? robots : null, sink);
+        List<String> cachedLeaves = metadataCache.leafSitemaps(origin);
+        if (cachedLeaves != null)
+        {
+            for (String leaf : cachedLeaves)
+            {
+                if (!read(leaf, headers, proxy, emitter, null))
+                {
+                    break;
+                }
+            }
+            emitter.flush();
+            return emitter.emitted;
+        }
+
+        List<String> roots = robots != null && !robots.getSitemaps().isEmpty()
+                ? robots.getSitemaps()
+                : List.of(origin + "/sitemap.xml");
+        // 广度优先展开索引，记录实际产出页面条目的 sitemap
+        Deque<String[]> pending = new ArrayDeque<>();
+        Set<String> seen = new HashSet<>();
+        for (String root : roots)
+        {
+            if (seen.add(root))
+            {
+                pending.add(new String[]{root, "0"});
+            }
+        }
+        List<String> leaves = new ArrayList<>();
+        int fetched = 0;
+        boolean complete = true;
+        while (!pending.isEmpty())
+        {
+            if (fetched >= config.getMaxSitemapsPerHost())
+            {
+                log.info("站点 {} sitemap 数量超过上限 {}，忽略其余 sitemap", origin, config.getMaxSitemapsPerHost());
+                break;
+            }
+            String[] next = pending.poll();
+            String location = next[0];
+            int depth = Integer.parseInt(next[1]);
+            List<String> children = new ArrayList<>();
+            int before = emitter.offered;
+            fetched++;
+            if (!read(location, headers, proxy, emitter, children))
+            {
+                complete = false;
+                break;
+            }
+            if (emitter.offered > before)
+            {
+                leaves.add(location);
+            }
+            if (depth >= config.getMaxIndexDepth())
+            {
+                continue;
+            }
+            for (String child : children)
+            {
+                if (seen.add(child))
+                {
+                    pending.add(new String[]{child, String.valueOf(depth + 1)});
+                }
+            }
+        }
+        emitter.flush();
+        // 中途停止时展开不完整，不缓存
+        if (complete)
+        {
+            metadataCache.putLeafSitemaps(origin, leaves);
+        }
+        return emitter.emitted;
+    }
+
+    /**
+     * 读取单个 sitemap
+     *
+     * @param children 收集子 sitemap 地址，为空表示忽略索引条目
+     * @return false 表示调用方要求停止
+     */
+    private boolean read(String location, Map<String, String> headers, FetchProxy proxy, Emitter emitter,
+                         List<String> children)
+    {
+        try (FetchResponse response = httpFetcher.get(location, headers, null, proxy, config.getFetchTimeout()))
+        {
+            if (response.statusCode() >= 400)
+            {
+                log.debug("sitemap 不可用: {} ({})", location, response.statusCode());
+                return true;
+            }
+            SitemapStreamReader.read(response.body(), new SitemapStreamReader.Handler()
+            {
+                @Override
+                public boolean onUrl(SitemapEntry entry)
+                {
+                    return emitter.offer(entry);
+                }
+
+                @Override
+                public boolean onSitemap(SitemapEntry entry)
+                {
+                    if (children != null)
+                    {
+                        children.add(entry.loc());
+                    }
+                    return true;
+                }
+            });
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        catch (Exception e)
+        {
+            log.debug("读取 sitemap 失败: {} - {}", location, e.getMessage());
+        }
+        return !emitter.stopped;
+    }
+
+    /**
+     * 按批次向调用方输出条目
+     */
+    private static final class Emitter
+    {
+        private final RobotsRules robots;
+        private final Predicate<List<SitemapEntry>> sink;
+        private List<SitemapEntry> batch = new ArrayList<>(BATCH_SIZE);
+        private int offered;
+        private int emitted;
+        private boolean stopped;
+
+        Emitter(RobotsRules robots, Predicate<List<SitemapEntry>> sink)
+        {
+            this.robots = robots;
+            this.sink = sink;
+        }
+
+        boolean offer(SitemapEntry entry)
+        {
+            offered++;
+            if (robots != null && !robots.isAllowed(entry.loc()))
+            {
+                return true;
+            }
+            batch.add(entry);
+            if (batch.size() >= BATCH_SIZE)
+            {
+                flush();
+            }
+            return !stopped;
+        }
+
+        void flush()
+        {
+            if (batch.isEmpty() || stopped)
+            {
+                return;
+            }
+            emitted += batch.size();
+            stopped = !sink.test(batch);
+            batch = new ArrayList<>(BATCH_SIZE);
+        }
+    }
+}
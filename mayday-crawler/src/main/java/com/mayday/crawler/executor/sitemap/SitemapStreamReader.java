@@ -0,0 +1,195 @@
+package com.mayday.crawler.executor.sitemap;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * sitemap 流式解析器
+ * <p>
+ * 基于 StAX 逐条回调 &lt;url&gt; / &lt;sitemap&gt; 条目，内存占用与文件大小无关（单个 sitemap 上限 50MB / 5 万条）。
+ * 自动识别 gzip（按魔数而不是扩展名，部分站点 .xml.gz 已由服务端解压）；禁用 DTD 与外部实体，防止 XXE。
+ */
+public final class SitemapStreamReader
+{
+    private static final XMLInputFactory FACTORY = createFactory();
+
+    private SitemapStreamReader()
+    {
+    }
+
+    /**
+     * 条目回调，返回 false 时停止解析
+     */
+    public interface Handler
+    {
+        /**
+         * urlset 中的页面地址
+         */
+        boolean onUrl(SitemapEntry entry);
+
+        /**
+         * sitemapindex 中的子 sitemap 地址
+         */
+        boolean onSitemap(SitemapEntry entry);
+    }
+
+    private static XMLInputFactory createFactory()
+    {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, false);
+        return factory;
+    }
+
+    /**
+     * 解析 sitemap 流（不负责关闭 in）
+     */
+    public static void read(InputStream in, Handler handler) throws IOException
+    {
+        InputStream stream = maybeGunzip(in);
+        XMLStreamReader reader = null;
+        try
+        {
+            reader = FACTORY.createXMLStreamReader(stream);
+            // 当前条目类型：url / sitemap，null 表示不在条目内
+            String entryTag = null;
+            String field = null;
+            String loc = null;
+            String lastmod = null;
+            StringBuilder text = new StringBuilder();
+            while (reader.hasNext())
+            {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT)
+                {
+                    String name = localName(reader.getLocalName());
+                    if ("url".equals(name) || "sitemap".equals(name))
+                    {
+                        entryTag = name;
+                        loc = null;
+                        lastmod = null;
+                    }
+                    else if (entryTag != null && ("loc".equals(name) || "lastmod".equals(name)))
+                    {
+                        field = name;
+                        text.setLength(0);
+                    }
+                }
+                else if (field != null && (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA))
+                {
+                    text.append(reader.getText());
+                }
+                else if (event == XMLStreamConstants.END_ELEMENT)
+                {
+                    String name = localName(reader.getLocalName());
+                    if (name.equals(field))
+                    {
+                        if ("loc".equals(field))
+                        {
+                            loc = text.toString().trim();
+                        }
+                        else
+                        {
+                            lastmod = text.toString().trim();
+                        }
+                        field = null;
+                    }
+                    else if (name.equals(entryTag))
+                    {
+                        if (loc != null && !loc.isEmpty())
+                        {
+                            SitemapEntry entry = new SitemapEntry(loc, parseLastmod(lastmod));
+                            boolean more = "url".equals(entryTag) ? handler.onUrl(entry) : handler.onSitemap(entry);
+                            if (!more)
+                            {
+                                return;
+                            }
+                        }
+                        entryTag = null;
+                    }
+                }
+            }
+        }
+        catch (XMLStreamException e)
+        {
+            throw new IOException("sitemap 解析失败: " + e.getMessage(), e);
+        }
+        finally
+        {
+            if (reader != null)
+            {
+                try
+                {
+                    reader.close();
+                }
+                catch (XMLStreamException ignored)
+                {
+                    // 忽略
+                }
+            }
+        }
+    }
+
+    /**
+     * W3C Datetime：YYYY-MM-DD、YYYY-MM-DDThh:mm[:ss[.s]]TZD、YYYY-MM，无法解析时返回 null
+     */
+    static Date parseLastmod(String value)
+    {
+        if (value == null || value.isEmpty())
+        {
+            return null;
+        }
+        try
+        {
+            if (value.length() > 10)
+            {
+                return Date.from(OffsetDateTime.parse(value).toInstant());
+            }
+            if (value.length() == 10)
+            {
+                return Date.from(LocalDate.parse(value).atStartOfDay(ZoneId.systemDefault()).toInstant());
+            }
+            if (value.length() == 7)
+            {
+                return Date.from(YearMonth.parse(value).atDay(1).atStartOfDay(ZoneId.systemDefault()).toInstant());
+            }
+        }
+        catch (Exception ignored)
+        {
+            // 非标准格式按未声明处理
+        }
+        return null;
+    }
+
+    private static String localName(String name)
+    {
+        int colon = name.indexOf(':');
+        return colon >= 0 ? name.substring(colon + 1) : name;
+    }
+
+    private static InputStream maybeGunzip(InputStream in) throws IOException
+    {
+        InputStream buffered = in.markSupported() ? in : new BufferedInputStream(in, 8192);
+        buffered.mark(2);
+        int b1 = buffered.read();
+        int b2 = buffered.read();
+        buffered.reset();
+        if (b1 == 0x1f && b2 == 0x8b)
+        {
+            return new GZIPInputStream(buffered, 8192);
+        }
+        return buffered;
+    }
+}
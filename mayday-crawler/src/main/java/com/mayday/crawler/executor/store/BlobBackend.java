@@ -0,0 +1,48 @@
+package com.mayday.crawler.executor.store;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * 图片存储后端
+ * <p>
+ * 图片以 key（文件名，如 {@code <md5>.jpg}、缩略图 {@code <md5>_w400.jpg}）存取，
+ * {@link #dirFor(String)} 给出写入 crawler_image.file_path 的目录，访问地址仍为 {@code /crawler-images/<目录相对路径>/<key>}。
+ * 实现需线程安全。
+ */
+public interface BlobBackend
+{
+    /**
+     * 后端标识（对应 crawler.image-store.backend）
+     */
+    String name();
+
+    /**
+     * key 所在目录
+     */
+    Path dirFor(String key);
+
+    /**
+     * 目录是否由本后端管理
+     */
+    boolean owns(Path dir);
+
+    boolean contains(String key);
+
+    /**
+     * 把暂存文件放入存储
+     *
+     * @return 放入成功时返回 true，暂存文件已被消费；相同 key 已存在时返回 false，暂存文件由调用方删除
+     */
+    boolean put(String key, Path staged) throws IOException;
+
+    /**
+     * 读取内容，不存在时返回 null
+     */
+    BlobContent open(String key) throws IOException;
+
+    /**
+     * 删除，不存在时返回 false
+     */
+    boolean delete(String key) throws IOException;
+}
@@ -0,0 +1,67 @@
+package com.mayday.crawler.executor.store;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * 存储中的图片内容：独立文件（可交给容器 sendfile）或段文件的内存映射切片
+ *
+ * @param name         文件名（存储 key）
+ * @param file         独立文件，切片内容时为 null
+ * @param buffer       内存映射切片（只读），独立文件时为 null
+ * @param length       字节数
+ * @param lastModified 修改时间（毫秒）
+ */
+public record BlobContent(String name, Path file, ByteBuffer buffer, long length, long lastModified)
+{
+    public static BlobContent ofFile(Path file) throws IOException
+    {
+        return new BlobContent(file.getFileName().toString(), file, null, Files.size(file), Files.getLastModifiedTime(file).toMillis());
+    }
+
+    public boolean isFile()
+    {
+        return file != null;
+    }
+
+    /**
+     * 以流读取全部内容（由调用方关闭）
+     */
+    public InputStream inputStream() throws IOException
+    {
+        if (file != null)
+        {
+            return Files.newInputStream(file);
+        }
+        ByteBuffer view = buffer.duplicate();
+        return new InputStream()
+        {
+            @Override
+            public int read()
+            {
+                return view.hasRemaining() ? view.get() & 0xFF : -1;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len)
+            {
+                if (!view.hasRemaining())
+                {
+                    return -1;
+                }
+                int n = Math.min(len, view.remaining());
+                view.get(b, off, n);
+                return n;
+            }
+
+            @Override
+            public int available()
+            {
+                return view.remaining();
+            }
+        };
+    }
+}
@@ -0,0 +1,86 @@
+package com.mayday.crawler.executor.store;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * 每张图片一个文件：{@code <root>/ab/cd/<key>}，按 key 前 4 个字符分两级目录
+ */
+public class FileBlobBackend implements BlobBackend
+{
+    public static final String NAME = "file";
+
+    private final Path root;
+
+    public FileBlobBackend(Path root)
+    {
+        this.root = root.toAbsolutePath().normalize();
+    }
+
+    @Override
+    public String name()
+    {
+        return NAME;
+    }
+
+    @Override
+    public Path dirFor(String key)
+    {
+        return root.resolve(key.substring(0, 2)).resolve(key.substring(2, 4));
+    }
+
+    @Override
+    public boolean owns(Path dir)
+    {
+        return dir.toAbsolutePath().normalize().startsWith(root);
+    }
+
+    @Override
+    public boolean contains(String key)
+    {
+        return Files.isRegularFile(dirFor(key).resolve(key));
+    }
+
+    @Override
+    public boolean put(String key, Path staged) throws IOException
+    {
+        Path dir = dirFor(key);
+        Path target = dir.resolve(key);
+        if (Files.isRegularFile(target))
+        {
+            return false;
+        }
+        Files.createDirectories(dir);
+        try
+        {
+            Files.move(staged, target, StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch (AtomicMoveNotSupportedException e)
+        {
+            Files.move(staged, target);
+        }
+        catch (FileAlreadyExistsException e)
+        {
+            // 并发写入同一内容，另一方已先落盘
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public BlobContent open(String key) throws IOException
+    {
+        Path file = dirFor(key).resolve(key);
+        return Files.isRegularFile(file) ? BlobContent.ofFile(file) : null;
+    }
+
+    @Override
+    public boolean delete(String key) throws IOException
+    {
+        return Files.deleteIfExists(dirFor(key).resolve(key));
+    }
+}
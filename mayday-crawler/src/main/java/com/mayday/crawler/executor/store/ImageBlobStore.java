@@ -0,0 +1,384 @@
+package com.mayday.crawler.executor.store;
+
+import com.mayday.crawler.config.ImageProbeConfig;
+import com.mayday.crawler.config.ImageStoreConfig;
+import com.mayday.crawler.executor.download.ImageStreamWriter;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * 内容寻址图片存储
+ * <p>
+ * 图片按内容 MD5 命名（{@code <md5>.<ext>}），相同内容在所有任务间只保存一份。存放方式由 crawler.image-store.backend 决定：
+ * 默认每张图片一个文件（{@code <crawler.image.base-path>/blobs/ab/cd/<md5>.<ext>}，{@link FileBlobBackend}），
+ * 或追加写入段文件（{@code <crawler.image.base-path>/packs/}，{@link PackedBlobBackend}）。crawler_image.file_path
+ * 记录所在目录，读取、删除按目录找到对应后端，切换后端后旧图片仍可访问；旧版按任务目录存放的图片按普通文件处理。
+ * 引用计数即 crawler_image 中指向同一文件的记录数（file_path + file_name），删除记录后计数归零才删除文件，
+ * 由 {@link com.mayday.crawler.service.ICrawlerImageService} 负责。
+ * <p>
+ * 入库（或复用已有文件）到对应记录进入写入队列之间，文件的引用还不在库中：这段时间由在途引用计数保护，
+ * 入库、复用与删除使用同一把文件锁，删除在锁内确认没有在途引用、写出队列并统计引用后才真正删除。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ImageBlobStore
+{
+    private static final String BLOB_DIR = "blobs";
+    private static final String PACK_DIR = "packs";
+    private static final String STAGING_DIR = ".staging";
+    private static final int LOCK_STRIPES = 64;
+
+    private final ImageProbeConfig probeConfig;
+    private final ImageStoreConfig storeConfig;
+
+    /**
+     * 图片存储根目录（兼容两种配置键）
+     */
+    @Value("${crawler.image.base-path:${crawler.image-base-path:./data/crawler-images}}")
+    private String imageBasePath;
+
+    private FileBlobBackend fileBackend;
+    private PackedBlobBackend packedBackend;
+    private BlobBackend writeBackend;
+    private ScheduledExecutorService compactor;
+
+    // 文件锁（按文件名分段）与在途引用计数：文件名 -> 已入库但记录尚未进入写入队列的下载数
+    private final Object[] fileLocks = new Object[LOCK_STRIPES];
+    private final Map<String, Integer> pendingRefs = new ConcurrentHashMap<>();
+
+    {
+        for (int i = 0; i < LOCK_STRIPES; i++)
+        {
+            fileLocks[i] = new Object();
+        }
+    }
+
+    @PostConstruct
+    public void init() throws IOException
+    {
+        Path base = Paths.get(imageBasePath).toAbsolutePath().normalize();
+        fileBackend = new FileBlobBackend(base.resolve(BLOB_DIR));
+        boolean packed = PackedBlobBackend.NAME.equalsIgnoreCase(storeConfig.getBackend());
+        // 段文件目录存在时即使当前写入文件后端也要加载，保证已有图片可读
+        if (packed || Files.isDirectory(base.resolve(PACK_DIR)))
+        {
+            packedBackend = new PackedBlobBackend(base.resolve(PACK_DIR), storeConfig).open();
+            long interval = storeConfig.getCompactIntervalMinutes();
+            if (interval > 0)
+            {
+                compactor = Executors.newSingleThreadScheduledExecutor(r -> {
+                    Thread t = new Thread(r, "crawler-blob-compactor");
+                    t.setDaemon(true);
+                    return t;
+                });
+                compactor.scheduleWithFixedDelay(this::compact, interval, interval, TimeUnit.MINUTES);
+            }
+        }
+        writeBackend = packed ? packedBackend : fileBackend;
+        log.info("图片存储后端: {}", writeBackend.name());
+    }
+
+    @PreDestroy
+    public void shutdown()
+    {
+        if (compactor != null)
+        {
+            compactor.shutdown();
+        }
+        if (packedBackend != null)
+        {
+            try
+            {
+                packedBackend.close();
+            }
+            catch (IOException e)
+            {
+                log.warn("关闭段文件存储失败: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 入库结果
+     *
+     * @param dir      所在目录（对应 crawler_image.file_path）
+     * @param fileName 文件名（对应 crawler_image.file_name）
+     * @param size     文件大小
+     * @param md5      内容 MD5
+     * @param format   文件头识别出的格式，无法识别时为 null
+     * @param width    文件头读出的宽度，未知时为 0
+     * @param height   文件头读出的高度，未知时为 0
+     * @param existed  库中是否已有相同内容（本次未新增文件）
+     */
+    public record Blob(Path dir, String fileName, long size, String md5, String format, int width, int height,
+                       boolean existed)
+    {
+    }
+
+    /**
+     * 将图片流写入存储
+     * <p>
+     * 先流式写入暂存目录并计算 MD5，再交给当前写入后端；相同内容已存在时丢弃暂存文件。
+     * 文件头显示尺寸低于 crawler.image-probe 下限时读完首块即抛出
+     * {@link com.mayday.crawler.executor.download.ImageRejectedException}，不写盘。
+     * 返回时已持有文件的在途引用，记录进入写入队列后由调用方 {@link #release} 释放。
+     *
+     * @param in           已解压的响应体流（由调用方关闭）
+     * @param fallbackExt  无法从文件头识别格式时使用的扩展名（通常取自 URL），可为空
+     * @param maxBytes     大小上限
+     */
+    public Blob store(InputStream in, String fallbackExt, long maxBytes) throws IOException
+    {
+        Path tmp = stagingFile();
+        ImageStreamWriter.StoredImage stored = ImageStreamWriter.write(in, tmp, maxBytes,
+                probeConfig.getMinWidth(), probeConfig.getMinHeight(), probeConfig.getMaxProbeBytes());
+        boolean placed = false;
+        try
+        {
+            String ext = normalizeExt(stored.format() != null ? stored.format() : fallbackExt);
+            String fileName = ext != null ? stored.md5() + "." + ext : stored.md5();
+            Path dir = writeBackend.dirFor(fileName);
+            synchronized (lockFor(fileName))
+            {
+                // 已存在时不再写入；并发下载同一内容时 put 返回 false，另一方已先落盘
+                placed = !writeBackend.contains(fileName) && writeBackend.put(fileName, tmp);
+                pendingRefs.merge(fileName, 1, Integer::sum);
+            }
+            return new Blob(dir, fileName, stored.size(), stored.md5(), stored.format(),
+                    stored.width(), stored.height(), !placed);
+        }
+        finally
+        {
+            if (!placed)
+            {
+                Files.deleteIfExists(tmp);
+            }
+        }
+    }
+
+    /**
+     * 复用已有文件前持有在途引用：文件仍在存储中时返回 true，记录进入写入队列后由调用方 {@link #release} 释放
+     */
+    public boolean retain(String filePath, String fileName)
+    {
+        if (fileName == null || fileName.isBlank())
+        {
+            return false;
+        }
+        synchronized (lockFor(fileName))
+        {
+            if (!exists(filePath, fileName))
+            {
+                return false;
+            }
+            pendingRefs.merge(fileName, 1, Integer::sum);
+            return true;
+        }
+    }
+
+    /**
+     * 释放 {@link #store} 或 {@link #retain} 持有的在途引用
+     */
+    public void release(String fileName)
+    {
+        pendingRefs.computeIfPresent(fileName, (k, n) -> n > 1 ? n - 1 : null);
+    }
+
+    /**
+     * 在文件锁内删除不再被引用的文件
+     * <p>
+     * 有在途引用时保留；否则执行 unreferenced（写出写入队列并统计库中引用），确认无引用后删除。
+     * 锁内不会有新的下载入库或复用该文件，统计结果到删除为止保持有效。
+     *
+     * @return 文件是否已无引用（已删除或本就不在存储中），仍被引用时返回 false
+     */
+    public boolean deleteIfUnreferenced(Path dir, String fileName, BooleanSupplier unreferenced) throws IOException
+    {
+        synchronized (lockFor(fileName))
+        {
+            if (pendingRefs.containsKey(fileName) || !unreferenced.getAsBoolean())
+            {
+                return false;
+            }
+            delete(dir, fileName);
+            return true;
+        }
+    }
+
+    /**
+     * 丢弃本次新增、且不会被任何记录引用的文件（如被判定为占位图）
+     */
+    public void discard(Blob blob)
+    {
+        try
+        {
+            delete(blob.dir(), blob.fileName());
+        }
+        catch (IOException e)
+        {
+            log.warn("删除图片文件失败: {}/{} - {}", blob.dir(), blob.fileName(), e.getMessage());
+        }
+    }
+
+    /**
+     * 记录对应的文件是否仍在存储中
+     */
+    public boolean exists(String filePath, String fileName)
+    {
+        if (filePath == null || filePath.isBlank() || fileName == null || fileName.isBlank())
+        {
+            return false;
+        }
+        try
+        {
+            return contains(Paths.get(filePath), fileName);
+        }
+        catch (Exception e)
+        {
+            return false;
+        }
+    }
+
+    /**
+     * 目录下是否存在该文件
+     */
+    public boolean contains(Path dir, String fileName)
+    {
+        BlobBackend backend = backendFor(dir);
+        return backend != null ? backend.contains(fileName) : Files.isRegularFile(dir.resolve(fileName));
+    }
+
+    /**
+     * 读取目录下的文件，不存在时返回 null
+     */
+    public BlobContent open(Path dir, String fileName) throws IOException
+    {
+        BlobBackend backend = backendFor(dir);
+        if (backend != null)
+        {
+            return backend.open(fileName);
+        }
+        Path file = dir.resolve(fileName);
+        return Files.isRegularFile(file) ? BlobContent.ofFile(file) : null;
+    }
+
+    /**
+     * 把暂存文件放到目录下（缩略图等派生文件，与原图同一后端）
+     * <p>
+     * 内容寻址目录中同名文件内容必然相同，已存在时保留原文件；旧版目录中直接覆盖。
+     *
+     * @return 暂存文件是否已被消费（否则由调用方删除）
+     */
+    public boolean put(Path dir, String fileName, Path staged) throws IOException
+    {
+        BlobBackend backend = backendFor(dir);
+        if (backend != null)
+        {
+            return backend.put(fileName, staged);
+        }
+        Path target = dir.resolve(fileName);
+        try
+        {
+            Files.move(staged, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch (AtomicMoveNotSupportedException e)
+        {
+            Files.move(staged, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return true;
+    }
+
+    /**
+     * 删除目录下的文件
+     */
+    public boolean delete(Path dir, String fileName) throws IOException
+    {
+        BlobBackend backend = backendFor(dir);
+        return backend != null ? backend.delete(fileName) : Files.deleteIfExists(dir.resolve(fileName));
+    }
+
+    /**
+     * 路径是否位于内容寻址存储内（分片目录、段文件目录不随文章清理）
+     */
+    public boolean isBlobPath(Path path)
+    {
+        return backendFor(path) != null;
+    }
+
+    /**
+     * 暂存文件路径（写入完成后交给 {@link #store}/{@link #put}）
+     */
+    public Path stagingFile() throws IOException
+    {
+        Path staging = blobRoot().resolve(STAGING_DIR);
+        Files.createDirectories(staging);
+        return staging.resolve(UUID.randomUUID().toString());
+    }
+
+    public Path blobRoot()
+    {
+        return Paths.get(imageBasePath).toAbsolutePath().normalize().resolve(BLOB_DIR);
+    }
+
+    private Object lockFor(String fileName)
+    {
+        return fileLocks[Math.floorMod(fileName.hashCode(), LOCK_STRIPES)];
+    }
+
+    private BlobBackend backendFor(Path dir)
+    {
+        Path normalized = dir.toAbsolutePath().normalize();
+        if (packedBackend != null && packedBackend.owns(normalized))
+        {
+            return packedBackend;
+        }
+        return fileBackend.owns(normalized) ? fileBackend : null;
+    }
+
+    private void compact()
+    {
+        try
+        {
+            packedBackend.compact();
+        }
+        catch (Exception e)
+        {
+            log.warn("段文件压缩失败: {}", e.getMessage());
+        }
+    }
+
+    private static String normalizeExt(String ext)
+    {
+        if (ext == null)
+        {
+            return null;
+        }
+        String e = ext.trim().toLowerCase(Locale.ROOT);
+        if ("jpeg".equals(e))
+        {
+            return "jpg";
+        }
+        return e.matches("[a-z0-9]{2,5}") && !"unknown".equals(e) ? e : null;
+    }
+}
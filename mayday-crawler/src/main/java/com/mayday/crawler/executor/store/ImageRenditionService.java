@@ -0,0 +1,516 @@
+package com.mayday.crawler.executor.store;
+
+import com.mayday.crawler.config.ImageRenditionConfig;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+
+/**
+ * 图片缩略图（渲染副本）
+ * <p>
+ * 缩略图按固定宽度档位生成，与原图存放在同一目录（同一存储后端）：{@code <原文件名去扩展名>_w<宽度>.jpg}（PNG/GIF 原图输出 PNG 以保留透明）。
+ * 访问地址为 {@code /crawler-images/_r/w<宽度>/<原图相对路径>}，首次请求时生成并落盘，之后直接返回文件；
+ * 原图不大于目标宽度或无法解码（WebP/ICO/SVG、CMYK JPEG 等）时返回原图。地址只由原图路径与宽度决定，
+ * 原图为内容寻址存储，因此响应可按不可变资源长期缓存。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ImageRenditionService
+{
+    /**
+     * 原图访问前缀（见 {@link com.mayday.crawler.config.WebMvcConfig}）
+     */
+    public static final String URL_PREFIX = "/crawler-images/";
+
+    /**
+     * 缩略图访问前缀
+     */
+    public static final String RENDITION_PREFIX = URL_PREFIX + "_r/";
+
+    /**
+     * 列表缩略图宽度（后台图片列表）
+     */
+    public static final int WIDTH_THUMB = 200;
+
+    /**
+     * 卡片封面宽度（后台封面网格、门户文章列表）
+     */
+    public static final int WIDTH_CARD = 400;
+
+    /**
+     * 大图宽度（文章详情头图）
+     */
+    public static final int WIDTH_LARGE = 800;
+
+    /**
+     * JDK 自带 ImageIO 可解码的格式
+     */
+    private static final Set<String> RENDERABLE = Set.of("jpg", "jpeg", "png", "gif", "bmp");
+
+    // 失败记录上限，超过后整体清空
+    private static final int MAX_FAILED_ENTRIES = 10000;
+
+    private final ImageRenditionConfig config;
+    private final ImageBlobStore imageBlobStore;
+
+    /**
+     * 图片存储根目录（兼容两种配置键）
+     */
+    @Value("${crawler.image.base-path:${crawler.image-base-path:./data/crawler-images}}")
+    private String imageBasePath;
+
+    private Semaphore renderPermits;
+
+    // 正在生成的缩略图，同一文件的并发请求等待同一次生成
+    private final Map<Path, CompletableFuture<BlobContent>> inflight = new ConcurrentHashMap<>();
+
+    // 生成失败的原图（无法解码），避免每次请求重复解码
+    private final Set<Path> failed = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    public void init()
+    {
+        int permits = config.getMaxConcurrentRenders() > 0
+                ? config.getMaxConcurrentRenders()
+                : Runtime.getRuntime().availableProcessors();
+        renderPermits = new Semaphore(Math.max(1, permits));
+    }
+
+    /**
+     * 原图访问地址对应的缩略图地址
+     *
+     * @param originalUrl 原图访问地址（{@code /crawler-images/...}），远程地址原样返回
+     * @param sourceWidth 原图宽度，未知时为 null
+     * @param width       页面需要的宽度
+     */
+    public String renditionUrl(String originalUrl, Integer sourceWidth, int width)
+    {
+        if (!config.isEnabled() || originalUrl == null || !originalUrl.startsWith(URL_PREFIX)
+                || originalUrl.startsWith(RENDITION_PREFIX))
+        {
+            return originalUrl;
+        }
+        int target = snapWidth(width);
+        if (target <= 0 || (sourceWidth != null && sourceWidth > 0 && sourceWidth <= target))
+        {
+            return originalUrl;
+        }
+        String ext = extension(originalUrl);
+        if (ext != null && !RENDERABLE.contains(ext))
+        {
+            return originalUrl;
+        }
+        return RENDITION_PREFIX + "w" + target + "/" + originalUrl.substring(URL_PREFIX.length());
+    }
+
+    /**
+     * 解析缩略图请求，必要时生成缩略图
+     *
+     * @param requestPath {@code w<宽度>/<原图相对路径>}
+     * @return 应返回的内容（缩略图或原图）；请求非法或原图不存在时返回 null
+     */
+    public BlobContent resolve(String requestPath) throws IOException
+    {
+        if (requestPath == null || !requestPath.startsWith("w"))
+        {
+            return null;
+        }
+        int slash = requestPath.indexOf('/');
+        if (slash < 2)
+        {
+            return null;
+        }
+        int width;
+        try
+        {
+            width = Integer.parseInt(requestPath.substring(1, slash));
+        }
+        catch (NumberFormatException e)
+        {
+            return null;
+        }
+        // 只接受配置的档位，避免按任意宽度生成文件
+        if (!config.getWidths().contains(width))
+        {
+            return null;
+        }
+        Path base = basePath();
+        Path sourcePath = base.resolve(requestPath.substring(slash + 1)).normalize();
+        if (!sourcePath.startsWith(base) || sourcePath.equals(base) || isRendition(sourcePath))
+        {
+            return null;
+        }
+        Path dir = sourcePath.getParent();
+        String fileName = sourcePath.getFileName().toString();
+        BlobContent source = imageBlobStore.open(dir, fileName);
+        if (source == null || !config.isEnabled())
+        {
+            return source;
+        }
+        return render(dir, fileName, source, width);
+    }
+
+    /**
+     * 为原图生成全部档位的缩略图（下载完成后调用，crawler.image-rendition.eager 开启时生效）
+     *
+     * @param sourceWidth 原图宽度，未知时为 null
+     */
+    public void renderAll(String filePath, String fileName, Integer sourceWidth)
+    {
+        if (!config.isEnabled() || !config.isEager() || filePath == null || fileName == null)
+        {
+            return;
+        }
+        String ext = extension(fileName);
+        if (ext != null && !RENDERABLE.contains(ext))
+        {
+            return;
+        }
+        Path dir = Paths.get(filePath).toAbsolutePath().normalize();
+        try
+        {
+            BlobContent source = imageBlobStore.open(dir, fileName);
+            for (Integer width : config.getWidths())
+            {
+                if (source != null && width != null && width > 0
+                        && (sourceWidth == null || sourceWidth <= 0 || sourceWidth > width))
+                {
+                    render(dir, fileName, source, width);
+                }
+            }
+        }
+        catch (IOException e)
+        {
+            log.warn("预生成缩略图失败: {}/{} - {}", dir, fileName, e.getMessage());
+        }
+    }
+
+    /**
+     * 删除原图对应的全部缩略图（原图被删除后调用）
+     */
+    public void deleteRenditions(Path dir, String fileName)
+    {
+        for (Integer width : config.getWidths())
+        {
+            for (String ext : List.of("jpg", "png"))
+            {
+                String key = stem(fileName) + "_w" + width + "." + ext;
+                try
+                {
+                    imageBlobStore.delete(dir, key);
+                }
+                catch (IOException e)
+                {
+                    log.warn("删除缩略图失败: {}/{} - {}", dir, key, e.getMessage());
+                }
+            }
+        }
+        failed.remove(dir.resolve(fileName));
+    }
+
+    /**
+     * 取不小于请求宽度的最小档位，超过全部档位时取最大档位
+     */
+    private int snapWidth(int width)
+    {
+        int best = -1;
+        int max = -1;
+        for (Integer w : config.getWidths())
+        {
+            if (w == null || w <= 0)
+            {
+                continue;
+            }
+            max = Math.max(max, w);
+            if (w >= width && (best < 0 || w < best))
+            {
+                best = w;
+            }
+        }
+        return best > 0 ? best : max;
+    }
+
+    private BlobContent render(Path dir, String fileName, BlobContent source, int width) throws IOException
+    {
+        String outputFormat = outputFormat(fileName);
+        String key = stem(fileName) + "_w" + width + "." + outputFormat;
+        Path sourceKey = dir.resolve(fileName);
+        Path target = dir.resolve(key);
+        // 内容寻址目录中文件名即内容，缩略图存在即可用；旧版目录中原图可能被覆盖，需比较修改时间
+        boolean immutable = imageBlobStore.isBlobPath(dir);
+        BlobContent existing = fresh(dir, key, source, immutable);
+        if (existing != null)
+        {
+            return existing;
+        }
+        if (failed.contains(sourceKey))
+        {
+            return source;
+        }
+
+        CompletableFuture<BlobContent> mine = new CompletableFuture<>();
+        CompletableFuture<BlobContent> running = inflight.putIfAbsent(target, mine);
+        if (running != null)
+        {
+            return running.join();
+        }
+        BlobContent result = source;
+        try
+        {
+            renderPermits.acquire();
+            try
+            {
+                existing = fresh(dir, key, source, immutable);
+                if (existing != null)
+                {
+                    result = existing;
+                }
+                else if (renderTo(sourceKey, source, dir, key, width, outputFormat))
+                {
+                    BlobContent rendered = imageBlobStore.open(dir, key);
+                    result = rendered != null ? rendered : source;
+                }
+            }
+            finally
+            {
+                renderPermits.release();
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+        catch (Exception | OutOfMemoryError e)
+        {
+            log.warn("生成缩略图失败，返回原图: {} (w{}) - {}", sourceKey, width, e.getMessage());
+            rememberFailure(sourceKey);
+        }
+        finally
+        {
+            mine.complete(result);
+            inflight.remove(target, mine);
+        }
+        return result;
+    }
+
+    /**
+     * 解码原图并把缩略图写入与原图相同的存储位置
+     *
+     * @return 是否生成了缩略图；原图不大于目标宽度或无可用解码器时返回 false
+     */
+    private boolean renderTo(Path sourceKey, BlobContent source, Path dir, String key, int width, String outputFormat)
+            throws IOException
+    {
+        BufferedImage decoded;
+        try (ImageInputStream in = source.isFile()
+                ? ImageIO.createImageInputStream(source.file().toFile())
+                : new MemoryCacheImageInputStream(source.inputStream()))
+        {
+            Iterator<ImageReader> readers = in != null ? ImageIO.getImageReaders(in) : null;
+            if (readers == null || !readers.hasNext())
+            {
+                rememberFailure(sourceKey);
+                return false;
+            }
+            ImageReader reader = readers.next();
+            try
+            {
+                reader.setInput(in, true, true);
+                int srcWidth = reader.getWidth(0);
+                if (srcWidth <= width)
+                {
+                    return false;
+                }
+                // 先按整数步长隔行隔列解码到目标宽度的 2-4 倍，大图不必整幅解码到内存
+                ImageReadParam param = reader.getDefaultReadParam();
+                int step = Math.max(1, srcWidth / (width * 2));
+                param.setSourceSubsampling(step, step, 0, 0);
+                decoded = reader.read(0, param);
+            }
+            finally
+            {
+                reader.dispose();
+            }
+        }
+
+        int height = Math.max(1, (int) Math.round((double) decoded.getHeight() * width / decoded.getWidth()));
+        BufferedImage scaled = scale(decoded, width, height, "png".equals(outputFormat));
+
+        Path tmp = imageBlobStore.stagingFile();
+        boolean placed = false;
+        try
+        {
+            write(scaled, tmp, outputFormat);
+            placed = imageBlobStore.put(dir, key, tmp);
+            log.debug("已生成缩略图: {} -> {}", sourceKey.getFileName(), key);
+            return true;
+        }
+        finally
+        {
+            if (!placed)
+            {
+                Files.deleteIfExists(tmp);
+            }
+        }
+    }
+
+    /**
+     * 逐次减半缩小到目标宽度的 2 倍以内，再双线性插值到目标尺寸（一次大比例缩小会丢细节、出锯齿）
+     */
+    private static BufferedImage scale(BufferedImage src, int width, int height, boolean alpha)
+    {
+        int type = alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        BufferedImage current = src;
+        while (current.getWidth() / 2 >= width)
+        {
+            current = draw(current, current.getWidth() / 2, Math.max(1, current.getHeight() / 2), type, alpha);
+        }
+        return draw(current, width, height, type, alpha);
+    }
+
+    private static BufferedImage draw(BufferedImage src, int width, int height, int type, boolean alpha)
+    {
+        BufferedImage out = new BufferedImage(width, height, type);
+        Graphics2D g = out.createGraphics();
+        try
+        {
+            if (!alpha)
+            {
+                // 透明区域输出 JPEG 时铺白底，避免变黑
+                g.setColor(Color.WHITE);
+                g.fillRect(0, 0, width, height);
+            }
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(src, 0, 0, width, height, null);
+        }
+        finally
+        {
+            g.dispose();
+        }
+        return out;
+    }
+
+    private void write(BufferedImage image, Path target, String outputFormat) throws IOException
+    {
+        if ("png".equals(outputFormat))
+        {
+            if (!ImageIO.write(image, "png", target.toFile()))
+            {
+                throw new IOException("无可用的 PNG 编码器");
+            }
+            return;
+        }
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName("jpeg");
+        if (!writers.hasNext())
+        {
+            throw new IOException("无可用的 JPEG 编码器");
+        }
+        ImageWriter writer = writers.next();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(target.toFile()))
+        {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(Math.min(Math.max(config.getJpegQuality(), 0.1f), 1f));
+            param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+            writer.setOutput(out);
+            writer.write(null, new IIOImage(image, null, null), param);
+        }
+        finally
+        {
+            writer.dispose();
+        }
+    }
+
+    /**
+     * 已有且可用的缩略图：内容寻址目录中存在即可用，旧版目录中需不早于原图
+     */
+    private BlobContent fresh(Path dir, String key, BlobContent source, boolean immutable) throws IOException
+    {
+        BlobContent existing = imageBlobStore.open(dir, key);
+        if (existing != null && (immutable || existing.lastModified() >= source.lastModified()))
+        {
+            return existing;
+        }
+        return null;
+    }
+
+    private boolean isRendition(Path path)
+    {
+        String name = path.getFileName().toString();
+        for (Integer width : config.getWidths())
+        {
+            if (name.endsWith("_w" + width + ".jpg") || name.endsWith("_w" + width + ".png"))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void rememberFailure(Path source)
+    {
+        if (failed.size() >= MAX_FAILED_ENTRIES)
+        {
+            failed.clear();
+        }
+        failed.add(source);
+    }
+
+    private Path basePath()
+    {
+        return Paths.get(imageBasePath).toAbsolutePath().normalize();
+    }
+
+    private static String outputFormat(String fileName)
+    {
+        String ext = extension(fileName);
+        return "png".equals(ext) || "gif".equals(ext) ? "png" : "jpg";
+    }
+
+    private static String stem(String fileName)
+    {
+        int dot = fileName.lastIndexOf('.');
+        return dot > 0 ? fileName.substring(0, dot) : fileName;
+    }
+
+    private static String extension(String name)
+    {
+        int slash = name.lastIndexOf('/');
+        int dot = name.lastIndexOf('.');
+        if (dot <= slash + 1 || dot == name.length() - 1)
+        {
+            return null;
+        }
+        return name.substring(dot + 1).toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,373 @@
+package com.mayday.crawler.executor.store;
+
+import com.mayday.crawler.config.ImageServingConfig;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.HttpRequestHandler;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.util.UriUtils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.regex.Pattern;
+
+/**
+ * 爬虫图片访问（/crawler-images/**）
+ * <p>
+ * 原图按存储相对路径访问（段文件存储为 {@code packs/<key>}），缩略图走 {@code _r/w<宽度>/<原图相对路径>}（见 {@link ImageRenditionService}）。
+ * 内容寻址存储中的文件名即内容 MD5（与 crawler_image.md5 一致），直接作为强 ETag，并按不可变资源长期缓存；
+ * 旧版任务目录中的图片用大小与修改时间生成弱 ETag。支持 If-None-Match / If-Modified-Since 返回 304、
+ * 单段 Range（含 If-Range）返回 206。较大文件交给 Tomcat sendfile 零拷贝发送，其余用 FileChannel.transferTo 写出；
+ * 段文件存储中的图片直接写出内存映射切片。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ImageServingHandler implements HttpRequestHandler
+{
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    /**
+     * 内容寻址文件名：{@code <md5>[_w<宽度>][.<扩展名>]}
+     */
+    private static final Pattern CONTENT_ADDRESSED = Pattern.compile("[0-9a-f]{32}(_w\\d+)?(\\.[a-z0-9]+)?");
+
+    /**
+     * Range 无法满足（416）
+     */
+    private static final long[] UNSATISFIABLE = new long[0];
+
+    private static final String RENDITION_PATH = "_r/";
+
+    private final ImageServingConfig config;
+    private final ImageBlobStore imageBlobStore;
+    private final ImageRenditionService renditionService;
+
+    /**
+     * 图片存储根目录（兼容两种配置键）
+     */
+    @Value("${crawler.image.base-path:${crawler.image-base-path:./data/crawler-images}}")
+    private String imageBasePath;
+
+    @Override
+    public void handleRequest(HttpServletRequest request, HttpServletResponse response) throws IOException
+    {
+        boolean head = "HEAD".equals(request.getMethod());
+        if (!head && !"GET".equals(request.getMethod()))
+        {
+            response.setHeader(HttpHeaders.ALLOW, "GET, HEAD");
+            response.sendError(HttpServletResponse.SC_METHOD_NOT_ALLOWED);
+            return;
+        }
+
+        String path = decodePath((String) request.getAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE));
+        Path dir = path != null ? sourceDir(path) : null;
+        BlobContent content = dir != null ? resolveContent(path, dir) : null;
+        if (content == null)
+        {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        long length = content.length();
+        long lastModified = content.lastModified();
+        String fileName = content.name();
+        boolean immutable = imageBlobStore.isBlobPath(dir) && CONTENT_ADDRESSED.matcher(fileName).matches();
+        String etag = immutable
+                ? "\"" + stem(fileName) + "\""
+                : "W/\"" + Long.toHexString(length) + "-" + Long.toHexString(lastModified) + "\"";
+
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, immutable
+                ? "public, max-age=" + config.getImmutableMaxAgeSeconds() + ", immutable"
+                : "public, max-age=" + config.getMutableMaxAgeSeconds());
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader("X-Content-Type-Options", "nosniff");
+
+        if (notModified(request, etag, lastModified))
+        {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        response.setContentType(MediaTypeFactory.getMediaType(fileName)
+                .orElse(MediaType.APPLICATION_OCTET_STREAM).toString());
+
+        long start = 0;
+        long end = length - 1;
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader != null && ifRangeMatches(request, etag, lastModified))
+        {
+            long[] range = parseRange(rangeHeader, length);
+            if (range == UNSATISFIABLE)
+            {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            if (range != null)
+            {
+                start = range[0];
+                end = range[1];
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            }
+        }
+
+        long count = end - start + 1;
+        response.setContentLengthLong(count);
+        if (head || count <= 0)
+        {
+            return;
+        }
+
+        if (!content.isFile())
+        {
+            // 段文件存储：直接写出内存映射切片
+            try
+            {
+                WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+                ByteBuffer slice = content.buffer().slice((int) start, (int) count);
+                while (slice.hasRemaining())
+                {
+                    out.write(slice);
+                }
+            }
+            catch (IOException e)
+            {
+                log.debug("图片响应中断: {} - {}", fileName, e.getMessage());
+            }
+            return;
+        }
+
+        // 由容器在响应提交后以 sendfile 发送，数据不经过 JVM 堆
+        if (count >= config.getSendfileThreshold() && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT)))
+        {
+            request.setAttribute(SENDFILE_FILENAME, content.file().toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(content.file(), StandardOpenOption.READ))
+        {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = count;
+            while (remaining > 0)
+            {
+                long written = channel.transferTo(position, remaining, out);
+                if (written <= 0)
+                {
+                    break;
+                }
+                position += written;
+                remaining -= written;
+            }
+        }
+        catch (IOException e)
+        {
+            // 多为客户端中途断开（图片墙滚动时浏览器会取消请求）
+            log.debug("图片响应中断: {} - {}", fileName, e.getMessage());
+        }
+    }
+
+    /**
+     * 解码映射内路径；含隐藏段（暂存目录、生成中的临时文件）时返回 null
+     */
+    private static String decodePath(String pathWithinMapping)
+    {
+        if (pathWithinMapping == null || pathWithinMapping.isEmpty())
+        {
+            return null;
+        }
+        String path = UriUtils.decode(pathWithinMapping, StandardCharsets.UTF_8);
+        for (String segment : path.split("/"))
+        {
+            if (segment.startsWith("."))
+            {
+                return null;
+            }
+        }
+        return path;
+    }
+
+    /**
+     * 原图所在目录（缩略图请求取其原图的目录）；越界时返回 null
+     */
+    private Path sourceDir(String path)
+    {
+        String relative = path;
+        if (path.startsWith(RENDITION_PATH))
+        {
+            int slash = path.indexOf('/', RENDITION_PATH.length());
+            if (slash < 0)
+            {
+                return null;
+            }
+            relative = path.substring(slash + 1);
+        }
+        Path base = Paths.get(imageBasePath).toAbsolutePath().normalize();
+        Path file = base.resolve(relative).normalize();
+        return file.startsWith(base) && !file.equals(base) ? file.getParent() : null;
+    }
+
+    private BlobContent resolveContent(String path, Path dir) throws IOException
+    {
+        if (path.startsWith(RENDITION_PATH))
+        {
+            return renditionService.resolve(path.substring(RENDITION_PATH.length()));
+        }
+        return imageBlobStore.open(dir, Paths.get(path).getFileName().toString());
+    }
+
+    /**
+     * 条件请求判定：有 If-None-Match 时只看 ETag（弱比较），否则看 If-Modified-Since
+     */
+    private static boolean notModified(HttpServletRequest request, String etag, long lastModified)
+    {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null)
+        {
+            return etagMatches(ifNoneMatch, etag, false);
+        }
+        long ifModifiedSince = dateHeader(request, HttpHeaders.IF_MODIFIED_SINCE);
+        return ifModifiedSince >= 0 && lastModified / 1000 * 1000 <= ifModifiedSince;
+    }
+
+    /**
+     * If-Range 不存在、或其 ETag（强比较）/日期与当前文件一致时才按 Range 返回
+     */
+    private static boolean ifRangeMatches(HttpServletRequest request, String etag, long lastModified)
+    {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null)
+        {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/"))
+        {
+            return etagMatches(ifRange, etag, true);
+        }
+        long date = dateHeader(request, HttpHeaders.IF_RANGE);
+        return date >= 0 && lastModified / 1000 * 1000 <= date;
+    }
+
+    private static boolean etagMatches(String header, String etag, boolean strong)
+    {
+        if (strong && etag.startsWith("W/"))
+        {
+            return false;
+        }
+        String opaque = etag.startsWith("W/") ? etag.substring(2) : etag;
+        for (String candidate : header.split(","))
+        {
+            String c = candidate.trim();
+            if ("*".equals(c))
+            {
+                return !strong;
+            }
+            if (c.startsWith("W/"))
+            {
+                if (strong)
+                {
+                    continue;
+                }
+                c = c.substring(2);
+            }
+            if (c.equals(opaque))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 解析单段 Range：{@code bytes=a-b}、{@code bytes=a-}、{@code bytes=-n}
+     *
+     * @return 闭区间 [start, end]；多段或格式不合法时返回 null（按整文件响应）；起点超出文件时返回 {@link #UNSATISFIABLE}
+     */
+    private static long[] parseRange(String header, long length)
+    {
+        if (!header.startsWith("bytes="))
+        {
+            return null;
+        }
+        String spec = header.substring(6).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0 || spec.indexOf(',') >= 0)
+        {
+            return null;
+        }
+        try
+        {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            if (first.isEmpty())
+            {
+                if (last.isEmpty())
+                {
+                    return null;
+                }
+                long suffix = Long.parseLong(last);
+                if (suffix <= 0 || length == 0)
+                {
+                    return UNSATISFIABLE;
+                }
+                return new long[]{Math.max(0, length - suffix), length - 1};
+            }
+            long start = Long.parseLong(first);
+            long end = last.isEmpty() ? Long.MAX_VALUE : Long.parseLong(last);
+            if (start < 0 || end < start)
+            {
+                return null;
+            }
+            if (start >= length)
+            {
+                return UNSATISFIABLE;
+            }
+            return new long[]{start, Math.min(end, length - 1)};
+        }
+        catch (NumberFormatException e)
+        {
+            return null;
+        }
+    }
+
+    private static long dateHeader(HttpServletRequest request, String name)
+    {
+        try
+        {
+            return request.getDateHeader(name);
+        }
+        catch (IllegalArgumentException e)
+        {
+            return -1;
+        }
+    }
+
+    private static String stem(String fileName)
+    {
+        int dot = fileName.lastIndexOf('.');
+        return dot > 0 ? fileName.substring(0, dot) : fileName;
+    }
+}
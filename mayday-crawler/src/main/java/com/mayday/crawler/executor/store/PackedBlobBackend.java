@@ -0,0 +1,628 @@
+package com.mayday.crawler.executor.store;
+
+import com.mayday.crawler.config.ImageStoreConfig;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * 段文件图片存储
+ * <p>
+ * 图片追加写入 {@code <root>/seg-NNNNNN.dat}，每条记录为
+ * {@code [magic:int][type:byte][keyLen:short][key][dataLen:int][data]}，删除时追加一条 DELETE 记录。
+ * 内存索引保存 key → (段号, 数据偏移, 长度)，定期写入 {@code index.dat} 快照（含快照时的写入位置），
+ * 启动时加载快照后只重放其后的记录；快照缺失或损坏时全量扫描段文件重建。末尾不完整的记录（写入中断）会被截掉。
+ * <p>
+ * 读取返回段文件内存映射的只读切片，不复制数据。段内已删除数据占比达到阈值时由 {@link #compact()}
+ * 把存活记录搬到当前段，保存快照后删除旧段。写入、删除与压缩互斥，读取不加锁。
+ */
+@Slf4j
+public class PackedBlobBackend implements BlobBackend, Closeable
+{
+    public static final String NAME = "packed";
+
+    private static final int MAGIC = 0x4D425031;
+    private static final int INDEX_MAGIC = 0x4D494458;
+    private static final int INDEX_VERSION = 1;
+    private static final byte TYPE_PUT = 1;
+    private static final byte TYPE_DELETE = 2;
+    private static final int FIXED_HEADER = 4 + 1 + 2 + 4;
+    private static final String INDEX_FILE = "index.dat";
+    private static final Pattern SEGMENT_NAME = Pattern.compile("seg-(\\d{6})\\.dat");
+
+    /**
+     * 记录位置
+     *
+     * @param segment 段号
+     * @param offset  数据在段内的偏移
+     * @param length  数据长度
+     */
+    record Location(int segment, int offset, int length)
+    {
+    }
+
+    private final Path root;
+    private final ImageStoreConfig config;
+    private final long segmentMaxBytes;
+    private final Map<String, Location> index = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Integer, Segment> segments = new ConcurrentSkipListMap<>();
+
+    private Segment active;
+    private int opsSinceSnapshot;
+
+    public PackedBlobBackend(Path root, ImageStoreConfig config)
+    {
+        this.root = root.toAbsolutePath().normalize();
+        this.config = config;
+        this.segmentMaxBytes = Math.min(Math.max(config.getSegmentMaxBytes(), 1024 * 1024), Integer.MAX_VALUE);
+    }
+
+    /**
+     * 打开段文件并加载索引
+     */
+    public synchronized PackedBlobBackend open() throws IOException
+    {
+        Files.createDirectories(root);
+        try (Stream<Path> files = Files.list(root))
+        {
+            for (Path file : (Iterable<Path>) files::iterator)
+            {
+                Matcher m = SEGMENT_NAME.matcher(file.getFileName().toString());
+                if (m.matches())
+                {
+                    int id = Integer.parseInt(m.group(1));
+                    segments.put(id, new Segment(id, file));
+                }
+            }
+        }
+
+        int fromSegment = segments.isEmpty() ? 1 : segments.firstKey();
+        long fromOffset = 0;
+        long[] mark = loadSnapshot();
+        if (mark != null)
+        {
+            fromSegment = (int) mark[0];
+            fromOffset = mark[1];
+        }
+        int replayed = 0;
+        for (Segment segment : segments.tailMap(fromSegment, true).values())
+        {
+            replayed += replay(segment, segment.id == fromSegment ? fromOffset : 0);
+        }
+        for (Map.Entry<String, Location> entry : index.entrySet())
+        {
+            Segment segment = segments.get(entry.getValue().segment());
+            if (segment != null)
+            {
+                segment.live += recordSize(entry.getKey(), entry.getValue().length());
+            }
+        }
+
+        active = segments.isEmpty() ? createSegment(1) : segments.lastEntry().getValue();
+        log.info("段文件图片存储已加载: {} 个段, {} 张图片（快照{}，重放 {} 条记录）", segments.size(), index.size(),
+                mark != null ? "命中" : "缺失", replayed);
+        return this;
+    }
+
+    @Override
+    public String name()
+    {
+        return NAME;
+    }
+
+    @Override
+    public Path dirFor(String key)
+    {
+        return root;
+    }
+
+    @Override
+    public boolean owns(Path dir)
+    {
+        return dir.toAbsolutePath().normalize().startsWith(root);
+    }
+
+    @Override
+    public boolean contains(String key)
+    {
+        return index.containsKey(key);
+    }
+
+    @Override
+    public synchronized boolean put(String key, Path staged) throws IOException
+    {
+        if (index.containsKey(key))
+        {
+            return false;
+        }
+        long size = Files.size(staged);
+        if (size > segmentMaxBytes - recordSize(key, 0))
+        {
+            throw new IOException("图片超过段文件大小上限: " + size);
+        }
+        try (FileChannel source = FileChannel.open(staged, StandardOpenOption.READ))
+        {
+            append(TYPE_PUT, key, source, (int) size);
+        }
+        Files.deleteIfExists(staged);
+        return true;
+    }
+
+    @Override
+    public BlobContent open(String key) throws IOException
+    {
+        // 压缩可能刚把记录搬到新段，旧段已移除时按新位置重读一次
+        for (int attempt = 0; attempt < 2; attempt++)
+        {
+            Location location = index.get(key);
+            if (location == null)
+            {
+                return null;
+            }
+            Segment segment = segments.get(location.segment());
+            if (segment != null)
+            {
+                ByteBuffer slice = segment.slice(location.offset(), location.length());
+                return new BlobContent(key, null, slice, location.length(), segment.lastModified);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public synchronized boolean delete(String key) throws IOException
+    {
+        Location location = index.get(key);
+        if (location == null)
+        {
+            return false;
+        }
+        append(TYPE_DELETE, key, null, 0);
+        return true;
+    }
+
+    /**
+     * 压缩已删除数据占比达到阈值的旧段
+     *
+     * @return 回收的字节数
+     */
+    public long compact() throws IOException
+    {
+        List<Segment> candidates = new ArrayList<>();
+        synchronized (this)
+        {
+            for (Segment segment : segments.values())
+            {
+                if (segment != active && segment.size > 0
+                        && 1.0 - (double) segment.live / segment.size >= config.getCompactDeadRatio())
+                {
+                    candidates.add(segment);
+                }
+            }
+        }
+        if (candidates.isEmpty())
+        {
+            return 0;
+        }
+
+        Map<Integer, List<String>> liveKeys = new HashMap<>();
+        for (Segment segment : candidates)
+        {
+            liveKeys.put(segment.id, new ArrayList<>());
+        }
+        for (Map.Entry<String, Location> entry : index.entrySet())
+        {
+            List<String> keys = liveKeys.get(entry.getValue().segment());
+            if (keys != null)
+            {
+                keys.add(entry.getKey());
+            }
+        }
+
+        long reclaimed = 0;
+        for (Segment segment : candidates)
+        {
+            reclaimed += segment.size - segment.live;
+            for (String key : liveKeys.get(segment.id))
+            {
+                synchronized (this)
+                {
+                    Location location = index.get(key);
+                    if (location != null && location.segment() == segment.id)
+                    {
+                        ByteBuffer data = segment.slice(location.offset(), location.length());
+                        appendBuffer(key, data);
+                    }
+                }
+            }
+        }
+
+        // 先让新位置落盘并写入快照，再删除旧段；中途崩溃时旧段仍在，重放后以新位置为准
+        snapshot();
+        synchronized (this)
+        {
+            for (Segment segment : candidates)
+            {
+                segments.remove(segment.id);
+                segment.close();
+                Files.deleteIfExists(segment.file);
+            }
+        }
+        log.info("段文件压缩完成: 删除 {} 个段, 回收 {} 字节", candidates.size(), reclaimed);
+        return reclaimed;
+    }
+
+    /**
+     * 保存索引快照（先刷盘当前段，保证快照引用的数据都已落盘）
+     */
+    public void snapshot() throws IOException
+    {
+        List<Map.Entry<String, Location>> entries;
+        int markSegment;
+        long markOffset;
+        synchronized (this)
+        {
+            active.channel.force(false);
+            markSegment = active.id;
+            markOffset = active.size;
+            entries = new ArrayList<>(index.entrySet());
+            opsSinceSnapshot = 0;
+        }
+        Path tmp = root.resolve(INDEX_FILE + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16)))
+        {
+            out.writeInt(INDEX_MAGIC);
+            out.writeInt(INDEX_VERSION);
+            out.writeInt(markSegment);
+            out.writeLong(markOffset);
+            out.writeInt(entries.size());
+            for (Map.Entry<String, Location> entry : entries)
+            {
+                out.writeUTF(entry.getKey());
+                out.writeInt(entry.getValue().segment());
+                out.writeInt(entry.getValue().offset());
+                out.writeInt(entry.getValue().length());
+            }
+        }
+        try
+        {
+            Files.move(tmp, root.resolve(INDEX_FILE), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch (AtomicMoveNotSupportedException e)
+        {
+            Files.move(tmp, root.resolve(INDEX_FILE), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException
+    {
+        if (active == null)
+        {
+            return;
+        }
+        snapshot();
+        for (Segment segment : segments.values())
+        {
+            segment.close();
+        }
+        // 重复关闭时不再写快照（段文件通道已关闭）
+        active = null;
+    }
+
+    /**
+     * 追加一条记录（调用方持有锁）
+     */
+    private void append(byte type, String key, FileChannel source, int dataLength) throws IOException
+    {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        int recordSize = FIXED_HEADER + keyBytes.length + dataLength;
+        Segment segment = writableSegment(recordSize);
+        int offset = (int) segment.size;
+
+        writeFully(segment.channel, header(type, keyBytes, dataLength), offset);
+        int dataOffset = offset + FIXED_HEADER + keyBytes.length;
+        long copied = 0;
+        while (copied < dataLength)
+        {
+            long n = segment.channel.transferFrom(source, dataOffset + copied, dataLength - copied);
+            if (n <= 0)
+            {
+                throw new IOException("暂存文件读取不完整: " + key);
+            }
+            copied += n;
+        }
+        committed(segment, type, key, dataOffset, dataLength, recordSize);
+    }
+
+    /**
+     * 追加一条来自内存切片的 PUT 记录（压缩搬迁，调用方持有锁）
+     */
+    private void appendBuffer(String key, ByteBuffer data) throws IOException
+    {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        int dataLength = data.remaining();
+        int recordSize = FIXED_HEADER + keyBytes.length + dataLength;
+        Segment segment = writableSegment(recordSize);
+        int offset = (int) segment.size;
+
+        writeFully(segment.channel, header(TYPE_PUT, keyBytes, dataLength), offset);
+        int dataOffset = offset + FIXED_HEADER + keyBytes.length;
+        writeFully(segment.channel, data, dataOffset);
+        committed(segment, TYPE_PUT, key, dataOffset, dataLength, recordSize);
+    }
+
+    private void committed(Segment segment, byte type, String key, int dataOffset, int dataLength, int recordSize)
+            throws IOException
+    {
+        if (config.isFsync())
+        {
+            segment.channel.force(false);
+        }
+        segment.size += recordSize;
+        segment.lastModified = System.currentTimeMillis();
+        if (type == TYPE_PUT)
+        {
+            segment.live += recordSize;
+            Location previous = index.put(key, new Location(segment.id, dataOffset, dataLength));
+            release(key, previous);
+        }
+        else
+        {
+            release(key, index.remove(key));
+        }
+        if (++opsSinceSnapshot >= Math.max(1, config.getSnapshotEveryOps()))
+        {
+            snapshot();
+        }
+    }
+
+    private void release(String key, Location previous)
+    {
+        if (previous == null)
+        {
+            return;
+        }
+        Segment old = segments.get(previous.segment());
+        if (old != null)
+        {
+            old.live -= recordSize(key, previous.length());
+        }
+    }
+
+    private Segment writableSegment(int recordSize) throws IOException
+    {
+        if (active.size + recordSize > segmentMaxBytes && active.size > 0)
+        {
+            active.channel.force(false);
+            active = createSegment(active.id + 1);
+        }
+        return active;
+    }
+
+    private Segment createSegment(int id) throws IOException
+    {
+        Segment segment = new Segment(id, root.resolve(String.format("seg-%06d.dat", id)));
+        segments.put(id, segment);
+        return segment;
+    }
+
+    /**
+     * 从指定偏移重放段内记录，返回重放条数；遇到不完整或损坏的记录时截断到最后一条完整记录
+     */
+    private int replay(Segment segment, long from) throws IOException
+    {
+        long position = from;
+        int count = 0;
+        ByteBuffer fixed = ByteBuffer.allocate(7);
+        ByteBuffer length = ByteBuffer.allocate(4);
+        while (position < segment.size)
+        {
+            fixed.clear();
+            if (!readFully(segment.channel, fixed, position) || fixed.getInt(0) != MAGIC)
+            {
+                break;
+            }
+            byte type = fixed.get(4);
+            int keyLength = fixed.getShort(5) & 0xFFFF;
+            ByteBuffer keyBuffer = ByteBuffer.allocate(keyLength);
+            length.clear();
+            if (!readFully(segment.channel, keyBuffer, position + 7)
+                    || !readFully(segment.channel, length, position + 7 + keyLength))
+            {
+                break;
+            }
+            int dataLength = length.getInt(0);
+            long dataOffset = position + FIXED_HEADER + keyLength;
+            if (dataLength < 0 || dataOffset + dataLength > segment.size)
+            {
+                break;
+            }
+            String key = new String(keyBuffer.array(), StandardCharsets.UTF_8);
+            if (type == TYPE_PUT)
+            {
+                index.put(key, new Location(segment.id, (int) dataOffset, dataLength));
+            }
+            else if (type == TYPE_DELETE)
+            {
+                index.remove(key);
+            }
+            position = dataOffset + dataLength;
+            count++;
+        }
+        if (position < segment.size)
+        {
+            log.warn("段文件 {} 在偏移 {} 处记录不完整，截断 {} 字节", segment.file.getFileName(), position,
+                    segment.size - position);
+            segment.channel.truncate(position);
+            segment.size = position;
+        }
+        return count;
+    }
+
+    /**
+     * 加载索引快照，返回快照时的写入位置 [段号, 偏移]；快照缺失、损坏或引用了不存在的段时返回 null（全量重放）
+     */
+    private long[] loadSnapshot()
+    {
+        Path file = root.resolve(INDEX_FILE);
+        if (!Files.isRegularFile(file))
+        {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16)))
+        {
+            if (in.readInt() != INDEX_MAGIC || in.readInt() != INDEX_VERSION)
+            {
+                return null;
+            }
+            int markSegment = in.readInt();
+            long markOffset = in.readLong();
+            int count = in.readInt();
+            Map<String, Location> loaded = new HashMap<>(Math.max(16, count * 4 / 3 + 1));
+            for (int i = 0; i < count; i++)
+            {
+                String key = in.readUTF();
+                Location location = new Location(in.readInt(), in.readInt(), in.readInt());
+                Segment segment = segments.get(location.segment());
+                if (segment == null || location.offset() + (long) location.length() > segment.size)
+                {
+                    log.warn("索引快照引用的段不存在或已截断，改为全量扫描: {}", location);
+                    return null;
+                }
+                loaded.put(key, location);
+            }
+            Segment markAt = segments.get(markSegment);
+            if (markAt == null ? !segments.isEmpty() : markOffset > markAt.size)
+            {
+                log.warn("索引快照位置无效，改为全量扫描: 段 {} 偏移 {}", markSegment, markOffset);
+                return null;
+            }
+            index.putAll(loaded);
+            return new long[]{markSegment, markOffset};
+        }
+        catch (IOException e)
+        {
+            log.warn("读取索引快照失败，改为全量扫描: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private static ByteBuffer header(byte type, byte[] key, int dataLength)
+    {
+        ByteBuffer header = ByteBuffer.allocate(FIXED_HEADER + key.length);
+        header.putInt(MAGIC).put(type).putShort((short) key.length).put(key).putInt(dataLength);
+        header.flip();
+        return header;
+    }
+
+    private static int recordSize(String key, int dataLength)
+    {
+        return FIXED_HEADER + key.getBytes(StandardCharsets.UTF_8).length + dataLength;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException
+    {
+        long p = position;
+        while (buffer.hasRemaining())
+        {
+            p += channel.write(buffer, p);
+        }
+    }
+
+    private static boolean readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException
+    {
+        long p = position;
+        while (buffer.hasRemaining())
+        {
+            int n = channel.read(buffer, p);
+            if (n < 0)
+            {
+                return false;
+            }
+            p += n;
+        }
+        return true;
+    }
+
+    /**
+     * 段文件：写入走 FileChannel，读取走只读内存映射（当前段追加后按需重新映射）
+     */
+    private static class Segment
+    {
+        final int id;
+        final Path file;
+        final FileChannel channel;
+        volatile long size;
+        volatile long lastModified;
+        long live;
+        private volatile MappedByteBuffer mapped;
+
+        Segment(int id, Path file) throws IOException
+        {
+            this.id = id;
+            this.file = file;
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            this.size = channel.size();
+            this.lastModified = Files.getLastModifiedTime(file).toMillis();
+        }
+
+        ByteBuffer slice(int offset, int length) throws IOException
+        {
+            MappedByteBuffer map = mapped;
+            if (map == null || map.capacity() < offset + length)
+            {
+                map = remap(offset + length);
+            }
+            return map.slice(offset, length).asReadOnlyBuffer();
+        }
+
+        private synchronized MappedByteBuffer remap(long required) throws IOException
+        {
+            MappedByteBuffer map = mapped;
+            if (map == null || map.capacity() < required)
+            {
+                map = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                mapped = map;
+            }
+            return map;
+        }
+
+        void close()
+        {
+            try
+            {
+                channel.close();
+            }
+            catch (IOException e)
+            {
+                log.warn("关闭段文件失败: {} - {}", file, e.getMessage());
+            }
+        }
+    }
+}
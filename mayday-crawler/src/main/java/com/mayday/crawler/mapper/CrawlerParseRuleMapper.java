@@ -0,0 +1,15 @@
+package com.mayday.crawler.mapper;
+
+import com.mayday.crawler.modl.entity.CrawlerParseRuleEntity;
+import com.mybatisflex.core.BaseMapper;
+import org.apache.ibatis.annotations.Mapper;
+
+/**
+ * 解析规则 Mapper
+ *
+ * @author Antigravity
+ * @since 1.0.0
+ */
+@Mapper
+public interface CrawlerParseRuleMapper extends BaseMapper<CrawlerParseRuleEntity> {
+}
@@ -0,0 +1,15 @@
+package com.mayday.crawler.mapper;
+
+import com.mayday.crawler.modl.entity.CrawlerUrlQueueEntity;
+import com.mybatisflex.core.BaseMapper;
+import org.apache.ibatis.annotations.Mapper;
+
+/**
+ * URL队列 Mapper
+ *
+ * @author Antigravity
+ * @since 1.0.0
+ */
+@Mapper
+public interface CrawlerUrlQueueMapper extends BaseMapper<CrawlerUrlQueueEntity> {
+}
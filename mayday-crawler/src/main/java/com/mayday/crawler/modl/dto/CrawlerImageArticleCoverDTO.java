@@ -26,6 +26,7 @@ public class CrawlerImageArticleCoverDTO {
     private String coverFilePath;
     private String coverFileName;
     private String coverDownloadStatus;
+    private Integer coverWidth;
 
     private Long imageCount;
 }
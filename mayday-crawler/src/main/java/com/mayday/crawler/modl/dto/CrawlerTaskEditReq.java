@@ -32,8 +32,15 @@ public class CrawlerTaskEditReq {
     private Integer randomInterval;
     private Integer rotateUserAgent;
     private Integer listMaxPages;
+    private Integer maxUrls;
     private Integer downloadImages;
+    private Integer incremental;
+    private Integer useSitemap;
+    private Integer respectRobots;
+    private Integer distributed;
     private String contentSelector;
     private String imageSelector;
     private String excludeSelector;
+    private String articleUrlPatterns;
+    private String excludeUrlPatterns;
 }
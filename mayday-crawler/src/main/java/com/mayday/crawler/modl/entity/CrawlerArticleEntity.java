@@ -68,6 +68,12 @@ public class CrawlerArticleEntity {
     @Schema(description = "是否已更新：0-否 1-是")
     private Integer isUpdated;
 
+    @Schema(description = "响应头 ETag（增量爬取条件请求）")
+    private String etag;
+
+    @Schema(description = "响应头 Last-Modified（增量爬取条件请求）")
+    private String lastModified;
+
     @Schema(description = "创建时间")
     private Date createTime;
 
@@ -32,7 +32,7 @@ public class CrawlerParseRuleEntity {
     @Schema(description = "规则类型：TITLE-标题 CONTENT-正文 AUTHOR-作者 PUBLISH_TIME-发布时间")
     private String ruleType;
 
-    @Schema(description = "解析方法：CSS_SELECTOR XPATH")
+    @Schema(description = "解析方法：CSS_SELECTOR XPATH REGEX")
     private String ruleMethod;
 
     @Schema(description = "规则值")
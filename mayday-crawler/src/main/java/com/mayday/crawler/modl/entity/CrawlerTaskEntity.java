@@ -88,9 +88,24 @@ public class CrawlerTaskEntity implements Serializable {
     @Schema(description = "列表页最大翻页数（仅列表页场景，默认1）")
     private Integer listMaxPages;
 
+    @Schema(description = "最大爬取URL数（为空时使用全局默认值）")
+    private Integer maxUrls;
+
     @Schema(description = "是否下载图片：0-否 1-是")
     private Integer downloadImages;
 
+    @Schema(description = "是否增量爬取：0-否 1-是（条件请求 + 内容哈希，未变化的文章不重复写入）")
+    private Integer incremental;
+
+    @Schema(description = "是否从 sitemap 播种：0-否 1-是（读取 robots.txt 声明的或站点根目录的 sitemap，直接入队详情页）")
+    private Integer useSitemap;
+
+    @Schema(description = "是否遵守 robots.txt：0-否 1-是（跳过禁止抓取的路径，并采用更长的 Crawl-delay）")
+    private Integer respectRobots;
+
+    @Schema(description = "是否分布式执行：0-否 1-是（URL队列与去重集合存放在 Redis，多个节点共同抓取）")
+    private Integer distributed;
+
     @Schema(description = "正文容器选择器（CSS选择器，用于定位正文区域，如：#conttpc, .content, article等）")
     private String contentSelector;
 
@@ -100,6 +115,12 @@ public class CrawlerTaskEntity implements Serializable {
     @Schema(description = "排除选择器（CSS选择器，用于排除不需要的区域，如：.related, .recommend, aside等）")
     private String excludeSelector;
 
+    @Schema(description = "文章链接规则（URL包含即视为文章链接，换行或逗号分隔，与内置规则合并）")
+    private String articleUrlPatterns;
+
+    @Schema(description = "排除链接规则（URL包含即不视为文章链接，换行或逗号分隔，与内置规则合并）")
+    private String excludeUrlPatterns;
+
     @Schema(description = "任务状态：NOT_STARTED-未启动 RUNNING-运行中 PAUSED-已暂停 COMPLETED-已完成 ERROR-异常 STOPPED-已停止")
     private String status;
 
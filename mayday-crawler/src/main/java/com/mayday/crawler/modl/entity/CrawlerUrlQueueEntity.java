@@ -41,7 +41,10 @@ public class CrawlerUrlQueueEntity {
     @Schema(description = "优先级（数字越大优先级越高）")
     private Integer priority;
 
-    @Schema(description = "状态：PENDING-待处理 PROCESSING-处理中 SUCCESS-成功 FAILED-失败")
+    @Schema(description = "页面最后修改时间（来自 sitemap 的 lastmod）")
+    private Date lastmod;
+
+    @Schema(description = "状态：PENDING-待处理 PROCESSING-处理中 SUCCESS-成功 FAILED-失败 SKIPPED-已跳过")
     private String status;
 
     @Schema(description = "重试次数")
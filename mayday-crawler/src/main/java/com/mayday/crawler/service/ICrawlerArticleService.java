@@ -5,6 +5,10 @@ import com.mayday.crawler.modl.dto.CrawlerArticleQueryReq;
 import com.mybatisflex.core.paginate.Page;
 import com.mybatisflex.core.service.IService;
 
+import java.util.Collection;
+import java.util.Date;
+import java.util.Map;
+
 /**
  * 文章服务接口
  *
@@ -37,4 +41,22 @@ public interface ICrawlerArticleService extends IService<CrawlerArticleEntity> {
      * @return 文章详情
      */
     CrawlerArticleEntity queryDetail(Long id);
+
+    /**
+     * 增量爬取：查询任务下同一URL的已有文章（仅含ID、内容哈希与条件请求校验值）
+     *
+     * @param taskId  任务ID
+     * @param urlHash URL哈希值
+     * @return 已有文章，不存在返回 null
+     */
+    CrawlerArticleEntity findCrawledArticle(Long taskId, String urlHash);
+
+    /**
+     * 增量爬取：批量查询任务下已有文章的最后更新时间（用于按 sitemap lastmod 跳过未变化的页面）
+     *
+     * @param taskId    任务ID
+     * @param urlHashes URL哈希值
+     * @return URL哈希值 -> 最后更新时间（无更新时间时取创建时间），不存在的URL不在结果中
+     */
+    Map<String, Date> findCrawledTimes(Long taskId, Collection<String> urlHashes);
 }
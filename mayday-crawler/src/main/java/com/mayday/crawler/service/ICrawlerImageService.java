@@ -56,4 +56,21 @@ public interface ICrawlerImageService extends IService<CrawlerImageEntity> {
      * @return 是否删除成功
      */
     boolean removeImagesWithFileByArticleId(Long articleId);
+
+    /**
+     * 按URL哈希查找已下载成功的图片（用于跨任务复用，避免重复下载）
+     *
+     * @param urlHash URL哈希值
+     * @return 最近一条下载成功的记录，不存在返回 null
+     */
+    CrawlerImageEntity findDownloadedByUrlHash(String urlHash);
+
+    /**
+     * 统计引用同一本地文件的图片记录数（内容寻址存储的引用计数）
+     *
+     * @param filePath 文件目录
+     * @param fileName 文件名
+     * @return 引用数
+     */
+    long countFileReferences(String filePath, String fileName);
 }
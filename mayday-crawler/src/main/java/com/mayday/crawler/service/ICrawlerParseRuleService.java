@@ -0,0 +1,40 @@
+package com.mayday.crawler.service;
+
+import com.mayday.crawler.modl.entity.CrawlerParseRuleEntity;
+import com.mybatisflex.core.service.IService;
+
+import java.util.List;
+
+/**
+ * 解析规则服务接口
+ *
+ * @author Antigravity
+ * @since 1.0.0
+ */
+public interface ICrawlerParseRuleService extends IService<CrawlerParseRuleEntity> {
+
+    /**
+     * 查询任务的全部解析规则（按类型、优先级排序）
+     *
+     * @param taskId 任务ID
+     * @return 规则列表
+     */
+    List<CrawlerParseRuleEntity> listByTask(Long taskId);
+
+    /**
+     * 查询任务已启用的解析规则（任务启动时加载一次）
+     *
+     * @param taskId 任务ID
+     * @return 规则列表
+     */
+    List<CrawlerParseRuleEntity> listActiveByTask(Long taskId);
+
+    /**
+     * 整体替换任务的解析规则，保存前逐条编译校验
+     *
+     * @param taskId 任务ID
+     * @param rules  新的规则列表
+     * @return 保存的规则数
+     */
+    int replaceRules(Long taskId, List<CrawlerParseRuleEntity> rules);
+}
@@ -0,0 +1,76 @@
+package com.mayday.crawler.service;
+
+import com.mayday.crawler.modl.entity.CrawlerUrlQueueEntity;
+import com.mybatisflex.core.service.IService;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * URL队列服务接口（持久化爬取边界）
+ *
+ * @author Antigravity
+ * @since 1.0.0
+ */
+public interface ICrawlerUrlQueueService extends IService<CrawlerUrlQueueEntity> {
+
+    /**
+     * 租用一批待处理URL：按优先级降序、ID升序取出 PENDING 记录并置为 PROCESSING
+     *
+     * @param taskId 任务ID
+     * @param limit  最大条数
+     * @return 已租用的记录
+     */
+    List<CrawlerUrlQueueEntity> leasePending(Long taskId, int limit);
+
+    /**
+     * 将指定记录归还为 PENDING（任务停止时未处理完的租约）
+     *
+     * @param ids 记录ID
+     */
+    void releaseLeased(Collection<Long> ids);
+
+    /**
+     * 将任务下所有 PROCESSING 记录重置为 PENDING（进程异常退出后的恢复）
+     *
+     * @param taskId 任务ID
+     * @return 重置条数
+     */
+    long resetProcessing(Long taskId);
+
+    /**
+     * 统计任务下指定状态的记录数
+     *
+     * @param taskId 任务ID
+     * @param status 状态，为空时统计全部
+     * @return 记录数
+     */
+    long countByStatus(Long taskId, String status);
+
+    /**
+     * 任务是否存在未完成（PENDING / PROCESSING）的URL
+     *
+     * @param taskId 任务ID
+     * @return 是否存在
+     */
+    boolean hasUnfinished(Long taskId);
+
+    /**
+     * 按ID分页遍历任务下所有已入队的URL（用于恢复去重集合），每次只加载一页，不一次性读入整张队列
+     *
+     * @param taskId   任务ID
+     * @param pageSize 每页条数
+     * @param action   对每条URL执行的操作
+     * @return 遍历的URL数
+     */
+    long forEachUrl(Long taskId, int pageSize, Consumer<String> action);
+
+    /**
+     * 清空任务的URL队列
+     *
+     * @param taskId 任务ID
+     * @return 是否删除成功
+     */
+    boolean clearByTaskId(Long taskId);
+}
@@ -1,6 +1,7 @@
 package com.mayday.crawler.service.impl;
 
 import com.mayday.common.util.StringUtils;
+import com.mayday.crawler.executor.store.ImageRenditionService;
 import com.mayday.crawler.mapper.CrawlerArticleMapper;
 import com.mayday.crawler.modl.dto.CrawlerArticleQueryReq;
 import com.mayday.crawler.modl.entity.CrawlerArticleEntity;
@@ -22,6 +23,9 @@ import com.mayday.crawler.util.CrawlerDataScopeUtil;
  */
 import com.mayday.crawler.mapper.CrawlerImageMapper;
 import com.mayday.crawler.modl.entity.CrawlerImageEntity;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -39,6 +43,7 @@ import org.springframework.beans.factory.annotation.Value;
 public class CrawlerArticleServiceImpl extends ServiceImpl<CrawlerArticleMapper, CrawlerArticleEntity> implements ICrawlerArticleService {
 
     private final CrawlerImageMapper imageMapper;
+    private final ImageRenditionService renditionService;
 
     @Value("${crawler.image.base-path:${crawler.image-base-path:./data/crawler-images}}")
     private String imageBasePath;
@@ -96,11 +101,11 @@ public class CrawlerArticleServiceImpl extends ServiceImpl<CrawlerArticleMapper,
                         .where(CRAWLER_IMAGE_ENTITY.ARTICLE_ID.in(articleIds))
                 );
 
-                // Map articleId -> computed display URL
+                // Map articleId -> computed display URL（列表只需卡片尺寸的缩略图）
                 Map<Long, String> coverMap = images.stream()
                     .collect(Collectors.toMap(
                         CrawlerImageEntity::getArticleId,
-                        this::computeDisplayUrl,
+                        image -> computeDisplayUrl(image, ImageRenditionService.WIDTH_CARD),
                         (existing, replacement) -> existing // Keep the first found
                     ));
 
@@ -125,8 +130,8 @@ public class CrawlerArticleServiceImpl extends ServiceImpl<CrawlerArticleMapper,
         );
 
         if (images != null && !images.isEmpty()) {
-            // 1. Set cover image
-            String coverUrl = computeDisplayUrl(images.get(0));
+            // 1. Set cover image（详情头图使用大图缩略图）
+            String coverUrl = computeDisplayUrl(images.get(0), ImageRenditionService.WIDTH_LARGE);
             entity.setCoverImage(coverUrl);
 
             // 2. Set image list (all images)
@@ -153,6 +158,47 @@ public class CrawlerArticleServiceImpl extends ServiceImpl<CrawlerArticleMapper,
         return entity;
     }
 
+    @Override
+    public CrawlerArticleEntity findCrawledArticle(Long taskId, String urlHash) {
+        if (taskId == null || StringUtils.isEmpty(urlHash)) {
+            return null;
+        }
+        QueryWrapper wrapper = QueryWrapper.create()
+                .select(CRAWLER_ARTICLE_ENTITY.ID, CRAWLER_ARTICLE_ENTITY.CONTENT_HASH,
+                        CRAWLER_ARTICLE_ENTITY.ETAG, CRAWLER_ARTICLE_ENTITY.LAST_MODIFIED)
+                .where(CRAWLER_ARTICLE_ENTITY.TASK_ID.eq(taskId))
+                .and(CRAWLER_ARTICLE_ENTITY.URL_HASH.eq(urlHash))
+                .orderBy(CRAWLER_ARTICLE_ENTITY.ID, false)
+                .limit(1);
+        return getOne(wrapper);
+    }
+
+    @Override
+    public Map<String, Date> findCrawledTimes(Long taskId, Collection<String> urlHashes) {
+        Map<String, Date> result = new HashMap<>();
+        if (taskId == null || urlHashes == null || urlHashes.isEmpty()) {
+            return result;
+        }
+        QueryWrapper wrapper = QueryWrapper.create()
+                .select(CRAWLER_ARTICLE_ENTITY.URL_HASH, CRAWLER_ARTICLE_ENTITY.CREATE_TIME, CRAWLER_ARTICLE_ENTITY.UPDATE_TIME)
+                .where(CRAWLER_ARTICLE_ENTITY.TASK_ID.eq(taskId))
+                .and(CRAWLER_ARTICLE_ENTITY.URL_HASH.in(urlHashes));
+        for (CrawlerArticleEntity article : list(wrapper)) {
+            Date time = article.getUpdateTime() != null ? article.getUpdateTime() : article.getCreateTime();
+            if (time != null) {
+                result.merge(article.getUrlHash(), time, (a, b) -> a.after(b) ? a : b);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 指定宽度的显示地址：本地图片返回对应档位的缩略图地址，远程图片返回原地址
+     */
+    private String computeDisplayUrl(CrawlerImageEntity image, int width) {
+        return renditionService.renditionUrl(computeDisplayUrl(image), image.getWidth(), width);
+    }
+
     private String computeDisplayUrl(CrawlerImageEntity image) {
         if ("SUCCESS".equals(image.getDownloadStatus()) && StringUtils.isNotEmpty(image.getFilePath()) && StringUtils.isNotEmpty(image.getFileName())) {
             try {
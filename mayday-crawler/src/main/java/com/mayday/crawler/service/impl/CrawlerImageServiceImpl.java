@@ -1,6 +1,9 @@
 package com.mayday.crawler.service.impl;
 
 import com.mayday.common.util.StringUtils;
+import com.mayday.crawler.executor.persist.CrawlerPersistencePipeline;
+import com.mayday.crawler.executor.store.ImageBlobStore;
+import com.mayday.crawler.executor.store.ImageRenditionService;
 import com.mayday.crawler.mapper.CrawlerArticleMapper;
 import com.mayday.crawler.mapper.CrawlerImageMapper;
 import com.mayday.crawler.modl.dto.CrawlerImageArticleCoverDTO;
@@ -17,8 +20,13 @@ import com.mybatisflex.spring.service.impl.ServiceImpl;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -46,6 +54,15 @@ import static com.mayday.crawler.modl.entity.table.CrawlerImageEntityTableDef.CR
 public class CrawlerImageServiceImpl extends ServiceImpl<CrawlerImageMapper, CrawlerImageEntity> implements ICrawlerImageService {
 
     private final CrawlerArticleMapper articleMapper;
+    private final ImageBlobStore imageBlobStore;
+    private final ImageRenditionService renditionService;
+
+    /**
+     * 写后持久化管道（依赖本服务写库，延迟注入避免循环依赖）
+     */
+    @Lazy
+    @Autowired
+    private CrawlerPersistencePipeline persistencePipeline;
 
     /**
      * 图片存储根目录（兼容两种配置键）
@@ -184,6 +201,7 @@ public class CrawlerImageServiceImpl extends ServiceImpl<CrawlerImageMapper, Cra
             dto.setCoverFilePath(coverImage.getFilePath());
             dto.setCoverFileName(coverImage.getFileName());
             dto.setCoverDownloadStatus(coverImage.getDownloadStatus());
+            dto.setCoverWidth(coverImage.getWidth());
         }
 
         // 统计该文章下的图片数量
@@ -232,6 +250,8 @@ public class CrawlerImageServiceImpl extends ServiceImpl<CrawlerImageMapper, Cra
                         // 路径不在基础目录内，使用文件名
                         displayUrl = "/crawler-images/" + dto.getCoverFileName();
                     }
+                    // 封面网格只需卡片尺寸，返回缩略图地址
+                    displayUrl = renditionService.renditionUrl(displayUrl, dto.getCoverWidth(), ImageRenditionService.WIDTH_CARD);
                     dto.setCoverUrl(displayUrl);
                     log.debug("[COVER] 封面图片本地URL: articleId={}, displayUrl={}", dto.getArticleId(), displayUrl);
                 } catch (Exception e) {
@@ -256,34 +276,97 @@ public class CrawlerImageServiceImpl extends ServiceImpl<CrawlerImageMapper, Cra
     }
 
     @Override
+    @Transactional(rollbackFor = Exception.class)
     public boolean removeImageWithFileById(Long id) {
         if (id == null) {
             return false;
         }
         CrawlerImageEntity entity = getById(id);
-        safeDeleteLocalFile(entity);
-        return removeById(id);
+        // 先删记录，提交后再按引用数决定是否删除文件
+        boolean removed = removeById(id);
+        if (removed && entity != null) {
+            deleteFilesAfterCommit(List.of(entity));
+        }
+        return removed;
     }
 
     @Override
+    @Transactional(rollbackFor = Exception.class)
     public boolean removeImagesWithFileByArticleId(Long articleId) {
         if (articleId == null) {
             return false;
         }
         List<CrawlerImageEntity> list = listByArticleId(articleId);
-        if (list != null) {
-            for (CrawlerImageEntity entity : list) {
+        QueryWrapper wrapper = QueryWrapper.create()
+                .where(CRAWLER_IMAGE_ENTITY.ARTICLE_ID.eq(articleId));
+        boolean removed = remove(wrapper);
+        if (list != null && !list.isEmpty()) {
+            deleteFilesAfterCommit(list);
+        }
+        return removed;
+    }
+
+    @Override
+    public CrawlerImageEntity findDownloadedByUrlHash(String urlHash) {
+        if (StringUtils.isEmpty(urlHash)) {
+            return null;
+        }
+        QueryWrapper wrapper = QueryWrapper.create()
+                .where(CRAWLER_IMAGE_ENTITY.URL_HASH.eq(urlHash))
+                .and(CRAWLER_IMAGE_ENTITY.DOWNLOAD_STATUS.eq("SUCCESS"))
+                .and(CRAWLER_IMAGE_ENTITY.MD5.isNotNull())
+                .and(CRAWLER_IMAGE_ENTITY.MD5.ne(""))
+                .orderBy(CRAWLER_IMAGE_ENTITY.ID, false)
+                .limit(1);
+        return getOne(wrapper);
+    }
+
+    @Override
+    public long countFileReferences(String filePath, String fileName) {
+        if (StringUtils.isEmpty(filePath) || StringUtils.isEmpty(fileName)) {
+            return 0L;
+        }
+        QueryWrapper wrapper = QueryWrapper.create()
+                .where(CRAWLER_IMAGE_ENTITY.FILE_PATH.eq(filePath))
+                .and(CRAWLER_IMAGE_ENTITY.FILE_NAME.eq(fileName));
+        return count(wrapper);
+    }
+
+    /**
+     * 记录删除提交后再删除文件
+     * 事务回滚时记录仍在，文件不能先删；提交前统计的引用数也看不到其他事务与写后队列中尚未落库的记录。
+     * 提交后先写出图片写入队列（复用同一文件的新记录可能还在队列中），再按引用数逐个删除；
+     * 内容寻址文件在存储的文件锁内再次写出并统计，见 {@link ImageBlobStore#deleteIfUnreferenced}。
+     */
+    private void deleteFilesAfterCommit(List<CrawlerImageEntity> entities) {
+        Runnable cleanup = () -> {
+            try {
+                persistencePipeline.flushImages();
+            } catch (Exception e) {
+                // 写入队列未能写出时无法确认引用，文件保留
+                log.warn("[SAFE-DELETE] 写出图片队列失败，保留文件: {}", e.getMessage());
+                return;
+            }
+            for (CrawlerImageEntity entity : entities) {
                 safeDeleteLocalFile(entity);
             }
-            safeCleanupEmptyDirs(list);
+            safeCleanupEmptyDirs(entities);
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cleanup.run();
+                }
+            });
+        } else {
+            cleanup.run();
         }
-        QueryWrapper wrapper = QueryWrapper.create()
-                .where(CRAWLER_IMAGE_ENTITY.ARTICLE_ID.eq(articleId));
-        return remove(wrapper);
     }
 
     /**
      * 安全删除本地图片文件
+     * 需在记录删除提交之后调用：同一文件仍被其他记录引用（跨任务复用、内容寻址存储）时保留文件
      */
     private void safeDeleteLocalFile(CrawlerImageEntity entity) {
         if (entity == null) {
@@ -299,6 +382,28 @@ public class CrawlerImageServiceImpl extends ServiceImpl<CrawlerImageMapper, Cra
             Path baseDir = Paths.get(imageBasePath).toAbsolutePath().normalize();
             Path raw = Paths.get(fp).toAbsolutePath().normalize();
 
+            // 内容寻址存储（分片目录或段文件）：与下载入库同一把文件锁，锁内写出图片队列并统计引用后再删除，
+            // 已入库但记录尚未入队的下载持有在途引用，此时保留文件
+            if (imageBlobStore.isBlobPath(raw) && fn != null && !fn.isBlank()) {
+                boolean unreferenced = imageBlobStore.deleteIfUnreferenced(raw, fn, () -> {
+                    persistencePipeline.flushImages();
+                    return countFileReferences(fp, fn) == 0;
+                });
+                if (unreferenced) {
+                    log.info("[SAFE-DELETE] 已删除图片: {}/{}", raw, fn);
+                    renditionService.deleteRenditions(raw, fn);
+                } else {
+                    log.debug("[SAFE-DELETE] 文件仍被引用，保留: filePath={}, fileName={}", fp, fn);
+                }
+                return;
+            }
+
+            long references = countFileReferences(fp, fn);
+            if (references > 0) {
+                log.debug("[SAFE-DELETE] 文件仍被 {} 条记录引用，保留: filePath={}, fileName={}", references, fp, fn);
+                return;
+            }
+
             Path candidate = raw;
             if (fn != null && !fn.isBlank()) {
                 if (Files.isDirectory(raw) || !raw.getFileName().toString().equals(fn)) {
@@ -321,6 +426,7 @@ public class CrawlerImageServiceImpl extends ServiceImpl<CrawlerImageMapper, Cra
             if (deleted) {
                 log.info("[SAFE-DELETE] 已删除图片文件: {}", candidate);
             }
+            renditionService.deleteRenditions(candidate.getParent(), candidate.getFileName().toString());
         } catch (Exception e) {
             log.warn("[SAFE-DELETE] 删除图片文件失败: filePath={}, fileName={}, err={}",
                     fp, fn, e.getMessage());
@@ -342,7 +448,8 @@ public class CrawlerImageServiceImpl extends ServiceImpl<CrawlerImageMapper, Cra
                     continue;
                 }
                 Path dir = Paths.get(fp).toAbsolutePath().normalize();
-                if (!dir.startsWith(baseDir)) {
+                // 内容寻址存储的分片目录由多任务共享，不做清理
+                if (!dir.startsWith(baseDir) || imageBlobStore.isBlobPath(dir)) {
                     continue;
                 }
                 if (Files.exists(dir) && Files.isDirectory(dir)) {
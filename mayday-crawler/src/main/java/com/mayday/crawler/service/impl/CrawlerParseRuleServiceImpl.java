@@ -0,0 +1,82 @@
+package com.mayday.crawler.service.impl;
+
+import com.mayday.common.enums.ErrorCode;
+import com.mayday.common.exception.BusinessException;
+import com.mayday.crawler.executor.parse.ParseRule;
+import com.mayday.crawler.mapper.CrawlerParseRuleMapper;
+import com.mayday.crawler.modl.entity.CrawlerParseRuleEntity;
+import com.mayday.crawler.service.ICrawlerParseRuleService;
+import com.mybatisflex.core.query.QueryWrapper;
+import com.mybatisflex.spring.service.impl.ServiceImpl;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static com.mayday.crawler.modl.entity.table.CrawlerParseRuleEntityTableDef.CRAWLER_PARSE_RULE_ENTITY;
+
+/**
+ * 解析规则服务实现
+ *
+ * @author Antigravity
+ * @since 1.0.0
+ */
+@Service
+public class CrawlerParseRuleServiceImpl extends ServiceImpl<CrawlerParseRuleMapper, CrawlerParseRuleEntity> implements ICrawlerParseRuleService {
+
+    @Override
+    public List<CrawlerParseRuleEntity> listByTask(Long taskId) {
+        QueryWrapper wrapper = QueryWrapper.create()
+                .where(CRAWLER_PARSE_RULE_ENTITY.TASK_ID.eq(taskId))
+                .orderBy(CRAWLER_PARSE_RULE_ENTITY.RULE_TYPE, true)
+                .orderBy(CRAWLER_PARSE_RULE_ENTITY.PRIORITY, false)
+                .orderBy(CRAWLER_PARSE_RULE_ENTITY.ID, true);
+        return list(wrapper);
+    }
+
+    @Override
+    public List<CrawlerParseRuleEntity> listActiveByTask(Long taskId) {
+        QueryWrapper wrapper = QueryWrapper.create()
+                .where(CRAWLER_PARSE_RULE_ENTITY.TASK_ID.eq(taskId))
+                .and(CRAWLER_PARSE_RULE_ENTITY.IS_ACTIVE.eq(1))
+                .orderBy(CRAWLER_PARSE_RULE_ENTITY.PRIORITY, false)
+                .orderBy(CRAWLER_PARSE_RULE_ENTITY.ID, true);
+        return list(wrapper);
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public int replaceRules(Long taskId, List<CrawlerParseRuleEntity> rules) {
+        List<CrawlerParseRuleEntity> toSave = new ArrayList<>();
+        Date now = new Date();
+        if (rules != null) {
+            for (CrawlerParseRuleEntity rule : rules) {
+                int priority = rule.getPriority() != null ? rule.getPriority() : 0;
+                try {
+                    // 与任务启动时的编译逻辑一致，非法规则在保存时即拒绝
+                    ParseRule.compile(null, rule.getRuleType(), rule.getRuleMethod(), rule.getRuleValue(), priority, false);
+                } catch (IllegalArgumentException e) {
+                    throw new BusinessException(ErrorCode.PARAMS_ERROR, e.getMessage());
+                }
+                CrawlerParseRuleEntity entity = new CrawlerParseRuleEntity();
+                entity.setTaskId(taskId);
+                entity.setRuleType(rule.getRuleType());
+                entity.setRuleMethod(rule.getRuleMethod());
+                entity.setRuleValue(rule.getRuleValue().trim());
+                entity.setPriority(priority);
+                entity.setIsActive(rule.getIsActive() != null ? rule.getIsActive() : 1);
+                entity.setCreateTime(now);
+                entity.setUpdateTime(now);
+                toSave.add(entity);
+            }
+        }
+
+        remove(QueryWrapper.create().where(CRAWLER_PARSE_RULE_ENTITY.TASK_ID.eq(taskId)));
+        if (!toSave.isEmpty()) {
+            saveBatch(toSave);
+        }
+        return toSave.size();
+    }
+}
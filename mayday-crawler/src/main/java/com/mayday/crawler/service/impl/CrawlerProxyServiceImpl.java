@@ -4,6 +4,7 @@ import com.mayday.common.enums.ErrorCode;
 import com.mayday.common.exception.BusinessException;
 import com.mayday.common.util.BeanConverterUtils;
 import com.mayday.common.util.StringUtils;
+import com.mayday.crawler.executor.proxy.ProxyPool;
 import com.mayday.crawler.mapper.CrawlerProxyMapper;
 import com.mayday.crawler.modl.dto.CrawlerProxyEditReq;
 import com.mayday.crawler.modl.dto.CrawlerProxyQueryReq;
@@ -12,8 +13,11 @@ import com.mayday.crawler.service.ICrawlerProxyService;
 import com.mybatisflex.core.paginate.Page;
 import com.mybatisflex.core.query.QueryWrapper;
 import com.mybatisflex.spring.service.impl.ServiceImpl;
+import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.List;
 
@@ -26,8 +30,11 @@ import static com.mayday.crawler.modl.entity.table.CrawlerProxyEntityTableDef.CR
  * @since 1.0.0
  */
 @Service
+@RequiredArgsConstructor
 public class CrawlerProxyServiceImpl extends ServiceImpl<CrawlerProxyMapper, CrawlerProxyEntity> implements ICrawlerProxyService {
 
+    private final ProxyPool proxyPool;
+
     @Override
     public Page<CrawlerProxyEntity> queryList(CrawlerProxyQueryReq req) {
         QueryWrapper wrapper = QueryWrapper.create()
@@ -49,6 +56,7 @@ public class CrawlerProxyServiceImpl extends ServiceImpl<CrawlerProxyMapper, Cra
                 entity.setSort(0);
             }
             save(entity);
+            invalidatePoolAfterCommit();
             return entity.getId();
         }
 
@@ -57,13 +65,16 @@ public class CrawlerProxyServiceImpl extends ServiceImpl<CrawlerProxyMapper, Cra
             throw new BusinessException(ErrorCode.PARAMS_ERROR, "代理不存在");
         }
         updateById(entity);
+        invalidatePoolAfterCommit();
         return entity.getId();
     }
 
     @Override
     @Transactional(rollbackFor = Exception.class)
     public boolean removeProxy(Long id) {
-        return removeById(id);
+        boolean removed = removeById(id);
+        invalidatePoolAfterCommit();
+        return removed;
     }
 
     @Override
@@ -74,4 +85,21 @@ public class CrawlerProxyServiceImpl extends ServiceImpl<CrawlerProxyMapper, Cra
                 .orderBy(CRAWLER_PROXY_ENTITY.ID, true);
         return list(wrapper);
     }
+
+    /**
+     * 事务提交后再使代理池缓存失效
+     * 提交前失效时，并发的抓取线程可能立即用旧数据重新加载缓存，之后不会再刷新
+     */
+    private void invalidatePoolAfterCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    proxyPool.invalidate();
+                }
+            });
+        } else {
+            proxyPool.invalidate();
+        }
+    }
 }
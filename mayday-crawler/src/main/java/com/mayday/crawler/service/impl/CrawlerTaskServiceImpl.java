@@ -11,6 +11,7 @@ import com.mayday.crawler.modl.dto.CrawlerTaskEditReq;
 import com.mayday.crawler.modl.dto.CrawlerTaskQueryReq;
 import com.mayday.crawler.modl.entity.CrawlerTaskEntity;
 import com.mayday.crawler.service.ICrawlerTaskService;
+import com.mayday.crawler.service.ICrawlerUrlQueueService;
 import com.mybatisflex.core.paginate.Page;
 import com.mybatisflex.core.query.QueryWrapper;
 import com.mybatisflex.spring.service.impl.ServiceImpl;
@@ -45,10 +46,13 @@ public class CrawlerTaskServiceImpl extends ServiceImpl<CrawlerTaskMapper, Crawl
     private final ObjectMapper objectMapper = new ObjectMapper();
     private final CrawlerExecutor crawlerExecutor;
     private final SsePublisher ssePublisher;
+    private final ICrawlerUrlQueueService urlQueueService;
 
-    public CrawlerTaskServiceImpl(@Lazy CrawlerExecutor crawlerExecutor, SsePublisher ssePublisher) {
+    public CrawlerTaskServiceImpl(@Lazy CrawlerExecutor crawlerExecutor, SsePublisher ssePublisher,
+                                  ICrawlerUrlQueueService urlQueueService) {
         this.crawlerExecutor = crawlerExecutor;
         this.ssePublisher = ssePublisher;
+        this.urlQueueService = urlQueueService;
     }
 
     @Override
@@ -139,6 +143,7 @@ public class CrawlerTaskServiceImpl extends ServiceImpl<CrawlerTaskMapper, Crawl
         if ("RUNNING".equals(entity.getStatus())) {
             throw new BusinessException(ErrorCode.OPERATION_ERROR, "任务运行中，不允许删除");
         }
+        urlQueueService.clearByTaskId(id);
         return removeById(id);
     }
 
@@ -160,13 +165,18 @@ public class CrawlerTaskServiceImpl extends ServiceImpl<CrawlerTaskMapper, Crawl
             throw new BusinessException(ErrorCode.OPERATION_ERROR, "任务正在运行中，无法重复启动");
         }
 
+        // 停止或异常结束且URL队列仍有未完成记录时，从断点继续
+        boolean resume = ("STOPPED".equals(status) || "ERROR".equals(status)) && urlQueueService.hasUnfinished(id);
+
         entity.setStatus("RUNNING");
         entity.setStartTime(new Date());
         entity.setEndTime(null); // Clear previous end time
         entity.setErrorMsg("");
         boolean updated = updateById(entity);
 
-        if (updated) {
+        if (updated && resume) {
+            launch(entity, true);
+        } else if (updated) {
             // 计算并设置初始TotalUrls，确保前端进度条立即显示
             try {
                 if (entity.getStartUrls() != null) {
@@ -190,18 +200,26 @@ public class CrawlerTaskServiceImpl extends ServiceImpl<CrawlerTaskMapper, Crawl
                 // Don't block if parsing fails but string exists, let executor handle/log it
             }
 
-            // 立即推送"运行中"状态，确保前端即时收到
-            publishTaskStatus(entity, "task.started");
-            
-            crawlerExecutor.ensureTaskNotRunning(id);
-            // 手动异步执行，规避因循环依赖导致的@Async失效问题
-            java.util.concurrent.CompletableFuture.runAsync(() -> {
-                crawlerExecutor.executeTask(id);
-            });
+            launch(entity, false);
         }
 
         return updated;
     }
+
+    /**
+     * 推送运行状态并异步启动执行器
+     */
+    private void launch(CrawlerTaskEntity entity, boolean resume) {
+        Long id = entity.getId();
+        // 立即推送"运行中"状态，确保前端即时收到
+        publishTaskStatus(entity, "task.started");
+
+        crawlerExecutor.ensureTaskNotRunning(id);
+        // 手动异步执行，规避因循环依赖导致的@Async失效问题
+        java.util.concurrent.CompletableFuture.runAsync(() -> {
+            crawlerExecutor.executeTask(id, resume);
+        });
+    }
     
     /**
      * 推送任务状态SSE事件
@@ -238,7 +256,14 @@ public class CrawlerTaskServiceImpl extends ServiceImpl<CrawlerTaskMapper, Crawl
             throw new BusinessException(ErrorCode.OPERATION_ERROR, "只有运行中的任务才能暂停");
         }
         entity.setStatus("PAUSED");
-        return updateById(entity);
+        boolean updated = updateById(entity);
+
+        if (updated) {
+            // 执行器停止调度并保存URL队列进度，恢复时从断点继续
+            crawlerExecutor.pauseTask(id);
+        }
+
+        return updated;
     }
 
     @Override
@@ -252,7 +277,14 @@ public class CrawlerTaskServiceImpl extends ServiceImpl<CrawlerTaskMapper, Crawl
             throw new BusinessException(ErrorCode.OPERATION_ERROR, "只有已暂停的任务才能恢复");
         }
         entity.setStatus("RUNNING");
-        return updateById(entity);
+        entity.setEndTime(null);
+        boolean updated = updateById(entity);
+
+        if (updated) {
+            launch(entity, urlQueueService.hasUnfinished(id));
+        }
+
+        return updated;
     }
 
     @Override
@@ -283,6 +315,8 @@ public class CrawlerTaskServiceImpl extends ServiceImpl<CrawlerTaskMapper, Crawl
         if (entity == null) {
             throw new BusinessException(ErrorCode.PARAMS_ERROR, "任务不存在");
         }
+        // 重新运行时丢弃上次的URL队列
+        urlQueueService.clearByTaskId(id);
         entity.setStatus("NOT_STARTED");
         entity.setCrawledUrls(0);
         entity.setSuccessCount(0);
@@ -312,6 +346,31 @@ public class CrawlerTaskServiceImpl extends ServiceImpl<CrawlerTaskMapper, Crawl
         status.put("startTime", entity.getStartTime());
         status.put("endTime", entity.getEndTime());
         status.put("errorMsg", entity.getErrorMsg());
+        status.put("maxUrls", entity.getMaxUrls());
+
+        // 运行中任务的URL去重内存占用
+        Map<String, Object> dedupStats = crawlerExecutor.getDedupStats(id);
+        if (dedupStats != null) {
+            status.put("dedup", dedupStats);
+        }
+
+        // 运行中任务各主机的自适应并发上限与请求间隔（解释任务为何变慢）
+        List<Map<String, Object>> hostLimits = crawlerExecutor.getHostLimits(id);
+        if (hostLimits != null) {
+            status.put("hostLimits", hostLimits);
+        }
+
+        // 运行中任务各流水线阶段的队列深度与吞吐量
+        Map<String, Object> pipelineStats = crawlerExecutor.getPipelineStats(id);
+        if (pipelineStats != null) {
+            status.put("pipeline", pipelineStats);
+        }
+
+        // 运行中任务各解析规则的命中率（用于调整规则优先级与选择器）
+        Map<String, Object> parseRuleStats = crawlerExecutor.getParseRuleStats(id);
+        if (parseRuleStats != null) {
+            status.put("parseRules", parseRuleStats);
+        }
 
         Integer totalUrls = entity.getTotalUrls();
         Integer crawledUrls = entity.getCrawledUrls();
@@ -0,0 +1,123 @@
+package com.mayday.crawler.service.impl;
+
+import com.mayday.crawler.mapper.CrawlerUrlQueueMapper;
+import com.mayday.crawler.modl.entity.CrawlerUrlQueueEntity;
+import com.mayday.crawler.service.ICrawlerUrlQueueService;
+import com.mybatisflex.core.query.QueryWrapper;
+import com.mybatisflex.spring.service.impl.ServiceImpl;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static com.mayday.crawler.modl.entity.table.CrawlerUrlQueueEntityTableDef.CRAWLER_URL_QUEUE_ENTITY;
+
+/**
+ * URL队列服务实现
+ *
+ * @author Antigravity
+ * @since 1.0.0
+ */
+@Service
+public class CrawlerUrlQueueServiceImpl extends ServiceImpl<CrawlerUrlQueueMapper, CrawlerUrlQueueEntity> implements ICrawlerUrlQueueService {
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public List<CrawlerUrlQueueEntity> leasePending(Long taskId, int limit) {
+        QueryWrapper wrapper = QueryWrapper.create()
+                .where(CRAWLER_URL_QUEUE_ENTITY.TASK_ID.eq(taskId))
+                .and(CRAWLER_URL_QUEUE_ENTITY.STATUS.eq("PENDING"))
+                .orderBy(CRAWLER_URL_QUEUE_ENTITY.PRIORITY, false)
+                .orderBy(CRAWLER_URL_QUEUE_ENTITY.ID, true)
+                .limit(limit);
+        List<CrawlerUrlQueueEntity> leased = list(wrapper);
+        if (leased.isEmpty()) {
+            return leased;
+        }
+
+        List<Long> ids = leased.stream().map(CrawlerUrlQueueEntity::getId).collect(Collectors.toList());
+        updateStatus(ids, "PROCESSING");
+        leased.forEach(e -> e.setStatus("PROCESSING"));
+        return leased;
+    }
+
+    @Override
+    public void releaseLeased(Collection<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return;
+        }
+        updateStatus(ids, "PENDING");
+    }
+
+    @Override
+    public long resetProcessing(Long taskId) {
+        long processing = countByStatus(taskId, "PROCESSING");
+        if (processing == 0) {
+            return 0;
+        }
+        CrawlerUrlQueueEntity update = new CrawlerUrlQueueEntity();
+        update.setStatus("PENDING");
+        update.setUpdateTime(new Date());
+        update(update, QueryWrapper.create()
+                .where(CRAWLER_URL_QUEUE_ENTITY.TASK_ID.eq(taskId))
+                .and(CRAWLER_URL_QUEUE_ENTITY.STATUS.eq("PROCESSING")));
+        return processing;
+    }
+
+    @Override
+    public long countByStatus(Long taskId, String status) {
+        QueryWrapper wrapper = QueryWrapper.create()
+                .where(CRAWLER_URL_QUEUE_ENTITY.TASK_ID.eq(taskId))
+                .and(CRAWLER_URL_QUEUE_ENTITY.STATUS.eq(status).when(status != null));
+        return count(wrapper);
+    }
+
+    @Override
+    public boolean hasUnfinished(Long taskId) {
+        QueryWrapper wrapper = QueryWrapper.create()
+                .where(CRAWLER_URL_QUEUE_ENTITY.TASK_ID.eq(taskId))
+                .and(CRAWLER_URL_QUEUE_ENTITY.STATUS.in("PENDING", "PROCESSING"));
+        return count(wrapper) > 0;
+    }
+
+    @Override
+    public long forEachUrl(Long taskId, int pageSize, Consumer<String> action) {
+        // 键集分页（id > 上一页末尾ID），由 task_id 索引（隐含主键）定位，深页不退化为 OFFSET 扫描
+        long lastId = 0;
+        long visited = 0;
+        while (true) {
+            QueryWrapper wrapper = QueryWrapper.create()
+                    .select(CRAWLER_URL_QUEUE_ENTITY.ID, CRAWLER_URL_QUEUE_ENTITY.URL)
+                    .where(CRAWLER_URL_QUEUE_ENTITY.TASK_ID.eq(taskId))
+                    .and(CRAWLER_URL_QUEUE_ENTITY.ID.gt(lastId))
+                    .orderBy(CRAWLER_URL_QUEUE_ENTITY.ID, true)
+                    .limit(pageSize);
+            List<CrawlerUrlQueueEntity> page = list(wrapper);
+            for (CrawlerUrlQueueEntity entity : page) {
+                action.accept(entity.getUrl());
+            }
+            visited += page.size();
+            if (page.size() < pageSize) {
+                return visited;
+            }
+            lastId = page.get(page.size() - 1).getId();
+        }
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public boolean clearByTaskId(Long taskId) {
+        return remove(QueryWrapper.create().where(CRAWLER_URL_QUEUE_ENTITY.TASK_ID.eq(taskId)));
+    }
+
+    private void updateStatus(Collection<Long> ids, String status) {
+        CrawlerUrlQueueEntity update = new CrawlerUrlQueueEntity();
+        update.setStatus(status);
+        update.setUpdateTime(new Date());
+        update(update, QueryWrapper.create().where(CRAWLER_URL_QUEUE_ENTITY.ID.in(ids)));
+    }
+}
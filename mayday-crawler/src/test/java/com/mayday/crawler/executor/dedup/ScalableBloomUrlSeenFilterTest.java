@@ -0,0 +1,119 @@
+package com.mayday.crawler.executor.dedup;
+
+import com.mayday.crawler.config.DedupConfig;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 可扩展布隆过滤器测试：误判率、超出预估容量后的扩展、无漏判
+ */
+class ScalableBloomUrlSeenFilterTest
+{
+    private static final DedupConfig CONFIG = new DedupConfig();
+    private static final int PROBES = 1_000_000;
+
+    private static String url(String prefix, int i)
+    {
+        return "https://www.example.com/" + prefix + "/" + i + ".html";
+    }
+
+    /**
+     * 未加入过的URL中被判为"已见过"的比例
+     */
+    private static double falsePositiveRate(UrlSeenFilter filter)
+    {
+        int hits = 0;
+        for (int i = 0; i < PROBES; i++)
+        {
+            if (filter.contains(url("unseen", i)))
+            {
+                hits++;
+            }
+        }
+        return (double) hits / PROBES;
+    }
+
+    @Test
+    void addReportsFirstSightingOnly()
+    {
+        ScalableBloomUrlSeenFilter filter = new ScalableBloomUrlSeenFilter(1000, 0.001);
+
+        assertTrue(filter.add(url("a", 1)));
+        assertFalse(filter.add(url("a", 1)));
+        assertTrue(filter.contains(url("a", 1)));
+        assertEquals(1, filter.size());
+        assertEquals("BLOOM", filter.mode());
+    }
+
+    @Test
+    void falsePositiveRateStaysWithinTargetAtConfiguredCapacity()
+    {
+        int capacity = CONFIG.getDefaultMaxUrls();
+        double target = CONFIG.getFalsePositiveRate();
+        ScalableBloomUrlSeenFilter filter = new ScalableBloomUrlSeenFilter(capacity, target);
+        for (int i = 0; i < capacity; i++)
+        {
+            filter.add(url("seen", i));
+        }
+
+        double rate = falsePositiveRate(filter);
+        assertTrue(rate <= target, "误判率 " + rate + " 超过目标 " + target);
+    }
+
+    @Test
+    void growsPastDefaultMaxUrlsWithoutExceedingTarget()
+    {
+        int capacity = CONFIG.getDefaultMaxUrls();
+        double target = CONFIG.getFalsePositiveRate();
+        ScalableBloomUrlSeenFilter filter = new ScalableBloomUrlSeenFilter(capacity, target);
+        int total = capacity * 8;
+        int accepted = 0;
+        long initialBytes = filter.memoryBytes();
+        for (int i = 0; i < total; i++)
+        {
+            if (filter.add(url("seen", i)))
+            {
+                accepted++;
+            }
+        }
+
+        assertTrue(filter.memoryBytes() > initialBytes, "超出预估容量后应追加分段");
+        assertEquals(accepted, filter.size());
+        // 新URL被误判为已见过而拒绝的比例同样受目标误判率约束
+        assertTrue(total - accepted <= total * target, "拒绝了 " + (total - accepted) + " 个新URL");
+        double rate = falsePositiveRate(filter);
+        assertTrue(rate <= target, "扩展后误判率 " + rate + " 超过目标 " + target);
+    }
+
+    @Test
+    void neverReportsAddedUrlAsUnseen()
+    {
+        ScalableBloomUrlSeenFilter filter = new ScalableBloomUrlSeenFilter(1024, 0.01);
+        int total = 50_000;
+        for (int i = 0; i < total; i++)
+        {
+            filter.add(url("seen", i));
+        }
+
+        for (int i = 0; i < total; i++)
+        {
+            assertTrue(filter.contains(url("seen", i)), "漏判: " + url("seen", i));
+            assertFalse(filter.add(url("seen", i)));
+        }
+    }
+
+    @Test
+    void invalidFalsePositiveRateFallsBackToDefault()
+    {
+        ScalableBloomUrlSeenFilter filter = new ScalableBloomUrlSeenFilter(1024, 1.5);
+        for (int i = 0; i < 1024; i++)
+        {
+            filter.add(url("seen", i));
+        }
+
+        assertTrue(falsePositiveRate(filter) <= 0.001);
+    }
+}
@@ -0,0 +1,283 @@
+package com.mayday.crawler.executor.download;
+
+import com.mayday.crawler.executor.download.ImageHeaderProbe.ImageInfo;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 图片文件头探测测试
+ * <p>
+ * JPEG/PNG/GIF/BMP 样本由 ImageIO 编码生成（真实编码器输出），WebP 样本按 RIFF 容器规范构造三种块头。
+ */
+class ImageHeaderProbeTest
+{
+    private static ImageInfo probe(byte[] bytes)
+    {
+        return ImageHeaderProbe.probe(bytes, bytes.length);
+    }
+
+    private static byte[] encode(String format, int width, int height) throws IOException
+    {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertTrue(ImageIO.write(image, format, out), "缺少 ImageIO 编码器: " + format);
+        return out.toByteArray();
+    }
+
+    private static byte[] progressiveJpeg(int width, int height) throws IOException
+    {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream ios = ImageIO.createImageOutputStream(out))
+        {
+            writer.setOutput(ios);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+            writer.write(null, new IIOImage(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), null, null), param);
+        }
+        finally
+        {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * 在 SOI 之后插入一个 APPn 段（模拟 EXIF/ICC 等大段）
+     */
+    private static byte[] withAppSegment(byte[] jpeg, int marker, int payloadLength)
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(jpeg, 0, 2);
+        out.write(0xFF);
+        out.write(marker);
+        int length = payloadLength + 2;
+        out.write(length >>> 8);
+        out.write(length & 0xFF);
+        byte[] payload = new byte[payloadLength];
+        // 段内容里出现的 0xFF 不能被当作段标记
+        Arrays.fill(payload, (byte) 0xFF);
+        out.write(payload, 0, payload.length);
+        out.write(jpeg, 2, jpeg.length - 2);
+        return out.toByteArray();
+    }
+
+    /**
+     * RIFF/WEBP 容器，含一个块头与给定的块内容
+     */
+    private static byte[] webp(String fourCc, byte[] chunk)
+    {
+        byte[] b = new byte[20 + chunk.length];
+        System.arraycopy("RIFF".getBytes(StandardCharsets.US_ASCII), 0, b, 0, 4);
+        putLe32(b, 4, b.length - 8);
+        System.arraycopy("WEBP".getBytes(StandardCharsets.US_ASCII), 0, b, 8, 4);
+        System.arraycopy(fourCc.getBytes(StandardCharsets.US_ASCII), 0, b, 12, 4);
+        putLe32(b, 16, chunk.length);
+        System.arraycopy(chunk, 0, b, 20, chunk.length);
+        return b;
+    }
+
+    private static byte[] webpLossy(int width, int height)
+    {
+        byte[] chunk = new byte[16];
+        // 帧标记（关键帧）3 字节，之后起始码 9d 01 2a 与 14 位宽高（高 2 位为缩放）
+        chunk[3] = (byte) 0x9D;
+        chunk[4] = 0x01;
+        chunk[5] = 0x2A;
+        chunk[6] = (byte) width;
+        chunk[7] = (byte) ((width >>> 8) | 0x40);
+        chunk[8] = (byte) height;
+        chunk[9] = (byte) ((height >>> 8) | 0x80);
+        return webp("VP8 ", chunk);
+    }
+
+    private static byte[] webpLossless(int width, int height)
+    {
+        byte[] chunk = new byte[16];
+        chunk[0] = 0x2F;
+        int bits = (width - 1) | ((height - 1) << 14) | (1 << 28);
+        putLe32(chunk, 1, bits);
+        return webp("VP8L", chunk);
+    }
+
+    private static byte[] webpExtended(int width, int height)
+    {
+        byte[] chunk = new byte[10];
+        chunk[0] = 0x10;
+        putLe24(chunk, 4, width - 1);
+        putLe24(chunk, 7, height - 1);
+        return webp("VP8X", chunk);
+    }
+
+    private static void putLe24(byte[] b, int i, int v)
+    {
+        b[i] = (byte) v;
+        b[i + 1] = (byte) (v >>> 8);
+        b[i + 2] = (byte) (v >>> 16);
+    }
+
+    private static void putLe32(byte[] b, int i, int v)
+    {
+        putLe24(b, i, v);
+        b[i + 3] = (byte) (v >>> 24);
+    }
+
+    private static void assertSized(ImageInfo info, String format, int width, int height)
+    {
+        assertEquals(format, info.format());
+        assertEquals(width, info.width());
+        assertEquals(height, info.height());
+        assertFalse(info.needsMore());
+        assertTrue(info.hasDimensions());
+    }
+
+    /**
+     * 任意长度的前缀都不抛异常、不给出错误尺寸；未到达尺寸字段前（格式已识别时）要求继续读取
+     */
+    private static void assertTruncationSafe(byte[] full, String format, int width, int height)
+    {
+        boolean sized = false;
+        for (int len = 0; len <= full.length; len++)
+        {
+            ImageInfo info = ImageHeaderProbe.probe(full, len);
+            if (info.hasDimensions())
+            {
+                assertEquals(format, info.format(), "len=" + len);
+                assertEquals(width, info.width(), "len=" + len);
+                assertEquals(height, info.height(), "len=" + len);
+                sized = true;
+            }
+            else if (!sized && info.format() != null)
+            {
+                assertEquals(format, info.format(), "len=" + len);
+                assertTrue(info.needsMore(), "尺寸字段之前应要求更多字节, len=" + len);
+            }
+        }
+        assertTrue(sized);
+    }
+
+    @Test
+    void jpegBaselineReadsStartOfFrame() throws IOException
+    {
+        assertSized(probe(encode("jpg", 321, 123)), "jpg", 321, 123);
+    }
+
+    @Test
+    void jpegProgressiveReadsStartOfFrame() throws IOException
+    {
+        assertSized(probe(progressiveJpeg(640, 480)), "jpg", 640, 480);
+    }
+
+    @Test
+    void jpegSkipsAppSegmentsBeforeStartOfFrame() throws IOException
+    {
+        byte[] jpeg = withAppSegment(withAppSegment(encode("jpg", 200, 150), 0xE2, 30_000), 0xE1, 60_000);
+
+        assertSized(probe(jpeg), "jpg", 200, 150);
+        // 只读到大段中间时要求继续读取
+        ImageInfo partial = ImageHeaderProbe.probe(jpeg, 4096);
+        assertEquals("jpg", partial.format());
+        assertTrue(partial.needsMore());
+        assertFalse(partial.hasDimensions());
+    }
+
+    @Test
+    void jpegSkipsFillBytesBetweenSegments() throws IOException
+    {
+        byte[] jpeg = encode("jpg", 64, 32);
+        byte[] padded = new byte[jpeg.length + 3];
+        padded[0] = jpeg[0];
+        padded[1] = jpeg[1];
+        padded[2] = (byte) 0xFF;
+        padded[3] = (byte) 0xFF;
+        padded[4] = (byte) 0xFF;
+        System.arraycopy(jpeg, 2, padded, 5, jpeg.length - 2);
+
+        assertSized(probe(padded), "jpg", 64, 32);
+    }
+
+    @Test
+    void jpegWithoutFrameHeaderGivesUp()
+    {
+        byte[] jpeg = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xDA, 0x00, 0x08, 0, 0, 0, 0, 0, 0};
+
+        ImageInfo info = probe(jpeg);
+        assertEquals("jpg", info.format());
+        assertFalse(info.needsMore());
+        assertFalse(info.hasDimensions());
+    }
+
+    @Test
+    void pngReadsIhdr() throws IOException
+    {
+        assertSized(probe(encode("png", 1920, 1080)), "png", 1920, 1080);
+    }
+
+    @Test
+    void gifReadsLogicalScreen() throws IOException
+    {
+        assertSized(probe(encode("gif", 48, 300)), "gif", 48, 300);
+    }
+
+    @Test
+    void bmpReadsDibHeader() throws IOException
+    {
+        assertSized(probe(encode("bmp", 17, 9)), "bmp", 17, 9);
+    }
+
+    @Test
+    void webpLossyReadsVp8FrameHeader()
+    {
+        assertSized(probe(webpLossy(800, 600)), "webp", 800, 600);
+    }
+
+    @Test
+    void webpLosslessReadsVp8lHeader()
+    {
+        assertSized(probe(webpLossless(300, 200)), "webp", 300, 200);
+    }
+
+    @Test
+    void webpExtendedReadsCanvasSize()
+    {
+        // VP8X 画布宽高为 24 位，超过 VP8/VP8L 的 14 位上限
+        assertSized(probe(webpExtended(20_000, 10_000)), "webp", 20_000, 10_000);
+    }
+
+    @Test
+    void truncatedHeadersAskForMoreBytes() throws IOException
+    {
+        assertTruncationSafe(encode("png", 100, 50), "png", 100, 50);
+        assertTruncationSafe(encode("gif", 100, 50), "gif", 100, 50);
+        assertTruncationSafe(encode("bmp", 100, 50), "bmp", 100, 50);
+        assertTruncationSafe(withAppSegment(encode("jpg", 100, 50), 0xE1, 2_000), "jpg", 100, 50);
+        assertTruncationSafe(webpLossy(100, 50), "webp", 100, 50);
+        assertTruncationSafe(webpLossless(100, 50), "webp", 100, 50);
+        assertTruncationSafe(webpExtended(100, 50), "webp", 100, 50);
+    }
+
+    @Test
+    void unknownBytesAreNotRecognised()
+    {
+        byte[] html = "<!DOCTYPE html><html></html>".getBytes(StandardCharsets.US_ASCII);
+
+        ImageInfo info = probe(html);
+        assertNull(info.format());
+        assertFalse(info.needsMore());
+    }
+}
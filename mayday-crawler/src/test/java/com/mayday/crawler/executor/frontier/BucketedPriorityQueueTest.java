@@ -0,0 +1,232 @@
+package com.mayday.crawler.executor.frontier;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 分桶优先级队列测试：优先级顺序、桶内先进先出、drainTo、并发入队出队
+ */
+class BucketedPriorityQueueTest
+{
+    /**
+     * 测试元素：生产者编号、序号、优先级
+     */
+    private record Item(int producer, int seq, int priority)
+    {
+    }
+
+    private static BucketedPriorityQueue<Item> newQueue()
+    {
+        return new BucketedPriorityQueue<>(UrlPriorityScorer.MAX, Item::priority);
+    }
+
+    @Test
+    void pollsHighestPriorityFirstAcrossBitmapWords()
+    {
+        BucketedPriorityQueue<Item> queue = newQueue();
+        // 0~100 共 101 个桶，位图跨两个 long，63/64 位于边界两侧
+        int[] priorities = {0, 63, 100, 64, 1, 99, 40};
+        for (int i = 0; i < priorities.length; i++)
+        {
+            queue.offer(new Item(0, i, priorities[i]));
+        }
+
+        assertEquals(priorities.length, queue.size());
+        int[] expected = {100, 99, 64, 63, 40, 1, 0};
+        for (int priority : expected)
+        {
+            assertEquals(priority, queue.poll().priority());
+        }
+        assertNull(queue.poll());
+        assertTrue(queue.isEmpty());
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    void keepsFifoOrderWithinOnePriority()
+    {
+        BucketedPriorityQueue<Item> queue = newQueue();
+        for (int i = 0; i < 1000; i++)
+        {
+            queue.offer(new Item(0, i, i % 2 == 0 ? 70 : 30));
+        }
+
+        int lastHigh = -1;
+        int lastLow = -1;
+        for (int i = 0; i < 1000; i++)
+        {
+            Item item = queue.poll();
+            if (i < 500)
+            {
+                assertEquals(70, item.priority());
+                assertTrue(item.seq() > lastHigh);
+                lastHigh = item.seq();
+            }
+            else
+            {
+                assertEquals(30, item.priority());
+                assertTrue(item.seq() > lastLow);
+                lastLow = item.seq();
+            }
+        }
+    }
+
+    @Test
+    void clampsOutOfRangePriorities()
+    {
+        BucketedPriorityQueue<Item> queue = newQueue();
+        queue.offer(new Item(0, 0, 50));
+        queue.offer(new Item(0, 1, -7));
+        queue.offer(new Item(0, 2, 500));
+
+        assertEquals(2, queue.poll().seq());
+        assertEquals(0, queue.poll().seq());
+        assertEquals(1, queue.poll().seq());
+    }
+
+    @Test
+    void drainToReturnsEverythingInPriorityOrder()
+    {
+        BucketedPriorityQueue<Item> queue = newQueue();
+        for (int i = 0; i < 500; i++)
+        {
+            queue.offer(new Item(0, i, ThreadLocalRandom.current().nextInt(UrlPriorityScorer.MAX + 1)));
+        }
+
+        List<Item> drained = new ArrayList<>();
+        queue.drainTo(drained);
+
+        assertEquals(500, drained.size());
+        assertTrue(queue.isEmpty());
+        for (int i = 1; i < drained.size(); i++)
+        {
+            Item prev = drained.get(i - 1);
+            Item next = drained.get(i);
+            assertTrue(prev.priority() > next.priority()
+                    || (prev.priority() == next.priority() && prev.seq() < next.seq()));
+        }
+    }
+
+    @Test
+    void concurrentOfferAndPollLoseNothing() throws Exception
+    {
+        BucketedPriorityQueue<Item> queue = newQueue();
+        int producers = 8;
+        int perProducer = 20_000;
+        int consumers = 4;
+        Set<Long> seen = ConcurrentHashMap.newKeySet();
+        AtomicInteger polled = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(producers + consumers);
+        try
+        {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int p = 0; p < producers; p++)
+            {
+                int producer = p;
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < perProducer; i++)
+                    {
+                        queue.offer(new Item(producer, i, ThreadLocalRandom.current().nextInt(UrlPriorityScorer.MAX + 1)));
+                    }
+                    return null;
+                }));
+            }
+            for (int c = 0; c < consumers; c++)
+            {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    while (polled.get() < producers * perProducer)
+                    {
+                        Item item = queue.poll();
+                        if (item != null)
+                        {
+                            assertTrue(seen.add(((long) item.producer() << 32) | item.seq()), "重复出队: " + item);
+                            polled.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures)
+            {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        }
+        finally
+        {
+            pool.shutdownNow();
+        }
+
+        assertEquals(producers * perProducer, seen.size());
+        assertNull(queue.poll());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    void concurrentProducersKeepTheirOwnOrderWithinAPriority() throws Exception
+    {
+        BucketedPriorityQueue<Item> queue = newQueue();
+        int producers = 4;
+        int perProducer = 10_000;
+        ExecutorService pool = Executors.newFixedThreadPool(producers);
+        try
+        {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int p = 0; p < producers; p++)
+            {
+                int producer = p;
+                futures.add(pool.submit(() -> {
+                    for (int i = 0; i < perProducer; i++)
+                    {
+                        queue.offer(new Item(producer, i, i % 3 * 40));
+                    }
+                }));
+            }
+            // 生产的同时单线程消费，同一生产者同一优先级的元素应按入队顺序取出
+            Map<Long, Integer> lastSeq = new HashMap<>();
+            int taken = 0;
+            while (taken < producers * perProducer)
+            {
+                Item item = queue.poll();
+                if (item == null)
+                {
+                    continue;
+                }
+                long key = ((long) item.producer() << 32) | item.priority();
+                Integer last = lastSeq.put(key, item.seq());
+                assertTrue(last == null || last < item.seq(), "桶内顺序错乱: " + item);
+                taken++;
+            }
+            for (Future<?> future : futures)
+            {
+                future.get(60, TimeUnit.SECONDS);
+            }
+            assertEquals(producers * 3, new HashSet<>(lastSeq.keySet()).size());
+        }
+        finally
+        {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.mayday.crawler.executor.frontier;
+
+import com.mayday.crawler.config.UrlClassifyConfig;
+import com.mayday.crawler.executor.classify.UrlClassifier;
+import com.mayday.crawler.executor.classify.UrlClassifierFactory;
+import com.mayday.crawler.modl.entity.CrawlerTaskEntity;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * URL 优先级评分测试
+ */
+class UrlPriorityScorerTest
+{
+    private static final String DETAIL = "https://www.example.com/news/2024/hello.html";
+    private static final String LIST = "https://www.example.com/category/tech/";
+    private static final String PLAIN = "https://www.example.com/";
+
+    private final UrlClassifier classifier = new UrlClassifierFactory(new UrlClassifyConfig()).create(new CrawlerTaskEntity());
+
+    private int score(String url, int depth)
+    {
+        return UrlPriorityScorer.score(classifier, url, depth, -1, 0, null);
+    }
+
+    private static Date daysAgo(long days)
+    {
+        return new Date(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(days));
+    }
+
+    @Test
+    void ranksDetailAboveListAboveOtherPages()
+    {
+        assertEquals(UrlPriorityScorer.DEFAULT + 30, score(DETAIL, 0));
+        assertEquals(UrlPriorityScorer.DEFAULT + 15, score(LIST, 0));
+        assertEquals(UrlPriorityScorer.DEFAULT, score(PLAIN, 0));
+    }
+
+    @Test
+    void penalisesDepthUpToACap()
+    {
+        assertEquals(score(DETAIL, 0) - 10, score(DETAIL, 2));
+        assertEquals(score(DETAIL, 0) - 25, score(DETAIL, 5));
+        assertEquals(score(DETAIL, 5), score(DETAIL, 50));
+        assertEquals(score(DETAIL, 0), score(DETAIL, -1));
+    }
+
+    @Test
+    void favoursEarlierLinksOnThePage()
+    {
+        int first = UrlPriorityScorer.score(classifier, DETAIL, 1, 0, 11, null);
+        int middle = UrlPriorityScorer.score(classifier, DETAIL, 1, 5, 11, null);
+        int last = UrlPriorityScorer.score(classifier, DETAIL, 1, 10, 11, null);
+
+        assertEquals(score(DETAIL, 1) + 10, first);
+        assertEquals(score(DETAIL, 1) + 5, middle);
+        assertEquals(score(DETAIL, 1), last);
+        // 只有一个候选链接或位置未知时不加分
+        assertEquals(score(DETAIL, 1), UrlPriorityScorer.score(classifier, DETAIL, 1, 0, 1, null));
+    }
+
+    @Test
+    void rewardsRecentLastModified()
+    {
+        int base = score(PLAIN, 1);
+
+        assertEquals(base + 15, UrlPriorityScorer.score(classifier, PLAIN, 1, -1, 0, daysAgo(1)));
+        assertEquals(base + 10, UrlPriorityScorer.score(classifier, PLAIN, 1, -1, 0, daysAgo(20)));
+        assertEquals(base + 3, UrlPriorityScorer.score(classifier, PLAIN, 1, -1, 0, daysAgo(200)));
+        assertEquals(base - 5, UrlPriorityScorer.score(classifier, PLAIN, 1, -1, 0, daysAgo(800)));
+    }
+
+    @Test
+    void staysWithinRange()
+    {
+        int best = UrlPriorityScorer.score(classifier, DETAIL, 0, 0, 100, daysAgo(0));
+        int worst = UrlPriorityScorer.score(classifier, PLAIN, 100, 99, 100, daysAgo(5000));
+
+        assertTrue(best <= UrlPriorityScorer.MAX);
+        assertTrue(worst >= UrlPriorityScorer.MIN);
+        assertTrue(best > worst);
+    }
+
+    @Test
+    void scoredUrlsLeaveTheQueueBestFirst()
+    {
+        BucketedPriorityQueue<UrlInfo> queue = new BucketedPriorityQueue<>(UrlPriorityScorer.MAX, UrlInfo::getPriority);
+        queue.offer(new UrlInfo(PLAIN, 2, null, null, score(PLAIN, 2)));
+        queue.offer(new UrlInfo(LIST, 1, null, null, score(LIST, 1)));
+        queue.offer(new UrlInfo(DETAIL, 3, null, null, score(DETAIL, 3)));
+        queue.offer(new UrlInfo(DETAIL + "?fresh", 1, null, daysAgo(1),
+                UrlPriorityScorer.score(classifier, DETAIL + "?fresh", 1, -1, 0, daysAgo(1))));
+
+        assertEquals(DETAIL + "?fresh", queue.poll().getUrl());
+        assertEquals(DETAIL, queue.poll().getUrl());
+        assertEquals(LIST, queue.poll().getUrl());
+        assertEquals(PLAIN, queue.poll().getUrl());
+    }
+}
@@ -0,0 +1,254 @@
+package com.mayday.crawler.executor.parse;
+
+import com.mayday.crawler.config.HtmlParseConfig;
+import com.mayday.crawler.modl.entity.CrawlerTaskEntity;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 流式解析与完整 DOM 解析的一致性测试
+ * <p>
+ * 同一页面分别用 {@link Jsoup#parse} 与 {@link HtmlTokenizer} + {@link StreamingDocumentBuilder} 解析，
+ * 比较解析规则提取的字段、候选链接、正文中的链接与图片、页面特征；另覆盖分块边界上的实体、原始文本结束标签与无引号属性。
+ */
+class StreamingDocumentBuilderTest
+{
+    private static final String BASE_URI = "https://www.example.com/news/2024/page.html";
+    private static final long MAX_RETAINED = new HtmlParseConfig().getMaxRetainedBytes();
+
+    /**
+     * 与提取逻辑相关的解析结果
+     */
+    private record Extracted(ParseRuleSet.Fields fields, Set<String> candidateLinks, List<String> contentLinks,
+                             List<String> contentImages, String features)
+    {
+    }
+
+    private static ParseRuleSet rules(String contentSelector)
+    {
+        CrawlerTaskEntity task = new CrawlerTaskEntity();
+        task.setContentSelector(contentSelector);
+        // 任务没有 ID 时只使用内置规则，不访问规则服务
+        return new ParseRuleSetFactory(null).create(task);
+    }
+
+    private static StreamingDocumentBuilder.Result stream(Reader reader, ParseRuleSet rules) throws IOException
+    {
+        StreamingDocumentBuilder builder = new StreamingDocumentBuilder(BASE_URI, rules.contentSelector(),
+                rules.contentEval(), rules.retainEvals(), MAX_RETAINED);
+        new HtmlTokenizer(reader, builder).run();
+        return builder.finish();
+    }
+
+    private static Extracted extract(Document doc, PageFeatures features, ParseRuleSet rules)
+    {
+        String selector = rules.contentSelector() != null ? rules.contentSelector() : PageFeatures.DEFAULT_CONTENT_ROOT;
+        List<String> links = new ArrayList<>();
+        List<String> images = new ArrayList<>();
+        for (Element root : doc.select(selector))
+        {
+            root.select("a[href]").forEach(a -> links.add(a.absUrl("href")));
+            root.select("img[src]").forEach(img -> images.add(img.absUrl("src")));
+        }
+        String summary = "articles=" + features.getArticleElementCount() + " h1=" + features.getH1Count()
+                + " meta=" + features.hasArticleMeta() + " links=" + features.getLinkCount()
+                + " list=" + features.hasListContainer() + " cards=" + features.getCardCount()
+                + " pagination=" + features.hasPagination();
+        return new Extracted(rules.extract(doc), features.getCandidateLinks(), links, images, summary);
+    }
+
+    private static Extracted viaDom(String html, ParseRuleSet rules)
+    {
+        Document doc = Jsoup.parse(html, BASE_URI);
+        return extract(doc, PageFeatureExtractor.extract(doc, rules.contentSelector(), rules.contentEval()), rules);
+    }
+
+    private static Extracted viaStream(Reader reader, ParseRuleSet rules) throws IOException
+    {
+        StreamingDocumentBuilder.Result result = stream(reader, rules);
+        assertFalse(result.truncated());
+        return extract(result.document(), result.features(), rules);
+    }
+
+    private static void assertSameExtraction(String html, ParseRuleSet rules) throws IOException
+    {
+        Extracted dom = viaDom(html, rules);
+        Extracted streamed = viaStream(new StringReader(html), rules);
+
+        assertEquals(dom.fields(), streamed.fields());
+        assertEquals(dom.candidateLinks(), streamed.candidateLinks());
+        assertEquals(dom.contentLinks(), streamed.contentLinks());
+        assertEquals(dom.contentImages(), streamed.contentImages());
+        assertEquals(dom.features(), streamed.features());
+    }
+
+    /**
+     * 每次最多返回 step 个字符的 Reader，使读缓冲在任意位置补充
+     */
+    private static Reader chunked(String html, int step)
+    {
+        return new StringReader(html)
+        {
+            @Override
+            public int read(char[] cbuf, int off, int len) throws IOException
+            {
+                return super.read(cbuf, off, Math.min(len, step));
+            }
+        };
+    }
+
+    /**
+     * 列表区（大量卡片）+ 正文区的页面，含 head 中的 script/style、base、注释与表格
+     */
+    private static String listingWithArticle(int cards)
+    {
+        StringBuilder sb = new StringBuilder("<!DOCTYPE html><html><head><meta charset=utf-8>")
+                .append("<title>Big &amp; busy page</title><base href='/news/'>")
+                .append("<script>var tpl = '<div class=\"content\"><a href=/x>';</script><style>p{color:red}</style></head>")
+                .append("<body class=home><div class=nav><ul><li><a href='/n1'>Nav 1</a><li><a href=/n2>Nav 2</a></ul></div>")
+                .append("<div class=article-list>");
+        for (int i = 0; i < cards; i++)
+        {
+            sb.append("<div class='post card'><h2><a href='/post/").append(i).append(".html'>Title ").append(i)
+                    .append("</a></h2><img src='/img/").append(i).append(".jpg' alt=x><p>")
+                    .append("lorem ipsum dolor ".repeat(20)).append("<p>second para<svg><path d='M0'/></svg></div>\n");
+        }
+        sb.append("</div><div class=pagination><a href='?page=2'>下一页</a></div>")
+                .append("<article class=main-article><h1>Headline &mdash; today</h1><span class=author>Jane</span>")
+                .append("<time datetime='2024-01-02'>2024-01-02</time><div class=content><p>Body text <b>bold</b> &lt;ok&gt;")
+                .append("<img src=c.png><a href=\"rel/more.html\">more</a><p>tail &copy; 2024</div></article>")
+                .append("<!-- <a href=/commented> --><table><tr><td>1<td>2<tr><td>3</table></body></html>");
+        return sb.toString();
+    }
+
+    @Test
+    void matchesFullDomOnListingPage() throws IOException
+    {
+        assertSameExtraction(listingWithArticle(3000), rules(null));
+    }
+
+    @Test
+    void matchesFullDomWithTaskContentSelector() throws IOException
+    {
+        String html = listingWithArticle(200);
+        ParseRuleSet rules = rules(".content");
+        assertSameExtraction(html, rules);
+
+        StreamingDocumentBuilder.Result result = stream(new StringReader(html), rules);
+        Document dom = Jsoup.parse(html, BASE_URI);
+        assertEquals(PageFeatureExtractor.extract(dom, ".content", rules.contentEval()).getContentRoots(".content").size(),
+                result.features().getContentRoots(".content").size());
+    }
+
+    @Test
+    void extractsArticleFieldsAndResolvesBaseHref() throws IOException
+    {
+        StreamingDocumentBuilder.Result result = stream(new StringReader(listingWithArticle(10)), rules(null));
+        Document doc = result.document();
+
+        ParseRuleSet.Fields fields = rules(null).extract(doc);
+        assertEquals("Big & busy page", fields.title());
+        assertNotNull(fields.content());
+        assertTrue(fields.content().contains("Body text bold <ok>"));
+        assertEquals("https://www.example.com/news/rel/more.html", doc.selectFirst(".content a").absUrl("href"));
+        assertEquals("https://www.example.com/news/c.png", doc.selectFirst(".content img").absUrl("src"));
+        // 注释与 script 中的标签不产生元素
+        assertTrue(doc.select("a[href=/commented]").isEmpty());
+        assertTrue(doc.select("a[href=/x]").isEmpty());
+    }
+
+    @Test
+    void independentOfReaderChunkSizes() throws IOException
+    {
+        String html = listingWithArticle(300);
+        ParseRuleSet rules = rules(null);
+        Extracted expected = viaStream(new StringReader(html), rules);
+        Random random = new Random(7);
+        for (int step : new int[]{1, 2, 3, 7, 61, 4093, 8191 + random.nextInt(100)})
+        {
+            assertEquals(expected, viaStream(chunked(html, step), rules), "step=" + step);
+        }
+    }
+
+    @Test
+    void entitySplitAtTextChunkBoundaryIsDecoded() throws IOException
+    {
+        ParseRuleSet rules = rules(null);
+        // 让实体落在 8K 文本块边界的各个位置
+        for (int lead = 8170; lead <= 8200; lead++)
+        {
+            for (String entity : new String[]{"&amp;", "&mdash;", "&#8212;", "&#x2014;", "&nbsp;"})
+            {
+                String body = "x".repeat(lead) + entity + "y".repeat(50);
+                String html = "<html><head><title>t</title></head><body><article><p>" + body + "</p></article></body></html>";
+                StreamingDocumentBuilder.Result result = stream(new StringReader(html), rules);
+                String expected = Jsoup.parse(html).selectFirst("article").text();
+                assertEquals(expected, result.document().selectFirst("article").text(), "lead=" + lead + " entity=" + entity);
+                assertFalse(result.document().selectFirst("article").wholeText().contains(entity.substring(0, 2)),
+                        "实体未解码: lead=" + lead + " entity=" + entity);
+            }
+        }
+    }
+
+    @Test
+    void scriptEndTagSplitAcrossBufferRefill() throws IOException
+    {
+        ParseRuleSet rules = rules(null);
+        // 首次读满 16K 缓冲：让 </script> 跨越第一次补充的边界
+        for (int lead = 16_370; lead <= 16_390; lead++)
+        {
+            String prefix = "<html><head><script>var s = '<a href=/in-script>';";
+            String html = prefix + " ".repeat(lead - prefix.length()) + "</script><title>after</title></head><body><article><p>kept"
+                    + "<a href=/real>real</a></p></article></body></html>";
+            assertEquals(lead, html.indexOf("</script>"));
+
+            Document doc = stream(new StringReader(html), rules).document();
+            assertEquals("after", doc.title(), "lead=" + lead);
+            assertEquals(Jsoup.parse(html).selectFirst("article").text(), doc.selectFirst("article").text(), "lead=" + lead);
+            assertTrue(doc.select("a[href=/in-script]").isEmpty(), "lead=" + lead);
+        }
+        // 以小块读取，</script 在任意位置被拆开；结束标签大小写与空白也需识别
+        String html = "<html><head><script>if (a </b) { x = '</scriptx>'; }</SCRIPT >"
+                + "<style>a:after{content:'</a>'}</style></head><body><article><p>ok</p></article></body></html>";
+        for (int step = 1; step <= 13; step++)
+        {
+            Document doc = stream(chunked(html, step), rules).document();
+            assertEquals("ok", doc.selectFirst("article").text(), "step=" + step);
+            assertEquals(Jsoup.parse(html).select("a").size(), doc.select("a").size(), "step=" + step);
+        }
+    }
+
+    @Test
+    void unquotedAttributesMatchFullDom() throws IOException
+    {
+        String html = "<html><head><title>u</title></head><body><article class=post>"
+                + "<a href=/news/1.html class=title>one</a>"
+                + "<a href=https://www.example.com/q?a=1&amp;b=2 target=_blank>query</a>"
+                + "<a href=rel/2.html>two</a><a href=/dir/>dir</a>"
+                + "<img src=/img/a.jpg alt=pic width=100><img src=b.png>"
+                + "<img data-src=/lazy.jpg src=data:image/gif;base64,R0lGOD alt=lazy>"
+                + "</article></body></html>";
+        ParseRuleSet rules = rules(null);
+        assertSameExtraction(html, rules);
+
+        Document doc = stream(new StringReader(html), rules).document();
+        assertEquals("https://www.example.com/q?a=1&b=2", doc.select("article a").get(1).attr("href"));
+        assertEquals("_blank", doc.select("article a").get(1).attr("target"));
+        assertEquals("/lazy.jpg", doc.select("article img").get(2).attr("data-src"));
+    }
+}
@@ -0,0 +1,262 @@
+package com.mayday.crawler.executor.scheduler;
+
+import com.mayday.crawler.config.AdaptiveConcurrencyConfig;
+import com.mayday.crawler.executor.frontier.UrlInfo;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 自适应主机限流测试：AIMD 增减、Retry-After 解析、退避、上下限约束与暂停
+ */
+class AdaptiveHostLimitTest
+{
+    private static final long NOW = 1_700_000_000_000L;
+    private static final int MAX_LIMIT = 4;
+    private static final long START_DELAY = 1000;
+    private static final long DELAY_FLOOR = 800;
+
+    private final AdaptiveConcurrencyConfig config = new AdaptiveConcurrencyConfig();
+
+    private AdaptiveHostLimit newLimit()
+    {
+        return new AdaptiveHostLimit(config, MAX_LIMIT, START_DELAY, DELAY_FLOOR);
+    }
+
+    /**
+     * 以稳定延迟凑满一个成功窗口
+     */
+    private static void succeedWindow(AdaptiveHostLimit limit, long now)
+    {
+        int n = limit.limit();
+        for (int i = 0; i < n; i++)
+        {
+            limit.onSuccess(100, now);
+        }
+    }
+
+    @Test
+    void increasesAdditivelyPerSuccessWindowUpToBounds()
+    {
+        AdaptiveHostLimit limit = newLimit();
+        assertEquals(config.getInitialLimit(), limit.limit());
+        assertEquals(START_DELAY, limit.delay());
+
+        succeedWindow(limit, NOW);
+        assertEquals(2, limit.limit());
+        assertEquals(900, limit.delay());
+        assertEquals(AdaptiveHostLimit.REASON_INCREASE, limit.lastReason());
+
+        // 窗口未凑满时不增加
+        limit.onSuccess(100, NOW);
+        assertEquals(2, limit.limit());
+
+        for (int i = 0; i < 10; i++)
+        {
+            succeedWindow(limit, NOW);
+        }
+        // 并发不超过 maxInFlightPerHost，间隔不低于 delayFloorMillis
+        assertEquals(MAX_LIMIT, limit.limit());
+        assertEquals(DELAY_FLOOR, limit.delay());
+    }
+
+    @Test
+    void decreasesMultiplicativelyOncePerCooldown()
+    {
+        AdaptiveHostLimit limit = newLimit();
+        for (int i = 0; i < 5; i++)
+        {
+            succeedWindow(limit, NOW);
+        }
+        assertEquals(MAX_LIMIT, limit.limit());
+        long delay = limit.delay();
+
+        limit.onThrottled(0, NOW);
+        assertEquals(2, limit.limit());
+        assertEquals(delay * 2, limit.delay());
+        assertEquals(AdaptiveHostLimit.REASON_THROTTLED, limit.lastReason());
+
+        // 冷却期内的后续失败只计数，不再收缩
+        limit.onTimeout(NOW + 10);
+        limit.onThrottled(0, NOW + 20);
+        assertEquals(2, limit.limit());
+        assertEquals(delay * 2, limit.delay());
+        assertEquals(2, limit.throttledCount());
+        assertEquals(1, limit.timeoutCount());
+
+        long afterCooldown = NOW + config.getDecreaseCooldownMillis();
+        limit.onTimeout(afterCooldown);
+        assertEquals(1, limit.limit());
+        assertEquals(delay * 4, limit.delay());
+        assertEquals(AdaptiveHostLimit.REASON_TIMEOUT, limit.lastReason());
+
+        // 并发最低为 1
+        limit.onTimeout(afterCooldown + config.getDecreaseCooldownMillis());
+        assertEquals(1, limit.limit());
+    }
+
+    @Test
+    void delayIsCappedAtMaxDelay()
+    {
+        AdaptiveHostLimit limit = newLimit();
+        long now = NOW;
+        for (int i = 0; i < 20; i++)
+        {
+            limit.onTimeout(now);
+            now += config.getDecreaseCooldownMillis();
+        }
+
+        assertEquals(config.getMaxDelayMillis(), limit.delay());
+    }
+
+    @Test
+    void shrinksWhenLatencyRisesAboveBaseline()
+    {
+        AdaptiveHostLimit limit = newLimit();
+        succeedWindow(limit, NOW);
+        succeedWindow(limit, NOW);
+        int before = limit.limit();
+
+        limit.onSuccess(100L * 10, NOW + 1);
+
+        assertEquals(before / 2, limit.limit());
+        assertEquals(AdaptiveHostLimit.REASON_SLOW, limit.lastReason());
+        assertTrue(limit.latencyMs() > 100);
+    }
+
+    @Test
+    void parsesRetryAfterSecondsAndHttpDates()
+    {
+        assertEquals(120_000, AdaptiveHostLimit.parseRetryAfter("120", NOW));
+        assertEquals(5_000, AdaptiveHostLimit.parseRetryAfter(" 5 ", NOW));
+        assertEquals(0, AdaptiveHostLimit.parseRetryAfter("-3", NOW));
+        assertEquals(0, AdaptiveHostLimit.parseRetryAfter(null, NOW));
+        assertEquals(0, AdaptiveHostLimit.parseRetryAfter("", NOW));
+        assertEquals(0, AdaptiveHostLimit.parseRetryAfter("soon", NOW));
+
+        String future = DateTimeFormatter.RFC_1123_DATE_TIME.format(Instant.ofEpochMilli(NOW + 90_000).atZone(ZoneOffset.UTC));
+        assertEquals(90_000, AdaptiveHostLimit.parseRetryAfter(future, NOW));
+        String past = DateTimeFormatter.RFC_1123_DATE_TIME.format(Instant.ofEpochMilli(NOW - 90_000).atZone(ZoneOffset.UTC));
+        assertEquals(0, AdaptiveHostLimit.parseRetryAfter(past, NOW));
+    }
+
+    @Test
+    void retryAfterPausesHostWithinConfiguredCap()
+    {
+        AdaptiveHostLimit limit = newLimit();
+
+        limit.onThrottled(30_000, NOW);
+        assertEquals(NOW + 30_000, limit.pausedUntil());
+        assertEquals(30_000, limit.backoffMillis(0, NOW));
+
+        // 较短的 Retry-After 不会提前结束已有暂停
+        limit.onThrottled(1_000, NOW + 10);
+        assertEquals(NOW + 30_000, limit.pausedUntil());
+
+        // 超长 Retry-After 按 maxRetryAfterSeconds 截断
+        limit.onThrottled(10 * 3600_000L, NOW + 20);
+        assertEquals(NOW + 20 + config.getMaxRetryAfterSeconds() * 1000L, limit.pausedUntil());
+    }
+
+    @Test
+    void backoffGrowsExponentiallyUpToMaxDelay()
+    {
+        AdaptiveHostLimit limit = newLimit();
+
+        assertEquals(START_DELAY, limit.backoffMillis(0, NOW));
+        assertEquals(START_DELAY * 2, limit.backoffMillis(1, NOW));
+        assertEquals(START_DELAY * 8, limit.backoffMillis(3, NOW));
+        assertEquals(START_DELAY * 32, limit.backoffMillis(5, NOW));
+        assertEquals(config.getMaxDelayMillis(), limit.backoffMillis(20, NOW));
+    }
+
+    @Test
+    void fixedModeIgnoresAimdButHonoursRetryAfter()
+    {
+        config.setEnabled(false);
+        AdaptiveHostLimit limit = newLimit();
+        assertEquals(MAX_LIMIT, limit.limit());
+
+        succeedWindow(limit, NOW);
+        limit.onTimeout(NOW);
+        limit.onThrottled(5_000, NOW);
+
+        assertEquals(MAX_LIMIT, limit.limit());
+        assertEquals(START_DELAY, limit.delay());
+        assertEquals(NOW + 5_000, limit.pausedUntil());
+        assertNull(limit.lastReason());
+    }
+
+    @Test
+    void schedulerHoldsPausedHostUntilRetryAfterElapses()
+    {
+        HostPolitenessScheduler scheduler = new HostPolitenessScheduler(0, 0, false, MAX_LIMIT, config);
+        scheduler.submit(new UrlInfo("https://a.example.com/1", 0));
+        scheduler.submit(new UrlInfo("https://a.example.com/2", 0));
+        scheduler.submit(new UrlInfo("https://b.example.com/1", 0));
+
+        UrlInfo first = scheduler.poll();
+        assertNotNull(first);
+        String host = first.getUrl().substring(0, first.getUrl().lastIndexOf('/'));
+        scheduler.onResponse(first.getUrl(), 429, 50, "120");
+        scheduler.release(first);
+
+        // 被暂停主机的剩余URL不出队，其他主机不受影响
+        UrlInfo other = scheduler.poll();
+        assertNotNull(other);
+        assertFalse(other.getUrl().startsWith(host));
+        assertNull(scheduler.poll());
+        assertEquals(1, scheduler.queuedCount());
+        assertTrue(scheduler.millisUntilReady() > 110_000);
+        assertTrue(scheduler.retryDelayMillis(first.getUrl(), 0) > 110_000);
+    }
+
+    @Test
+    void retryLaterHoldsUrlWithoutHostSlotUntilDue() throws InterruptedException
+    {
+        HostPolitenessScheduler scheduler = new HostPolitenessScheduler(0, 0, false, 1, config);
+        scheduler.submit(new UrlInfo("https://a.example.com/1", 0));
+        scheduler.submit(new UrlInfo("https://a.example.com/2", 0));
+
+        UrlInfo first = scheduler.poll();
+        assertNotNull(first);
+        // 名额释放后交回重试：同一主机的其它URL立即可取，重试URL到期前不出队但计入队列
+        scheduler.release(first);
+        scheduler.retryLater(first.nextAttempt(), System.currentTimeMillis() + 200);
+        assertEquals(2, scheduler.queuedCount());
+        UrlInfo second = scheduler.poll();
+        assertNotNull(second);
+        assertEquals("https://a.example.com/2", second.getUrl());
+        scheduler.release(second);
+        assertNull(scheduler.poll());
+        long wait = scheduler.millisUntilReady();
+        assertTrue(wait > 0 && wait <= 200, "wait=" + wait);
+
+        Thread.sleep(wait + 20);
+        UrlInfo retried = scheduler.poll();
+        assertNotNull(retried);
+        assertEquals(first.getUrl(), retried.getUrl());
+        assertEquals(1, retried.getAttempt());
+        assertEquals(0, scheduler.queuedCount());
+    }
+
+    @Test
+    void drainReturnsUrlsWaitingForRetry()
+    {
+        HostPolitenessScheduler scheduler = new HostPolitenessScheduler(0, 0, false, MAX_LIMIT, config);
+        scheduler.retryLater(new UrlInfo("https://a.example.com/1", 0).nextAttempt(), System.currentTimeMillis() + 60_000);
+        scheduler.submit(new UrlInfo("https://b.example.com/1", 0));
+
+        assertEquals(2, scheduler.drain().size());
+        assertEquals(0, scheduler.queuedCount());
+        assertEquals(-1, scheduler.millisUntilReady());
+    }
+}
@@ -0,0 +1,101 @@
+package com.mayday.crawler.executor.store;
+
+import com.mayday.crawler.config.ImageProbeConfig;
+import com.mayday.crawler.config.ImageStoreConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 内容寻址图片存储测试：入库/复用到记录入队之间的在途引用阻止删除
+ */
+class ImageBlobStoreTest
+{
+    @TempDir
+    Path dir;
+
+    private ImageBlobStore store;
+
+    @BeforeEach
+    void setUp() throws IOException
+    {
+        store = new ImageBlobStore(new ImageProbeConfig(), new ImageStoreConfig());
+        ReflectionTestUtils.setField(store, "imageBasePath", dir.toString());
+        store.init();
+    }
+
+    @AfterEach
+    void tearDown()
+    {
+        store.shutdown();
+    }
+
+    private static byte[] png() throws IOException
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(120, 80, BufferedImage.TYPE_INT_RGB), "png", out);
+        return out.toByteArray();
+    }
+
+    private ImageBlobStore.Blob store(byte[] bytes) throws IOException
+    {
+        return store.store(new ByteArrayInputStream(bytes), "png", 1024 * 1024);
+    }
+
+    @Test
+    void storedBlobIsKeptUntilReleased() throws IOException
+    {
+        byte[] bytes = png();
+        ImageBlobStore.Blob first = store(bytes);
+        store.release(first.fileName());
+        // 相同内容再次下载：文件已存在，记录尚未入队
+        ImageBlobStore.Blob second = store(bytes);
+        assertTrue(second.existed());
+        assertEquals(first.fileName(), second.fileName());
+
+        AtomicInteger counted = new AtomicInteger();
+        assertFalse(store.deleteIfUnreferenced(second.dir(), second.fileName(), () -> {
+            counted.incrementAndGet();
+            return true;
+        }));
+        assertEquals(0, counted.get(), "有在途引用时不应统计引用");
+        assertTrue(store.contains(second.dir(), second.fileName()));
+
+        store.release(second.fileName());
+        assertTrue(store.deleteIfUnreferenced(second.dir(), second.fileName(), () -> true));
+        assertFalse(store.contains(second.dir(), second.fileName()));
+    }
+
+    @Test
+    void retainedFileIsKeptUntilReleased() throws IOException
+    {
+        ImageBlobStore.Blob blob = store(png());
+        store.release(blob.fileName());
+        String filePath = blob.dir().toString();
+
+        assertTrue(store.retain(filePath, blob.fileName()));
+        assertTrue(store.retain(filePath, blob.fileName()));
+        store.release(blob.fileName());
+        assertFalse(store.deleteIfUnreferenced(blob.dir(), blob.fileName(), () -> true));
+
+        store.release(blob.fileName());
+        // 库中仍有引用时保留
+        assertFalse(store.deleteIfUnreferenced(blob.dir(), blob.fileName(), () -> false));
+        assertTrue(store.deleteIfUnreferenced(blob.dir(), blob.fileName(), () -> true));
+        assertFalse(store.retain(filePath, blob.fileName()), "文件已删除时不能复用");
+    }
+}
@@ -0,0 +1,290 @@
+package com.mayday.crawler.executor.store;
+
+import com.mayday.crawler.config.ImageStoreConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 段文件图片存储测试：读写往返、重新打开与崩溃恢复、段滚动与压缩
+ */
+class PackedBlobBackendTest
+{
+    private static final int SEGMENT_BYTES = 1024 * 1024;
+
+    @TempDir
+    Path dir;
+
+    private final ImageStoreConfig config = new ImageStoreConfig();
+    private final List<PackedBlobBackend> opened = new ArrayList<>();
+    private final Random random = new Random(42);
+
+    @BeforeEach
+    void setUp()
+    {
+        config.setSegmentMaxBytes(SEGMENT_BYTES);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException
+    {
+        for (PackedBlobBackend backend : opened)
+        {
+            backend.close();
+        }
+    }
+
+    private PackedBlobBackend open() throws IOException
+    {
+        PackedBlobBackend backend = new PackedBlobBackend(dir.resolve("packed"), config).open();
+        opened.add(backend);
+        return backend;
+    }
+
+    private byte[] bytes(int length)
+    {
+        byte[] data = new byte[length];
+        random.nextBytes(data);
+        return data;
+    }
+
+    private void put(PackedBlobBackend backend, String key, byte[] data) throws IOException
+    {
+        Path staged = Files.createTempFile(dir, "staged", ".tmp");
+        Files.write(staged, data);
+        assertTrue(backend.put(key, staged));
+        assertFalse(Files.exists(staged), "写入后应删除暂存文件");
+    }
+
+    private static byte[] read(PackedBlobBackend backend, String key) throws IOException
+    {
+        BlobContent content = backend.open(key);
+        if (content == null)
+        {
+            return null;
+        }
+        assertFalse(content.isFile());
+        try (InputStream in = content.inputStream())
+        {
+            byte[] data = in.readAllBytes();
+            assertEquals(content.length(), data.length);
+            return data;
+        }
+    }
+
+    private List<Path> segmentFiles() throws IOException
+    {
+        try (Stream<Path> files = Files.list(dir.resolve("packed")))
+        {
+            return files.filter(f -> f.getFileName().toString().startsWith("seg-")).sorted().toList();
+        }
+    }
+
+    @Test
+    void putOpenDeleteRoundTrip() throws IOException
+    {
+        PackedBlobBackend backend = open();
+        byte[] a = bytes(5000);
+        byte[] b = bytes(1);
+
+        put(backend, "aa/a.jpg", a);
+        put(backend, "bb/b.png", b);
+
+        assertTrue(backend.contains("aa/a.jpg"));
+        assertArrayEquals(a, read(backend, "aa/a.jpg"));
+        assertArrayEquals(b, read(backend, "bb/b.png"));
+        assertTrue(backend.owns(backend.dirFor("aa/a.jpg")));
+
+        // 同一 key 已存在时不重复写入
+        Path staged = Files.write(Files.createTempFile(dir, "dup", ".tmp"), bytes(10));
+        assertFalse(backend.put("aa/a.jpg", staged));
+        assertArrayEquals(a, read(backend, "aa/a.jpg"));
+
+        assertTrue(backend.delete("aa/a.jpg"));
+        assertFalse(backend.contains("aa/a.jpg"));
+        assertNull(backend.open("aa/a.jpg"));
+        assertFalse(backend.delete("aa/a.jpg"));
+        assertArrayEquals(b, read(backend, "bb/b.png"));
+        assertNull(backend.open("missing.jpg"));
+    }
+
+    @Test
+    void reopenLoadsSnapshot() throws IOException
+    {
+        PackedBlobBackend backend = open();
+        byte[] a = bytes(2000);
+        byte[] b = bytes(3000);
+        put(backend, "a.jpg", a);
+        put(backend, "b.jpg", b);
+        backend.delete("a.jpg");
+        backend.close();
+        assertTrue(Files.exists(dir.resolve("packed/index.dat")));
+
+        PackedBlobBackend reopened = open();
+        assertNull(reopened.open("a.jpg"));
+        assertArrayEquals(b, read(reopened, "b.jpg"));
+    }
+
+    @Test
+    void reopenWithoutSnapshotRebuildsFromSegments() throws IOException
+    {
+        PackedBlobBackend backend = open();
+        byte[] a = bytes(2000);
+        byte[] b = bytes(3000);
+        put(backend, "a.jpg", a);
+        put(backend, "b.jpg", b);
+        backend.delete("b.jpg");
+        backend.close();
+        Files.delete(dir.resolve("packed/index.dat"));
+
+        PackedBlobBackend reopened = open();
+        assertArrayEquals(a, read(reopened, "a.jpg"));
+        assertNull(reopened.open("b.jpg"));
+    }
+
+    @Test
+    void reopenReplaysRecordsWrittenAfterSnapshot() throws IOException
+    {
+        config.setSnapshotEveryOps(1_000_000);
+        PackedBlobBackend backend = open();
+        byte[] a = bytes(2000);
+        byte[] b = bytes(3000);
+        put(backend, "a.jpg", a);
+        backend.snapshot();
+        put(backend, "b.jpg", b);
+        backend.delete("a.jpg");
+
+        // 未关闭即重新打开（模拟进程崩溃）：快照只含 a，其后的写入与删除需要重放
+        PackedBlobBackend recovered = open();
+        assertNull(recovered.open("a.jpg"));
+        assertArrayEquals(b, read(recovered, "b.jpg"));
+    }
+
+    @Test
+    void reopenTruncatesTornTailRecord() throws IOException
+    {
+        PackedBlobBackend backend = open();
+        byte[] a = bytes(4000);
+        put(backend, "a.jpg", a);
+        backend.close();
+        Path segment = segmentFiles().get(0);
+        long intact = Files.size(segment);
+        // 模拟写入中断：只写了半条记录头
+        Files.write(segment, new byte[]{0x4D, 0x42, 0x50, 0x31, 1, 0}, StandardOpenOption.APPEND);
+        Files.delete(dir.resolve("packed/index.dat"));
+
+        PackedBlobBackend recovered = open();
+        assertEquals(intact, Files.size(segment));
+        assertArrayEquals(a, read(recovered, "a.jpg"));
+
+        // 截断后继续追加，再次打开仍可读
+        byte[] b = bytes(100);
+        put(recovered, "b.jpg", b);
+        recovered.close();
+        PackedBlobBackend again = open();
+        assertArrayEquals(a, read(again, "a.jpg"));
+        assertArrayEquals(b, read(again, "b.jpg"));
+    }
+
+    @Test
+    void rollsOverToNewSegmentWhenFull() throws IOException
+    {
+        PackedBlobBackend backend = open();
+        List<byte[]> blobs = new ArrayList<>();
+        for (int i = 0; i < 10; i++)
+        {
+            byte[] data = bytes(300 * 1024);
+            blobs.add(data);
+            put(backend, "blob-" + i + ".jpg", data);
+        }
+
+        List<Path> segments = segmentFiles();
+        assertEquals(4, segments.size());
+        for (Path segment : segments)
+        {
+            assertTrue(Files.size(segment) <= SEGMENT_BYTES);
+        }
+        for (int i = 0; i < blobs.size(); i++)
+        {
+            assertArrayEquals(blobs.get(i), read(backend, "blob-" + i + ".jpg"));
+        }
+
+        backend.close();
+        PackedBlobBackend reopened = open();
+        for (int i = 0; i < blobs.size(); i++)
+        {
+            assertArrayEquals(blobs.get(i), read(reopened, "blob-" + i + ".jpg"));
+        }
+    }
+
+    @Test
+    void rejectsBlobLargerThanSegment() throws IOException
+    {
+        PackedBlobBackend backend = open();
+        Path staged = Files.write(Files.createTempFile(dir, "big", ".tmp"), bytes(SEGMENT_BYTES));
+
+        try
+        {
+            backend.put("big.jpg", staged);
+        }
+        catch (IOException expected)
+        {
+            assertFalse(backend.contains("big.jpg"));
+            return;
+        }
+        throw new AssertionError("超过段大小的图片应被拒绝");
+    }
+
+    @Test
+    void compactMovesLiveRecordsAndDropsDeadSegments() throws IOException
+    {
+        PackedBlobBackend backend = open();
+        List<byte[]> blobs = new ArrayList<>();
+        for (int i = 0; i < 9; i++)
+        {
+            byte[] data = bytes(300 * 1024);
+            blobs.add(data);
+            put(backend, "blob-" + i + ".jpg", data);
+        }
+        Path first = segmentFiles().get(0);
+        // 第一个段的 3 张中删除 2 张，死数据占比超过阈值
+        backend.delete("blob-0.jpg");
+        backend.delete("blob-1.jpg");
+
+        assertTrue(backend.compact() > 0);
+        assertFalse(Files.exists(first));
+        assertNull(backend.open("blob-0.jpg"));
+        for (int i = 2; i < blobs.size(); i++)
+        {
+            assertArrayEquals(blobs.get(i), read(backend, "blob-" + i + ".jpg"));
+        }
+
+        backend.close();
+        PackedBlobBackend reopened = open();
+        assertNull(reopened.open("blob-1.jpg"));
+        for (int i = 2; i < blobs.size(); i++)
+        {
+            BlobContent content = reopened.open("blob-" + i + ".jpg");
+            assertNotNull(content);
+            assertArrayEquals(blobs.get(i), read(reopened, "blob-" + i + ".jpg"));
+        }
+    }
+}
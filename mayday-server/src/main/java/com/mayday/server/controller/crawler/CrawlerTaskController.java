@@ -3,7 +3,9 @@ package com.mayday.server.controller.crawler;
 import com.mayday.common.web.AjaxResult;
 import com.mayday.crawler.modl.dto.CrawlerTaskEditReq;
 import com.mayday.crawler.modl.dto.CrawlerTaskQueryReq;
+import com.mayday.crawler.modl.entity.CrawlerParseRuleEntity;
 import com.mayday.crawler.modl.entity.CrawlerTaskEntity;
+import com.mayday.crawler.service.ICrawlerParseRuleService;
 import com.mayday.crawler.service.ICrawlerTaskService;
 import com.mybatisflex.core.paginate.Page;
 import io.swagger.v3.oas.annotations.Operation;
@@ -13,6 +15,8 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 /**
  * 爬虫任务管理接口
  *
@@ -26,6 +30,7 @@ import org.springframework.web.bind.annotation.*;
 public class CrawlerTaskController {
 
     private final ICrawlerTaskService taskService;
+    private final ICrawlerParseRuleService parseRuleService;
 
     @PostMapping("/list")
     @Operation(summary = "任务列表")
@@ -100,6 +105,20 @@ public class CrawlerTaskController {
         return AjaxResult.success(taskService.getTaskStatus(id));
     }
 
+    @GetMapping("/{id}/parseRules")
+    @Operation(summary = "查询任务解析规则")
+    @PreAuthorize("hasAuthority('crawler:task:list')")
+    public AjaxResult listParseRules(@PathVariable("id") Long id) {
+        return AjaxResult.success(parseRuleService.listByTask(id));
+    }
+
+    @PutMapping("/{id}/parseRules")
+    @Operation(summary = "保存任务解析规则（整体替换，下次运行生效）")
+    @PreAuthorize("hasAuthority('crawler:task:edit')")
+    public AjaxResult saveParseRules(@PathVariable("id") Long id, @RequestBody List<CrawlerParseRuleEntity> rules) {
+        return AjaxResult.success(parseRuleService.replaceRules(id, rules));
+    }
+
     @GetMapping("/running")
     @Operation(summary = "查询所有运行中的任务")
     @PreAuthorize("hasAuthority('crawler:task:list')")
@@ -122,11 +122,14 @@ CREATE TABLE `crawler_article`  (
                                     `source_site` varchar(200) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NULL DEFAULT '' COMMENT '来源站点',
                                     `content_hash` varchar(64) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NULL DEFAULT '' COMMENT '内容哈希值（用于增量判断）',
                                     `is_updated` tinyint NULL DEFAULT 0 COMMENT '是否已更新：0-否 1-是',
+                                    `etag` varchar(255) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NULL DEFAULT NULL COMMENT '响应头 ETag（增量爬取条件请求）',
+                                    `last_modified` varchar(64) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NULL DEFAULT NULL COMMENT '响应头 Last-Modified（增量爬取条件请求）',
                                     `create_time` datetime NULL DEFAULT CURRENT_TIMESTAMP,
                                     `update_time` datetime NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
                                     PRIMARY KEY (`id`) USING BTREE,
                                     INDEX `idx_crawler_article_task`(`task_id` ASC) USING BTREE,
                                     INDEX `idx_crawler_article_hash`(`url_hash` ASC) USING BTREE,
+                                    INDEX `idx_crawler_article_task_hash`(`task_id` ASC, `url_hash` ASC) USING BTREE,
                                     INDEX `idx_crawler_article_content_hash`(`content_hash` ASC) USING BTREE,
                                     INDEX `idx_crawler_article_pt`(`publish_time` ASC) USING BTREE
 ) ENGINE = InnoDB AUTO_INCREMENT = 934 CHARACTER SET = utf8mb4 COLLATE = utf8mb4_0900_ai_ci COMMENT = '文章表' ROW_FORMAT = Dynamic;
@@ -161,7 +164,8 @@ CREATE TABLE `crawler_image`  (
                                   INDEX `idx_crawler_image_article`(`article_id` ASC) USING BTREE,
                                   INDEX `idx_crawler_image_hash`(`url_hash` ASC) USING BTREE,
                                   INDEX `idx_crawler_image_md5`(`md5` ASC) USING BTREE,
-                                  INDEX `idx_crawler_image_status`(`download_status` ASC) USING BTREE
+                                  INDEX `idx_crawler_image_status`(`download_status` ASC) USING BTREE,
+                                  INDEX `idx_crawler_image_file`(`file_path` ASC, `file_name` ASC) USING BTREE
 ) ENGINE = InnoDB AUTO_INCREMENT = 14426 CHARACTER SET = utf8mb4 COLLATE = utf8mb4_0900_ai_ci COMMENT = '图片表' ROW_FORMAT = Dynamic;
 
 -- ----------------------------
@@ -200,14 +204,14 @@ CREATE TABLE `crawler_parse_rule`  (
                                        `id` bigint NOT NULL AUTO_INCREMENT COMMENT '主键ID',
                                        `task_id` bigint NOT NULL COMMENT '任务ID',
                                        `rule_type` varchar(20) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NOT NULL COMMENT '规则类型：TITLE-标题 CONTENT-正文 AUTHOR-作者 PUBLISH_TIME-发布时间',
-                                       `rule_method` varchar(20) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NOT NULL COMMENT '解析方法：CSS_SELECTOR XPATH',
+                                       `rule_method` varchar(20) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NOT NULL COMMENT '解析方法：CSS_SELECTOR XPATH REGEX',
                                        `rule_value` varchar(500) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NOT NULL COMMENT '规则值',
                                        `priority` int NULL DEFAULT 0 COMMENT '优先级（数字越大优先级越高，用于多规则兜底）',
                                        `is_active` tinyint NULL DEFAULT 1 COMMENT '是否启用：0-否 1-是',
                                        `create_time` datetime NULL DEFAULT CURRENT_TIMESTAMP,
                                        `update_time` datetime NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
                                        PRIMARY KEY (`id`) USING BTREE,
-                                       INDEX `idx_crawler_parse_rule_task`(`task_id` ASC) USING BTREE,
+                                       INDEX `idx_crawler_parse_rule_task`(`task_id` ASC, `is_active` ASC, `priority` DESC) USING BTREE,
                                        INDEX `idx_crawler_parse_rule_type`(`rule_type` ASC) USING BTREE
 ) ENGINE = InnoDB AUTO_INCREMENT = 1 CHARACTER SET = utf8mb4 COLLATE = utf8mb4_0900_ai_ci COMMENT = '解析规则表' ROW_FORMAT = Dynamic;
 
@@ -267,6 +271,7 @@ CREATE TABLE `crawler_task`  (
                                  `random_interval` tinyint NULL DEFAULT 0 COMMENT '是否随机化间隔：0-否 1-是',
                                  `rotate_user_agent` tinyint NULL DEFAULT 0 COMMENT '是否轮换User-Agent：0-否 1-是',
                                  `list_max_pages` int NULL DEFAULT 1 COMMENT '列表页最大翻页数（仅列表页场景，默认1）',
+                                 `max_urls` int NULL DEFAULT 10000 COMMENT '最大爬取URL数',
                                  `status` varchar(20) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NULL DEFAULT 'NOT_STARTED' COMMENT '任务状态：NOT_STARTED-未启动 RUNNING-运行中 PAUSED-已暂停 COMPLETED-已完成 ERROR-异常 STOPPED-已停止',
                                  `total_urls` int NULL DEFAULT 0 COMMENT '总URL数',
                                  `crawled_urls` int NULL DEFAULT 0 COMMENT '已爬取URL数',
@@ -281,9 +286,15 @@ CREATE TABLE `crawler_task`  (
                                  `update_time` datetime NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
                                  `remark` varchar(500) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NULL DEFAULT '',
                                  `download_images` tinyint NULL DEFAULT 0 COMMENT '是否下載圖片：0-否 1-是',
+                                 `incremental` tinyint NULL DEFAULT 0 COMMENT '是否增量爬取：0-否 1-是',
+                                 `use_sitemap` tinyint NULL DEFAULT 0 COMMENT '是否从 sitemap 播种：0-否 1-是',
+                                 `respect_robots` tinyint NULL DEFAULT 0 COMMENT '是否遵守 robots.txt：0-否 1-是',
+                                 `distributed` tinyint NULL DEFAULT 0 COMMENT '是否分布式执行：0-否 1-是',
                                  `content_selector` varchar(500) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NULL DEFAULT NULL COMMENT '正文容器选择器（CSS选择器，用于定位正文区域，如：#conttpc, .content, article等）',
                                  `image_selector` varchar(500) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NULL DEFAULT NULL COMMENT '图片选择器（CSS选择器，用于定位正文中的图片，如：img, .post-content img等。如果为空，则从正文容器中提取所有img）',
                                  `exclude_selector` varchar(500) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NULL DEFAULT NULL COMMENT '排除选择器（CSS选择器，用于排除不需要的区域，如：.related, .recommend, aside等）',
+                                 `article_url_patterns` varchar(1000) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NULL DEFAULT NULL COMMENT '文章链接规则（URL包含即视为文章链接，换行或逗号分隔）',
+                                 `exclude_url_patterns` varchar(1000) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NULL DEFAULT NULL COMMENT '排除链接规则（URL包含即不视为文章链接，换行或逗号分隔）',
                                  PRIMARY KEY (`id`) USING BTREE,
                                  INDEX `idx_crawler_task_status`(`status` ASC) USING BTREE,
                                  INDEX `idx_crawler_task_ct`(`create_time` ASC) USING BTREE
@@ -301,7 +312,8 @@ CREATE TABLE `crawler_url_queue`  (
                                       `url_hash` varchar(64) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NOT NULL COMMENT 'URL哈希值（用于去重）',
                                       `depth` int NULL DEFAULT 0 COMMENT 'URL深度',
                                       `priority` int NULL DEFAULT 0 COMMENT '优先级（数字越大优先级越高）',
-                                      `status` varchar(20) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NULL DEFAULT 'PENDING' COMMENT '状态：PENDING-待处理 PROCESSING-处理中 SUCCESS-成功 FAILED-失败',
+                                      `lastmod` datetime NULL DEFAULT NULL COMMENT '页面最后修改时间（来自 sitemap 的 lastmod）',
+                                      `status` varchar(20) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NULL DEFAULT 'PENDING' COMMENT '状态：PENDING-待处理 PROCESSING-处理中 SUCCESS-成功 FAILED-失败 SKIPPED-已跳过',
                                       `retry_count` int NULL DEFAULT 0 COMMENT '重试次数',
                                       `error_msg` varchar(1000) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NULL DEFAULT '' COMMENT '错误信息',
                                       `create_time` datetime NULL DEFAULT CURRENT_TIMESTAMP,
@@ -310,7 +322,8 @@ CREATE TABLE `crawler_url_queue`  (
                                       INDEX `idx_crawler_url_queue_task`(`task_id` ASC) USING BTREE,
                                       INDEX `idx_crawler_url_queue_hash`(`url_hash` ASC) USING BTREE,
                                       INDEX `idx_crawler_url_queue_status`(`status` ASC) USING BTREE,
-                                      INDEX `idx_crawler_url_queue_priority`(`priority` DESC) USING BTREE
+                                      INDEX `idx_crawler_url_queue_priority`(`priority` DESC) USING BTREE,
+                                      INDEX `idx_crawler_url_queue_lease`(`task_id` ASC, `status` ASC, `priority` DESC, `id` ASC) USING BTREE
 ) ENGINE = InnoDB AUTO_INCREMENT = 1 CHARACTER SET = utf8mb4 COLLATE = utf8mb4_0900_ai_ci COMMENT = 'URL队列表' ROW_FORMAT = Dynamic;
 
 -- ----------------------------
@@ -0,0 +1,3 @@
+-- 爬虫分布式执行：任务开关（URL队列与去重集合存放在 Redis）
+ALTER TABLE `crawler_task`
+    ADD COLUMN `distributed` tinyint NULL DEFAULT 0 COMMENT '是否分布式执行：0-否 1-是' AFTER `respect_robots`;
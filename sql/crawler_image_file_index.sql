@@ -0,0 +1,3 @@
+-- 爬虫图片：按文件统计引用数（内容寻址存储删除图片前按 file_path + file_name 计数）
+ALTER TABLE `crawler_image`
+    ADD INDEX `idx_crawler_image_file`(`file_path` ASC, `file_name` ASC) USING BTREE;
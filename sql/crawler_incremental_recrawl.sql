@@ -0,0 +1,8 @@
+-- 爬虫增量模式：任务开关 + 文章级条件请求校验值
+ALTER TABLE `crawler_task`
+    ADD COLUMN `incremental` tinyint NULL DEFAULT 0 COMMENT '是否增量爬取：0-否 1-是' AFTER `download_images`;
+
+ALTER TABLE `crawler_article`
+    ADD COLUMN `etag` varchar(255) NULL DEFAULT NULL COMMENT '响应头 ETag（增量爬取条件请求）' AFTER `is_updated`,
+    ADD COLUMN `last_modified` varchar(64) NULL DEFAULT NULL COMMENT '响应头 Last-Modified（增量爬取条件请求）' AFTER `etag`,
+    ADD INDEX `idx_crawler_article_task_hash`(`task_id` ASC, `url_hash` ASC) USING BTREE;
@@ -0,0 +1,7 @@
+-- 爬虫解析规则引擎：支持正则规则，任务启动时按任务加载已启用规则
+ALTER TABLE `crawler_parse_rule`
+    MODIFY COLUMN `rule_method` varchar(20) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NOT NULL COMMENT '解析方法：CSS_SELECTOR XPATH REGEX';
+
+ALTER TABLE `crawler_parse_rule`
+    DROP INDEX `idx_crawler_parse_rule_task`,
+    ADD INDEX `idx_crawler_parse_rule_task` (`task_id`, `is_active`, `priority` DESC);
@@ -0,0 +1,7 @@
+-- 爬虫 robots.txt / sitemap 播种：任务开关 + 队列记录 lastmod
+ALTER TABLE `crawler_task`
+    ADD COLUMN `use_sitemap` tinyint NULL DEFAULT 0 COMMENT '是否从 sitemap 播种：0-否 1-是' AFTER `incremental`,
+    ADD COLUMN `respect_robots` tinyint NULL DEFAULT 0 COMMENT '是否遵守 robots.txt：0-否 1-是' AFTER `use_sitemap`;
+
+ALTER TABLE `crawler_url_queue`
+    ADD COLUMN `lastmod` datetime NULL DEFAULT NULL COMMENT '页面最后修改时间（来自 sitemap 的 lastmod）' AFTER `priority`;
@@ -0,0 +1,3 @@
+-- 爬虫任务：最大爬取URL数改为任务级配置
+ALTER TABLE `crawler_task`
+    ADD COLUMN `max_urls` int NULL DEFAULT 10000 COMMENT '最大爬取URL数' AFTER `list_max_pages`;
@@ -0,0 +1,4 @@
+-- 爬虫URL分类：任务级文章链接/排除链接规则
+ALTER TABLE `crawler_task`
+    ADD COLUMN `article_url_patterns` varchar(1000) NULL DEFAULT NULL COMMENT '文章链接规则（URL包含即视为文章链接，换行或逗号分隔）' AFTER `exclude_selector`,
+    ADD COLUMN `exclude_url_patterns` varchar(1000) NULL DEFAULT NULL COMMENT '排除链接规则（URL包含即不视为文章链接，换行或逗号分隔）' AFTER `article_url_patterns`;
@@ -0,0 +1,6 @@
+-- 持久化爬取边界：按任务+状态+优先级租用URL
+ALTER TABLE `crawler_url_queue`
+    ADD INDEX `idx_crawler_url_queue_lease` (`task_id`, `status`, `priority` DESC, `id`);
+
+ALTER TABLE `crawler_url_queue`
+    MODIFY COLUMN `status` varchar(20) NULL DEFAULT 'PENDING' COMMENT '状态：PENDING-待处理 PROCESSING-处理中 SUCCESS-成功 FAILED-失败 SKIPPED-已跳过';